@@ -2,28 +2,50 @@ package com.optahaul.mas_java_poc.config;
 
 import java.util.concurrent.Executor;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
+import com.optahaul.mas_java_poc.multitenancy.TenantContext;
+
+/**
+ * Async executors. With spring.threads.virtual.enabled=true each task gets its
+ * own virtual thread, limited to as many tasks in flight as the platform pool
+ * would have accepted (max threads plus queue). Either way tasks run as the
+ * submitting request's tenant
+ */
 @Configuration
 @EnableAsync
 public class AsyncConfig {
 
+	@Value("${spring.threads.virtual.enabled:false}")
+	private boolean virtualThreads;
+
 	@Bean(name = "taskExecutor")
 	public Executor taskExecutor() {
+		if (virtualThreads) {
+			return virtualExecutor("async-task-", 10 + 100);
+		}
 		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
 		executor.setCorePoolSize(5);
 		executor.setMaxPoolSize(10);
 		executor.setQueueCapacity(100);
 		executor.setThreadNamePrefix("async-task-");
+		executor.setTaskDecorator(TenantContext::propagate);
 		executor.initialize();
 		return executor;
 	}
 
 	@Bean(name = "longRunningTaskExecutor")
 	public Executor longRunningTaskExecutor() {
+		if (virtualThreads) {
+			SimpleAsyncTaskExecutor executor = virtualExecutor("long-running-task-", 20 + 500);
+			executor.setTaskTerminationTimeout(60_000);
+			return executor;
+		}
 		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
 		executor.setCorePoolSize(10);
 		executor.setMaxPoolSize(20);
@@ -31,7 +53,16 @@ public class AsyncConfig {
 		executor.setThreadNamePrefix("long-running-task-");
 		executor.setAwaitTerminationSeconds(60);
 		executor.setWaitForTasksToCompleteOnShutdown(true);
+		executor.setTaskDecorator(TenantContext::propagate);
 		executor.initialize();
 		return executor;
 	}
+
+	private static SimpleAsyncTaskExecutor virtualExecutor(String threadNamePrefix, int concurrencyLimit) {
+		SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+		executor.setVirtualThreads(true);
+		executor.setConcurrencyLimit(concurrencyLimit);
+		executor.setTaskDecorator(TenantContext::propagate);
+		return executor;
+	}
 }
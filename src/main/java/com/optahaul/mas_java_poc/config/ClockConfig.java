@@ -0,0 +1,19 @@
+package com.optahaul.mas_java_poc.config;
+
+import java.time.Clock;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * The clock catalog timestamps and table versions are taken from, so tests
+ * can move time instead of sleeping
+ */
+@Configuration
+public class ClockConfig {
+
+	@Bean
+	public Clock clock() {
+		return Clock.systemDefaultZone();
+	}
+}
@@ -12,8 +12,10 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.quartz.QuartzDataSource;
 import org.springframework.boot.autoconfigure.quartz.QuartzTransactionManager;
+import org.springframework.boot.autoconfigure.quartz.SchedulerFactoryBeanCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.jdbc.datasource.DataSourceTransactionManager;
 import org.springframework.transaction.PlatformTransactionManager;
 
@@ -47,6 +49,20 @@ public class QuartzConfig {
 		return new DataSourceTransactionManager(catalogDataSource);
 	}
 
+	/**
+	 * In virtual-thread mode jobs run on virtual threads instead of Quartz's
+	 * worker pool, still at most threadCount at a time
+	 */
+	@Bean
+	@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+	public SchedulerFactoryBeanCustomizer virtualThreadJobExecutor(
+			@Value("${spring.quartz.properties.org.quartz.threadPool.threadCount:10}") int threadCount) {
+		SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("quartz-job-");
+		executor.setVirtualThreads(true);
+		executor.setConcurrencyLimit(threadCount);
+		return schedulerFactoryBean -> schedulerFactoryBean.setTaskExecutor(executor);
+	}
+
 	@Bean
 	public JobDetail scheduledLoggingJobDetail() {
 		return JobBuilder.newJob(ScheduledLoggingJob.class)
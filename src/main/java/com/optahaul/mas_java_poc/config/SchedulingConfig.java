@@ -0,0 +1,13 @@
+package com.optahaul.mas_java_poc.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables {@code @Scheduled} housekeeping tasks such as idle tenant pool
+ * eviction
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -71,7 +71,9 @@ public class SecurityConfig {
 						.requestMatchers("/swagger-ui", "/swagger-ui/**", "/swagger-ui.html").permitAll()
 						.requestMatchers("/swagger-resources", "/swagger-resources/**").permitAll()
 						.requestMatchers("/webjars/**").permitAll()
-						.requestMatchers("/actuator/**").permitAll()
+						// Probes stay open; the other endpoints list tenants, pools and migrations
+						.requestMatchers("/actuator/health", "/actuator/health/**", "/actuator/info").permitAll()
+						.requestMatchers("/actuator/**").hasRole("ADMIN")
 						// Protected endpoints
 						.requestMatchers("/api/**").authenticated()
 						.anyRequest().authenticated())
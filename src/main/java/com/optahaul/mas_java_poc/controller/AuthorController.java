@@ -1,8 +1,12 @@
 package com.optahaul.mas_java_poc.controller;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.OutputStream;
 
+import org.springdoc.core.annotations.ParameterObject;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -11,13 +15,23 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.optahaul.mas_java_poc.dto.AuthorDto;
 import com.optahaul.mas_java_poc.dto.CreateAuthorRequest;
+import com.optahaul.mas_java_poc.dto.ImportReport;
+import com.optahaul.mas_java_poc.dto.PageParams;
+import com.optahaul.mas_java_poc.dto.PageResponse;
 import com.optahaul.mas_java_poc.service.AuthorService;
+import com.optahaul.mas_java_poc.service.CatalogExportService;
+import com.optahaul.mas_java_poc.service.CatalogFormat;
+import com.optahaul.mas_java_poc.service.CatalogImportService;
+import com.optahaul.mas_java_poc.service.CatalogVersionService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -27,6 +41,8 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 
@@ -37,6 +53,11 @@ import lombok.RequiredArgsConstructor;
 public class AuthorController {
 
 	private final AuthorService authorService;
+	private final CatalogVersionService catalogVersionService;
+	private final ConditionalGet conditionalGet;
+	private final CatalogImportService catalogImportService;
+	private final CatalogExportService catalogExportService;
+	private final ObjectMapper objectMapper;
 
 	@PostMapping
 	@PreAuthorize("hasAnyRole('ADMIN', 'USER')")
@@ -53,35 +74,77 @@ public class AuthorController {
 		return ResponseEntity.status(HttpStatus.CREATED).body(created);
 	}
 
+	@PostMapping(value = "/import", consumes = { "text/csv", MediaType.APPLICATION_NDJSON_VALUE },
+			produces = MediaType.APPLICATION_NDJSON_VALUE)
+	@PreAuthorize("hasAnyRole('ADMIN', 'USER')")
+	@SecurityRequirement(name = "bearerAuth")
+	@Operation(summary = "Bulk import authors", description = "Streams authors from CSV (header row: "
+			+ "name,birthDate,bio) or NDJSON. The response streams rejected rows and progress reports as "
+			+ "NDJSON, ending with the final report")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200", description = "Import ran; see the status of the last report",
+					content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+							schema = @Schema(implementation = ImportReport.class))),
+			@ApiResponse(responseCode = "403", description = "Access denied")
+	})
+	public void importAuthors(HttpServletRequest request, HttpServletResponse response) throws IOException {
+		catalogImportService.importAuthors(request.getInputStream(),
+				CatalogFormat.ofContentType(request.getContentType()),
+				new ImportResponseWriter(objectMapper, response));
+	}
+
 	@GetMapping("/{id}")
 	@Operation(summary = "Get author by ID", description = "Retrieves an author by their ID")
 	@ApiResponses(value = {
 			@ApiResponse(responseCode = "200", description = "Author found",
 					content = @Content(schema = @Schema(implementation = AuthorDto.class))),
+			@ApiResponse(responseCode = "304", description = "Not modified since the ETag or date sent"),
 			@ApiResponse(responseCode = "404", description = "Author not found")
 	})
-	public ResponseEntity<AuthorDto> getAuthorById(@Parameter(description = "Author ID") @PathVariable Long id) {
-		AuthorDto author = authorService.getAuthorById(id);
-		return ResponseEntity.ok(author);
+	public ResponseEntity<AuthorDto> getAuthorById(@Parameter(description = "Author ID") @PathVariable Long id,
+			WebRequest request) {
+		return conditionalGet.respond(request, () -> catalogVersionService.author(id),
+				() -> authorService.getAuthorById(id));
 	}
 
 	@GetMapping
-	@Operation(summary = "Get all authors", description = "Retrieves all authors from the system")
-	@ApiResponse(responseCode = "200", description = "Successfully retrieved list",
-			content = @Content(schema = @Schema(implementation = AuthorDto.class)))
-	public ResponseEntity<List<AuthorDto>> getAllAuthors() {
-		List<AuthorDto> authors = authorService.getAllAuthors();
-		return ResponseEntity.ok(authors);
+	@Operation(summary = "Get all authors", description = "Retrieves authors one page at a time; follow "
+			+ "nextCursor for the next page")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200", description = "Successfully retrieved page"),
+			@ApiResponse(responseCode = "304", description = "Not modified since the ETag or date sent"),
+			@ApiResponse(responseCode = "400", description = "Invalid cursor, sort or size")
+	})
+	public ResponseEntity<PageResponse<AuthorDto>> getAllAuthors(@ParameterObject PageParams page,
+			WebRequest request) {
+		return conditionalGet.respond(request, catalogVersionService::lists,
+				() -> authorService.getAllAuthors(page));
+	}
+
+	@GetMapping("/export")
+	@Operation(summary = "Export all authors", description = "Streams every author as NDJSON or CSV (with a header "
+			+ "row), gzip-compressed when the client sends Accept-Encoding: gzip")
+	@ApiResponse(responseCode = "200", description = "Authors in id order",
+			content = { @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE),
+					@Content(mediaType = "text/csv") })
+	public void exportAuthors(
+			@Parameter(description = "ndjson or csv") @RequestParam(defaultValue = "ndjson") String format,
+			@RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+			HttpServletResponse response) throws IOException {
+		CatalogFormat exportFormat = CatalogFormat.ofName(format);
+		try (OutputStream out = ExportResponse.open(response, exportFormat, "authors", acceptEncoding)) {
+			catalogExportService.exportAuthors(exportFormat, out);
+		}
 	}
 
 	@GetMapping("/search")
 	@Operation(summary = "Search authors by name", description = "Searches for authors by name")
-	@ApiResponse(responseCode = "200", description = "Successfully retrieved list",
-			content = @Content(schema = @Schema(implementation = AuthorDto.class)))
-	public ResponseEntity<List<AuthorDto>> searchAuthors(
-			@Parameter(description = "Name to search for") @RequestParam String name) {
-		List<AuthorDto> authors = authorService.searchAuthorsByName(name);
-		return ResponseEntity.ok(authors);
+	@ApiResponse(responseCode = "200", description = "Successfully retrieved page")
+	public ResponseEntity<PageResponse<AuthorDto>> searchAuthors(
+			@Parameter(description = "Name to search for") @RequestParam String name,
+			@ParameterObject PageParams page, WebRequest request) {
+		return conditionalGet.respond(request, catalogVersionService::lists,
+				() -> authorService.searchAuthorsByName(name, page));
 	}
 
 	@PutMapping("/{id}")
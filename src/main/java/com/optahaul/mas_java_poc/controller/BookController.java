@@ -1,8 +1,13 @@
 package com.optahaul.mas_java_poc.controller;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
+import org.springdoc.core.annotations.ParameterObject;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -11,13 +16,27 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.optahaul.mas_java_poc.dto.BookDto;
+import com.optahaul.mas_java_poc.dto.BookFacets;
+import com.optahaul.mas_java_poc.dto.BookSuggestion;
 import com.optahaul.mas_java_poc.dto.CreateBookRequest;
+import com.optahaul.mas_java_poc.dto.ImportReport;
+import com.optahaul.mas_java_poc.dto.PageParams;
+import com.optahaul.mas_java_poc.dto.PageResponse;
+import com.optahaul.mas_java_poc.service.BookFacetService;
 import com.optahaul.mas_java_poc.service.BookService;
+import com.optahaul.mas_java_poc.service.CatalogExportService;
+import com.optahaul.mas_java_poc.service.CatalogFormat;
+import com.optahaul.mas_java_poc.service.CatalogImportService;
+import com.optahaul.mas_java_poc.service.CatalogVersionService;
+import com.optahaul.mas_java_poc.service.TypeaheadService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -27,6 +46,8 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 
@@ -37,6 +58,13 @@ import lombok.RequiredArgsConstructor;
 public class BookController {
 
 	private final BookService bookService;
+	private final BookFacetService bookFacetService;
+	private final CatalogVersionService catalogVersionService;
+	private final ConditionalGet conditionalGet;
+	private final CatalogImportService catalogImportService;
+	private final CatalogExportService catalogExportService;
+	private final TypeaheadService typeaheadService;
+	private final ObjectMapper objectMapper;
 
 	@PostMapping
 	@PreAuthorize("hasAnyRole('ADMIN', 'USER')")
@@ -53,54 +81,121 @@ public class BookController {
 		return ResponseEntity.status(HttpStatus.CREATED).body(created);
 	}
 
+	@PostMapping(value = "/import", consumes = { "text/csv", MediaType.APPLICATION_NDJSON_VALUE },
+			produces = MediaType.APPLICATION_NDJSON_VALUE)
+	@PreAuthorize("hasAnyRole('ADMIN', 'USER')")
+	@SecurityRequirement(name = "bearerAuth")
+	@Operation(summary = "Bulk import books", description = "Streams books from CSV (header row: "
+			+ "title,authorId,authorName,genre,pageCount,language,publicationDate,isbn) or "
+			+ "NDJSON. Authors are matched by authorId, else by authorName, and created when "
+			+ "unknown. The response streams rejected rows and progress reports as NDJSON, "
+			+ "ending with the final report")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200", description = "Import ran; see the status of the last report",
+					content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+							schema = @Schema(implementation = ImportReport.class))),
+			@ApiResponse(responseCode = "403", description = "Access denied")
+	})
+	public void importBooks(HttpServletRequest request, HttpServletResponse response) throws IOException {
+		catalogImportService.importBooks(request.getInputStream(),
+				CatalogFormat.ofContentType(request.getContentType()),
+				new ImportResponseWriter(objectMapper, response));
+	}
+
 	@GetMapping("/{id}")
 	@Operation(summary = "Get book by ID", description = "Retrieves a book by its ID")
 	@ApiResponses(value = {
 			@ApiResponse(responseCode = "200", description = "Book found",
 					content = @Content(schema = @Schema(implementation = BookDto.class))),
+			@ApiResponse(responseCode = "304", description = "Not modified since the ETag or date sent"),
 			@ApiResponse(responseCode = "404", description = "Book not found")
 	})
-	public ResponseEntity<BookDto> getBookById(@Parameter(description = "Book ID") @PathVariable Long id) {
-		BookDto book = bookService.getBookById(id);
-		return ResponseEntity.ok(book);
+	public ResponseEntity<BookDto> getBookById(@Parameter(description = "Book ID") @PathVariable Long id,
+			WebRequest request) {
+		return conditionalGet.respond(request, () -> catalogVersionService.book(id), () -> bookService.getBookById(id));
 	}
 
 	@GetMapping
-	@Operation(summary = "Get all books", description = "Retrieves all books from the system")
-	@ApiResponse(responseCode = "200", description = "Successfully retrieved list",
-			content = @Content(schema = @Schema(implementation = BookDto.class)))
-	public ResponseEntity<List<BookDto>> getAllBooks() {
-		List<BookDto> books = bookService.getAllBooks();
-		return ResponseEntity.ok(books);
+	@Operation(summary = "Get all books", description = "Retrieves books one page at a time; follow nextCursor "
+			+ "for the next page")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200", description = "Successfully retrieved page"),
+			@ApiResponse(responseCode = "304", description = "Not modified since the ETag or date sent"),
+			@ApiResponse(responseCode = "400", description = "Invalid cursor, sort or size")
+	})
+	public ResponseEntity<PageResponse<BookDto>> getAllBooks(@ParameterObject PageParams page, WebRequest request) {
+		return conditionalGet.respond(request, catalogVersionService::lists, () -> bookService.getAllBooks(page));
 	}
 
 	@GetMapping("/author/{authorId}")
 	@Operation(summary = "Get books by author", description = "Retrieves all books by a specific author")
-	@ApiResponse(responseCode = "200", description = "Successfully retrieved list",
-			content = @Content(schema = @Schema(implementation = BookDto.class)))
-	public ResponseEntity<List<BookDto>> getBooksByAuthor(
-			@Parameter(description = "Author ID") @PathVariable Long authorId) {
-		List<BookDto> books = bookService.getBooksByAuthor(authorId);
-		return ResponseEntity.ok(books);
+	@ApiResponse(responseCode = "200", description = "Successfully retrieved page")
+	public ResponseEntity<PageResponse<BookDto>> getBooksByAuthor(
+			@Parameter(description = "Author ID") @PathVariable Long authorId, @ParameterObject PageParams page,
+			WebRequest request) {
+		return conditionalGet.respond(request, catalogVersionService::lists,
+				() -> bookService.getBooksByAuthor(authorId, page));
 	}
 
 	@GetMapping("/genre/{genre}")
 	@Operation(summary = "Get books by genre", description = "Retrieves all books of a specific genre")
-	@ApiResponse(responseCode = "200", description = "Successfully retrieved list",
-			content = @Content(schema = @Schema(implementation = BookDto.class)))
-	public ResponseEntity<List<BookDto>> getBooksByGenre(@Parameter(description = "Genre") @PathVariable String genre) {
-		List<BookDto> books = bookService.getBooksByGenre(genre);
-		return ResponseEntity.ok(books);
+	@ApiResponse(responseCode = "200", description = "Successfully retrieved page")
+	public ResponseEntity<PageResponse<BookDto>> getBooksByGenre(
+			@Parameter(description = "Genre") @PathVariable String genre, @ParameterObject PageParams page,
+			WebRequest request) {
+		return conditionalGet.respond(request, catalogVersionService::lists,
+				() -> bookService.getBooksByGenre(genre, page));
+	}
+
+	@GetMapping("/export")
+	@Operation(summary = "Export all books", description = "Streams every book as NDJSON or CSV (with a header "
+			+ "row), gzip-compressed when the client sends Accept-Encoding: gzip")
+	@ApiResponse(responseCode = "200", description = "Books in id order",
+			content = { @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE),
+					@Content(mediaType = "text/csv") })
+	public void exportBooks(
+			@Parameter(description = "ndjson or csv") @RequestParam(defaultValue = "ndjson") String format,
+			@RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+			HttpServletResponse response) throws IOException {
+		CatalogFormat exportFormat = CatalogFormat.ofName(format);
+		try (OutputStream out = ExportResponse.open(response, exportFormat, "books", acceptEncoding)) {
+			catalogExportService.exportBooks(exportFormat, out);
+		}
 	}
 
 	@GetMapping("/search")
 	@Operation(summary = "Search books by title", description = "Searches for books by title")
-	@ApiResponse(responseCode = "200", description = "Successfully retrieved list",
-			content = @Content(schema = @Schema(implementation = BookDto.class)))
-	public ResponseEntity<List<BookDto>> searchBooks(
-			@Parameter(description = "Title to search for") @RequestParam String title) {
-		List<BookDto> books = bookService.searchBooksByTitle(title);
-		return ResponseEntity.ok(books);
+	@ApiResponse(responseCode = "200", description = "Successfully retrieved page")
+	public ResponseEntity<PageResponse<BookDto>> searchBooks(
+			@Parameter(description = "Title to search for") @RequestParam String title,
+			@ParameterObject PageParams page, WebRequest request) {
+		return conditionalGet.respond(request, catalogVersionService::lists,
+				() -> bookService.searchBooksByTitle(title, page));
+	}
+
+	@GetMapping("/facets")
+	@Operation(summary = "Count books by facet", description = "Counts books by genre, language and decade of "
+			+ "publication, optionally filtered by any of them; each facet is counted with the other filters applied")
+	@ApiResponse(responseCode = "200", description = "Facet counts",
+			content = @Content(schema = @Schema(implementation = BookFacets.class)))
+	public ResponseEntity<BookFacets> getFacets(
+			@Parameter(description = "Genre, case-insensitive") @RequestParam(required = false) String genre,
+			@Parameter(description = "Language, case-insensitive") @RequestParam(required = false) String language,
+			@Parameter(description = "Decade, as its first year (1990)") @RequestParam(required = false)
+			Integer decade, WebRequest request) {
+		return conditionalGet.respond(request, catalogVersionService::lists,
+				() -> bookFacetService.getFacets(genre, language, decade));
+	}
+
+	@GetMapping("/suggest")
+	@Operation(summary = "Suggest books as you type", description = "Books with a title or author word starting "
+			+ "with each word typed, served from memory; titles starting with the text come first")
+	@ApiResponse(responseCode = "200", description = "Suggestions, best first")
+	public ResponseEntity<List<BookSuggestion>> suggestBooks(
+			@Parameter(description = "Text typed so far") @RequestParam String q,
+			@Parameter(description = "Maximum suggestions, capped at typeahead.max-suggestions")
+			@RequestParam(defaultValue = "10") int limit) {
+		return ResponseEntity.ok(typeaheadService.suggest(q, limit));
 	}
 
 	@PutMapping("/{id}")
@@ -0,0 +1,75 @@
+package com.optahaul.mas_java_poc.controller;
+
+import java.util.function.Supplier;
+
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import com.optahaul.mas_java_poc.service.ContentVersion;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Answers a GET with 304 Not Modified, without building the body, when its
+ * If-None-Match (or, without one, If-Modified-Since) shows the client's copy
+ * is current; otherwise sends the body with ETag and Last-Modified.
+ * <p>
+ * The version and the body are read in one read-only, repeatable-read
+ * transaction that bypasses the second-level cache, so both come from the same
+ * snapshot of the same database and an ETag always describes the body sent
+ * with it. Responses may be stored but must be revalidated, only by the
+ * client, and differ per tenant
+ */
+@Component
+class ConditionalGet {
+
+	private static final String CACHE_CONTROL = CacheControl.noCache().cachePrivate().getHeaderValue();
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	private final TransactionTemplate snapshot;
+	private final String tenantHeader;
+
+	ConditionalGet(PlatformTransactionManager transactionManager,
+			@Value("${multitenancy.tenant-header:X-Tenant-ID}") String tenantHeader) {
+		this.snapshot = new TransactionTemplate(transactionManager);
+		this.snapshot.setReadOnly(true);
+		this.snapshot.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+		this.tenantHeader = tenantHeader;
+	}
+
+	/**
+	 * {@code version} may return null when the resource does not exist; the
+	 * body supplier then reports that as usual
+	 */
+	<T> ResponseEntity<T> respond(WebRequest request, Supplier<ContentVersion> version, Supplier<T> body) {
+		HttpServletResponse response = ((NativeWebRequest) request).getNativeResponse(HttpServletResponse.class);
+		if (response != null) {
+			// Set before Spring Security's headers, which then leave them as they are
+			response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+			response.addHeader(HttpHeaders.VARY, tenantHeader);
+		}
+		return snapshot.execute(status -> {
+			entityManager.unwrap(Session.class).setCacheMode(CacheMode.IGNORE);
+			ContentVersion current = version.get();
+			if (current != null && request.checkNotModified(current.etag(), current.lastModifiedMillis())) {
+				// The 304 status and validators are already set on the response
+				return null;
+			}
+			return ResponseEntity.ok(body.get());
+		});
+	}
+}
@@ -0,0 +1,52 @@
+package com.optahaul.mas_java_poc.controller;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+
+import com.optahaul.mas_java_poc.service.CatalogFormat;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Prepares the response of a bulk export: content type, a download file name,
+ * and gzip when the client accepts it. The returned stream must be closed to
+ * finish the body
+ */
+final class ExportResponse {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private ExportResponse() {
+	}
+
+	static OutputStream open(HttpServletResponse response, CatalogFormat format, String name, String acceptEncoding)
+			throws IOException {
+		response.setContentType(format.mediaType() + ";charset=UTF-8");
+		response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+				ContentDisposition.attachment().filename(name + "." + format.extension()).build().toString());
+		response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+		if (acceptsGzip(acceptEncoding)) {
+			response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+			return new GZIPOutputStream(response.getOutputStream(), BUFFER_SIZE);
+		}
+		return new BufferedOutputStream(response.getOutputStream(), BUFFER_SIZE);
+	}
+
+	static boolean acceptsGzip(String acceptEncoding) {
+		if (acceptEncoding == null) {
+			return false;
+		}
+		for (String coding : acceptEncoding.split(",")) {
+			String[] parts = coding.trim().split(";");
+			if (parts[0].trim().equalsIgnoreCase("gzip")) {
+				return parts.length == 1 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+			}
+		}
+		return false;
+	}
+}
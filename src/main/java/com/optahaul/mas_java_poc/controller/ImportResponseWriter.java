@@ -0,0 +1,53 @@
+package com.optahaul.mas_java_poc.controller;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+import org.springframework.http.MediaType;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.optahaul.mas_java_poc.dto.ImportError;
+import com.optahaul.mas_java_poc.dto.ImportReport;
+import com.optahaul.mas_java_poc.service.CatalogImportService;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Streams a bulk import's rejected rows and progress reports to the client as
+ * NDJSON while the upload is still being read
+ */
+final class ImportResponseWriter implements CatalogImportService.ImportListener {
+
+	private final ObjectMapper objectMapper;
+	private final OutputStream out;
+
+	ImportResponseWriter(ObjectMapper objectMapper, HttpServletResponse response) throws IOException {
+		this.objectMapper = objectMapper;
+		response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+		response.setCharacterEncoding("UTF-8");
+		this.out = response.getOutputStream();
+	}
+
+	@Override
+	public void rowFailed(ImportError error) {
+		write(error, false);
+	}
+
+	@Override
+	public void progress(ImportReport report) {
+		write(report, true);
+	}
+
+	private void write(Object value, boolean flush) {
+		try {
+			out.write(objectMapper.writeValueAsBytes(value));
+			out.write('\n');
+			if (flush) {
+				out.flush();
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
@@ -0,0 +1,42 @@
+package com.optahaul.mas_java_poc.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.optahaul.mas_java_poc.dto.PageResponse;
+import com.optahaul.mas_java_poc.dto.SearchHit;
+import com.optahaul.mas_java_poc.service.CatalogSearchService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/search")
+@RequiredArgsConstructor
+@Tag(name = "Search", description = "Catalog search APIs")
+public class SearchController {
+
+	private final CatalogSearchService catalogSearchService;
+
+	@GetMapping
+	@Operation(summary = "Search the catalog", description = "Full-text search of book titles, genres and ISBNs "
+			+ "and author names, best match first, with matched words highlighted. Quoted phrases, OR and -word "
+			+ "are understood; a search matching nothing is retried allowing for typos")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200", description = "Successfully retrieved page"),
+			@ApiResponse(responseCode = "400", description = "Missing search text or invalid cursor")
+	})
+	public ResponseEntity<PageResponse<SearchHit>> search(
+			@Parameter(description = "Search text", example = "orwell") @RequestParam String q,
+			@Parameter(description = "nextCursor of the previous page") @RequestParam(required = false) String cursor,
+			@Parameter(description = "Page size") @RequestParam(required = false) Integer size) {
+		return ResponseEntity.ok(catalogSearchService.search(q, cursor, size));
+	}
+}
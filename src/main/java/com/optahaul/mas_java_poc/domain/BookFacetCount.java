@@ -0,0 +1,69 @@
+package com.optahaul.mas_java_poc.domain;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Comparator;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Number of books sharing a genre, language and publication decade; the
+ * facet counts are sums over these rows. A missing value is stored as ''
+ * or {@link #UNKNOWN_DECADE}, as it is part of the key
+ */
+@Entity
+@Table(name = "book_facet_counts")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookFacetCount {
+
+	public static final int UNKNOWN_DECADE = -1;
+
+	@EmbeddedId
+	private Key key;
+
+	@Column(name = "book_count", nullable = false)
+	private long bookCount;
+
+	@Embeddable
+	@Data
+	@NoArgsConstructor
+	@AllArgsConstructor
+	public static class Key implements Serializable, Comparable<Key> {
+
+		private static final Comparator<Key> ORDER = Comparator.comparing(Key::getGenre)
+				.thenComparing(Key::getLanguage)
+				.thenComparingInt(Key::getDecade);
+
+		@Column(nullable = false, length = 100)
+		private String genre;
+
+		@Column(nullable = false, length = 50)
+		private String language;
+
+		@Column(nullable = false)
+		private int decade;
+
+		public static Key of(String genre, String language, LocalDate publicationDate) {
+			return new Key(genre == null ? "" : genre, language == null ? "" : language,
+					publicationDate == null ? UNKNOWN_DECADE : Math.floorDiv(publicationDate.getYear(), 10) * 10);
+		}
+
+		public static Key of(Book book) {
+			return of(book.getGenre(), book.getLanguage(), book.getPublicationDate());
+		}
+
+		@Override
+		public int compareTo(Key other) {
+			return ORDER.compare(this, other);
+		}
+	}
+}
@@ -0,0 +1,35 @@
+package com.optahaul.mas_java_poc.domain;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Version of a catalog table, raised by every transaction that writes it
+ */
+@Entity
+@Table(name = "table_versions")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TableVersion {
+
+	public static final String BOOKS = "books";
+	public static final String AUTHORS = "authors";
+
+	@Id
+	@Column(name = "table_name", length = 64)
+	private String tableName;
+
+	@Column(nullable = false)
+	private long version;
+
+	@Column(name = "updated_at", nullable = false)
+	private LocalDateTime updatedAt;
+}
@@ -0,0 +1,40 @@
+package com.optahaul.mas_java_poc.domain;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+
+import org.springframework.beans.factory.annotation.Autowired;
+
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+
+/**
+ * Stamps {@link Timestamped} entities with the application's clock. Created by
+ * Spring through Hibernate's bean container; without one it falls back to the
+ * system clock
+ */
+public class TimestampListener {
+
+	private final Clock clock;
+
+	public TimestampListener() {
+		this(Clock.systemDefaultZone());
+	}
+
+	@Autowired
+	public TimestampListener(Clock clock) {
+		this.clock = clock;
+	}
+
+	@PrePersist
+	void onCreate(Timestamped entity) {
+		LocalDateTime now = LocalDateTime.now(clock);
+		entity.setCreatedAt(now);
+		entity.setUpdatedAt(now);
+	}
+
+	@PreUpdate
+	void onUpdate(Timestamped entity) {
+		entity.setUpdatedAt(LocalDateTime.now(clock));
+	}
+}
@@ -0,0 +1,14 @@
+package com.optahaul.mas_java_poc.domain;
+
+import java.time.LocalDateTime;
+
+/**
+ * An entity whose creation and modification times {@link TimestampListener}
+ * sets
+ */
+public interface Timestamped {
+
+	void setCreatedAt(LocalDateTime createdAt);
+
+	void setUpdatedAt(LocalDateTime updatedAt);
+}
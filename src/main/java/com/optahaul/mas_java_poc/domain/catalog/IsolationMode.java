@@ -0,0 +1,18 @@
+package com.optahaul.mas_java_poc.domain.catalog;
+
+/**
+ * How a tenant's data is separated from other tenants
+ */
+public enum IsolationMode {
+
+	/**
+	 * Own database, own connection pool
+	 */
+	DATABASE,
+
+	/**
+	 * Own schema in a shared database; the connection pool is shared with every
+	 * other schema tenant on the same server
+	 */
+	SCHEMA
+}
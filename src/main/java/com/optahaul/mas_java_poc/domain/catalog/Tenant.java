@@ -1,7 +1,13 @@
 package com.optahaul.mas_java_poc.domain.catalog;
 
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
@@ -45,6 +51,42 @@ public class Tenant {
 	@Column(name = "status", nullable = false)
 	private String status; // ACTIVE, SUSPENDED, TRIAL
 
+	@Column(name = "replica_db_urls")
+	private String replicaDbUrls; // Comma-separated read replicas, same credentials as dbUrl
+
 	@Column(name = "db_schema")
-	private String dbSchema; // For schema-based isolation (alternative approach)
+	private String dbSchema; // Used when isolationMode is SCHEMA
+
+	@Enumerated(EnumType.STRING)
+	@Column(name = "isolation_mode")
+	private IsolationMode isolationMode = IsolationMode.DATABASE;
+
+	@Column(name = "tier")
+	private String tier = "standard"; // Default admission limits, see tenant_tiers
+
+	@Column(name = "requests_per_second")
+	private Double requestsPerSecond; // Overrides the tier when set
+
+	@Column(name = "burst")
+	private Integer burst; // Overrides the tier when set
+
+	@Column(name = "max_concurrent_requests")
+	private Integer maxConcurrentRequests; // Overrides the tier when set
+
+	@Column(name = "updated_at", insertable = false, updatable = false)
+	private LocalDateTime updatedAt; // Maintained by the database (see catalog V4)
+
+	public boolean isSchemaIsolated() {
+		return isolationMode == IsolationMode.SCHEMA;
+	}
+
+	public List<String> replicaUrls() {
+		if (replicaDbUrls == null || replicaDbUrls.isBlank()) {
+			return List.of();
+		}
+		return Arrays.stream(replicaDbUrls.split(","))
+				.map(String::trim)
+				.filter(url -> !url.isEmpty())
+				.toList();
+	}
 }
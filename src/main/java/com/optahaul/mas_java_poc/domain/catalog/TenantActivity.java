@@ -0,0 +1,29 @@
+package com.optahaul.mas_java_poc.domain.catalog;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+/**
+ * Stored in the central catalog database Request count per tenant, decayed
+ * over time, shared by all nodes
+ */
+@Entity
+@Table(name = "tenant_activity")
+@Data
+public class TenantActivity {
+
+	@Id
+	@Column(name = "tenant_id", nullable = false)
+	private String tenantId;
+
+	@Column(name = "score", nullable = false)
+	private double score; // Requests, halved every activity half-life
+
+	@Column(name = "updated_at", nullable = false)
+	private LocalDateTime updatedAt;
+}
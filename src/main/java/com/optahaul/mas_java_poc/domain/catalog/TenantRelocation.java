@@ -0,0 +1,56 @@
+package com.optahaul.mas_java_poc.domain.catalog;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+/**
+ * Stored in the central catalog database Latest relocation of a tenant to
+ * another database server and how far it has got
+ */
+@Entity
+@Table(name = "tenant_relocations")
+@Data
+public class TenantRelocation {
+
+	@Id
+	@Column(name = "tenant_id", nullable = false)
+	private String tenantId;
+
+	@Column(name = "source_db_url", nullable = false)
+	private String sourceDbUrl;
+
+	@Column(name = "target_db_url", nullable = false)
+	private String targetDbUrl;
+
+	@Column(name = "phase", nullable = false)
+	private String phase; // See TenantRelocator.Phase
+
+	@Column(name = "detail")
+	private String detail;
+
+	@Column(name = "tables_copied", nullable = false)
+	private int tablesCopied; // Tables whose initial copy has finished
+
+	@Column(name = "tables_total", nullable = false)
+	private int tablesTotal;
+
+	@Column(name = "lag_bytes")
+	private Long lagBytes; // WAL the target has yet to confirm
+
+	@Column(name = "cancel_requested", nullable = false)
+	private boolean cancelRequested;
+
+	@Column(name = "started_at", nullable = false)
+	private LocalDateTime startedAt;
+
+	@Column(name = "updated_at", nullable = false)
+	private LocalDateTime updatedAt;
+
+	@Column(name = "finished_at")
+	private LocalDateTime finishedAt;
+}
@@ -0,0 +1,35 @@
+package com.optahaul.mas_java_poc.domain.catalog;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+/**
+ * Stored in the central catalog database Records which tenant migration set was
+ * last applied to each tenant, so unchanged tenants can be skipped at startup
+ */
+@Entity
+@Table(name = "tenant_schema_versions")
+@Data
+public class TenantSchemaVersion {
+
+	@Id
+	@Column(name = "tenant_id", nullable = false)
+	private String tenantId;
+
+	@Column(name = "version", nullable = false)
+	private String version; // Highest applied Flyway version, e.g. "4"
+
+	@Column(name = "checksum", nullable = false, length = 64)
+	private String checksum; // SHA-256 of the bundled db/migration set
+
+	@Column(name = "target", nullable = false, length = 1024)
+	private String target; // db_url + schema the migrations were applied to
+
+	@Column(name = "migrated_at", nullable = false)
+	private LocalDateTime migratedAt;
+}
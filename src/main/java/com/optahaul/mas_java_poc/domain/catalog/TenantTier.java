@@ -0,0 +1,30 @@
+package com.optahaul.mas_java_poc.domain.catalog;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+/**
+ * Stored in the central catalog database Default admission limits for tenants
+ * of a tier; null means unlimited
+ */
+@Entity
+@Table(name = "tenant_tiers")
+@Data
+public class TenantTier {
+
+	@Id
+	@Column(name = "tier", nullable = false)
+	private String tier; // e.g., "standard", "premium"
+
+	@Column(name = "requests_per_second")
+	private Double requestsPerSecond;
+
+	@Column(name = "burst")
+	private Integer burst;
+
+	@Column(name = "max_concurrent_requests")
+	private Integer maxConcurrentRequests;
+}
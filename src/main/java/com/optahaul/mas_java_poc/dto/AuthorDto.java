@@ -2,7 +2,6 @@ package com.optahaul.mas_java_poc.dto;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.List;
 
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.NotBlank;
@@ -28,12 +27,22 @@ public class AuthorDto {
 	@Schema(description = "Author birth date", example = "1903-06-25")
 	private LocalDate birthDate;
 
-	@Schema(description = "List of book IDs written by this author")
-	private List<Long> bookIds;
+	@Schema(description = "IDs of the books written by this author, ascending")
+	private long[] bookIds;
+
+	@Schema(description = "Number of books written by this author", example = "9")
+	private Integer bookCount;
 
 	@Schema(description = "Creation timestamp")
 	private LocalDateTime createdAt;
 
 	@Schema(description = "Last update timestamp")
 	private LocalDateTime updatedAt;
+
+	/**
+	 * Listing row; book ids and count are filled in separately
+	 */
+	public AuthorDto(Long id, String name, LocalDate birthDate, LocalDateTime createdAt, LocalDateTime updatedAt) {
+		this(id, name, birthDate, null, null, createdAt, updatedAt);
+	}
 }
@@ -0,0 +1,24 @@
+package com.optahaul.mas_java_poc.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "One author of a bulk import (a CSV record or an NDJSON line)")
+public class AuthorImportRow {
+
+	@Schema(description = "Author name", example = "George Orwell", requiredMode = Schema.RequiredMode.REQUIRED)
+	private String name;
+
+	@Schema(description = "Author birth date", example = "1903-06-25")
+	private String birthDate;
+
+	@Schema(description = "Author biography")
+	private String bio;
+}
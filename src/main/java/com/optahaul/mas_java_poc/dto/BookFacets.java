@@ -0,0 +1,30 @@
+package com.optahaul.mas_java_poc.dto;
+
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Book counts by genre, language and publication decade. Each facet is counted with the "
+		+ "filters on the other facets applied, so it lists the values the current selection could switch to")
+public class BookFacets {
+
+	@Schema(description = "Number of books matching every filter", example = "128")
+	private long total;
+
+	@Schema(description = "Counts by genre, largest first")
+	private List<FacetCount<String>> genres;
+
+	@Schema(description = "Counts by language, largest first")
+	private List<FacetCount<String>> languages;
+
+	@Schema(description = "Counts by decade of publication (1990 for 1990-1999), oldest first")
+	private List<FacetCount<Integer>> decades;
+}
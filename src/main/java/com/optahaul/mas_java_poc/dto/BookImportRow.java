@@ -0,0 +1,39 @@
+package com.optahaul.mas_java_poc.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "One book of a bulk import (a CSV record or an NDJSON line)")
+public class BookImportRow {
+
+	@Schema(description = "Book title", example = "1984", requiredMode = Schema.RequiredMode.REQUIRED)
+	private String title;
+
+	@Schema(description = "Author ID; takes precedence over authorName", example = "1")
+	private Long authorId;
+
+	@Schema(description = "Author name; the author is created if no author has this name", example = "George Orwell")
+	private String authorName;
+
+	@Schema(description = "Book genre", example = "Dystopian")
+	private String genre;
+
+	@Schema(description = "Number of pages", example = "328")
+	private Integer pageCount;
+
+	@Schema(description = "Book language", example = "English")
+	private String language;
+
+	@Schema(description = "Publication date", example = "1949-06-08")
+	private String publicationDate;
+
+	@Schema(description = "ISBN", example = "9780451524935")
+	private String isbn;
+}
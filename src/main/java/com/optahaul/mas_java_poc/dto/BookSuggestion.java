@@ -0,0 +1,27 @@
+package com.optahaul.mas_java_poc.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "A book whose title or author name starts with what was typed")
+public class BookSuggestion {
+
+	@Schema(description = "Book ID", example = "1")
+	private Long bookId;
+
+	@Schema(description = "Book title", example = "1984")
+	private String title;
+
+	@Schema(description = "Author ID", example = "1")
+	private Long authorId;
+
+	@Schema(description = "Author name", example = "George Orwell")
+	private String authorName;
+}
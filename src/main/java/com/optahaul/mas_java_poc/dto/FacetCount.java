@@ -0,0 +1,21 @@
+package com.optahaul.mas_java_poc.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Number of books having one value of a facet")
+public class FacetCount<T> {
+
+	@Schema(description = "Facet value; null for books without one", example = "Fiction")
+	private T value;
+
+	@Schema(description = "Number of books", example = "42")
+	private long count;
+}
@@ -0,0 +1,21 @@
+package com.optahaul.mas_java_poc.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "A row rejected by a bulk import")
+public class ImportError {
+
+	@Schema(description = "Line of the input the row starts on", example = "42")
+	private long line;
+
+	@Schema(description = "Why the row was rejected", example = "Title is required")
+	private String message;
+}
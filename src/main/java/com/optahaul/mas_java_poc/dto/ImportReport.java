@@ -0,0 +1,36 @@
+package com.optahaul.mas_java_poc.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Progress of a bulk import; the last one of the stream has status COMPLETED or FAILED")
+public class ImportReport {
+
+	@Schema(description = "RUNNING, COMPLETED or FAILED", example = "RUNNING")
+	private String status;
+
+	@Schema(description = "Rows read so far", example = "10000")
+	private long rowsRead;
+
+	@Schema(description = "Rows written so far", example = "9998")
+	private long imported;
+
+	@Schema(description = "Rows rejected so far", example = "2")
+	private long failed;
+
+	@Schema(description = "Authors created for unknown author names", example = "12")
+	private long authorsCreated;
+
+	@Schema(description = "Time since the import started", example = "1530")
+	private long elapsedMillis;
+
+	@Schema(description = "Why the import stopped, when FAILED")
+	private String message;
+}
@@ -0,0 +1,30 @@
+package com.optahaul.mas_java_poc.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Keyset page request; pass nextCursor of the previous page to get the next one")
+public class PageParams {
+
+	@Schema(description = "nextCursor of the previous page; omit for the first page")
+	private String cursor;
+
+	@Schema(description = "Page size, capped by api.pagination.max-size", example = "20")
+	private Integer size;
+
+	@Schema(description = "Sort key; ties are broken by id", example = "title")
+	private String sort;
+
+	@Schema(description = "asc or desc", example = "asc")
+	private String direction;
+
+	@Schema(description = "Add an approximate total, estimated by the query planner")
+	private boolean includeTotal;
+}
@@ -0,0 +1,32 @@
+package com.optahaul.mas_java_poc.dto;
+
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "One page of a keyset-paginated list")
+public class PageResponse<T> {
+
+	@Schema(description = "Items of this page")
+	private List<T> items;
+
+	@Schema(description = "Number of items on this page", example = "20")
+	private int size;
+
+	@Schema(description = "Whether another page follows")
+	private boolean hasNext;
+
+	@Schema(description = "Opaque cursor of the next page; null on the last page")
+	private String nextCursor;
+
+	@Schema(description = "Approximate number of items in the whole list, when requested", example = "12500")
+	private Long approximateTotal;
+}
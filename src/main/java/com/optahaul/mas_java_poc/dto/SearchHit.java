@@ -0,0 +1,44 @@
+package com.optahaul.mas_java_poc.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "A book matching a catalog search, by its own fields or its author's name")
+public class SearchHit {
+
+	@Schema(description = "Book ID", example = "1")
+	private Long bookId;
+
+	@Schema(description = "Book title", example = "Nineteen Eighty-Four")
+	private String title;
+
+	@Schema(description = "Title, HTML-escaped, with matched words wrapped in <mark>",
+			example = "Nineteen <mark>Eighty</mark>-Four")
+	private String titleHighlight;
+
+	@Schema(description = "Author ID", example = "1")
+	private Long authorId;
+
+	@Schema(description = "Author name", example = "George Orwell")
+	private String authorName;
+
+	@Schema(description = "Author name, HTML-escaped, with matched words wrapped in <mark>",
+			example = "George <mark>Orwell</mark>")
+	private String authorNameHighlight;
+
+	@Schema(description = "Book genre", example = "Dystopian")
+	private String genre;
+
+	@Schema(description = "Book ISBN", example = "978-0-452-28423-4")
+	private String isbn;
+
+	@Schema(description = "Relevance; higher is better, comparable within one search only", example = "0.42")
+	private double rank;
+}
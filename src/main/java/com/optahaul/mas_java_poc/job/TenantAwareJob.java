@@ -9,8 +9,8 @@ import com.optahaul.mas_java_poc.multitenancy.TenantContext;
 import lombok.extern.slf4j.Slf4j;
 
 /**
- * Base class for all tenant-aware Quartz jobs Automatically sets tenant context
- * before job execution
+ * Base class for all tenant-aware Quartz jobs Automatically binds the tenant
+ * context for the duration of the job
  */
 @Slf4j
 public abstract class TenantAwareJob implements Job {
@@ -27,25 +27,21 @@ public abstract class TenantAwareJob implements Job {
 		}
 
 		try {
-			// Set tenant context
-			TenantContext.setCurrentTenant(tenantId);
-			log.debug("Executing job {} for tenant {}", context.getJobDetail().getKey(), tenantId);
-
-			// Execute tenant-specific job logic
-			executeInternal(context, tenantId);
-
+			// Execute tenant-specific job logic with the tenant bound
+			TenantContext.callAs(tenantId, () -> {
+				log.debug("Executing job {} for tenant {}", context.getJobDetail().getKey(), tenantId);
+				executeInternal(context, tenantId);
+				return null;
+			});
 		} catch (Exception e) {
 			log.error("Error executing job for tenant {}: {}", tenantId, e.getMessage(), e);
 			throw new JobExecutionException(e);
-		} finally {
-			// Always clear tenant context after job execution
-			TenantContext.clear();
 		}
 	}
 
 	/**
 	 * Implement this method with tenant-specific job logic Tenant context is
-	 * already set when this method is called
+	 * already bound when this method is called
 	 */
 	protected abstract void executeInternal(JobExecutionContext context, String tenantId) throws Exception;
 }
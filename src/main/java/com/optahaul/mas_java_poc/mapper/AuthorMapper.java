@@ -2,7 +2,6 @@ package com.optahaul.mas_java_poc.mapper;
 
 import java.time.LocalDate;
 import java.util.List;
-import java.util.stream.Collectors;
 
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
@@ -17,6 +16,7 @@ import com.optahaul.mas_java_poc.dto.CreateAuthorRequest;
 public interface AuthorMapper {
 
 	@Mapping(target = "bookIds", source = "books")
+	@Mapping(target = "bookCount", expression = "java(author.getBooks() == null ? null : author.getBooks().size())")
 	AuthorDto toDto(Author author);
 
 	@Mapping(target = "books", ignore = true)
@@ -27,8 +27,8 @@ public interface AuthorMapper {
 
 	List<AuthorDto> toDtoList(List<Author> authors);
 
-	default List<Long> mapBooksToIds(List<Book> books) {
-		return books == null ? null : books.stream().map(Book::getId).collect(Collectors.toList());
+	default long[] mapBooksToIds(List<Book> books) {
+		return books == null ? null : books.stream().mapToLong(Book::getId).sorted().toArray();
 	}
 
 	default LocalDate stringToLocalDate(String date) {
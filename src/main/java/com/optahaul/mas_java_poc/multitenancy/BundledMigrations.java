@@ -0,0 +1,81 @@
+package com.optahaul.mas_java_poc.multitenancy;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+/**
+ * Fingerprint of the tenant migrations shipped with this build: the highest
+ * Flyway version and a SHA-256 over every versioned migration. Computed from
+ * the classpath alone, so it can be compared with the catalog ledger without
+ * touching any tenant database
+ */
+final class BundledMigrations {
+
+	// V<version>__<description>.class|.sql, ignoring inner classes
+	private static final Pattern VERSIONED = Pattern.compile("V([0-9]+(?:[._][0-9]+)*)__[^$]*\\.(class|sql)");
+
+	private BundledMigrations() {
+	}
+
+	record MigrationSet(String version, String checksum) {
+	}
+
+	static MigrationSet scan(String location) {
+		try {
+			Resource[] resources = new PathMatchingResourcePatternResolver()
+					.getResources("classpath*:" + location + "/*");
+
+			List<Resource> migrations = new ArrayList<>();
+			String latest = null;
+			for (Resource resource : resources) {
+				String name = resource.getFilename();
+				Matcher matcher = name != null ? VERSIONED.matcher(name) : null;
+				if (matcher != null && matcher.matches()) {
+					migrations.add(resource);
+					String version = matcher.group(1).replace('_', '.');
+					if (latest == null || compareVersions(version, latest) > 0) {
+						latest = version;
+					}
+				}
+			}
+			migrations.sort(Comparator.comparing(Resource::getFilename));
+
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			for (Resource migration : migrations) {
+				digest.update(migration.getFilename().getBytes(StandardCharsets.UTF_8));
+				digest.update((byte) 0);
+				try (InputStream in = migration.getInputStream()) {
+					digest.update(in.readAllBytes());
+				}
+			}
+			return new MigrationSet(latest != null ? latest : "0", HexFormat.of().formatHex(digest.digest()));
+		} catch (IOException | NoSuchAlgorithmException e) {
+			throw new IllegalStateException("Cannot fingerprint migrations in " + location, e);
+		}
+	}
+
+	static int compareVersions(String a, String b) {
+		String[] left = a.split("\\.");
+		String[] right = b.split("\\.");
+		for (int i = 0; i < Math.max(left.length, right.length); i++) {
+			long l = i < left.length ? Long.parseLong(left[i]) : 0;
+			long r = i < right.length ? Long.parseLong(right[i]) : 0;
+			if (l != r) {
+				return Long.compare(l, r);
+			}
+		}
+		return 0;
+	}
+}
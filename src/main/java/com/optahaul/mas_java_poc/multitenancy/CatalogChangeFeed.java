@@ -0,0 +1,297 @@
+package com.optahaul.mas_java_poc.multitenancy;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import javax.sql.DataSource;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Catalog change feed shared by all nodes. A trigger on tenants appends every
+ * change to tenant_change_log and sends NOTIFY tenant_changes; each node LISTENs
+ * on a dedicated catalog connection and turns notifications into local
+ * {@link TenantChangedEvent}s, so caches and pools are dropped within
+ * milliseconds of the commit. If the connection is lost the node falls back to
+ * polling the change log by sequence number until it can LISTEN again, so no
+ * change is missed. Sequence numbers are taken when a change is made but
+ * become visible when it commits, so a lower one can show up after a higher
+ * one; the numbers skipped over are kept as gaps and read again until they
+ * appear or tenant.change-feed.gap-timeout-ms passes (a rolled-back change
+ * leaves a gap for good). The tenants table itself is never polled
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "multitenancy.enabled", havingValue = "true")
+public class CatalogChangeFeed {
+
+	static final String CHANNEL = "tenant_changes";
+
+	// A burst of changes that all rolled back, say; older gaps beyond this are given up
+	private static final int MAX_GAPS = 1000;
+
+	private final DataSource catalogDataSource;
+	private final ApplicationEventPublisher eventPublisher;
+	private final String catalogUrl;
+	private final String catalogUsername;
+	private final String catalogPassword;
+	private final boolean listen;
+	private final long pollIntervalMillis;
+	private final int retentionHours;
+	private final long gapTimeoutNanos;
+	private final LongSupplier clock;
+
+	private volatile long lastSeq = -1;
+	// Sequence numbers below lastSeq not seen yet, with when they were first missed
+	private final NavigableMap<Long, Long> gaps = new TreeMap<>();
+	private volatile boolean running;
+	private Thread listener;
+
+	@Autowired
+	public CatalogChangeFeed(
+			@Qualifier("catalogDataSource") DataSource catalogDataSource,
+			ApplicationEventPublisher eventPublisher,
+			@Value("${spring.datasource.catalog.jdbc-url}") String catalogUrl,
+			@Value("${spring.datasource.catalog.username}") String catalogUsername,
+			@Value("${spring.datasource.catalog.password}") String catalogPassword,
+			@Value("${tenant.change-feed.mode:listen}") String mode,
+			@Value("${tenant.change-feed.poll-interval-ms:1000}") long pollIntervalMillis,
+			@Value("${tenant.change-feed.retention-hours:24}") int retentionHours,
+			@Value("${tenant.change-feed.gap-timeout-ms:300000}") long gapTimeoutMillis) {
+		this(catalogDataSource, eventPublisher, catalogUrl, catalogUsername, catalogPassword, mode,
+				pollIntervalMillis, retentionHours, gapTimeoutMillis, System::nanoTime);
+	}
+
+	CatalogChangeFeed(DataSource catalogDataSource, ApplicationEventPublisher eventPublisher, String catalogUrl,
+			String catalogUsername, String catalogPassword, String mode, long pollIntervalMillis,
+			int retentionHours, long gapTimeoutMillis, LongSupplier clock) {
+		this.catalogDataSource = catalogDataSource;
+		this.eventPublisher = eventPublisher;
+		this.catalogUrl = catalogUrl;
+		this.catalogUsername = catalogUsername;
+		this.catalogPassword = catalogPassword;
+		this.listen = !"poll".equalsIgnoreCase(mode);
+		this.pollIntervalMillis = pollIntervalMillis;
+		this.retentionHours = retentionHours;
+		this.gapTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(gapTimeoutMillis);
+		this.clock = clock;
+	}
+
+	@Order(4) // After the catalog migration has created the change log
+	@EventListener(ApplicationReadyEvent.class)
+	public synchronized void start() {
+		if (running) {
+			return;
+		}
+		try {
+			lastSeq = currentSeq();
+		} catch (SQLException e) {
+			log.warn("Cannot read tenant change log position, starting from the beginning: {}", e.getMessage());
+			lastSeq = 0;
+		}
+		running = true;
+		listener = new Thread(this::run, "catalog-change-feed");
+		listener.setDaemon(true);
+		listener.start();
+		log.info("Catalog change feed started in {} mode at seq {}", listen ? "listen" : "poll", lastSeq);
+	}
+
+	@PreDestroy
+	public synchronized void stop() {
+		running = false;
+		if (listener != null) {
+			listener.interrupt();
+			listener = null;
+		}
+	}
+
+	/**
+	 * Trims change log entries every node has long since seen
+	 */
+	@Scheduled(fixedDelayString = "${tenant.change-feed.prune-interval-ms:3600000}")
+	public void pruneChangeLog() {
+		try (Connection connection = catalogDataSource.getConnection();
+				PreparedStatement stmt = connection.prepareStatement(
+						"DELETE FROM tenant_change_log WHERE changed_at < CURRENT_TIMESTAMP - make_interval(hours => ?)")) {
+			stmt.setInt(1, retentionHours);
+			int deleted = stmt.executeUpdate();
+			if (deleted > 0) {
+				log.debug("Pruned {} tenant change log entries", deleted);
+			}
+		} catch (SQLException e) {
+			log.warn("Failed to prune tenant change log: {}", e.getMessage());
+		}
+	}
+
+	private void run() {
+		while (running) {
+			if (listen) {
+				try {
+					listenUntilFailure();
+				} catch (SQLException e) {
+					if (running) {
+						log.warn("Lost LISTEN connection to catalog, polling change log until it is back: {}",
+								e.getMessage());
+					}
+				}
+			}
+			// Poll mode, or a short polling window before trying to LISTEN again
+			pollFor(listen ? Math.max(pollIntervalMillis * 5, 5000) : Long.MAX_VALUE);
+		}
+	}
+
+	private void listenUntilFailure() throws SQLException {
+		try (Connection connection = DriverManager.getConnection(catalogUrl, catalogUsername, catalogPassword)) {
+			PGConnection pgConnection = connection.unwrap(PGConnection.class);
+			try (Statement stmt = connection.createStatement()) {
+				stmt.execute("LISTEN " + CHANNEL);
+			}
+			// Anything committed before LISTEN took effect is picked up from the log
+			catchUp();
+
+			int waitMillis = (int) Math.min(pollIntervalMillis * 10, 30000);
+			while (running) {
+				PGNotification[] notifications = pgConnection.getNotifications(waitMillis);
+				if (notifications == null) {
+					// Timed out; make sure the connection is still alive
+					try (Statement stmt = connection.createStatement()) {
+						stmt.execute("SELECT 1");
+					}
+					if (hasGaps()) {
+						catchUp();
+					}
+					continue;
+				}
+				for (PGNotification notification : notifications) {
+					handleNotification(notification.getParameter());
+				}
+			}
+		}
+	}
+
+	private void pollFor(long millis) {
+		long deadline = millis == Long.MAX_VALUE ? Long.MAX_VALUE : System.currentTimeMillis() + millis;
+		while (running && System.currentTimeMillis() < deadline) {
+			try {
+				catchUp();
+			} catch (SQLException e) {
+				log.warn("Failed to poll tenant change log: {}", e.getMessage());
+			}
+			try {
+				Thread.sleep(pollIntervalMillis);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+
+	synchronized void handleNotification(String payload) throws SQLException {
+		// "<seq>:<change>:<tenant_id>"
+		int first = payload.indexOf(':');
+		int second = first < 0 ? -1 : payload.indexOf(':', first + 1);
+		if (second < 0) {
+			log.warn("Ignoring malformed tenant change notification: {}", payload);
+			return;
+		}
+		long seq = Long.parseLong(payload, 0, first, 10);
+		if (seq <= lastSeq && !gaps.containsKey(seq)) {
+			return;
+		}
+		if (seq > lastSeq + 1) {
+			// Notifications only arrive for committed changes, but sequences can commit
+			// out of order; read the log so nothing in between is skipped
+			catchUp();
+			return;
+		}
+		apply(seq, payload.substring(first + 1, second), payload.substring(second + 1));
+	}
+
+	synchronized void catchUp() throws SQLException {
+		expireGaps();
+		// From the oldest gap on; whatever was applied already in between is skipped
+		long from = gaps.isEmpty() ? lastSeq : gaps.firstKey() - 1;
+		try (Connection connection = catalogDataSource.getConnection();
+				PreparedStatement stmt = connection.prepareStatement(
+						"SELECT seq, change, tenant_id FROM tenant_change_log WHERE seq > ? ORDER BY seq")) {
+			stmt.setLong(1, from);
+			try (ResultSet rs = stmt.executeQuery()) {
+				while (rs.next()) {
+					apply(rs.getLong(1), rs.getString(2), rs.getString(3));
+				}
+			}
+		}
+	}
+
+	private synchronized void apply(long seq, String operation, String tenantId) {
+		if (seq > lastSeq) {
+			if (lastSeq >= 0) {
+				addGaps(lastSeq + 1, seq);
+			}
+			lastSeq = seq;
+		} else if (gaps.remove(seq) == null) {
+			return;
+		}
+		TenantChangedEvent.Change change = switch (operation) {
+			case "INSERT" -> TenantChangedEvent.Change.CREATED;
+			case "DELETE" -> TenantChangedEvent.Change.DELETED;
+			default -> TenantChangedEvent.Change.UPDATED;
+		};
+		log.debug("Catalog change {}: tenant {} {}", seq, tenantId, change);
+		eventPublisher.publishEvent(new TenantChangedEvent(tenantId, change));
+	}
+
+	private void addGaps(long from, long to) {
+		long now = clock.getAsLong();
+		for (long missing = Math.max(from, to - MAX_GAPS); missing < to; missing++) {
+			gaps.put(missing, now);
+		}
+		while (gaps.size() > MAX_GAPS) {
+			log.warn("Giving up on tenant change {}, too many changes still missing", gaps.pollFirstEntry().getKey());
+		}
+	}
+
+	private void expireGaps() {
+		long now = clock.getAsLong();
+		gaps.values().removeIf(firstMissed -> now - firstMissed >= gapTimeoutNanos);
+	}
+
+	synchronized boolean hasGaps() {
+		return !gaps.isEmpty();
+	}
+
+	private long currentSeq() throws SQLException {
+		try (Connection connection = catalogDataSource.getConnection();
+				Statement stmt = connection.createStatement();
+				ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(seq), 0) FROM tenant_change_log")) {
+			rs.next();
+			return rs.getLong(1);
+		}
+	}
+
+	long lastSeq() {
+		return lastSeq;
+	}
+}
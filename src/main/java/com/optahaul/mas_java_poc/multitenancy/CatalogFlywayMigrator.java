@@ -21,7 +21,6 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 @Component
 @ConditionalOnProperty(name = "multitenancy.enabled", havingValue = "true")
-@Order(1) // Run before TenantFlywayMigrator
 public class CatalogFlywayMigrator {
 
 	@Value("${spring.datasource.catalog.jdbc-url}")
@@ -33,6 +32,8 @@ public class CatalogFlywayMigrator {
 	@Value("${spring.datasource.catalog.password}")
 	private String catalogPassword;
 
+	// Listener order comes from the method, not the class
+	@Order(1) // Run before TenantFlywayMigrator
 	@EventListener(ApplicationReadyEvent.class)
 	public void migrateCatalog() {
 		log.info("Starting Flyway migration for catalog database...");
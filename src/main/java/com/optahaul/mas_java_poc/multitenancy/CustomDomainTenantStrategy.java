@@ -0,0 +1,29 @@
+package com.optahaul.mas_java_poc.multitenancy;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * app.company1.com -> tenant whose custom domain is app.company1.com
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "multitenancy.enabled", havingValue = "true")
+public class CustomDomainTenantStrategy implements TenantResolutionStrategy {
+
+	private final TenantHostIndex hostIndex;
+
+	@Override
+	public String name() {
+		return "custom-domain";
+	}
+
+	@Override
+	public String resolve(HttpServletRequest request) {
+		String host = request.getServerName();
+		return host != null ? hostIndex.findByCustomDomain(host) : null;
+	}
+}
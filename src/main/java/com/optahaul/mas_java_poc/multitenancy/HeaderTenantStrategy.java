@@ -0,0 +1,36 @@
+package com.optahaul.mas_java_poc.multitenancy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Tenant id sent explicitly in a request header (X-Tenant-ID by default). Meant
+ * for service-to-service calls and local testing without DNS
+ */
+@Component
+@ConditionalOnProperty(name = "multitenancy.enabled", havingValue = "true")
+public class HeaderTenantStrategy implements TenantResolutionStrategy {
+
+	private final TenantHostIndex hostIndex;
+	private final String headerName;
+
+	public HeaderTenantStrategy(TenantHostIndex hostIndex,
+			@Value("${multitenancy.tenant-header:X-Tenant-ID}") String headerName) {
+		this.hostIndex = hostIndex;
+		this.headerName = headerName;
+	}
+
+	@Override
+	public String name() {
+		return "header";
+	}
+
+	@Override
+	public String resolve(HttpServletRequest request) {
+		String tenantId = request.getHeader(headerName);
+		return tenantId != null && !tenantId.isEmpty() ? hostIndex.findTenantId(tenantId) : null;
+	}
+}
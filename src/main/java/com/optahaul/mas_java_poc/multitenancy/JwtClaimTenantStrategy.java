@@ -0,0 +1,44 @@
+package com.optahaul.mas_java_poc.multitenancy;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.optahaul.mas_java_poc.security.JwtTokenProvider;
+
+import io.jsonwebtoken.JwtException;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Tenant id taken from the tenantId claim of a signed bearer token
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "multitenancy.enabled", havingValue = "true")
+public class JwtClaimTenantStrategy implements TenantResolutionStrategy {
+
+	private static final String BEARER_PREFIX = "Bearer ";
+
+	private final JwtTokenProvider jwtTokenProvider;
+	private final TenantHostIndex hostIndex;
+
+	@Override
+	public String name() {
+		return "jwt";
+	}
+
+	@Override
+	public String resolve(HttpServletRequest request) {
+		String header = request.getHeader("Authorization");
+		if (header == null || !header.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+			return null;
+		}
+		try {
+			String tenantId = jwtTokenProvider.getTenantIdFromToken(header.substring(BEARER_PREFIX.length()));
+			return tenantId != null ? hostIndex.findTenantId(tenantId) : null;
+		} catch (JwtException | IllegalArgumentException e) {
+			// Invalid tokens are rejected later by JwtAuthenticationFilter
+			return null;
+		}
+	}
+}
@@ -1,10 +1,15 @@
 package com.optahaul.mas_java_poc.multitenancy;
 
+import java.sql.Connection;
 import java.util.HashMap;
 
 import javax.sql.DataSource;
 
+import org.hibernate.Session;
+import org.hibernate.cfg.AvailableSettings;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.jdbc.DataSourceBuilder;
@@ -13,12 +18,17 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.context.annotation.Primary;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.hibernate5.SpringBeanContainer;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
 import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
 import org.springframework.transaction.PlatformTransactionManager;
 
 import com.optahaul.mas_java_poc.service.TenantService;
+import com.zaxxer.hikari.HikariConfig;
+
+import io.micrometer.core.instrument.config.MeterFilter;
 
 /**
  * Main configuration for multi-tenancy setup Only active when
@@ -64,13 +74,34 @@ public class MultiTenancyConfig {
 		return new JpaTransactionManager(emf.getObject());
 	}
 
+	/**
+	 * Template for every tenant pool, bound from tenant.datasource.hikari.*
+	 */
+	@Bean(name = "tenantHikariConfig")
+	@ConfigurationProperties(prefix = "tenant.datasource.hikari")
+	public HikariConfig tenantHikariConfig() {
+		return new HikariConfig();
+	}
+
 	/**
 	 * Primary DataSource - routes to tenant databases
 	 */
 	@Primary
 	@Bean(name = "tenantDataSource")
-	public DataSource tenantDataSource(@Lazy TenantService tenantService) {
-		return new TenantRoutingDataSource(tenantService);
+	public TenantRoutingDataSource tenantDataSource(@Lazy TenantService tenantService, TenantDataSourceRegistry registry,
+			@Qualifier("tenantHikariConfig") HikariConfig tenantHikariConfig,
+			@Value("${tenant.datasource.shared.maximum-pool-size:30}") int sharedPoolSize,
+			TenantPoolMetrics poolMetrics, TenantReplicaRouter replicaRouter) {
+		return new TenantRoutingDataSource(tenantService, registry, tenantHikariConfig, sharedPoolSize,
+				poolMetrics, replicaRouter);
+	}
+
+	/**
+	 * Tags Hikari meters of database tenants' pools with the tenant id
+	 */
+	@Bean
+	public static MeterFilter tenantPoolMeterFilter() {
+		return TenantPoolMetrics.tenantTagFilter();
 	}
 
 	/**
@@ -79,10 +110,21 @@ public class MultiTenancyConfig {
 	@Primary
 	@Bean(name = "tenantEntityManager")
 	public LocalContainerEntityManagerFactoryBean tenantEntityManager(
-			@Qualifier("tenantDataSource") DataSource dataSource) {
+			@Qualifier("tenantDataSource") TenantRoutingDataSource dataSource,
+			@Qualifier("tenantHikariConfig") HikariConfig tenantHikariConfig,
+			TenantCacheRegionFactory cacheRegionFactory,
+			TenantStatementMetrics statementMetrics,
+			ConfigurableListableBeanFactory beanFactory) {
+
+		// Hibernate asks for a connection when the transaction begins, before Spring
+		// marks it read-only; the lazy proxy defers the real checkout to the first
+		// statement so read-only transactions can be routed to a replica
+		LazyConnectionDataSourceProxy lazyDataSource = new LazyConnectionDataSourceProxy(dataSource);
+		lazyDataSource.setDefaultAutoCommit(tenantHikariConfig.isAutoCommit());
+		lazyDataSource.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
 
 		LocalContainerEntityManagerFactoryBean em = new LocalContainerEntityManagerFactoryBean();
-		em.setDataSource(dataSource);
+		em.setDataSource(lazyDataSource);
 		em.setPackagesToScan("com.optahaul.mas_java_poc.domain"); // Business entities
 		em.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
 
@@ -94,10 +136,23 @@ public class MultiTenancyConfig {
 		// Schema should be managed per-tenant through Flyway or during tenant creation
 		properties.put("hibernate.hbm2ddl.auto", "none");
 		properties.put("hibernate.dialect", "org.hibernate.dialect.PostgreSQLDialect");
-		properties.put("hibernate.multiTenancy", "DATABASE");
+		// Sessions carry the tenant id so second-level and query cache keys include it;
+		// connections are still routed by TenantRoutingDataSource
+		properties.put("hibernate.tenant_identifier_resolver", new TenantHibernateSupport.TenantIdentifierResolver());
+		properties.put("hibernate.multi_tenant_connection_provider",
+				new TenantHibernateSupport.ConnectionProvider(lazyDataSource, dataSource));
+		properties.put("hibernate.cache.use_second_level_cache", "true");
+		properties.put("hibernate.cache.use_query_cache", "true");
+		properties.put("hibernate.cache.region.factory_class", cacheRegionFactory);
+		properties.put("jakarta.persistence.sharedCache.mode", "ENABLE_SELECTIVE");
+		// Entity listeners are Spring beans, as with Boot's own entity manager
+		properties.put(AvailableSettings.BEAN_CONTAINER, new SpringBeanContainer(beanFactory));
 		// Disable schema validation at startup
 		properties.put("hibernate.temp.use_jdbc_metadata_defaults", "false");
 		em.setJpaPropertyMap(properties);
+		// Per-tenant statement timings
+		em.setEntityManagerInitializer(
+				entityManager -> entityManager.unwrap(Session.class).addEventListeners(statementMetrics.listener()));
 
 		return em;
 	}
@@ -0,0 +1,47 @@
+package com.optahaul.mas_java_poc.multitenancy;
+
+import java.util.Locale;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * company1.optahaul.com -> tenant whose subdomain is company1
+ */
+@Component
+@ConditionalOnProperty(name = "multitenancy.enabled", havingValue = "true")
+public class SubdomainTenantStrategy implements TenantResolutionStrategy {
+
+	private final TenantHostIndex hostIndex;
+	private final String domainSuffix;
+
+	public SubdomainTenantStrategy(TenantHostIndex hostIndex,
+			@Value("${multitenancy.default-domain:optahaul.com}") String defaultDomain) {
+		this.hostIndex = hostIndex;
+		this.domainSuffix = "." + defaultDomain.toLowerCase(Locale.ROOT);
+	}
+
+	@Override
+	public String name() {
+		return "subdomain";
+	}
+
+	@Override
+	public String resolve(HttpServletRequest request) {
+		String host = request.getServerName();
+		if (host == null) {
+			return null;
+		}
+		// Exactly one label in front of the default domain
+		int labelEnd = host.length() - domainSuffix.length();
+		if (labelEnd <= 0
+				|| !host.regionMatches(true, labelEnd, domainSuffix, 0, domainSuffix.length())
+				|| host.lastIndexOf('.', labelEnd - 1) >= 0) {
+			return null;
+		}
+		return hostIndex.findBySubdomain(host, 0, labelEnd);
+	}
+}
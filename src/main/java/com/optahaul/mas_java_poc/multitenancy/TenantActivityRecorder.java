@@ -0,0 +1,56 @@
+package com.optahaul.mas_java_poc.multitenancy;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Counts requests per tenant on this node and periodically adds them to the
+ * catalog's tenant_activity scores, which {@link TenantWarmup} uses to decide
+ * which tenants to warm up after a deploy
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "multitenancy.enabled", havingValue = "true")
+public class TenantActivityRecorder {
+
+	private final TenantActivityRepository activityRepository;
+	private final double halfLifeSeconds;
+
+	private final Map<String, LongAdder> requests = new ConcurrentHashMap<>();
+
+	public TenantActivityRecorder(TenantActivityRepository activityRepository,
+			@Value("${tenant.activity.half-life:6h}") Duration halfLife) {
+		this.activityRepository = activityRepository;
+		this.halfLifeSeconds = halfLife.toSeconds();
+	}
+
+	public void record(String tenantId) {
+		requests.computeIfAbsent(tenantId, id -> new LongAdder()).increment();
+	}
+
+	@Scheduled(fixedDelayString = "${tenant.activity.flush-interval-ms:60000}")
+	public void flush() {
+		for (Map.Entry<String, LongAdder> entry : requests.entrySet()) {
+			long count = entry.getValue().sumThenReset();
+			if (count == 0) {
+				// Idle since the last flush; a request racing with this removal is not counted
+				requests.remove(entry.getKey(), entry.getValue());
+				continue;
+			}
+			try {
+				activityRepository.addRequests(entry.getKey(), count, halfLifeSeconds);
+			} catch (Exception e) {
+				log.warn("Failed to record activity for tenant {}: {}", entry.getKey(), e.getMessage());
+			}
+		}
+	}
+}
@@ -0,0 +1,37 @@
+package com.optahaul.mas_java_poc.multitenancy;
+
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.optahaul.mas_java_poc.domain.catalog.TenantActivity;
+
+@Repository
+@ConditionalOnProperty(name = "multitenancy.enabled", havingValue = "true")
+public interface TenantActivityRepository extends JpaRepository<TenantActivity, String> {
+
+	/**
+	 * Decays the stored score to now and adds the new requests
+	 */
+	@Modifying
+	@Transactional(transactionManager = "catalogTransactionManager")
+	@Query(value = "INSERT INTO tenant_activity (tenant_id, score, updated_at) VALUES (:tenantId, :requests, now()) "
+			+ "ON CONFLICT (tenant_id) DO UPDATE SET score = tenant_activity.score * power(0.5, "
+			+ "extract(epoch FROM now() - tenant_activity.updated_at) / :halfLifeSeconds) + EXCLUDED.score, "
+			+ "updated_at = now()", nativeQuery = true)
+	void addRequests(@Param("tenantId") String tenantId, @Param("requests") double requests,
+			@Param("halfLifeSeconds") double halfLifeSeconds);
+
+	/**
+	 * Most active tenants by score decayed to now
+	 */
+	@Query(value = "SELECT tenant_id FROM tenant_activity ORDER BY score * power(0.5, "
+			+ "extract(epoch FROM now() - updated_at) / :halfLifeSeconds) DESC LIMIT :limit", nativeQuery = true)
+	List<String> findMostActive(@Param("halfLifeSeconds") double halfLifeSeconds, @Param("limit") int limit);
+}
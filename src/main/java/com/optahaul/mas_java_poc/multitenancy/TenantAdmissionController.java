@@ -0,0 +1,124 @@
+package com.optahaul.mas_java_poc.multitenancy;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.optahaul.mas_java_poc.domain.catalog.Tenant;
+import com.optahaul.mas_java_poc.domain.catalog.TenantTier;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Per-tenant admission control for {@link TenantFilter}. Limits come from the
+ * tenant's tier in tenant_tiers, overridden by the tenant's own columns, and
+ * are enforced by a {@link TenantAdmissionLimiter} per tenant. Limiters are
+ * rebuilt when the tenant or the tier table changes
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "multitenancy.enabled", havingValue = "true")
+public class TenantAdmissionController {
+
+	static final String DEFAULT_TIER = "standard";
+
+	private final TenantCatalogCache catalogCache;
+	private final TenantTierRepository tierRepository;
+	private final boolean enabled;
+	private final int stripes;
+
+	private final Map<String, TenantAdmissionLimiter> limiters = new ConcurrentHashMap<>();
+	private final TenantAdmissionLimiter unlimited;
+
+	private volatile Map<String, TenantTier> tiers = Map.of();
+
+	public TenantAdmissionController(
+			TenantCatalogCache catalogCache,
+			TenantTierRepository tierRepository,
+			@Value("${tenant.admission.enabled:true}") boolean enabled,
+			@Value("${tenant.admission.stripes:8}") int stripes) {
+		this.catalogCache = catalogCache;
+		this.tierRepository = tierRepository;
+		this.enabled = enabled;
+		this.stripes = Math.max(1, stripes);
+		this.unlimited = new TenantAdmissionLimiter(TenantAdmissionLimiter.Limits.UNLIMITED, 1, System::nanoTime);
+	}
+
+	@Order(3) // After the catalog migration
+	@EventListener(ApplicationReadyEvent.class)
+	public void load() {
+		refreshTiers();
+	}
+
+	@Scheduled(fixedDelayString = "${tenant.admission.tier-refresh-interval-ms:60000}",
+			initialDelayString = "${tenant.admission.tier-refresh-interval-ms:60000}")
+	public void refreshTiers() {
+		try {
+			Map<String, TenantTier> loaded = tierRepository.findAll().stream()
+					.collect(Collectors.toUnmodifiableMap(TenantTier::getTier, Function.identity()));
+			if (!loaded.equals(tiers)) {
+				tiers = loaded;
+				limiters.clear();
+				log.info("Loaded admission limits for {} tier(s)", loaded.size());
+			}
+		} catch (Exception e) {
+			log.warn("Failed to load tenant tiers, keeping current limits: {}", e.getMessage());
+		}
+	}
+
+	/**
+	 * Admits the request or says why not; admitted requests must be released
+	 */
+	public TenantAdmissionLimiter.Admission tryAcquire(String tenantId) {
+		if (!enabled) {
+			return unlimited.tryAcquire(0);
+		}
+		TenantAdmissionLimiter limiter = limiters.get(tenantId);
+		if (limiter == null) {
+			limiter = limiters.computeIfAbsent(tenantId, this::createLimiter);
+		}
+		return limiter.tryAcquire(stripeHint());
+	}
+
+	/**
+	 * Drops the tenant's limiter so the next request picks up changed limits
+	 */
+	public void evict(String tenantId) {
+		limiters.remove(tenantId);
+	}
+
+	private TenantAdmissionLimiter createLimiter(String tenantId) {
+		TenantAdmissionLimiter.Limits limits = catalogCache.find(tenantId)
+				.map(this::limitsFor)
+				.orElse(TenantAdmissionLimiter.Limits.UNLIMITED);
+		return new TenantAdmissionLimiter(limits, stripes, System::nanoTime);
+	}
+
+	TenantAdmissionLimiter.Limits limitsFor(Tenant tenant) {
+		Map<String, TenantTier> current = tiers;
+		TenantTier tier = current.get(tenant.getTier() != null ? tenant.getTier() : DEFAULT_TIER);
+		if (tier == null) {
+			tier = current.get(DEFAULT_TIER);
+		}
+		return new TenantAdmissionLimiter.Limits(
+				tenant.getRequestsPerSecond() != null ? tenant.getRequestsPerSecond()
+						: tier != null ? tier.getRequestsPerSecond() : null,
+				tenant.getBurst() != null ? tenant.getBurst() : tier != null ? tier.getBurst() : null,
+				tenant.getMaxConcurrentRequests() != null ? tenant.getMaxConcurrentRequests()
+						: tier != null ? tier.getMaxConcurrentRequests() : null);
+	}
+
+	private static int stripeHint() {
+		long id = Thread.currentThread().threadId();
+		return (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+	}
+}
@@ -0,0 +1,192 @@
+package com.optahaul.mas_java_poc.multitenancy;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Admission limits for one tenant: a token bucket on request rate and a cap on
+ * requests in flight. Both are split into stripes, each on its own cache line
+ * and picked by the calling thread, so requests for the same tenant rarely
+ * contend; a thread whose stripe is exhausted tries the others before the
+ * request is rejected. All updates are CAS loops, nothing blocks
+ */
+final class TenantAdmissionLimiter {
+
+	// Slots are this many elements apart so neighbouring stripes don't share a cache line
+	private static final int LONG_PAD = 16;
+	private static final int INT_PAD = 32;
+
+	private final LongSupplier nanoClock;
+
+	// Rate: generic cell rate algorithm, one theoretical arrival time per stripe
+	private final int rateStripes;
+	private final long intervalNanos;
+	private final long[] toleranceNanos;
+	private final AtomicLongArray arrivals;
+
+	// Concurrency: requests in flight per stripe, each with its share of the cap
+	private final int slotStripes;
+	private final int[] slotCaps;
+	private final AtomicIntegerArray inFlight;
+
+	private final Admission[] admitted;
+
+	TenantAdmissionLimiter(Limits limits, int stripes, LongSupplier nanoClock) {
+		this.nanoClock = nanoClock;
+
+		if (limits.requestsPerSecond() != null && limits.requestsPerSecond() > 0) {
+			int burst = Math.max(1, limits.burst() != null ? limits.burst()
+					: (int) Math.ceil(limits.requestsPerSecond()));
+			this.rateStripes = Math.max(1, Math.min(stripes, burst));
+			// Each stripe refills at 1/n of the rate and holds 1/n of the burst, the
+			// first stripes one more each until the whole burst is spread
+			this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / limits.requestsPerSecond()) * rateStripes;
+			this.toleranceNanos = new long[rateStripes];
+			for (int i = 0; i < rateStripes; i++) {
+				int stripeBurst = burst / rateStripes + (i < burst % rateStripes ? 1 : 0);
+				toleranceNanos[i] = (stripeBurst - 1) * intervalNanos;
+			}
+			this.arrivals = new AtomicLongArray(rateStripes * LONG_PAD);
+			long now = nanoClock.getAsLong();
+			for (int i = 0; i < rateStripes; i++) {
+				arrivals.set(i * LONG_PAD, now);
+			}
+		} else {
+			this.rateStripes = 0;
+			this.intervalNanos = 0;
+			this.toleranceNanos = null;
+			this.arrivals = null;
+		}
+
+		if (limits.maxConcurrentRequests() != null && limits.maxConcurrentRequests() > 0) {
+			int cap = limits.maxConcurrentRequests();
+			this.slotStripes = Math.max(1, Math.min(stripes, cap));
+			this.slotCaps = new int[slotStripes];
+			for (int i = 0; i < slotStripes; i++) {
+				slotCaps[i] = cap / slotStripes + (i < cap % slotStripes ? 1 : 0);
+			}
+			this.inFlight = new AtomicIntegerArray(slotStripes * INT_PAD);
+		} else {
+			this.slotStripes = 0;
+			this.slotCaps = null;
+			this.inFlight = null;
+		}
+
+		// Admissions carry no per-request state, so they are shared
+		this.admitted = new Admission[Math.max(1, slotStripes)];
+		for (int i = 0; i < admitted.length; i++) {
+			admitted[i] = new Admission(this, slotStripes == 0 ? -1 : i, 0, null);
+		}
+	}
+
+	Admission tryAcquire(int hint) {
+		int slot = -1;
+		if (slotStripes > 0) {
+			slot = acquireSlot(hint);
+			if (slot < 0) {
+				return new Admission(this, -1, 0, Reason.CONCURRENCY);
+			}
+		}
+		if (rateStripes > 0) {
+			long waitNanos = acquireRate(hint);
+			if (waitNanos > 0) {
+				if (slot >= 0) {
+					releaseSlot(slot);
+				}
+				return new Admission(this, -1, waitNanos, Reason.RATE);
+			}
+		}
+		return admitted[Math.max(0, slot)];
+	}
+
+	/**
+	 * Stripe the slot was taken from, or -1 if every stripe is at its cap
+	 */
+	private int acquireSlot(int hint) {
+		for (int i = 0; i < slotStripes; i++) {
+			int stripe = Math.floorMod(hint + i, slotStripes);
+			int index = stripe * INT_PAD;
+			int current;
+			while ((current = inFlight.get(index)) < slotCaps[stripe]) {
+				if (inFlight.compareAndSet(index, current, current + 1)) {
+					return stripe;
+				}
+			}
+		}
+		return -1;
+	}
+
+	private void releaseSlot(int stripe) {
+		inFlight.decrementAndGet(stripe * INT_PAD);
+	}
+
+	/**
+	 * 0 if a token was taken, otherwise how long until the first stripe has one
+	 */
+	private long acquireRate(int hint) {
+		long now = nanoClock.getAsLong();
+		long shortestWait = Long.MAX_VALUE;
+		for (int i = 0; i < rateStripes; i++) {
+			int stripe = Math.floorMod(hint + i, rateStripes);
+			int index = stripe * LONG_PAD;
+			while (true) {
+				long arrival = arrivals.get(index);
+				long wait = arrival - now - toleranceNanos[stripe];
+				if (wait > 0) {
+					shortestWait = Math.min(shortestWait, wait);
+					break;
+				}
+				if (arrivals.compareAndSet(index, arrival, Math.max(arrival, now) + intervalNanos)) {
+					return 0;
+				}
+			}
+		}
+		return shortestWait;
+	}
+
+	int inFlight() {
+		if (inFlight == null) {
+			return 0;
+		}
+		int total = 0;
+		for (int i = 0; i < slotStripes; i++) {
+			total += inFlight.get(i * INT_PAD);
+		}
+		return total;
+	}
+
+	enum Reason {
+		RATE, CONCURRENCY
+	}
+
+	/**
+	 * Outcome of {@link #tryAcquire}; an admitted request must call
+	 * {@link #release()} when it completes
+	 */
+	record Admission(TenantAdmissionLimiter limiter, int slot, long retryAfterNanos, Reason rejectedFor) {
+
+		boolean admitted() {
+			return rejectedFor == null;
+		}
+
+		void release() {
+			if (slot >= 0) {
+				limiter.releaseSlot(slot);
+			}
+		}
+
+		long retryAfterSeconds() {
+			return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(retryAfterNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+		}
+	}
+
+	/**
+	 * Effective limits; null or non-positive means unlimited
+	 */
+	record Limits(Double requestsPerSecond, Integer burst, Integer maxConcurrentRequests) {
+
+		static final Limits UNLIMITED = new Limits(null, null, null);
+	}
+}
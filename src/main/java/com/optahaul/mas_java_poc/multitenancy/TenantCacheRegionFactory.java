@@ -0,0 +1,242 @@
+package com.optahaul.mas_java_poc.multitenancy;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.cache.cfg.spi.DomainDataRegionBuildingContext;
+import org.hibernate.cache.cfg.spi.DomainDataRegionConfig;
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.cache.spi.support.RegionFactoryTemplate;
+import org.hibernate.cache.spi.support.StorageAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Hibernate second-level and query cache for the tenant entity manager, held
+ * in Caffeine. Every entry is keyed by the tenant of the session that stored
+ * it as well as Hibernate's own key, so a tenant can only ever read its own
+ * entries, and update timestamps are per tenant, so one tenant's writes don't
+ * invalidate another's cached queries. Each region is bounded and expires
+ * entries after its TTL (tenant.cache.regions.&lt;region&gt;.max-entries/ttl,
+ * defaulting to tenant.cache.default-*), except the update timestamps: Hibernate
+ * takes a missing timestamp to mean its tables never changed, so dropping one
+ * would serve stale query results. They are neither bounded nor expired, and
+ * number one per tenant and table written. Lookups are counted per tenant and
+ * region in tenant.cache.requests{result=hit|miss}.
+ * <p>
+ * The cache is local to the node: a write on another node reaches this one
+ * only when the entry expires, so TTLs bound how stale a read can be and
+ * default to a few seconds. It still absorbs the repeated reads of hot rows
+ * and queries; nothing is evicted across nodes except through
+ * {@link #evictTenant} when the tenant moves to another database
+ */
+@Component
+@ConditionalOnProperty(name = "multitenancy.enabled", havingValue = "true")
+public class TenantCacheRegionFactory extends RegionFactoryTemplate {
+
+	private static final String REGION_PROPERTY_PREFIX = "tenant.cache.regions.";
+
+	private final Environment environment;
+	private final MeterRegistry meterRegistry;
+	private final Duration defaultTtl;
+	private final long defaultMaxEntries;
+
+	private final List<TenantRegionStorage> regions = new CopyOnWriteArrayList<>();
+
+	public TenantCacheRegionFactory(
+			Environment environment,
+			ObjectProvider<MeterRegistry> meterRegistry,
+			@Value("${tenant.cache.default-ttl:5s}") Duration defaultTtl,
+			@Value("${tenant.cache.default-max-entries:10000}") long defaultMaxEntries) {
+		this.environment = environment;
+		this.meterRegistry = meterRegistry.getIfAvailable();
+		this.defaultTtl = defaultTtl;
+		this.defaultMaxEntries = defaultMaxEntries;
+	}
+
+	/**
+	 * Drops everything cached for the tenant, in every region
+	 */
+	public void evictTenant(String tenantId) {
+		regions.forEach(region -> region.evictTenant(tenantId));
+	}
+
+	@Override
+	protected void prepareForUse(SessionFactoryOptions settings, Map<String, Object> configValues) {
+	}
+
+	@Override
+	protected void releaseFromUse() {
+		regions.forEach(TenantRegionStorage::release);
+		regions.clear();
+	}
+
+	@Override
+	protected DomainDataStorageAccess createDomainDataStorageAccess(DomainDataRegionConfig regionConfig,
+			DomainDataRegionBuildingContext buildingContext) {
+		return register(regionConfig.getRegionName());
+	}
+
+	@Override
+	protected StorageAccess createQueryResultsRegionStorageAccess(String regionName,
+			SessionFactoryImplementor sessionFactory) {
+		return register(regionName);
+	}
+
+	@Override
+	protected StorageAccess createTimestampsRegionStorageAccess(String regionName,
+			SessionFactoryImplementor sessionFactory) {
+		return register(new TenantRegionStorage(regionName, Caffeine.newBuilder().build(), meterRegistry));
+	}
+
+	private TenantRegionStorage register(String regionName) {
+		String prefix = REGION_PROPERTY_PREFIX + regionName;
+		Duration ttl = environment.getProperty(prefix + ".ttl", Duration.class, defaultTtl);
+		long maxEntries = environment.getProperty(prefix + ".max-entries", Long.class, defaultMaxEntries);
+		return register(new TenantRegionStorage(regionName, ttl, maxEntries, meterRegistry));
+	}
+
+	private TenantRegionStorage register(TenantRegionStorage storage) {
+		regions.add(storage);
+		return storage;
+	}
+
+	/**
+	 * One cache region. Sessions without a tenant share the null tenant, which
+	 * never holds real data since they cannot reach a tenant database
+	 */
+	static final class TenantRegionStorage implements DomainDataStorageAccess {
+
+		private final String regionName;
+		private final Cache<TenantKey, Object> cache;
+		private final MeterRegistry meterRegistry;
+		private final Map<String, Counter[]> counters = new ConcurrentHashMap<>();
+
+		TenantRegionStorage(String regionName, Duration ttl, long maxEntries, MeterRegistry meterRegistry) {
+			this(regionName, Caffeine.newBuilder()
+					.maximumSize(maxEntries)
+					.expireAfterWrite(ttl)
+					.build(), meterRegistry);
+		}
+
+		TenantRegionStorage(String regionName, Cache<TenantKey, Object> cache, MeterRegistry meterRegistry) {
+			this.regionName = regionName;
+			this.cache = cache;
+			this.meterRegistry = meterRegistry;
+		}
+
+		@Override
+		public Object getFromCache(Object key, SharedSessionContractImplementor session) {
+			String tenantId = tenantOf(session);
+			Object value = cache.getIfPresent(new TenantKey(tenantId, key));
+			count(tenantId, value != null);
+			return value;
+		}
+
+		@Override
+		public void putIntoCache(Object key, Object value, SharedSessionContractImplementor session) {
+			cache.put(new TenantKey(tenantOf(session), key), value);
+		}
+
+		@Override
+		public void removeFromCache(Object key, SharedSessionContractImplementor session) {
+			cache.invalidate(new TenantKey(tenantOf(session), key));
+		}
+
+		@Override
+		public void clearCache(SharedSessionContractImplementor session) {
+			evictTenant(tenantOf(session));
+		}
+
+		// The calls below come from Hibernate's Cache API, which has no session and so no tenant
+
+		@Override
+		public boolean contains(Object key) {
+			return cache.asMap().keySet().stream().anyMatch(entry -> entry.key().equals(key));
+		}
+
+		@Override
+		public void evictData() {
+			cache.invalidateAll();
+		}
+
+		@Override
+		public void evictData(Object key) {
+			cache.asMap().keySet().removeIf(entry -> entry.key().equals(key));
+		}
+
+		@Override
+		public void release() {
+			cache.invalidateAll();
+			counters.values().forEach(pair -> {
+				for (Counter counter : pair) {
+					meterRegistry.remove(counter);
+				}
+			});
+			counters.clear();
+		}
+
+		void evictTenant(String tenantId) {
+			cache.asMap().keySet().removeIf(entry -> Objects.equals(entry.tenantId(), tenantId));
+			Counter[] removed = tenantId != null ? counters.remove(tenantId) : null;
+			if (removed != null) {
+				for (Counter counter : removed) {
+					meterRegistry.remove(counter);
+				}
+			}
+		}
+
+		long size() {
+			cache.cleanUp();
+			return cache.estimatedSize();
+		}
+
+		private void count(String tenantId, boolean hit) {
+			if (meterRegistry == null || tenantId == null) {
+				return;
+			}
+			Counter[] pair = counters.get(tenantId);
+			if (pair == null) {
+				pair = counters.computeIfAbsent(tenantId, this::register);
+			}
+			pair[hit ? 0 : 1].increment();
+		}
+
+		private Counter[] register(String tenantId) {
+			return new Counter[] { counter(tenantId, "hit"), counter(tenantId, "miss") };
+		}
+
+		private Counter counter(String tenantId, String result) {
+			return Counter.builder("tenant.cache.requests")
+					.description("Second-level and query cache lookups per tenant")
+					.tag("tenant", tenantId)
+					.tag("region", regionName)
+					.tag("result", result)
+					.register(meterRegistry);
+		}
+
+		private static String tenantOf(SharedSessionContractImplementor session) {
+			String tenantId = session != null ? session.getTenantIdentifier() : null;
+			return TenantHibernateSupport.NO_TENANT.equals(tenantId) ? null : tenantId;
+		}
+	}
+
+	record TenantKey(String tenantId, Object key) {
+	}
+}
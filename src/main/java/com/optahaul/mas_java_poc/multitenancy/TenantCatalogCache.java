@@ -0,0 +1,91 @@
+package com.optahaul.mas_java_poc.multitenancy;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.optahaul.mas_java_poc.domain.catalog.Tenant;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bounded in-process cache of catalog tenant rows. Entries expire after a TTL
+ * and are reloaded in the background shortly before that (refresh-ahead), so
+ * busy tenants never wait on the catalog. Unknown tenant ids are cached too,
+ * with a much shorter TTL, so a flood of bogus ids costs one catalog query each
+ * rather than one per request. Concurrent misses for the same id share a
+ * single load
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "multitenancy.enabled", havingValue = "true")
+public class TenantCatalogCache {
+
+	private final LoadingCache<String, Optional<Tenant>> cache;
+
+	public TenantCatalogCache(
+			TenantRepository tenantRepository,
+			ObjectProvider<MeterRegistry> meterRegistry,
+			@Value("${tenant.catalog-cache.maximum-size:10000}") long maximumSize,
+			@Value("${tenant.catalog-cache.ttl:10m}") Duration ttl,
+			@Value("${tenant.catalog-cache.refresh-after:5m}") Duration refreshAfter,
+			@Value("${tenant.catalog-cache.negative-ttl:30s}") Duration negativeTtl) {
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfter(new TenantExpiry(ttl.toNanos(), negativeTtl.toNanos()))
+				.refreshAfterWrite(refreshAfter)
+				.recordStats()
+				.build(tenantRepository::findByTenantId);
+
+		meterRegistry.ifAvailable(registry -> CaffeineCacheMetrics.monitor(registry, cache, "tenantCatalog"));
+	}
+
+	/**
+	 * Cached catalog row for the tenant; empty if there is no such tenant. The
+	 * returned instance is shared, so callers must not modify it
+	 */
+	public Optional<Tenant> find(String tenantId) {
+		return cache.get(tenantId);
+	}
+
+	public void evict(String tenantId) {
+		cache.invalidate(tenantId);
+		log.debug("Evicted tenant {} from catalog cache", tenantId);
+	}
+
+	public CacheStats stats() {
+		return cache.stats();
+	}
+
+	/**
+	 * Full TTL for known tenants, short TTL for unknown ids; reads don't extend
+	 * either
+	 */
+	private record TenantExpiry(long ttlNanos, long negativeTtlNanos) implements Expiry<String, Optional<Tenant>> {
+
+		@Override
+		public long expireAfterCreate(String key, Optional<Tenant> value, long currentTime) {
+			return value.isPresent() ? ttlNanos : negativeTtlNanos;
+		}
+
+		@Override
+		public long expireAfterUpdate(String key, Optional<Tenant> value, long currentTime, long currentDuration) {
+			return expireAfterCreate(key, value, currentTime);
+		}
+
+		@Override
+		public long expireAfterRead(String key, Optional<Tenant> value, long currentTime, long currentDuration) {
+			return currentDuration;
+		}
+	}
+}
@@ -0,0 +1,50 @@
+package com.optahaul.mas_java_poc.multitenancy;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Drops what this node holds for a tenant once its catalog change has
+ * committed: the cached catalog row, the host index entry and the admission
+ * limiter always; the connection pools, statement metrics and second-level
+ * cache entries only when the tenant's route changed
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "multitenancy.enabled", havingValue = "true")
+public class TenantChangeListener {
+
+	private final TenantCatalogCache catalogCache;
+	private final TenantRoutingDataSource routingDataSource;
+	private final TenantHostIndex hostIndex;
+	private final TenantRepository tenantRepository;
+	private final TenantAdmissionController admissionController;
+	private final TenantStatementMetrics statementMetrics;
+	private final TenantCacheRegionFactory cacheRegionFactory;
+
+	@TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+	public void onTenantChanged(TenantChangedEvent event) {
+		String tenantId = event.tenantId();
+		log.info("Tenant {} {}; refreshing cached state", tenantId, event.change());
+
+		catalogCache.evict(tenantId);
+		admissionController.evict(tenantId);
+		// Pools, metrics and cached entities only go when the tenant moved or stopped being served
+		if (routingDataSource.refreshTenant(tenantId)) {
+			statementMetrics.remove(tenantId);
+			cacheRegionFactory.evictTenant(tenantId);
+		}
+
+		if (event.change() == TenantChangedEvent.Change.DELETED) {
+			hostIndex.remove(tenantId);
+		} else {
+			tenantRepository.findByTenantId(tenantId).ifPresent(hostIndex::put);
+		}
+	}
+}
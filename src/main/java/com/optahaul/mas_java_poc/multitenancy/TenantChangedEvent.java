@@ -0,0 +1,12 @@
+package com.optahaul.mas_java_poc.multitenancy;
+
+/**
+ * Published when a tenant's catalog entry changes. Listeners drop whatever they
+ * cache for the tenant (catalog cache, routes, connection pools)
+ */
+public record TenantChangedEvent(String tenantId, Change change) {
+
+	public enum Change {
+		CREATED, UPDATED, SUSPENDED, ACTIVATED, RELOCATING, RELOCATED, DELETED
+	}
+}
@@ -0,0 +1,131 @@
+package com.optahaul.mas_java_poc.multitenancy;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.optahaul.mas_java_poc.multitenancy.TenantDataSourceRegistry.PoolDemand;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Shares the node-wide connection budget between tenant pools. Every rebalance
+ * samples each pool's active connections, waiting threads, checkout rate and
+ * checkout wait time, then grows busy pools (up to
+ * tenant.datasource.budget.max-per-pool, whatever size they were built with)
+ * and shrinks idle ones to zero idle connections, scaling everyone down
+ * proportionally if demand exceeds the budget
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "multitenancy.enabled", havingValue = "true")
+public class TenantConnectionBudgetManager {
+
+	private final TenantDataSourceRegistry registry;
+	private final long waitThresholdNanos;
+	private final double smoothing;
+	private final int maxPerPool;
+
+	// Only touched from the scheduler thread
+	private final Map<String, Double> smoothedDemand = new HashMap<>();
+
+	public TenantConnectionBudgetManager(
+			TenantDataSourceRegistry registry,
+			@Value("${tenant.datasource.budget.wait-threshold-ms:20}") long waitThresholdMillis,
+			@Value("${tenant.datasource.budget.smoothing:0.5}") double smoothing,
+			@Value("${tenant.datasource.budget.max-per-pool:40}") int maxPerPool) {
+		this.registry = registry;
+		this.waitThresholdNanos = waitThresholdMillis * 1_000_000L;
+		this.smoothing = smoothing;
+		this.maxPerPool = Math.max(1, maxPerPool);
+	}
+
+	@Scheduled(fixedDelayString = "${tenant.datasource.budget.rebalance-interval-ms:5000}")
+	public void rebalance() {
+		List<PoolDemand> demand = registry.drainDemand();
+		List<Allocation> allocations = allocate(demand, registry.stats().maxTotalConnections());
+
+		// Apply shrinks before growth so the budget freed up is available this round
+		allocations.sort(Comparator.comparingInt(a -> a.maximumPoolSize() - a.currentPoolSize()));
+		for (Allocation allocation : allocations) {
+			if (allocation.maximumPoolSize() != allocation.currentPoolSize()
+					&& registry.resize(allocation.key(), allocation.maximumPoolSize(), allocation.minimumIdle())) {
+				log.debug("Resized pool {} from {} to {} connections (min idle {})", allocation.key(),
+						allocation.currentPoolSize(), allocation.maximumPoolSize(), allocation.minimumIdle());
+			}
+		}
+	}
+
+	List<Allocation> allocate(List<PoolDemand> demand, int budget) {
+		Set<String> seen = new HashSet<>();
+		List<Allocation> allocations = new ArrayList<>(demand.size());
+		int[] targets = new int[demand.size()];
+		int[] minIdle = new int[demand.size()];
+		int total = 0;
+
+		for (int i = 0; i < demand.size(); i++) {
+			PoolDemand pool = demand.get(i);
+			seen.add(pool.key());
+
+			double observed = pool.activeConnections() + pool.threadsAwaiting();
+			double smoothed = smoothing * observed + (1 - smoothing) * smoothedDemand.getOrDefault(pool.key(), observed);
+			smoothedDemand.put(pool.key(), smoothed);
+
+			if (pool.checkouts() == 0 && observed == 0) {
+				// Idle: keep the smallest pool Hikari allows and let it drain to zero
+				targets[i] = 1;
+				minIdle[i] = 0;
+			} else {
+				int target = (int) Math.ceil(smoothed) + 1;
+				long averageWait = pool.checkouts() > 0 ? pool.waitNanos() / pool.checkouts() : 0;
+				if (pool.threadsAwaiting() > 0 || averageWait > waitThresholdNanos) {
+					target = Math.max(target, pool.maximumPoolSize() + Math.max(1, pool.maximumPoolSize() / 2));
+				}
+				targets[i] = Math.clamp(target, 1, maxPerPool);
+				minIdle[i] = Math.min(targets[i], (int) Math.ceil(smoothed));
+			}
+			total += targets[i];
+		}
+
+		if (total > budget) {
+			scaleToBudget(targets, total, budget);
+		}
+
+		for (int i = 0; i < demand.size(); i++) {
+			PoolDemand pool = demand.get(i);
+			allocations.add(new Allocation(pool.key(), pool.maximumPoolSize(), targets[i],
+					Math.min(minIdle[i], targets[i])));
+		}
+
+		smoothedDemand.keySet().retainAll(seen);
+		return allocations;
+	}
+
+	/**
+	 * Every open pool keeps one connection; the rest of the budget is split in
+	 * proportion to what each pool asked for above that
+	 */
+	private static void scaleToBudget(int[] targets, int total, int budget) {
+		int extraRequested = total - targets.length;
+		if (extraRequested == 0) {
+			return;
+		}
+		int extraAvailable = Math.max(0, budget - targets.length);
+		for (int i = 0; i < targets.length; i++) {
+			int extra = targets[i] - 1;
+			targets[i] = 1 + (int) ((long) extra * extraAvailable / extraRequested);
+		}
+	}
+
+	record Allocation(String key, int currentPoolSize, int maximumPoolSize, int minimumIdle) {
+	}
+}
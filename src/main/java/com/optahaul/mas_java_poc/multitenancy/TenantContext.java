@@ -1,21 +1,62 @@
 package com.optahaul.mas_java_poc.multitenancy;
 
 /**
- * Thread-local storage for current tenant context Ensures each request thread
- * knows which tenant it's serving
+ * Current tenant, carried by a {@link ScopedValue} Bound for the duration of
+ * {@link #runAs}/{@link #callAs} and unbound again when they return, so there
+ * is nothing to clear. Works the same on platform and virtual threads, and is
+ * inherited by subtasks forked in a StructuredTaskScope. Tasks handed to an
+ * executor don't inherit it; wrap them with {@link #propagate}
  */
-public class TenantContext {
-	private static final ThreadLocal<String> CURRENT_TENANT = new ThreadLocal<>();
+public final class TenantContext {
 
-	public static void setCurrentTenant(String tenantId) {
-		CURRENT_TENANT.set(tenantId);
+	private static final ScopedValue<String> CURRENT_TENANT = ScopedValue.newInstance();
+
+	private TenantContext() {
 	}
 
+	/**
+	 * Tenant bound on this thread, or null outside a tenant scope
+	 */
 	public static String getCurrentTenant() {
-		return CURRENT_TENANT.get();
+		return CURRENT_TENANT.isBound() ? CURRENT_TENANT.get() : null;
+	}
+
+	public static void runAs(String tenantId, Runnable task) {
+		ScopedValue.where(CURRENT_TENANT, tenantId).run(task);
+	}
+
+	/**
+	 * Runs the call with the tenant bound, passing its result and exceptions
+	 * through unchanged
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T, X extends Throwable> T callAs(String tenantId, TenantCall<T, X> call) throws X {
+		Object[] result = new Object[1];
+		Throwable[] failure = new Throwable[1];
+		ScopedValue.where(CURRENT_TENANT, tenantId).run(() -> {
+			try {
+				result[0] = call.call();
+			} catch (Throwable t) {
+				failure[0] = t;
+			}
+		});
+		if (failure[0] != null) {
+			throw (X) failure[0];
+		}
+		return (T) result[0];
+	}
+
+	/**
+	 * Wraps the task so it runs as the submitting thread's tenant on whichever
+	 * thread executes it. Used as the TaskDecorator of the async executors
+	 */
+	public static Runnable propagate(Runnable task) {
+		String tenantId = getCurrentTenant();
+		return tenantId == null ? task : () -> runAs(tenantId, task);
 	}
 
-	public static void clear() {
-		CURRENT_TENANT.remove();
+	@FunctionalInterface
+	public interface TenantCall<T, X extends Throwable> {
+		T call() throws X;
 	}
 }
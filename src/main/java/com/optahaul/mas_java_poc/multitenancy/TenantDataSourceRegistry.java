@@ -0,0 +1,417 @@
+package com.optahaul.mas_java_poc.multitenancy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bounded registry of tenant connection pools. Each pool is built at most once
+ * even when several requests race for a new tenant, pools idle for longer than
+ * the configured timeout are closed, and when the pool or connection limit is
+ * reached the least recently used idle pool is evicted to make room. Evicted
+ * pools are forgotten along with their entry, so the registry only holds the
+ * tenants that are currently being served
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "multitenancy.enabled", havingValue = "true")
+public class TenantDataSourceRegistry implements AutoCloseable {
+
+	private final ConcurrentHashMap<String, PoolEntry> entries = new ConcurrentHashMap<>();
+
+	// Guards openPools/committedConnections. While holding it, entry locks are
+	// only ever tried, so openers (entry lock first) can never deadlock with it
+	private final ReentrantLock capacityLock = new ReentrantLock();
+
+	private final int maxPools;
+	private final int maxTotalConnections;
+	private final long idleEvictionMillis;
+
+	private int openPools;
+	private int committedConnections;
+
+	private final AtomicLong openedCount = new AtomicLong();
+	private final AtomicLong evictedCount = new AtomicLong();
+	private final AtomicLong rebuiltCount = new AtomicLong();
+
+	// Keys of recently evicted pools, only kept to count rebuilds. Guarded by
+	// the capacity lock and bounded by maxPools
+	private final Set<String> recentlyEvicted;
+
+	private final List<Consumer<String>> closeListeners = new CopyOnWriteArrayList<>();
+
+	public TenantDataSourceRegistry(
+			@Value("${tenant.datasource.registry.max-pools:200}") int maxPools,
+			@Value("${tenant.datasource.budget.max-connections:400}") int maxTotalConnections,
+			@Value("${tenant.datasource.registry.idle-eviction-ms:600000}") long idleEvictionMillis) {
+		this.maxPools = maxPools;
+		this.maxTotalConnections = maxTotalConnections;
+		this.idleEvictionMillis = idleEvictionMillis;
+		this.recentlyEvicted = Collections.newSetFromMap(new LinkedHashMap<>() {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+				return size() > maxPools;
+			}
+		});
+	}
+
+	/**
+	 * Called with the pool key whenever a pool is closed (removed or evicted)
+	 */
+	public void addCloseListener(Consumer<String> listener) {
+		closeListeners.add(listener);
+	}
+
+	/**
+	 * Returns the open pool for the given key, building it with the factory if
+	 * there is none. The factory runs at most once per key at a time
+	 */
+	public HikariDataSource getOrCreate(String key, Supplier<HikariDataSource> factory) {
+		while (true) {
+			PoolEntry entry = entries.computeIfAbsent(key, PoolEntry::new);
+			entry.lastAccess = System.currentTimeMillis();
+
+			HikariDataSource dataSource = entry.dataSource;
+			if (dataSource != null) {
+				return dataSource;
+			}
+
+			dataSource = open(entry, factory);
+			if (dataSource != null) {
+				return dataSource;
+			}
+			// Entry was removed while we were opening it; start over with a fresh one
+		}
+	}
+
+	/**
+	 * Records one connection checkout and how long it waited on the pool. Feeds
+	 * the demand figures used by {@link TenantConnectionBudgetManager}
+	 */
+	public void recordCheckout(String key, long waitNanos) {
+		PoolEntry entry = entries.get(key);
+		if (entry != null) {
+			entry.checkouts.increment();
+			entry.waitNanos.add(waitNanos);
+		}
+	}
+
+	/**
+	 * Samples every open pool and resets the checkout counters, so each call
+	 * reports the demand observed since the previous one
+	 */
+	public List<PoolDemand> drainDemand() {
+		List<PoolDemand> demand = new ArrayList<>();
+		for (PoolEntry entry : entries.values()) {
+			HikariDataSource dataSource = entry.dataSource;
+			if (dataSource != null) {
+				HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+				demand.add(new PoolDemand(entry.key, dataSource.getMaximumPoolSize(),
+						pool != null ? pool.getActiveConnections() : 0,
+						pool != null ? pool.getThreadsAwaitingConnection() : 0,
+						entry.checkouts.sumThenReset(), entry.waitNanos.sumThenReset()));
+			}
+		}
+		return demand;
+	}
+
+	/**
+	 * Changes the size of a running pool. Growing is refused if it would take the
+	 * node over the connection budget
+	 *
+	 * @return true if the pool was resized
+	 */
+	public boolean resize(String key, int maximumPoolSize, int minimumIdle) {
+		capacityLock.lock();
+		try {
+			PoolEntry entry = entries.get(key);
+			HikariDataSource dataSource = entry != null ? entry.dataSource : null;
+			if (dataSource == null) {
+				return false;
+			}
+			int delta = maximumPoolSize - entry.poolSize;
+			if (delta > 0 && committedConnections + delta > maxTotalConnections) {
+				return false;
+			}
+
+			HikariConfigMXBean config = dataSource.getHikariConfigMXBean();
+			if (delta < 0) {
+				config.setMinimumIdle(minimumIdle);
+				config.setMaximumPoolSize(maximumPoolSize);
+			} else {
+				config.setMaximumPoolSize(maximumPoolSize);
+				config.setMinimumIdle(minimumIdle);
+			}
+			committedConnections += delta;
+			entry.poolSize = maximumPoolSize;
+			return true;
+		} finally {
+			capacityLock.unlock();
+		}
+	}
+
+	/**
+	 * Closes and forgets the pool for the given key (tenant deleted or suspended)
+	 */
+	public void remove(String key) {
+		PoolEntry entry = entries.remove(key);
+		if (entry == null) {
+			return;
+		}
+		entry.lock.lock();
+		try {
+			capacityLock.lock();
+			try {
+				closePool(entry, "removed");
+			} finally {
+				capacityLock.unlock();
+			}
+		} finally {
+			entry.lock.unlock();
+		}
+	}
+
+	/**
+	 * Periodically closes pools that have not been used within the idle timeout
+	 * and have no connections checked out
+	 */
+	@Scheduled(fixedDelayString = "${tenant.datasource.registry.eviction-interval-ms:30000}")
+	public void evictIdlePools() {
+		long cutoff = System.currentTimeMillis() - idleEvictionMillis;
+		capacityLock.lock();
+		try {
+			for (PoolEntry entry : entries.values()) {
+				if (entry.dataSource != null && entry.lastAccess < cutoff && tryEvict(entry, "idle")) {
+					log.info("Evicted idle pool for {} (unused for {} ms)", entry.key,
+							System.currentTimeMillis() - entry.lastAccess);
+				}
+			}
+		} finally {
+			capacityLock.unlock();
+		}
+	}
+
+	public PoolStats stats() {
+		capacityLock.lock();
+		try {
+			return new PoolStats(openPools, committedConnections, maxPools, maxTotalConnections,
+					openedCount.get(), evictedCount.get(), rebuiltCount.get());
+		} finally {
+			capacityLock.unlock();
+		}
+	}
+
+	public List<PoolSnapshot> snapshot() {
+		List<PoolSnapshot> pools = new ArrayList<>();
+		for (PoolEntry entry : entries.values()) {
+			HikariDataSource dataSource = entry.dataSource;
+			if (dataSource != null) {
+				HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+				pools.add(new PoolSnapshot(entry.key, dataSource.getMaximumPoolSize(),
+						pool != null ? pool.getActiveConnections() : 0,
+						pool != null ? pool.getIdleConnections() : 0,
+						entry.lastAccess));
+			}
+		}
+		pools.sort(Comparator.comparing(PoolSnapshot::key));
+		return pools;
+	}
+
+	@Override
+	public void close() {
+		for (String key : List.copyOf(entries.keySet())) {
+			remove(key);
+		}
+	}
+
+	private HikariDataSource open(PoolEntry entry, Supplier<HikariDataSource> factory) {
+		entry.lock.lock();
+		try {
+			if (entry.dataSource != null) {
+				return entry.dataSource;
+			}
+
+			HikariDataSource dataSource;
+			try {
+				dataSource = factory.get();
+			} catch (RuntimeException e) {
+				// Don't keep entries around for keys that never resolved to a pool
+				entries.remove(entry.key, entry);
+				throw e;
+			}
+
+			reserve(entry, dataSource);
+
+			if (entries.get(entry.key) != entry) {
+				release(entry, dataSource);
+				dataSource.close();
+				return null;
+			}
+			return dataSource;
+		} finally {
+			entry.lock.unlock();
+		}
+	}
+
+	private void reserve(PoolEntry entry, HikariDataSource dataSource) {
+		int size = dataSource.getMaximumPoolSize();
+		capacityLock.lock();
+		try {
+			while (openPools + 1 > maxPools || committedConnections + size > maxTotalConnections) {
+				PoolEntry victim = leastRecentlyUsedIdle(entry);
+				if (victim == null && openPools + 1 <= maxPools && committedConnections < maxTotalConnections) {
+					// Nothing to evict, but there is budget left: start smaller and let the
+					// budget manager grow the pool once connections free up
+					size = maxTotalConnections - committedConnections;
+					dataSource.setMaximumPoolSize(size);
+					dataSource.setMinimumIdle(Math.min(dataSource.getMinimumIdle(), size));
+					break;
+				}
+				if (victim == null) {
+					dataSource.close();
+					throw new IllegalStateException("Tenant pool capacity exhausted (" + openPools + " pools, "
+							+ committedConnections + " connections in use); cannot open pool for " + entry.key);
+				}
+				log.info("Evicted least recently used pool {} to make room for {}", victim.key, entry.key);
+			}
+
+			openPools++;
+			committedConnections += size;
+			entry.dataSource = dataSource;
+			entry.poolSize = size;
+			if (recentlyEvicted.remove(entry.key)) {
+				rebuiltCount.incrementAndGet();
+			}
+			openedCount.incrementAndGet();
+			log.info("Opened pool for {} (max {} connections, {} pools / {} connections now open)", entry.key, size,
+					openPools, committedConnections);
+		} finally {
+			capacityLock.unlock();
+		}
+	}
+
+	private void release(PoolEntry entry, HikariDataSource dataSource) {
+		capacityLock.lock();
+		try {
+			if (entry.dataSource == dataSource) {
+				entry.dataSource = null;
+				openPools--;
+				committedConnections -= entry.poolSize;
+			}
+		} finally {
+			capacityLock.unlock();
+		}
+	}
+
+	/**
+	 * Must be called with the capacity lock held. Entries currently being opened
+	 * hold their own lock and are skipped rather than waited on
+	 */
+	private PoolEntry leastRecentlyUsedIdle(PoolEntry requester) {
+		List<PoolEntry> candidates = new ArrayList<>();
+		for (PoolEntry entry : entries.values()) {
+			if (entry != requester && entry.dataSource != null) {
+				candidates.add(entry);
+			}
+		}
+		candidates.sort(Comparator.comparingLong(e -> e.lastAccess));
+		for (PoolEntry candidate : candidates) {
+			if (tryEvict(candidate, "lru")) {
+				return candidate;
+			}
+		}
+		return null;
+	}
+
+	private boolean tryEvict(PoolEntry entry, String reason) {
+		if (!entry.lock.tryLock()) {
+			return false;
+		}
+		try {
+			HikariDataSource dataSource = entry.dataSource;
+			if (dataSource == null || activeConnections(dataSource) > 0) {
+				return false;
+			}
+			closePool(entry, reason);
+			// A later request for the key starts over with a fresh entry
+			entries.remove(entry.key, entry);
+			recentlyEvicted.add(entry.key);
+			return true;
+		} finally {
+			entry.lock.unlock();
+		}
+	}
+
+	// Caller holds both the capacity lock and the entry lock
+	private void closePool(PoolEntry entry, String reason) {
+		HikariDataSource dataSource = entry.dataSource;
+		if (dataSource == null) {
+			return;
+		}
+		entry.dataSource = null;
+		openPools--;
+		committedConnections -= entry.poolSize;
+		evictedCount.incrementAndGet();
+		dataSource.close();
+		log.debug("Closed pool for {} ({})", entry.key, reason);
+		for (Consumer<String> listener : closeListeners) {
+			listener.accept(entry.key);
+		}
+	}
+
+	private static int activeConnections(HikariDataSource dataSource) {
+		HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+		return pool != null ? pool.getActiveConnections() : 0;
+	}
+
+	private static final class PoolEntry {
+		private final String key;
+		private final ReentrantLock lock = new ReentrantLock();
+		private final LongAdder checkouts = new LongAdder();
+		private final LongAdder waitNanos = new LongAdder();
+		private volatile HikariDataSource dataSource;
+		private volatile long lastAccess;
+		private int poolSize;
+
+		private PoolEntry(String key) {
+			this.key = key;
+		}
+	}
+
+	public record PoolStats(int openPools, int committedConnections, int maxPools, int maxTotalConnections,
+			long opened, long evicted, long rebuilt) {
+	}
+
+	/**
+	 * Demand sample for one pool
+	 */
+	public record PoolDemand(String key, int maximumPoolSize, int activeConnections,
+			int threadsAwaiting, long checkouts, long waitNanos) {
+	}
+
+	public record PoolSnapshot(String key, int maxPoolSize, int activeConnections, int idleConnections,
+			long lastAccessMillis) {
+	}
+}
@@ -0,0 +1,370 @@
+package com.optahaul.mas_java_poc.multitenancy;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.optahaul.mas_java_poc.domain.catalog.Tenant;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs one query against many tenants in parallel, for admin reporting. Each
+ * tenant's query runs on its own virtual thread with the tenant bound and in a
+ * read-only transaction whose timeout is the per-tenant timeout (so the
+ * database cancels slow statements); at most {@code parallelism} tenants are
+ * queried at a time. Results are consumed as a stream: in arrival order, as a
+ * k-way merge of per-tenant sorted results, or folded into an aggregate.
+ * Tenants that fail, time out or are not ready are reported alongside the
+ * rows instead of failing the whole run.
+ * <p>
+ * Each tenant's rows are returned by its query as a list, so they are all in
+ * memory at once: in arrival order that is the lists of the tenants finished
+ * but not read yet, for {@link Results#sorted} every tenant's list. Queries
+ * should therefore bound what one tenant returns (LIMIT, or aggregate in
+ * SQL); the fan-out only saves holding every row in one combined list
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "multitenancy.enabled", havingValue = "true")
+public class TenantFanOut {
+
+	private final TenantRepository tenantRepository;
+	private final TenantMigrationTracker migrationTracker;
+	private final PlatformTransactionManager transactionManager;
+	private final int parallelism;
+	private final Duration defaultTimeout;
+
+	private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+	public TenantFanOut(
+			TenantRepository tenantRepository,
+			TenantMigrationTracker migrationTracker,
+			@Qualifier("tenantTransactionManager") PlatformTransactionManager transactionManager,
+			@Value("${tenant.fan-out.parallelism:8}") int parallelism,
+			@Value("${tenant.fan-out.timeout:30s}") Duration defaultTimeout) {
+		this.tenantRepository = tenantRepository;
+		this.migrationTracker = migrationTracker;
+		this.transactionManager = transactionManager;
+		this.parallelism = Math.max(1, parallelism);
+		this.defaultTimeout = defaultTimeout;
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Runs the query on every active tenant with the default timeout
+	 */
+	public <T> Results<T> query(TenantQuery<T> query) {
+		List<String> tenantIds = tenantRepository.findByStatus("ACTIVE").stream()
+				.map(Tenant::getTenantId)
+				.sorted()
+				.toList();
+		return query(tenantIds, defaultTimeout, query);
+	}
+
+	public <T> Results<T> query(Collection<String> tenantIds, Duration timeout, TenantQuery<T> query) {
+		Results<T> results = new Results<>(tenantIds.size());
+		List<String> targets = List.copyOf(tenantIds);
+		// Launching blocks on the permits, so it gets a thread of its own and the caller can start reading
+		executor.execute(() -> dispatch(targets, timeout, query, results));
+		return results;
+	}
+
+	private <T> void dispatch(List<String> tenantIds, Duration timeout, TenantQuery<T> query, Results<T> results) {
+		Semaphore permits = new Semaphore(parallelism);
+		for (String tenantId : tenantIds) {
+			if (results.closed.get()) {
+				results.deliver(Outcome.failed(tenantId, "Cancelled", false));
+				continue;
+			}
+			if (!migrationTracker.isReady(tenantId)) {
+				results.deliver(Outcome.failed(tenantId, "Tenant database is not ready", false));
+				continue;
+			}
+			try {
+				permits.acquire();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				results.deliver(Outcome.failed(tenantId, "Interrupted", false));
+				continue;
+			}
+
+			CompletableFuture<List<T>> work = CompletableFuture.supplyAsync(() -> runFor(tenantId, timeout, query),
+					executor);
+			// The permit is held until the query really ends, even if we stopped waiting for it
+			work.whenComplete((rows, error) -> permits.release());
+			work.copy()
+					.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+					.whenComplete((rows, error) -> results.deliver(error == null
+							? Outcome.succeeded(tenantId, rows)
+							: failure(tenantId, error)));
+		}
+	}
+
+	private <T> List<T> runFor(String tenantId, Duration timeout, TenantQuery<T> query) {
+		return TenantContext.callAs(tenantId, () -> {
+			TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+			transaction.setReadOnly(true);
+			transaction.setTimeout((int) Math.max(1, timeout.toSeconds()));
+			return transaction.execute(status -> {
+				try {
+					List<T> rows = query.run(tenantId);
+					return rows != null ? rows : List.of();
+				} catch (RuntimeException e) {
+					throw e;
+				} catch (Exception e) {
+					throw new IllegalStateException(e.getMessage(), e);
+				}
+			});
+		});
+	}
+
+	private static <T> Outcome<T> failure(String tenantId, Throwable error) {
+		Throwable cause = error instanceof CompletionException && error.getCause() != null
+				? error.getCause()
+				: error;
+		boolean timedOut = cause instanceof TimeoutException;
+		if (!timedOut) {
+			log.warn("Fan-out query failed for tenant {}: {}", tenantId, cause.getMessage());
+		}
+		return Outcome.failed(tenantId, timedOut ? "Timed out" : String.valueOf(cause.getMessage()), timedOut);
+	}
+
+	/**
+	 * Query run once per tenant, with that tenant bound; the rows it returns are
+	 * held until they are read
+	 */
+	@FunctionalInterface
+	public interface TenantQuery<T> {
+		List<T> run(String tenantId) throws Exception;
+	}
+
+	public record Row<T>(String tenantId, T value) {
+	}
+
+	public record Failure(String tenantId, String reason, boolean timedOut) {
+	}
+
+	private record Outcome<T>(String tenantId, List<T> rows, Failure failure) {
+
+		static <T> Outcome<T> succeeded(String tenantId, List<T> rows) {
+			return new Outcome<>(tenantId, rows, null);
+		}
+
+		static <T> Outcome<T> failed(String tenantId, String reason, boolean timedOut) {
+			return new Outcome<>(tenantId, List.of(), new Failure(tenantId, reason, timedOut));
+		}
+	}
+
+	/**
+	 * Results of one fan-out. Read them once, with one of {@link #stream()},
+	 * {@link #sorted} or {@link #aggregate}; {@link #failures()} is complete once
+	 * that read has finished. Closing stops tenants that have not started yet
+	 */
+	public static final class Results<T> implements AutoCloseable {
+
+		private final int expected;
+		private final BlockingQueue<Outcome<T>> outcomes = new LinkedBlockingQueue<>();
+		private final List<Failure> failures = Collections.synchronizedList(new ArrayList<>());
+		private final AtomicBoolean consumed = new AtomicBoolean();
+		private final AtomicBoolean closed = new AtomicBoolean();
+
+		private Results(int expected) {
+			this.expected = expected;
+		}
+
+		private void deliver(Outcome<T> outcome) {
+			outcomes.add(outcome);
+		}
+
+		/**
+		 * Rows in the order tenants finish
+		 */
+		public Stream<Row<T>> stream() {
+			return StreamSupport.stream(Spliterators.spliteratorUnknownSize(arrivals(), Spliterator.ORDERED),
+					false);
+		}
+
+		/**
+		 * All rows in {@code order}, merged from per-tenant results that are each
+		 * already in that order (e.g. by ORDER BY). Starts once every tenant has
+		 * answered or timed out, and holds all of their rows until read
+		 */
+		public Stream<Row<T>> sorted(Comparator<? super T> order) {
+			List<Iterator<T>> cursors = new ArrayList<>();
+			List<String> owners = new ArrayList<>();
+			for (Outcome<T> outcome : awaitAll()) {
+				cursors.add(outcome.rows().iterator());
+				owners.add(outcome.tenantId());
+			}
+			return StreamSupport.stream(Spliterators.spliteratorUnknownSize(
+					new MergeIterator<>(cursors, owners, order), Spliterator.ORDERED), false);
+		}
+
+		/**
+		 * Folds the rows into one result tenant by tenant, in arrival order, so
+		 * only the lists of tenants not read yet are held besides the result
+		 */
+		public <R> R aggregate(Collector<? super T, ?, R> collector) {
+			return stream().map(Row::value).collect(collector);
+		}
+
+		public List<Failure> failures() {
+			synchronized (failures) {
+				return List.copyOf(failures);
+			}
+		}
+
+		public boolean isPartial() {
+			return !failures.isEmpty();
+		}
+
+		@Override
+		public void close() {
+			closed.set(true);
+		}
+
+		private List<Outcome<T>> awaitAll() {
+			startConsuming();
+			List<Outcome<T>> succeeded = new ArrayList<>();
+			for (int i = 0; i < expected; i++) {
+				Outcome<T> outcome = take();
+				if (outcome.failure() != null) {
+					failures.add(outcome.failure());
+				} else {
+					succeeded.add(outcome);
+				}
+			}
+			return succeeded;
+		}
+
+		private Iterator<Row<T>> arrivals() {
+			startConsuming();
+			return new Iterator<>() {
+				private int received;
+				private String tenantId;
+				private Iterator<T> rows = Collections.emptyIterator();
+
+				@Override
+				public boolean hasNext() {
+					while (!rows.hasNext()) {
+						if (received == expected) {
+							return false;
+						}
+						Outcome<T> outcome = take();
+						received++;
+						if (outcome.failure() != null) {
+							failures.add(outcome.failure());
+						} else {
+							tenantId = outcome.tenantId();
+							rows = outcome.rows().iterator();
+						}
+					}
+					return true;
+				}
+
+				@Override
+				public Row<T> next() {
+					if (!hasNext()) {
+						throw new NoSuchElementException();
+					}
+					return new Row<>(tenantId, rows.next());
+				}
+			};
+		}
+
+		private void startConsuming() {
+			if (!consumed.compareAndSet(false, true)) {
+				throw new IllegalStateException("Fan-out results can only be read once");
+			}
+		}
+
+		private Outcome<T> take() {
+			try {
+				return outcomes.take();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				close();
+				throw new IllegalStateException("Interrupted while waiting for tenant results", e);
+			}
+		}
+	}
+
+	/**
+	 * k-way merge: a heap holding the head of each tenant's rows
+	 */
+	private static final class MergeIterator<T> implements Iterator<Row<T>> {
+
+		private final List<Iterator<T>> cursors;
+		private final List<String> owners;
+		private final PriorityQueue<Head<T>> heap;
+
+		MergeIterator(List<Iterator<T>> cursors, List<String> owners, Comparator<? super T> order) {
+			this.cursors = cursors;
+			this.owners = owners;
+			this.heap = new PriorityQueue<>(Math.max(1, cursors.size()),
+					(a, b) -> order.compare(a.value(), b.value()));
+			for (int i = 0; i < cursors.size(); i++) {
+				advance(i);
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return !heap.isEmpty();
+		}
+
+		@Override
+		public Row<T> next() {
+			Head<T> head = heap.poll();
+			if (head == null) {
+				throw new NoSuchElementException();
+			}
+			advance(head.cursor());
+			return new Row<>(owners.get(head.cursor()), head.value());
+		}
+
+		private void advance(int cursor) {
+			Iterator<T> rows = cursors.get(cursor);
+			if (rows.hasNext()) {
+				heap.add(new Head<>(rows.next(), cursor));
+			}
+		}
+
+		private record Head<T>(T value, int cursor) {
+		}
+	}
+}
@@ -5,6 +5,7 @@ import java.io.IOException;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
@@ -12,60 +13,131 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
 
 /**
  * Filter that sets tenant context BEFORE Spring Security filter chain This
  * ensures tenant context is available during JWT authentication
  */
 @Component
+@RequiredArgsConstructor
 @Order(Ordered.HIGHEST_PRECEDENCE) // Execute first, before any other filter
 @ConditionalOnProperty(name = "multitenancy.enabled", havingValue = "true")
 public class TenantFilter extends OncePerRequestFilter {
 
+	private static final String RETRY_AFTER_SECONDS = "5";
+
+	private final TenantResolver tenantResolver;
+	private final TenantMigrationTracker migrationTracker;
+	private final TenantActivityRecorder activityRecorder;
+	private final TenantAdmissionController admissionController;
+	private final TenantCatalogCache catalogCache;
+
 	@Override
 	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
 			throws ServletException, IOException {
 
-		try {
-			// Allow access to OpenAPI/Swagger endpoints without tenant resolution
-			String uri = request.getRequestURI();
-			if (uri != null &&
-					(uri.startsWith("/api-docs") ||
-							uri.startsWith("/swagger") ||
-							uri.startsWith("/v3/api-docs") ||
-							uri.startsWith("/swagger-ui") ||
-							uri.equals("/openapi.json") ||
-							uri.startsWith("/ws") ||
-							uri.startsWith("/app/") ||
-							uri.startsWith("/topic/") ||
-							uri.startsWith("/queue/"))) {
-				filterChain.doFilter(request, response);
-				return;
-			}
+		// Allow access to OpenAPI/Swagger endpoints without tenant resolution
+		String uri = request.getRequestURI();
+		if (uri != null &&
+				(uri.startsWith("/api-docs") ||
+						uri.startsWith("/swagger") ||
+						uri.startsWith("/v3/api-docs") ||
+						uri.startsWith("/swagger-ui") ||
+						uri.equals("/openapi.json") ||
+						isProbe(uri) ||
+						uri.startsWith("/ws") ||
+						uri.startsWith("/app/") ||
+						uri.startsWith("/topic/") ||
+						uri.startsWith("/queue/"))) {
+			filterChain.doFilter(request, response);
+			return;
+		}
 
-			String host = request.getServerName();
-			String tenantId = extractTenantFromHost(host);
+		if (!tenantResolver.isReady()) {
+			response.setHeader("Retry-After", RETRY_AFTER_SECONDS);
+			response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Tenant directory is loading");
+			return;
+		}
+
+		String tenantId = tenantResolver.resolve(request);
+
+		if (tenantId == null) {
+			response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Cannot identify tenant");
+			return;
+		}
 
-			if (tenantId == null) {
-				response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Cannot identify tenant");
-				return;
+		// Operators authenticate against their tenant's users, so the other actuator
+		// endpoints need it bound, but stay reachable while tenants migrate, relocate
+		// or are over their admission limits
+		if (uri != null && uri.startsWith("/actuator")) {
+			runAs(tenantId, request, response, filterChain);
+			return;
+		}
+
+		// Tenants still migrating (or whose migration failed) are not served yet
+		if (!migrationTracker.isReady(tenantId)) {
+			if (migrationTracker.stateOf(tenantId) != TenantMigrationTracker.State.FAILED) {
+				response.setHeader("Retry-After", RETRY_AFTER_SECONDS);
 			}
+			response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Tenant database is not ready");
+			return;
+		}
 
-			TenantContext.setCurrentTenant(tenantId);
-			filterChain.doFilter(request, response);
+		// The final step of a relocation pauses writes; reads carry on from the old database
+		if (!isSafe(request.getMethod()) && isRelocating(tenantId)) {
+			response.setHeader("Retry-After", RETRY_AFTER_SECONDS);
+			response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Tenant is being relocated");
+			return;
+		}
+
+		activityRecorder.record(tenantId);
+
+		TenantAdmissionLimiter.Admission admission = admissionController.tryAcquire(tenantId);
+		if (!admission.admitted()) {
+			// Plain status rather than sendError, so rejecting skips the error page dispatch
+			response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+			response.setHeader("Retry-After", Long.toString(admission.retryAfterSeconds()));
+			response.setContentLength(0);
+			return;
+		}
+
+		try {
+			runAs(tenantId, request, response, filterChain);
 		} finally {
-			TenantContext.clear();
+			admission.release();
 		}
 	}
 
-	private String extractTenantFromHost(String host) {
-		// Example: company1.optahaul.com -> company1
-		if (host.contains(".optahaul.com")) {
-			return host.split("\\.")[0];
+	private static void runAs(String tenantId, HttpServletRequest request, HttpServletResponse response,
+			FilterChain filterChain) throws ServletException, IOException {
+		try {
+			TenantContext.callAs(tenantId, () -> {
+				filterChain.doFilter(request, response);
+				return null;
+			});
+		} catch (IOException | ServletException | RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			// The chain only throws the above; callAs just can't express two checked types
+			throw new ServletException(e);
 		}
+	}
+
+	/**
+	 * Health and info, which SecurityConfig leaves open
+	 */
+	private static boolean isProbe(String uri) {
+		return uri.equals("/actuator/health") || uri.startsWith("/actuator/health/") || uri.equals("/actuator/info");
+	}
+
+	private boolean isRelocating(String tenantId) {
+		return catalogCache.find(tenantId)
+				.map(tenant -> "RELOCATING".equals(tenant.getStatus()))
+				.orElse(false);
+	}
 
-		// For custom domains, you'd query the catalog database
-		// to map custom domain -> tenant
-		return null;
+	private static boolean isSafe(String method) {
+		return "GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method);
 	}
 }
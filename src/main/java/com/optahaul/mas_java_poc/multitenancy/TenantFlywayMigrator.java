@@ -1,78 +1,236 @@
 package com.optahaul.mas_java_poc.multitenancy;
 
-import javax.sql.DataSource;
+import java.net.URI;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.configuration.FluentConfiguration;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.core.annotation.Order;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
 import org.springframework.stereotype.Component;
 
 import com.optahaul.mas_java_poc.domain.catalog.Tenant;
+import com.optahaul.mas_java_poc.domain.catalog.TenantSchemaVersion;
+import com.zaxxer.hikari.HikariDataSource;
 
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 /**
- * Automatically runs Flyway migrations on all tenant databases at application
- * startup
+ * Runs Flyway migrations on all tenant databases at application startup.
+ * Tenants are migrated in parallel on a bounded worker pool, with at most a few
+ * migrations at a time against any one database server, and the ready event
+ * thread is not held up while they run. Progress is recorded in
+ * {@link TenantMigrationTracker}. Tenants whose catalog ledger entry already
+ * matches the bundled migration set are skipped without being contacted
  */
 @Slf4j
 @Component
-@RequiredArgsConstructor
 @ConditionalOnProperty(name = "multitenancy.enabled", havingValue = "true")
-@Order(2) // Run after CatalogFlywayMigrator
 public class TenantFlywayMigrator {
 
+	private static final String MIGRATION_LOCATION = "db/migration";
+
 	private final TenantRepository tenantRepository;
+	private final TenantSchemaVersionRepository schemaVersionRepository;
+	private final TenantMigrationTracker tracker;
+	private final int parallelism;
+	private final int maxPerServer;
+	private final boolean skipIfCurrent;
+
+	private final Map<String, Semaphore> serverPermits = new ConcurrentHashMap<>();
+
+	public TenantFlywayMigrator(
+			TenantRepository tenantRepository,
+			TenantSchemaVersionRepository schemaVersionRepository,
+			TenantMigrationTracker tracker,
+			@Value("${tenant.migration.parallelism:8}") int parallelism,
+			@Value("${tenant.migration.max-per-server:2}") int maxPerServer,
+			@Value("${tenant.migration.skip-if-current:true}") boolean skipIfCurrent) {
+		this.tenantRepository = tenantRepository;
+		this.schemaVersionRepository = schemaVersionRepository;
+		this.tracker = tracker;
+		this.parallelism = parallelism;
+		this.maxPerServer = maxPerServer;
+		this.skipIfCurrent = skipIfCurrent;
+	}
 
+	// Listener order comes from the method, not the class
+	@Order(2) // Run after CatalogFlywayMigrator
 	@EventListener(ApplicationReadyEvent.class)
 	public void migrateTenants() {
-		log.info("Starting Flyway migrations for all tenant databases...");
+		List<Tenant> tenants = new ArrayList<>();
+		tenantRepository.findAll().forEach(tenants::add);
+		tracker.begin(tenants.stream().map(Tenant::getTenantId).toList());
 
-		Iterable<Tenant> tenants = tenantRepository.findAll();
-		int successCount = 0;
-		int failCount = 0;
+		BundledMigrations.MigrationSet bundled = BundledMigrations.scan(MIGRATION_LOCATION);
+		Map<String, TenantSchemaVersion> ledger = skipIfCurrent
+				? schemaVersionRepository.findAll().stream()
+						.collect(Collectors.toMap(TenantSchemaVersion::getTenantId, Function.identity()))
+				: Map.of();
 
+		List<Tenant> behind = new ArrayList<>();
 		for (Tenant tenant : tenants) {
-			try {
-				log.info("Running migrations for tenant: {} ({})", tenant.getTenantId(), tenant.getCompanyName());
-				migrateTenantDatabase(tenant);
-				successCount++;
-			} catch (Exception e) {
-				log.error("Failed to migrate tenant database for {}: {}", tenant.getTenantId(), e.getMessage(), e);
-				failCount++;
+			if (isCurrent(ledger.get(tenant.getTenantId()), tenant, bundled)) {
+				tracker.skipped(tenant.getTenantId());
+			} else {
+				behind.add(tenant);
 			}
 		}
 
-		log.info("Flyway migration completed. Success: {}, Failed: {}", successCount, failCount);
+		log.info("Starting Flyway migrations for {} of {} tenant(s) (bundled version {}), {} at a time "
+				+ "(max {} per server)", behind.size(), tenants.size(), bundled.version(), parallelism, maxPerServer);
+		if (behind.isEmpty()) {
+			tracker.finish();
+			return;
+		}
+
+		AtomicInteger counter = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, parallelism), runnable -> {
+			Thread thread = new Thread(runnable, "tenant-migration-" + counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		long started = System.currentTimeMillis();
+		CompletableFuture<?>[] runs = behind.stream()
+				.map(tenant -> CompletableFuture.runAsync(() -> migrate(tenant, bundled), executor))
+				.toArray(CompletableFuture[]::new);
+
+		CompletableFuture.allOf(runs).whenComplete((ignored, error) -> {
+			executor.shutdown();
+			tracker.finish();
+			TenantMigrationTracker.MigrationReport report = tracker.report();
+			log.info("Flyway migration completed in {} ms. Success: {}, Skipped: {}, Failed: {}",
+					System.currentTimeMillis() - started, report.succeeded(), report.skipped(), report.failed());
+		});
 	}
 
-	private void migrateTenantDatabase(Tenant tenant) {
-		// Create a direct datasource for this tenant
-		DataSource tenantDataSource = createTenantDataSource(tenant);
-
-		// Configure and run Flyway
-		Flyway flyway = Flyway.configure()
-				.dataSource(tenantDataSource)
-				.locations("classpath:db/migration")
-				.baselineOnMigrate(true)
-				.baselineVersion("0")
-				.load();
-
-		// Run migration
-		int migrationsApplied = flyway.migrate().migrationsExecuted;
-		log.info("Applied {} migration(s) for tenant: {}", migrationsApplied, tenant.getTenantId());
+	private void migrate(Tenant tenant, BundledMigrations.MigrationSet bundled) {
+		Semaphore permits = serverPermits.computeIfAbsent(serverOf(tenant.getDbUrl()),
+				server -> new Semaphore(Math.max(1, maxPerServer)));
+		try {
+			permits.acquire();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			tracker.failed(tenant.getTenantId(), "Interrupted before migration started");
+			return;
+		}
+
+		try {
+			tracker.running(tenant.getTenantId());
+			log.info("Running migrations for tenant: {} ({})", tenant.getTenantId(), tenant.getCompanyName());
+			MigrateResult result = migrateTenantDatabase(tenant);
+			recordVersion(tenant, result, bundled);
+			tracker.succeeded(tenant.getTenantId(), result.migrationsExecuted);
+		} catch (Exception e) {
+			log.error("Failed to migrate tenant database for {}: {}", tenant.getTenantId(), e.getMessage(), e);
+			tracker.failed(tenant.getTenantId(), e.getMessage());
+		} finally {
+			permits.release();
+		}
 	}
 
-	private DataSource createTenantDataSource(Tenant tenant) {
-		DriverManagerDataSource dataSource = new DriverManagerDataSource();
-		dataSource.setUrl(tenant.getDbUrl());
+	/**
+	 * Applies the bundled migrations to the tenant's database as given by
+	 * {@code tenant}, without touching the tracker or the catalog ledger
+	 */
+	MigrateResult migrateTenantDatabase(Tenant tenant) {
+		// Small dedicated pool; Flyway asks for more than one connection per run
+		try (HikariDataSource tenantDataSource = createTenantDataSource(tenant)) {
+			// Configure and run Flyway
+			FluentConfiguration configuration = Flyway.configure()
+					.dataSource(tenantDataSource)
+					.locations("classpath:" + MIGRATION_LOCATION)
+					.baselineOnMigrate(true)
+					.baselineVersion("0");
+
+			// Schema tenants get their tables (and history table) in their own schema
+			if (tenant.isSchemaIsolated()) {
+				String schema = TenantSchemaConnections.requireValidSchema(tenant.getTenantId(), tenant.getDbSchema());
+				configuration.schemas(schema).createSchemas(true);
+			}
+			Flyway flyway = configuration.load();
+
+			// Run migration
+			MigrateResult result = flyway.migrate();
+			log.info("Applied {} migration(s) for tenant: {}", result.migrationsExecuted, tenant.getTenantId());
+			return result;
+		}
+	}
+
+	private static boolean isCurrent(TenantSchemaVersion recorded, Tenant tenant,
+			BundledMigrations.MigrationSet bundled) {
+		return recorded != null
+				&& bundled.checksum().equals(recorded.getChecksum())
+				&& bundled.version().equals(recorded.getVersion())
+				&& targetOf(tenant).equals(recorded.getTarget());
+	}
+
+	private void recordVersion(Tenant tenant, MigrateResult result, BundledMigrations.MigrationSet bundled) {
+		String applied = result.targetSchemaVersion != null ? result.targetSchemaVersion : result.initialSchemaVersion;
+		if (!bundled.version().equals(applied)) {
+			// Flyway stopped short of (or past) the bundled set; don't mark the tenant current
+			log.warn("Tenant {} is at version {} but bundled migrations end at {}; not recording it as current",
+					tenant.getTenantId(), applied, bundled.version());
+			return;
+		}
+
+		TenantSchemaVersion version = new TenantSchemaVersion();
+		version.setTenantId(tenant.getTenantId());
+		version.setVersion(bundled.version());
+		version.setChecksum(bundled.checksum());
+		version.setTarget(targetOf(tenant));
+		version.setMigratedAt(LocalDateTime.now());
+		schemaVersionRepository.save(version);
+	}
+
+	/**
+	 * Where the migrations were applied; a tenant moved to another database or
+	 * schema is migrated again
+	 */
+	private static String targetOf(Tenant tenant) {
+		return tenant.isSchemaIsolated() ? tenant.getDbUrl() + "#" + tenant.getDbSchema() : tenant.getDbUrl();
+	}
+
+	private HikariDataSource createTenantDataSource(Tenant tenant) {
+		HikariDataSource dataSource = new HikariDataSource();
+		dataSource.setPoolName("migration-" + tenant.getTenantId());
+		dataSource.setJdbcUrl(tenant.getDbUrl());
 		dataSource.setUsername(tenant.getDbUsername());
 		dataSource.setPassword(tenant.getDbPassword());
 		dataSource.setDriverClassName("org.postgresql.Driver");
+		dataSource.setMaximumPoolSize(2);
+		dataSource.setMinimumIdle(0);
 		return dataSource;
 	}
+
+	/**
+	 * host:port of a JDBC URL, used to limit concurrent migrations per server
+	 */
+	static String serverOf(String jdbcUrl) {
+		try {
+			URI uri = URI.create(jdbcUrl.startsWith("jdbc:") ? jdbcUrl.substring(5) : jdbcUrl);
+			if (uri.getHost() != null) {
+				return uri.getHost() + ":" + uri.getPort();
+			}
+		} catch (IllegalArgumentException e) {
+			// Fall through and treat the whole URL as the server key
+		}
+		return jdbcUrl;
+	}
 }
@@ -0,0 +1,92 @@
+package com.optahaul.mas_java_poc.multitenancy;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.hibernate.context.spi.CurrentTenantIdentifierResolver;
+import org.hibernate.engine.jdbc.connections.spi.MultiTenantConnectionProvider;
+
+/**
+ * Tells Hibernate which tenant a session belongs to, so the tenant is part of
+ * its second-level and query cache keys. Connections still come from
+ * {@link TenantRoutingDataSource} (through the lazy proxy), which routes on
+ * {@link TenantContext}
+ */
+final class TenantHibernateSupport {
+
+	/**
+	 * Tenant of sessions opened outside a tenant scope; Hibernate insists on
+	 * one, and such sessions cannot reach a tenant database anyway
+	 */
+	static final String NO_TENANT = "#none#";
+
+	private TenantHibernateSupport() {
+	}
+
+	static final class TenantIdentifierResolver implements CurrentTenantIdentifierResolver<String> {
+
+		@Override
+		public String resolveCurrentTenantIdentifier() {
+			String tenantId = TenantContext.getCurrentTenant();
+			return tenantId != null ? tenantId : NO_TENANT;
+		}
+
+		@Override
+		public boolean validateExistingCurrentSessions() {
+			return false;
+		}
+	}
+
+	static final class ConnectionProvider implements MultiTenantConnectionProvider<String> {
+
+		private final DataSource dataSource;
+		private final TenantRoutingDataSource routingDataSource;
+
+		ConnectionProvider(DataSource dataSource, TenantRoutingDataSource routingDataSource) {
+			this.dataSource = dataSource;
+			this.routingDataSource = routingDataSource;
+		}
+
+		@Override
+		public Connection getAnyConnection() throws SQLException {
+			return dataSource.getConnection();
+		}
+
+		@Override
+		public void releaseAnyConnection(Connection connection) throws SQLException {
+			connection.close();
+		}
+
+		@Override
+		public Connection getConnection(String tenantId) throws SQLException {
+			String current = TenantContext.getCurrentTenant();
+			if (current == null || current.equals(tenantId)) {
+				return dataSource.getConnection();
+			}
+			// Session opened for another tenant than the one bound now; take its connection right away
+			return TenantContext.callAs(tenantId, routingDataSource::getConnection);
+		}
+
+		@Override
+		public void releaseConnection(String tenantId, Connection connection) throws SQLException {
+			connection.close();
+		}
+
+		@Override
+		public boolean supportsAggressiveRelease() {
+			return false;
+		}
+
+		@Override
+		public boolean isUnwrappableAs(Class<?> unwrapType) {
+			return unwrapType.isInstance(this);
+		}
+
+		@Override
+		public <T> T unwrap(Class<T> unwrapType) {
+			return unwrapType.cast(this);
+		}
+	}
+}
@@ -0,0 +1,235 @@
+package com.optahaul.mas_java_poc.multitenancy;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.optahaul.mas_java_poc.domain.catalog.Tenant;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory index of tenant subdomains, custom domains and ids, loaded from the
+ * catalog and refreshed incrementally from tenants.updated_at. Lookups read an
+ * immutable snapshot of open-addressing tables and take a region of the host
+ * string, so resolving a request allocates nothing and never queries the
+ * catalog
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "multitenancy.enabled", havingValue = "true")
+public class TenantHostIndex {
+
+	// Re-read a little history on each refresh so rows committed late aren't missed
+	private static final long REFRESH_OVERLAP_SECONDS = 10;
+
+	private final TenantRepository tenantRepository;
+	private final long fullReloadMillis;
+
+	// Source of truth for rebuilding snapshots; guarded by this
+	private final Map<String, HostEntry> entries = new HashMap<>();
+
+	private volatile Snapshot snapshot = Snapshot.EMPTY;
+	private volatile boolean loaded;
+
+	private LocalDateTime lastSeenUpdate;
+	private long lastFullReload;
+
+	public TenantHostIndex(TenantRepository tenantRepository,
+			@Value("${multitenancy.host-index.full-reload-interval-ms:600000}") long fullReloadMillis) {
+		this.tenantRepository = tenantRepository;
+		this.fullReloadMillis = fullReloadMillis;
+	}
+
+	@Order(3) // After the catalog migration
+	@EventListener(ApplicationReadyEvent.class)
+	public void load() {
+		reload();
+	}
+
+	/**
+	 * Picks up tenants changed since the last refresh; every few minutes reloads
+	 * everything so deleted tenants drop out too
+	 */
+	@Scheduled(fixedDelayString = "${multitenancy.host-index.refresh-interval-ms:30000}",
+			initialDelayString = "${multitenancy.host-index.refresh-interval-ms:30000}")
+	public void refresh() {
+		if (!loaded || System.currentTimeMillis() - lastFullReload >= fullReloadMillis) {
+			reload();
+			return;
+		}
+
+		LocalDateTime since;
+		synchronized (this) {
+			since = lastSeenUpdate;
+		}
+		List<Tenant> changed = since != null
+				? tenantRepository.findByUpdatedAtGreaterThanEqual(since.minusSeconds(REFRESH_OVERLAP_SECONDS))
+				: tenantRepository.findAll();
+		if (!changed.isEmpty()) {
+			synchronized (this) {
+				changed.forEach(this::apply);
+				publish();
+			}
+			log.debug("Applied {} tenant change(s) to host index", changed.size());
+		}
+	}
+
+	public synchronized void reload() {
+		List<Tenant> tenants = tenantRepository.findAll();
+		entries.clear();
+		lastSeenUpdate = null;
+		tenants.forEach(this::apply);
+		publish();
+		lastFullReload = System.currentTimeMillis();
+		loaded = true;
+		log.info("Loaded host index for {} tenant(s)", tenants.size());
+	}
+
+	/**
+	 * Applies a tenant created or changed on this node without waiting for the
+	 * next refresh
+	 */
+	public synchronized void put(Tenant tenant) {
+		apply(tenant);
+		publish();
+	}
+
+	public synchronized void remove(String tenantId) {
+		if (entries.remove(tenantId) != null) {
+			publish();
+		}
+	}
+
+	public boolean isLoaded() {
+		return loaded;
+	}
+
+	/**
+	 * Tenant id for the subdomain in host[start, end), or null
+	 */
+	public String findBySubdomain(String host, int start, int end) {
+		return snapshot.subdomains.get(host, start, end);
+	}
+
+	/**
+	 * Tenant id for a custom domain, or null
+	 */
+	public String findByCustomDomain(String host) {
+		return snapshot.customDomains.get(host, 0, host.length());
+	}
+
+	/**
+	 * The tenant id as stored in the catalog, or null if there is no such tenant
+	 */
+	public String findTenantId(String tenantId) {
+		return snapshot.tenantIds.get(tenantId, 0, tenantId.length());
+	}
+
+	private void apply(Tenant tenant) {
+		entries.put(tenant.getTenantId(), new HostEntry(tenant.getTenantId(), lower(tenant.getSubdomain()),
+				lower(tenant.getCustomDomain())));
+		LocalDateTime updatedAt = tenant.getUpdatedAt();
+		if (updatedAt != null && (lastSeenUpdate == null || updatedAt.isAfter(lastSeenUpdate))) {
+			lastSeenUpdate = updatedAt;
+		}
+	}
+
+	private void publish() {
+		Map<String, String> subdomains = new HashMap<>();
+		Map<String, String> customDomains = new HashMap<>();
+		Map<String, String> tenantIds = new HashMap<>();
+		for (HostEntry entry : entries.values()) {
+			tenantIds.put(entry.tenantId(), entry.tenantId());
+			if (entry.subdomain() != null) {
+				subdomains.put(entry.subdomain(), entry.tenantId());
+			}
+			if (entry.customDomain() != null) {
+				customDomains.put(entry.customDomain(), entry.tenantId());
+			}
+		}
+		snapshot = new Snapshot(HostTable.of(subdomains), HostTable.of(customDomains), HostTable.of(tenantIds));
+	}
+
+	private static String lower(String value) {
+		return value == null || value.isBlank() ? null : value.trim().toLowerCase(Locale.ROOT);
+	}
+
+	private record HostEntry(String tenantId, String subdomain, String customDomain) {
+	}
+
+	private record Snapshot(HostTable subdomains, HostTable customDomains, HostTable tenantIds) {
+		static final Snapshot EMPTY = new Snapshot(HostTable.of(Map.of()), HostTable.of(Map.of()),
+				HostTable.of(Map.of()));
+	}
+
+	/**
+	 * Immutable open-addressing table with linear probing. Keys are stored lower
+	 * case and looked up by region, ignoring ASCII case
+	 */
+	static final class HostTable {
+
+		private final String[] keys;
+		private final String[] values;
+		private final int mask;
+
+		private HostTable(String[] keys, String[] values) {
+			this.keys = keys;
+			this.values = values;
+			this.mask = keys.length - 1;
+		}
+
+		static HostTable of(Map<String, String> source) {
+			// Load factor at most 0.5 keeps probe sequences short
+			int capacity = Integer.highestOneBit(Math.max(4, source.size() * 2 - 1)) << 1;
+			String[] keys = new String[capacity];
+			String[] values = new String[capacity];
+			int mask = capacity - 1;
+			source.forEach((key, value) -> {
+				int slot = hash(key, 0, key.length()) & mask;
+				while (keys[slot] != null) {
+					slot = (slot + 1) & mask;
+				}
+				keys[slot] = key;
+				values[slot] = value;
+			});
+			return new HostTable(keys, values);
+		}
+
+		String get(String text, int start, int end) {
+			int length = end - start;
+			int slot = hash(text, start, end) & mask;
+			String key;
+			while ((key = keys[slot]) != null) {
+				if (key.length() == length && key.regionMatches(true, 0, text, start, length)) {
+					return values[slot];
+				}
+				slot = (slot + 1) & mask;
+			}
+			return null;
+		}
+
+		private static int hash(String text, int start, int end) {
+			int h = 0;
+			for (int i = start; i < end; i++) {
+				char c = text.charAt(i);
+				if (c >= 'A' && c <= 'Z') {
+					c += 'a' - 'A';
+				}
+				h = 31 * h + c;
+			}
+			// Spread high bits into the low bits used for the slot
+			return h ^ (h >>> 16);
+		}
+	}
+}
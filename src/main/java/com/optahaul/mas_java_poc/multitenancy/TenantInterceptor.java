@@ -6,50 +6,33 @@ import org.springframework.web.servlet.HandlerInterceptor;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
 
 /**
- * Intercepts every request to identify and set the tenant Extracts tenant from
- * subdomain (e.g., company1.yourapp.com) Only active when
- * multitenancy.enabled=true
+ * Checks that the handler runs as the tenant the request resolves to Uses the
+ * same {@link TenantResolver} as TenantFilter, which binds the tenant for the
+ * whole filter chain Only active when multitenancy.enabled=true
  */
 @Component
+@RequiredArgsConstructor
 @ConditionalOnProperty(name = "multitenancy.enabled", havingValue = "true")
 public class TenantInterceptor implements HandlerInterceptor {
 
+	private final TenantResolver tenantResolver;
+
 	@Override
 	public boolean preHandle(HttpServletRequest request,
 			HttpServletResponse response,
 			Object handler) throws Exception {
 
-		String host = request.getServerName();
-		String tenantId = extractTenantFromHost(host);
+		String tenantId = tenantResolver.resolve(request);
 
-		if (tenantId == null) {
+		if (tenantId == null || !tenantId.equals(TenantContext.getCurrentTenant())) {
 			response.sendError(HttpServletResponse.SC_BAD_REQUEST,
 					"Cannot identify tenant");
 			return false;
 		}
 
-		TenantContext.setCurrentTenant(tenantId);
 		return true;
 	}
-
-	@Override
-	public void afterCompletion(HttpServletRequest request,
-			HttpServletResponse response,
-			Object handler,
-			Exception ex) throws Exception {
-		TenantContext.clear();
-	}
-
-	private String extractTenantFromHost(String host) {
-		// Example: company1.optahaul.com -> company1
-		if (host.contains(".optahaul.com")) {
-			return host.split("\\.")[0];
-		}
-
-		// For custom domains, you'd query the catalog database
-		// to map custom domain -> tenant
-		return null;
-	}
 }
@@ -0,0 +1,109 @@
+package com.optahaul.mas_java_poc.multitenancy;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Per-tenant outcome of the startup Flyway run. A tenant can serve traffic as
+ * soon as its own migration has succeeded, while the others are still running
+ */
+@Component
+@ConditionalOnProperty(name = "multitenancy.enabled", havingValue = "true")
+public class TenantMigrationTracker {
+
+	public enum State {
+		PENDING, RUNNING, SUCCEEDED, SKIPPED, FAILED
+	}
+
+	private final Map<String, TenantMigration> migrations = new ConcurrentHashMap<>();
+
+	private volatile boolean started;
+	private volatile Instant startedAt;
+	private volatile Instant finishedAt;
+
+	void begin(Collection<String> tenantIds) {
+		migrations.clear();
+		for (String tenantId : tenantIds) {
+			migrations.put(tenantId, new TenantMigration(tenantId, State.PENDING, null, null, 0, null));
+		}
+		startedAt = Instant.now();
+		finishedAt = null;
+		started = true;
+	}
+
+	void running(String tenantId) {
+		migrations.put(tenantId, new TenantMigration(tenantId, State.RUNNING, Instant.now(), null, 0, null));
+	}
+
+	void succeeded(String tenantId, int migrationsApplied) {
+		migrations.compute(tenantId, (id, current) -> new TenantMigration(id, State.SUCCEEDED,
+				current != null ? current.startedAt() : null, Instant.now(), migrationsApplied, null));
+	}
+
+	/**
+	 * Tenant was already on the bundled migration set; its database was not
+	 * contacted
+	 */
+	void skipped(String tenantId) {
+		migrations.put(tenantId, new TenantMigration(tenantId, State.SKIPPED, null, null, 0, null));
+	}
+
+	void failed(String tenantId, String error) {
+		migrations.compute(tenantId, (id, current) -> new TenantMigration(id, State.FAILED,
+				current != null ? current.startedAt() : null, Instant.now(), 0, error));
+	}
+
+	void finish() {
+		finishedAt = Instant.now();
+	}
+
+	/**
+	 * True once the tenant's schema is up to date. Tenants that were not in the
+	 * catalog when the startup run began are left to the normal routing checks
+	 */
+	public boolean isReady(String tenantId) {
+		if (!started) {
+			return false;
+		}
+		TenantMigration migration = migrations.get(tenantId);
+		return migration == null || migration.state() == State.SUCCEEDED || migration.state() == State.SKIPPED;
+	}
+
+	public State stateOf(String tenantId) {
+		TenantMigration migration = migrations.get(tenantId);
+		return migration != null ? migration.state() : null;
+	}
+
+	public MigrationReport report() {
+		List<TenantMigration> tenants = migrations.values().stream()
+				.sorted(Comparator.comparing(TenantMigration::tenantId))
+				.toList();
+		int[] counts = new int[State.values().length];
+		for (TenantMigration migration : tenants) {
+			counts[migration.state().ordinal()]++;
+		}
+		return new MigrationReport(startedAt, finishedAt, tenants.size(), counts[State.PENDING.ordinal()],
+				counts[State.RUNNING.ordinal()], counts[State.SUCCEEDED.ordinal()], counts[State.SKIPPED.ordinal()],
+				counts[State.FAILED.ordinal()], tenants);
+	}
+
+	public record TenantMigration(String tenantId, State state, Instant startedAt, Instant finishedAt,
+			int migrationsApplied, String error) {
+
+		public Long durationMillis() {
+			return startedAt != null && finishedAt != null ? Duration.between(startedAt, finishedAt).toMillis() : null;
+		}
+	}
+
+	public record MigrationReport(Instant startedAt, Instant finishedAt, int total, int pending, int running,
+			int succeeded, int skipped, int failed, List<TenantMigration> tenants) {
+	}
+}
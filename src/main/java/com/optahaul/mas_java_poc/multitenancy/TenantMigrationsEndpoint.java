@@ -0,0 +1,26 @@
+package com.optahaul.mas_java_poc.multitenancy;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Exposes startup migration progress and per-tenant outcome at
+ * /actuator/tenantmigrations
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "multitenancy.enabled", havingValue = "true")
+@Endpoint(id = "tenantmigrations")
+public class TenantMigrationsEndpoint {
+
+	private final TenantMigrationTracker tracker;
+
+	@ReadOperation
+	public TenantMigrationTracker.MigrationReport migrations() {
+		return tracker.report();
+	}
+}
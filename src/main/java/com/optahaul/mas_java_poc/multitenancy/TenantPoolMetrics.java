@@ -0,0 +1,121 @@
+package com.optahaul.mas_java_poc.multitenancy;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.config.MeterFilter;
+
+/**
+ * Micrometer metrics for every tenant pool: Hikari's own hikaricp.* meters
+ * (active, idle and pending connections, acquire/usage/creation timers,
+ * timeouts) plus tenant.connections.slow-releases, counting connections
+ * returned after being held longer than the leak detection threshold. A
+ * connection that is never returned is not counted; Hikari's leak detection
+ * logs it with the borrowing stack trace once the threshold passes. Meters
+ * are tagged with the pool name and, for database tenants, the tenant id.
+ * Hikari removes them when the pool is closed, so evicted pools leave nothing
+ * behind
+ */
+@Component
+@ConditionalOnProperty(name = "multitenancy.enabled", havingValue = "true")
+public class TenantPoolMetrics implements MetricsTrackerFactory {
+
+	static final String POOL_PREFIX = "tenant-";
+
+	private final MeterRegistry meterRegistry;
+	private final MetricsTrackerFactory hikariMetrics;
+	private final long leakThresholdMillis;
+
+	public TenantPoolMetrics(ObjectProvider<MeterRegistry> meterRegistry,
+			@Qualifier("tenantHikariConfig") HikariConfig poolTemplate) {
+		this.meterRegistry = meterRegistry.getIfAvailable();
+		this.hikariMetrics = this.meterRegistry != null ? new MicrometerMetricsTrackerFactory(this.meterRegistry) : null;
+		this.leakThresholdMillis = poolTemplate.getLeakDetectionThreshold();
+	}
+
+	@Override
+	public IMetricsTracker create(String poolName, PoolStats poolStats) {
+		if (hikariMetrics == null) {
+			return new IMetricsTracker() {
+			};
+		}
+		IMetricsTracker delegate = hikariMetrics.create(poolName, poolStats);
+		if (leakThresholdMillis <= 0) {
+			return delegate;
+		}
+		Counter.Builder slowReleases = Counter.builder("tenant.connections.slow-releases")
+				.description("Connections returned after being held longer than the leak detection threshold")
+				.tag("pool", poolName);
+		String tenantId = tenantOf(poolName);
+		if (tenantId != null) {
+			slowReleases.tag("tenant", tenantId);
+		}
+		return new SlowReleaseCountingTracker(delegate, slowReleases.register(meterRegistry), leakThresholdMillis,
+				meterRegistry);
+	}
+
+	/**
+	 * Adds a tenant tag to the Hikari meters of database tenants' pools
+	 */
+	static MeterFilter tenantTagFilter() {
+		return new MeterFilter() {
+			@Override
+			public Meter.Id map(Meter.Id id) {
+				String tenantId = id.getName().startsWith("hikaricp.") ? tenantOf(id.getTag("pool")) : null;
+				return tenantId != null ? id.withTag(Tag.of("tenant", tenantId)) : id;
+			}
+		};
+	}
+
+	/**
+	 * Tenant id for pools of database-isolated tenants, null for shared pools
+	 */
+	static String tenantOf(String poolName) {
+		return poolName != null && poolName.startsWith(POOL_PREFIX) ? poolName.substring(POOL_PREFIX.length()) : null;
+	}
+
+	private record SlowReleaseCountingTracker(IMetricsTracker delegate, Counter slowReleases, long thresholdMillis,
+			MeterRegistry meterRegistry) implements IMetricsTracker {
+
+		@Override
+		public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+			delegate.recordConnectionCreatedMillis(connectionCreatedMillis);
+		}
+
+		@Override
+		public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+			delegate.recordConnectionAcquiredNanos(elapsedAcquiredNanos);
+		}
+
+		@Override
+		public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+			delegate.recordConnectionUsageMillis(elapsedBorrowedMillis);
+			if (elapsedBorrowedMillis >= thresholdMillis) {
+				slowReleases.increment();
+			}
+		}
+
+		@Override
+		public void recordConnectionTimeout() {
+			delegate.recordConnectionTimeout();
+		}
+
+		@Override
+		public void close() {
+			delegate.close();
+			meterRegistry.remove(slowReleases);
+		}
+	}
+}
@@ -0,0 +1,31 @@
+package com.optahaul.mas_java_poc.multitenancy;
+
+import java.util.List;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Exposes open/evicted/rebuilt tenant pool counts at /actuator/tenantpools
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "multitenancy.enabled", havingValue = "true")
+@Endpoint(id = "tenantpools")
+public class TenantPoolsEndpoint {
+
+	private final TenantDataSourceRegistry registry;
+
+	@ReadOperation
+	public TenantPoolsReport pools() {
+		return new TenantPoolsReport(registry.stats(), registry.snapshot());
+	}
+
+	public record TenantPoolsReport(TenantDataSourceRegistry.PoolStats stats,
+			List<TenantDataSourceRegistry.PoolSnapshot> pools) {
+	}
+}
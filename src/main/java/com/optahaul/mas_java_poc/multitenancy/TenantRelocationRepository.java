@@ -0,0 +1,58 @@
+package com.optahaul.mas_java_poc.multitenancy;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.optahaul.mas_java_poc.domain.catalog.TenantRelocation;
+
+@Repository
+@ConditionalOnProperty(name = "multitenancy.enabled", havingValue = "true")
+public interface TenantRelocationRepository extends JpaRepository<TenantRelocation, String> {
+
+	/**
+	 * Starts a relocation unless one is already running for the tenant; a
+	 * running one whose node stopped reporting for {@code staleSeconds} can be
+	 * taken over. Returns 0 when the tenant is busy
+	 */
+	@Modifying
+	@Transactional(transactionManager = "catalogTransactionManager")
+	@Query(value = "INSERT INTO tenant_relocations (tenant_id, source_db_url, target_db_url, phase, tables_copied, "
+			+ "tables_total, cancel_requested, started_at, updated_at) "
+			+ "VALUES (:tenantId, :sourceDbUrl, :targetDbUrl, 'PREPARING', 0, 0, FALSE, now(), now()) "
+			+ "ON CONFLICT (tenant_id) DO UPDATE SET source_db_url = EXCLUDED.source_db_url, "
+			+ "target_db_url = EXCLUDED.target_db_url, phase = 'PREPARING', detail = NULL, tables_copied = 0, "
+			+ "tables_total = 0, lag_bytes = NULL, cancel_requested = FALSE, started_at = now(), "
+			+ "updated_at = now(), finished_at = NULL "
+			+ "WHERE tenant_relocations.finished_at IS NOT NULL "
+			+ "OR tenant_relocations.updated_at < now() - make_interval(secs => :staleSeconds)", nativeQuery = true)
+	int claim(@Param("tenantId") String tenantId, @Param("sourceDbUrl") String sourceDbUrl,
+			@Param("targetDbUrl") String targetDbUrl, @Param("staleSeconds") double staleSeconds);
+
+	/**
+	 * Records progress without touching cancel_requested, which another node
+	 * may set at any time. A lag of -1 means not measured
+	 */
+	@Modifying
+	@Transactional(transactionManager = "catalogTransactionManager")
+	@Query(value = "UPDATE tenant_relocations SET phase = :phase, detail = :detail, tables_copied = :tablesCopied, "
+			+ "tables_total = :tablesTotal, lag_bytes = NULLIF(:lagBytes, -1), updated_at = now(), "
+			+ "finished_at = CASE WHEN :finished THEN now() END WHERE tenant_id = :tenantId", nativeQuery = true)
+	int updateProgress(@Param("tenantId") String tenantId, @Param("phase") String phase,
+			@Param("detail") String detail, @Param("tablesCopied") int tablesCopied,
+			@Param("tablesTotal") int tablesTotal, @Param("lagBytes") long lagBytes,
+			@Param("finished") boolean finished);
+
+	@Modifying
+	@Transactional(transactionManager = "catalogTransactionManager")
+	@Query(value = "UPDATE tenant_relocations SET cancel_requested = TRUE "
+			+ "WHERE tenant_id = :tenantId AND finished_at IS NULL", nativeQuery = true)
+	int requestCancel(@Param("tenantId") String tenantId);
+
+	@Query(value = "SELECT cancel_requested FROM tenant_relocations WHERE tenant_id = :tenantId", nativeQuery = true)
+	Boolean isCancelRequested(@Param("tenantId") String tenantId);
+}
@@ -0,0 +1,54 @@
+package com.optahaul.mas_java_poc.multitenancy;
+
+import java.util.List;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import com.optahaul.mas_java_poc.domain.catalog.TenantRelocation;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Starts, follows and cancels tenant relocations at
+ * /actuator/tenantrelocations; progress is read from the catalog, so any node
+ * can report on a relocation running elsewhere. Only ADMIN users reach it, and
+ * it is not in the default web exposure list
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "multitenancy.enabled", havingValue = "true")
+@Endpoint(id = "tenantrelocations")
+public class TenantRelocationsEndpoint {
+
+	private final TenantRelocator relocator;
+	private final TenantRelocationRepository relocationRepository;
+
+	@ReadOperation
+	public List<TenantRelocation> relocations() {
+		return relocationRepository.findAll();
+	}
+
+	@ReadOperation
+	public TenantRelocation relocation(@Selector String tenantId) {
+		return relocationRepository.findById(tenantId).orElse(null);
+	}
+
+	@WriteOperation
+	public TenantRelocation start(@Selector String tenantId, String targetDbUrl, @Nullable String targetUsername,
+			@Nullable String targetPassword, @Nullable String targetReplicaDbUrls, @Nullable String sourceConninfo) {
+		return relocator.start(tenantId, new TenantRelocator.RelocationRequest(targetDbUrl, targetUsername,
+				targetPassword, targetReplicaDbUrls, sourceConninfo));
+	}
+
+	@DeleteOperation
+	public boolean cancel(@Selector String tenantId) {
+		return relocator.cancel(tenantId);
+	}
+}
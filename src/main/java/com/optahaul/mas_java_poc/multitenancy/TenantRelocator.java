@@ -0,0 +1,500 @@
+package com.optahaul.mas_java_poc.multitenancy;
+
+import java.net.URI;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CancellationException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.optahaul.mas_java_poc.domain.catalog.Tenant;
+import com.optahaul.mas_java_poc.domain.catalog.TenantRelocation;
+import com.optahaul.mas_java_poc.service.TenantService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Moves a database-isolated tenant to another Postgres server while it keeps
+ * serving traffic. The target gets the schema from the bundled migrations and
+ * the data through logical replication (initial copy, then streamed changes)
+ * from a publication on the source. Once the target has caught up, the
+ * tenant's writes are paused on every node (status RELOCATING), the remaining
+ * WAL is drained, sequences are copied, and the catalog is pointed at the
+ * target, which makes every node swap its pool. Reads are served throughout;
+ * writes are paused for roughly the drain time.
+ * <p>
+ * A node that has not seen the pause yet must not write either: before the
+ * drain the source database is made read-only for new sessions and the
+ * tenant's open sessions are ended, so late writes fail instead of being left
+ * behind on the source. The source stays read-only after the switch. This
+ * needs the tenant's database user to own its database.
+ * <p>
+ * Progress is kept in tenant_relocations. Any failure or cancel before the
+ * switch drops the replication objects, lifts the read-only fence and resumes
+ * writes on the source
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "multitenancy.enabled", havingValue = "true")
+public class TenantRelocator {
+
+	public enum Phase {
+		PREPARING, COPYING, CATCHING_UP, PAUSING_WRITES, DRAINING, SWITCHING, DONE, FAILED, CANCELLED
+	}
+
+	private final TenantRepository tenantRepository;
+	private final TenantRelocationRepository relocationRepository;
+	private final TenantService tenantService;
+	private final TenantFlywayMigrator flywayMigrator;
+	private final long pollMillis;
+	private final long maxLagBytes;
+	private final long writePauseGraceMillis;
+	private final long drainTimeoutMillis;
+	private final long staleAfterSeconds;
+	private final Connector connector;
+
+	@Autowired
+	public TenantRelocator(
+			TenantRepository tenantRepository,
+			TenantRelocationRepository relocationRepository,
+			TenantService tenantService,
+			TenantFlywayMigrator flywayMigrator,
+			@Value("${tenant.relocation.poll-interval:2s}") Duration pollInterval,
+			@Value("${tenant.relocation.max-lag-bytes:1048576}") long maxLagBytes,
+			@Value("${tenant.relocation.write-pause-grace:5s}") Duration writePauseGrace,
+			@Value("${tenant.relocation.drain-timeout:30s}") Duration drainTimeout,
+			@Value("${tenant.relocation.stale-after:5m}") Duration staleAfter) {
+		this(tenantRepository, relocationRepository, tenantService, flywayMigrator, pollInterval, maxLagBytes,
+				writePauseGrace, drainTimeout, staleAfter, DriverManager::getConnection);
+	}
+
+	TenantRelocator(TenantRepository tenantRepository, TenantRelocationRepository relocationRepository,
+			TenantService tenantService, TenantFlywayMigrator flywayMigrator, Duration pollInterval,
+			long maxLagBytes, Duration writePauseGrace, Duration drainTimeout, Duration staleAfter,
+			Connector connector) {
+		this.tenantRepository = tenantRepository;
+		this.relocationRepository = relocationRepository;
+		this.tenantService = tenantService;
+		this.flywayMigrator = flywayMigrator;
+		this.pollMillis = pollInterval.toMillis();
+		this.maxLagBytes = maxLagBytes;
+		this.writePauseGraceMillis = writePauseGrace.toMillis();
+		this.drainTimeoutMillis = drainTimeout.toMillis();
+		this.staleAfterSeconds = staleAfter.toSeconds();
+		this.connector = connector;
+	}
+
+	/**
+	 * Opens the unpooled connections a relocation runs its replication
+	 * commands on
+	 */
+	@FunctionalInterface
+	interface Connector {
+		Connection connect(String jdbcUrl, String username, String password) throws SQLException;
+	}
+
+	/**
+	 * Target database and how to reach it. Username and password default to
+	 * the tenant's current ones. {@code sourceConninfo} is how the target
+	 * server connects to the source (libpq format) when that differs from the
+	 * tenant's JDBC URL, e.g. inside a container network
+	 */
+	public record RelocationRequest(String targetDbUrl, String targetUsername, String targetPassword,
+			String targetReplicaDbUrls, String sourceConninfo) {
+	}
+
+	/**
+	 * Starts relocating the tenant in the background and returns its progress
+	 * row
+	 */
+	public TenantRelocation start(String tenantId, RelocationRequest request) {
+		Tenant tenant = tenantRepository.findByTenantId(tenantId)
+				.orElseThrow(() -> new IllegalArgumentException("Tenant not found: " + tenantId));
+		if (!"ACTIVE".equals(tenant.getStatus())) {
+			throw new IllegalStateException("Tenant " + tenantId + " is " + tenant.getStatus() + ", not ACTIVE");
+		}
+		if (tenant.isSchemaIsolated()) {
+			throw new IllegalArgumentException("Only database-isolated tenants can be relocated");
+		}
+		if (request.targetDbUrl() == null || request.targetDbUrl().equals(tenant.getDbUrl())) {
+			throw new IllegalArgumentException("A target database other than the current one is required");
+		}
+		boolean targetInUse = tenantRepository.findAll().stream()
+				.anyMatch(other -> request.targetDbUrl().equals(other.getDbUrl()));
+		if (targetInUse) {
+			throw new IllegalArgumentException("Target database is used by another tenant");
+		}
+		if (relocationRepository.claim(tenantId, tenant.getDbUrl(), request.targetDbUrl(), staleAfterSeconds) == 0) {
+			throw new IllegalStateException("A relocation is already running for tenant " + tenantId);
+		}
+
+		Thread thread = new Thread(() -> run(tenant, request), "tenant-relocation-" + tenantId);
+		thread.setDaemon(true);
+		thread.start();
+		return relocationRepository.findById(tenantId).orElseThrow();
+	}
+
+	/**
+	 * Asks the node running the relocation to stop; ignored once writes have
+	 * been switched to the target
+	 */
+	public boolean cancel(String tenantId) {
+		return relocationRepository.requestCancel(tenantId) > 0;
+	}
+
+	private void run(Tenant tenant, RelocationRequest request) {
+		Run run = new Run(tenant, request);
+		try {
+			run.relocate();
+			run.report(Phase.DONE, "Tenant now served from " + request.targetDbUrl(), true);
+		} catch (Exception e) {
+			boolean cancelled = e instanceof CancellationException;
+			if (!cancelled) {
+				log.error("Relocation of tenant {} failed in {}: {}", tenant.getTenantId(), run.phase,
+						e.getMessage(), e);
+			}
+			String reason = cancelled ? "Cancelled" : run.phase + " failed: " + e.getMessage();
+			run.abort();
+			run.report(cancelled ? Phase.CANCELLED : Phase.FAILED, reason, true);
+		}
+	}
+
+	/**
+	 * One relocation attempt and the state needed to undo it
+	 */
+	private final class Run {
+
+		private final Tenant tenant;
+		private final String tenantId;
+		private final RelocationRequest request;
+		private final String name;
+		private final String targetUsername;
+		private final String targetPassword;
+
+		private volatile Phase phase = Phase.PREPARING;
+		private int tablesCopied;
+		private int tablesTotal;
+		private long lagBytes = -1;
+		private boolean writesPaused;
+		private boolean fenced;
+		private boolean switched;
+
+		Run(Tenant tenant, RelocationRequest request) {
+			this.tenant = tenant;
+			this.tenantId = tenant.getTenantId();
+			this.request = request;
+			this.name = replicationName(tenantId);
+			this.targetUsername = request.targetUsername() != null ? request.targetUsername() : tenant.getDbUsername();
+			this.targetPassword = request.targetPassword() != null ? request.targetPassword() : tenant.getDbPassword();
+		}
+
+		void relocate() throws Exception {
+			report(Phase.PREPARING, "Creating schema on target", false);
+			flywayMigrator.migrateTenantDatabase(targetTenant());
+
+			try (Connection source = connectSource(); Connection target = connectTarget()) {
+				List<String> tables = tablesOf(source);
+				tablesTotal = tables.size();
+				// Flyway's history on the target is replaced by the source's, with the rest of the data
+				execute(target, "TRUNCATE " + String.join(", ", tables) + " CASCADE");
+				execute(source, "DROP PUBLICATION IF EXISTS " + name);
+				execute(source, "CREATE PUBLICATION " + name + " FOR TABLE " + String.join(", ", tables));
+				execute(target, "DROP SUBSCRIPTION IF EXISTS " + name);
+				execute(target, "CREATE SUBSCRIPTION " + name + " CONNECTION " + literal(sourceConninfo())
+						+ " PUBLICATION " + name);
+
+				report(Phase.COPYING, "Copying tables", false);
+				while ((tablesCopied = tablesCopied(target)) < tablesTotal) {
+					pause();
+					report(Phase.COPYING, "Copying tables", false);
+				}
+
+				report(Phase.CATCHING_UP, "Streaming changes", false);
+				while ((lagBytes = lagBytes(source)) > maxLagBytes) {
+					pause();
+					report(Phase.CATCHING_UP, "Streaming changes", false);
+				}
+
+				checkCancelled();
+				report(Phase.PAUSING_WRITES, "Waiting for in-flight writes", false);
+				tenantService.pauseWrites(tenantId);
+				writesPaused = true;
+				Thread.sleep(writePauseGraceMillis);
+				long deadline = System.currentTimeMillis() + drainTimeoutMillis;
+				while (openWriteTransactions(source) > 0) {
+					awaitDeadline(deadline, "Write transactions still open on the source");
+				}
+				// Nodes whose change feed is behind have not paused yet; from here the source refuses them
+				fenceWrites(source);
+				fenced = true;
+
+				report(Phase.DRAINING, "Applying the last changes", false);
+				String fenceLsn = currentLsn(source);
+				while (!confirmed(source, fenceLsn)) {
+					awaitDeadline(deadline, "Target did not catch up in time");
+					lagBytes = lagBytes(source);
+					report(Phase.DRAINING, "Applying the last changes", false);
+				}
+				lagBytes = 0;
+
+				report(Phase.SWITCHING, "Switching tenant to target", false);
+				copySequences(source, target);
+				execute(target, "DROP SUBSCRIPTION " + name);
+				execute(source, "DROP PUBLICATION " + name);
+				tenantService.completeRelocation(tenantId, request.targetDbUrl(), targetUsername, targetPassword,
+						request.targetReplicaDbUrls());
+				switched = true;
+				writesPaused = false;
+			}
+		}
+
+		/**
+		 * Best-effort undo of a failed or cancelled attempt
+		 */
+		void abort() {
+			if (switched) {
+				return;
+			}
+			// Lifted first, so nodes resuming writes find the source writable
+			if (fenced) {
+				try (Connection source = connectSource()) {
+					liftWriteFence(source);
+				} catch (Exception e) {
+					log.error("Could not lift the write fence on the source of tenant {}; reset "
+							+ "default_transaction_read_only on its database by hand", tenantId, e);
+				}
+			}
+			if (writesPaused) {
+				try {
+					tenantService.resumeWrites(tenantId);
+				} catch (Exception e) {
+					log.error("Could not resume writes for tenant {}; activate it by hand", tenantId, e);
+				}
+			}
+			try (Connection target = connectTarget()) {
+				execute(target, "DROP SUBSCRIPTION IF EXISTS " + name);
+			} catch (Exception e) {
+				log.warn("Could not drop subscription {} on the target: {}", name, e.getMessage());
+			}
+			try (Connection source = connectSource()) {
+				// A session opened while the fence was up would be read-only
+				execute(source, "SET default_transaction_read_only = off");
+				execute(source, "DROP PUBLICATION IF EXISTS " + name);
+				// Left behind when the subscription could not be dropped cleanly; it would hold WAL forever
+				try (PreparedStatement stmt = source.prepareStatement("SELECT pg_drop_replication_slot(slot_name) "
+						+ "FROM pg_replication_slots WHERE slot_name = ? AND NOT active")) {
+					stmt.setString(1, name);
+					stmt.execute();
+				}
+			} catch (Exception e) {
+				log.warn("Could not clean up publication {} on the source: {}", name, e.getMessage());
+			}
+		}
+
+		void report(Phase phase, String detail, boolean finished) {
+			this.phase = phase;
+			try {
+				relocationRepository.updateProgress(tenantId, phase.name(), detail, tablesCopied, tablesTotal,
+						lagBytes, finished);
+			} catch (Exception e) {
+				log.warn("Could not record relocation progress for tenant {}: {}", tenantId, e.getMessage());
+			}
+		}
+
+		private void pause() throws InterruptedException {
+			Thread.sleep(pollMillis);
+			checkCancelled();
+		}
+
+		private void awaitDeadline(long deadline, String reason) throws InterruptedException {
+			if (System.currentTimeMillis() >= deadline) {
+				throw new IllegalStateException(reason);
+			}
+			pause();
+		}
+
+		private void checkCancelled() {
+			if (Boolean.TRUE.equals(relocationRepository.isCancelRequested(tenantId))) {
+				throw new CancellationException();
+			}
+		}
+
+		private Tenant targetTenant() {
+			Tenant target = new Tenant();
+			target.setTenantId(tenantId);
+			target.setDbUrl(request.targetDbUrl());
+			target.setDbUsername(targetUsername);
+			target.setDbPassword(targetPassword);
+			return target;
+		}
+
+		private String sourceConninfo() {
+			return request.sourceConninfo() != null
+					? request.sourceConninfo()
+					: conninfoOf(tenant.getDbUrl(), tenant.getDbUsername(), tenant.getDbPassword());
+		}
+
+		private Connection connectSource() throws SQLException {
+			return connector.connect(tenant.getDbUrl(), tenant.getDbUsername(), tenant.getDbPassword());
+		}
+
+		private Connection connectTarget() throws SQLException {
+			return connector.connect(request.targetDbUrl(), targetUsername, targetPassword);
+		}
+
+		private int tablesCopied(Connection target) throws SQLException {
+			try (PreparedStatement stmt = target.prepareStatement("SELECT count(*) FROM pg_subscription_rel r "
+					+ "JOIN pg_subscription s ON s.oid = r.srsubid "
+					+ "WHERE s.subname = ? AND r.srsubstate IN ('r', 's')")) {
+				stmt.setString(1, name);
+				return (int) single(stmt);
+			}
+		}
+
+		private long lagBytes(Connection source) throws SQLException {
+			try (PreparedStatement stmt = source.prepareStatement("SELECT COALESCE(pg_wal_lsn_diff("
+					+ "pg_current_wal_lsn(), confirmed_flush_lsn), 0) FROM pg_replication_slots WHERE slot_name = ?")) {
+				stmt.setString(1, name);
+				return single(stmt);
+			}
+		}
+
+		private boolean confirmed(Connection source, String lsn) throws SQLException {
+			try (PreparedStatement stmt = source.prepareStatement("SELECT count(*) FROM pg_replication_slots "
+					+ "WHERE slot_name = ? AND confirmed_flush_lsn >= ?::pg_lsn")) {
+				stmt.setString(1, name);
+				stmt.setString(2, lsn);
+				return single(stmt) > 0;
+			}
+		}
+	}
+
+	private static List<String> tablesOf(Connection connection) throws SQLException {
+		List<String> tables = new ArrayList<>();
+		try (Statement stmt = connection.createStatement();
+				ResultSet rs = stmt.executeQuery("SELECT format('%I.%I', schemaname, tablename) FROM pg_tables "
+						+ "WHERE schemaname = current_schema() ORDER BY tablename")) {
+			while (rs.next()) {
+				tables.add(rs.getString(1));
+			}
+		}
+		if (tables.isEmpty()) {
+			throw new IllegalStateException("Source database has no tables");
+		}
+		return tables;
+	}
+
+	// Transactions that have written something and not finished yet
+	private static long openWriteTransactions(Connection source) throws SQLException {
+		try (PreparedStatement stmt = source.prepareStatement("SELECT count(*) FROM pg_stat_activity "
+				+ "WHERE datname = current_database() AND pid <> pg_backend_pid() "
+				+ "AND backend_type = 'client backend' AND backend_xid IS NOT NULL")) {
+			return single(stmt);
+		}
+	}
+
+	/**
+	 * Makes the source database read-only for every new session and ends the
+	 * tenant's other sessions, so pooled connections reconnect read-only and
+	 * open transactions roll back. Replication keeps running: its walsender
+	 * is not a client backend
+	 */
+	static void fenceWrites(Connection source) throws SQLException {
+		execute(source, "ALTER DATABASE " + databaseName(source) + " SET default_transaction_read_only = on");
+		try (PreparedStatement stmt = source.prepareStatement("SELECT pg_terminate_backend(pid) FROM pg_stat_activity "
+				+ "WHERE datname = current_database() AND pid <> pg_backend_pid() "
+				+ "AND backend_type = 'client backend'")) {
+			stmt.execute();
+		}
+	}
+
+	static void liftWriteFence(Connection source) throws SQLException {
+		execute(source, "SET default_transaction_read_only = off");
+		execute(source, "ALTER DATABASE " + databaseName(source) + " RESET default_transaction_read_only");
+	}
+
+	private static String databaseName(Connection source) throws SQLException {
+		try (Statement stmt = source.createStatement();
+				ResultSet rs = stmt.executeQuery("SELECT format('%I', current_database())")) {
+			rs.next();
+			return rs.getString(1);
+		}
+	}
+
+	private static String currentLsn(Connection source) throws SQLException {
+		try (Statement stmt = source.createStatement();
+				ResultSet rs = stmt.executeQuery("SELECT pg_current_wal_lsn()::text")) {
+			rs.next();
+			return rs.getString(1);
+		}
+	}
+
+	// Logical replication does not carry sequence values
+	private static void copySequences(Connection source, Connection target) throws SQLException {
+		try (Statement read = source.createStatement();
+				ResultSet rs = read.executeQuery("SELECT format('%I.%I', schemaname, sequencename), last_value "
+						+ "FROM pg_sequences WHERE schemaname = current_schema() AND last_value IS NOT NULL");
+				PreparedStatement write = target.prepareStatement("SELECT setval(?::regclass, ?)")) {
+			while (rs.next()) {
+				write.setString(1, rs.getString(1));
+				write.setLong(2, rs.getLong(2));
+				write.execute();
+			}
+		}
+	}
+
+	private static long single(PreparedStatement stmt) throws SQLException {
+		try (ResultSet rs = stmt.executeQuery()) {
+			return rs.next() ? rs.getLong(1) : 0;
+		}
+	}
+
+	private static void execute(Connection connection, String sql) throws SQLException {
+		try (Statement stmt = connection.createStatement()) {
+			stmt.execute(sql);
+		}
+	}
+
+	/**
+	 * Publication, subscription and slot name for the tenant: a valid unquoted
+	 * identifier of at most 63 characters
+	 */
+	static String replicationName(String tenantId) {
+		String name = "relocate_" + tenantId.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9_]", "_");
+		return name.length() > 63 ? name.substring(0, 63) : name;
+	}
+
+	/**
+	 * libpq connection string for a jdbc:postgresql://host[:port]/database URL
+	 */
+	static String conninfoOf(String jdbcUrl, String username, String password) {
+		URI uri = URI.create(jdbcUrl.startsWith("jdbc:") ? jdbcUrl.substring(5) : jdbcUrl);
+		if (uri.getHost() == null || uri.getPath() == null || uri.getPath().length() < 2) {
+			throw new IllegalArgumentException("Unsupported JDBC URL: " + jdbcUrl);
+		}
+		return "host=" + conninfoValue(uri.getHost())
+				+ " port=" + (uri.getPort() > 0 ? uri.getPort() : 5432)
+				+ " dbname=" + conninfoValue(uri.getPath().substring(1))
+				+ " user=" + conninfoValue(username)
+				+ " password=" + conninfoValue(password);
+	}
+
+	private static String conninfoValue(String value) {
+		return "'" + value.replace("\\", "\\\\").replace("'", "\\'") + "'";
+	}
+
+	private static String literal(String value) {
+		return "'" + value.replace("'", "''") + "'";
+	}
+}
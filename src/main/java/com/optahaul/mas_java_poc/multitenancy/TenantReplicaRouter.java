@@ -0,0 +1,145 @@
+package com.optahaul.mas_java_poc.multitenancy;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Decides which of a tenant's read replicas serves a read-only transaction.
+ * Replicas are used round-robin; one that failed a checkout or reported more
+ * lag than allowed is skipped until it has been given time to recover. Reads
+ * go to the primary for a while after the tenant committed a write on this
+ * node, so users see their own changes
+ */
+@Component
+@ConditionalOnProperty(name = "multitenancy.enabled", havingValue = "true")
+public class TenantReplicaRouter {
+
+	/**
+	 * Replay lag in milliseconds; 0 on a primary or a replica that has replayed
+	 * everything it received
+	 */
+	static final String LAG_QUERY = "SELECT CASE WHEN NOT pg_is_in_recovery() THEN 0 "
+			+ "WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 "
+			+ "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0) END";
+
+	private final boolean enabled;
+	private final long maxLagMillis;
+	private final long readYourWritesNanos;
+	private final long lagCheckIntervalNanos;
+	private final long retryAfterNanos;
+	private final LongSupplier clock;
+
+	private final Map<String, ReplicaHealth> health = new ConcurrentHashMap<>();
+	private final Map<String, Long> lastWrites = new ConcurrentHashMap<>();
+	private final AtomicInteger cursor = new AtomicInteger();
+
+	@Autowired
+	public TenantReplicaRouter(
+			@Value("${tenant.replicas.enabled:true}") boolean enabled,
+			@Value("${tenant.replicas.max-lag:5s}") Duration maxLag,
+			@Value("${tenant.replicas.read-your-writes:10s}") Duration readYourWrites,
+			@Value("${tenant.replicas.lag-check-interval:5s}") Duration lagCheckInterval,
+			@Value("${tenant.replicas.retry-after:30s}") Duration retryAfter) {
+		this(enabled, maxLag, readYourWrites, lagCheckInterval, retryAfter, System::nanoTime);
+	}
+
+	TenantReplicaRouter(boolean enabled, Duration maxLag, Duration readYourWrites, Duration lagCheckInterval,
+			Duration retryAfter, LongSupplier clock) {
+		this.enabled = enabled;
+		this.maxLagMillis = maxLag.toMillis();
+		this.readYourWritesNanos = readYourWrites.toNanos();
+		this.lagCheckIntervalNanos = lagCheckInterval.toNanos();
+		this.retryAfterNanos = retryAfter.toNanos();
+		this.clock = clock;
+	}
+
+	/**
+	 * Index of the replica to read from, or -1 to read from the primary
+	 */
+	public int choose(String tenantId, List<String> replicaKeys) {
+		if (!enabled || replicaKeys.isEmpty() || recentlyWrote(tenantId)) {
+			return -1;
+		}
+		long now = clock.getAsLong();
+		int start = Math.floorMod(cursor.getAndIncrement(), replicaKeys.size());
+		for (int i = 0; i < replicaKeys.size(); i++) {
+			int candidate = (start + i) % replicaKeys.size();
+			ReplicaHealth replica = health.get(replicaKeys.get(candidate));
+			if (replica == null || replica.usable(now)) {
+				return candidate;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * True when the replica's lag reading is due for a refresh
+	 */
+	public boolean needsLagCheck(String replicaKey) {
+		ReplicaHealth replica = health.get(replicaKey);
+		return replica == null || clock.getAsLong() - replica.checkedAt() >= lagCheckIntervalNanos;
+	}
+
+	/**
+	 * Records a lag reading; false when the replica is too far behind to serve
+	 * reads, in which case it is skipped until its next check
+	 */
+	public boolean recordLag(String replicaKey, long lagMillis) {
+		long now = clock.getAsLong();
+		boolean usable = lagMillis <= maxLagMillis;
+		health.put(replicaKey, new ReplicaHealth(lagMillis, now, usable ? now : now + lagCheckIntervalNanos));
+		return usable;
+	}
+
+	/**
+	 * Takes the replica out of rotation after a failed checkout
+	 */
+	public void markUnavailable(String replicaKey) {
+		long now = clock.getAsLong();
+		ReplicaHealth previous = health.get(replicaKey);
+		long lagMillis = previous != null ? previous.lagMillis() : 0;
+		health.put(replicaKey, new ReplicaHealth(lagMillis, now, now + retryAfterNanos));
+	}
+
+	/**
+	 * Starts the tenant's read-your-writes window
+	 */
+	public void recordWrite(String tenantId) {
+		if (readYourWritesNanos > 0) {
+			lastWrites.put(tenantId, clock.getAsLong());
+		}
+	}
+
+	public void forget(String tenantId, List<String> replicaKeys) {
+		lastWrites.remove(tenantId);
+		replicaKeys.forEach(health::remove);
+	}
+
+	private boolean recentlyWrote(String tenantId) {
+		Long writtenAt = lastWrites.get(tenantId);
+		if (writtenAt == null) {
+			return false;
+		}
+		if (clock.getAsLong() - writtenAt < readYourWritesNanos) {
+			return true;
+		}
+		lastWrites.remove(tenantId, writtenAt);
+		return false;
+	}
+
+	private record ReplicaHealth(long lagMillis, long checkedAt, long usableFrom) {
+
+		boolean usable(long now) {
+			return now - usableFrom >= 0;
+		}
+	}
+}
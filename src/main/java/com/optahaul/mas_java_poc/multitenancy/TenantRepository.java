@@ -1,5 +1,7 @@
 package com.optahaul.mas_java_poc.multitenancy;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -15,4 +17,8 @@ public interface TenantRepository extends JpaRepository<Tenant, Long> {
 	Optional<Tenant> findByTenantId(String tenantId);
 
 	Optional<Tenant> findBySubdomain(String subdomain);
+
+	List<Tenant> findByUpdatedAtGreaterThanEqual(LocalDateTime since);
+
+	List<Tenant> findByStatus(String status);
 }
@@ -0,0 +1,20 @@
+package com.optahaul.mas_java_poc.multitenancy;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * One way of identifying the tenant of a request. Strategies are tried in the
+ * order given by multitenancy.tenant-resolution-strategy
+ */
+public interface TenantResolutionStrategy {
+
+	/**
+	 * Name used in multitenancy.tenant-resolution-strategy
+	 */
+	String name();
+
+	/**
+	 * @return the tenant id, or null if this strategy cannot tell
+	 */
+	String resolve(HttpServletRequest request);
+}
@@ -0,0 +1,68 @@
+package com.optahaul.mas_java_poc.multitenancy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Resolves the tenant of a request by trying the strategies listed in
+ * multitenancy.tenant-resolution-strategy in order (subdomain, custom-domain,
+ * header, jwt). All lookups go through {@link TenantHostIndex}, so no request
+ * hits the catalog database
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "multitenancy.enabled", havingValue = "true")
+public class TenantResolver {
+
+	private final TenantHostIndex hostIndex;
+	private final TenantResolutionStrategy[] strategies;
+
+	public TenantResolver(TenantHostIndex hostIndex, List<TenantResolutionStrategy> available,
+			@Value("${multitenancy.tenant-resolution-strategy:subdomain,custom-domain}") String[] order) {
+		this.hostIndex = hostIndex;
+		Map<String, TenantResolutionStrategy> byName = available.stream()
+				.collect(Collectors.toMap(TenantResolutionStrategy::name, Function.identity()));
+
+		List<TenantResolutionStrategy> selected = new ArrayList<>();
+		for (String name : order) {
+			TenantResolutionStrategy strategy = byName.get(name.trim());
+			if (strategy == null) {
+				throw new IllegalStateException("Unknown tenant resolution strategy '" + name.trim()
+						+ "', expected one of " + byName.keySet());
+			}
+			selected.add(strategy);
+		}
+		this.strategies = selected.toArray(TenantResolutionStrategy[]::new);
+		log.info("Tenant resolution strategies: {}", selected.stream().map(TenantResolutionStrategy::name).toList());
+	}
+
+	/**
+	 * @return the tenant id, or null if no strategy could identify the tenant
+	 */
+	public String resolve(HttpServletRequest request) {
+		for (TenantResolutionStrategy strategy : strategies) {
+			String tenantId = strategy.resolve(request);
+			if (tenantId != null) {
+				return tenantId;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * False until the host index has been loaded from the catalog at startup
+	 */
+	public boolean isReady() {
+		return hostIndex.isLoaded();
+	}
+}
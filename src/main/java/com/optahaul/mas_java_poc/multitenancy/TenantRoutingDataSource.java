@@ -1,28 +1,65 @@
 package com.optahaul.mas_java_poc.multitenancy;
 
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 
 import javax.sql.DataSource;
 
 import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import com.optahaul.mas_java_poc.domain.catalog.Tenant;
 import com.optahaul.mas_java_poc.service.TenantService;
+import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+
+import lombok.extern.slf4j.Slf4j;
 
 /**
- * Routes database queries to the appropriate tenant database Creates and caches
- * DataSource connections per tenant
+ * Routes database queries to the appropriate tenant database Pools are kept in
+ * a bounded {@link TenantDataSourceRegistry} that evicts idle tenants.
+ * Database-isolated tenants get a pool of their own; schema-isolated tenants
+ * share one pool per database server and have their search_path switched on
+ * checkout. Read-only transactions go to the tenant's replicas when it has
+ * any, as picked by {@link TenantReplicaRouter}; the physical connection is
+ * only taken at the first statement (see {@link MultiTenancyConfig}), by which
+ * time the transaction's read-only flag is known
  */
+@Slf4j
 public class TenantRoutingDataSource extends AbstractRoutingDataSource {
 
-	private final Map<Object, DataSource> tenantDataSources = new ConcurrentHashMap<>();
+	private static final String REPLICA_PREFIX = "replica:";
+
+	private final TenantDataSourceRegistry registry;
 	private final TenantService tenantService;
+	private final HikariConfig poolTemplate;
+	private final int sharedPoolSize;
+	private final MetricsTrackerFactory metricsTrackerFactory;
+	private final TenantReplicaRouter replicaRouter;
+
+	// Resolved once per tenant so schema tenants don't hit the catalog on every
+	// checkout, and dropped with the tenant's pool once the registry closes it
+	private final Map<String, TenantRoute> routes = new ConcurrentHashMap<>();
 
-	public TenantRoutingDataSource(TenantService tenantService) {
+	public TenantRoutingDataSource(TenantService tenantService, TenantDataSourceRegistry registry,
+			HikariConfig poolTemplate, int sharedPoolSize, MetricsTrackerFactory metricsTrackerFactory,
+			TenantReplicaRouter replicaRouter) {
 		this.tenantService = tenantService;
+		this.registry = registry;
+		this.poolTemplate = poolTemplate;
+		this.sharedPoolSize = sharedPoolSize;
+		this.metricsTrackerFactory = metricsTrackerFactory;
+		this.replicaRouter = replicaRouter;
+		registry.addCloseListener(this::forgetRoutes);
 		// Initialize with empty map to satisfy Spring's requirement
 		setTargetDataSources(new HashMap<>());
 		// Set lenient fallback to allow dynamic datasource resolution
@@ -38,45 +75,233 @@ public class TenantRoutingDataSource extends AbstractRoutingDataSource {
 
 	@Override
 	protected DataSource determineTargetDataSource() {
+		return resolve(route(currentTenantId()));
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		String tenantId = currentTenantId();
+		TenantRoute route = route(tenantId);
+
+		boolean readOnly = TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+		if (route.writesPaused() && !readOnly) {
+			throw new SQLException("Writes to tenant " + tenantId + " are paused while it is relocated", "25006");
+		}
+
+		if (readOnly) {
+			Connection replica = replicaConnection(tenantId, route);
+			if (replica != null) {
+				return replica;
+			}
+		} else if (!route.replicas().isEmpty() && TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					replicaRouter.recordWrite(tenantId);
+				}
+			});
+		}
+		return checkout(route);
+	}
+
+	/**
+	 * Connection to one of the tenant's replicas, or null when the read should go
+	 * to the primary
+	 */
+	private Connection replicaConnection(String tenantId, TenantRoute route) {
+		List<String> replicaKeys = route.replicaKeys();
+		int index = replicaRouter.choose(tenantId, replicaKeys);
+		if (index < 0) {
+			return null;
+		}
+		TenantRoute replica = route.replicas().get(index);
+		try {
+			HikariDataSource target = resolve(replica);
+			Connection connection = target.getConnection();
+			if (replicaRouter.needsLagCheck(replica.poolKey()) && !withinLag(replica, connection)) {
+				connection.close();
+				return null;
+			}
+			return replica.schema() == null
+					? connection
+					: TenantSchemaConnections.bind(connection, replica.schema(), target);
+		} catch (SQLException e) {
+			log.warn("Replica {} of tenant {} unavailable, reading from the primary: {}", index, tenantId,
+					e.getMessage());
+			replicaRouter.markUnavailable(replica.poolKey());
+			return null;
+		}
+	}
+
+	private boolean withinLag(TenantRoute replica, Connection connection) throws SQLException {
+		try (Statement stmt = connection.createStatement();
+				ResultSet rs = stmt.executeQuery(TenantReplicaRouter.LAG_QUERY)) {
+			long lagMillis = rs.next() ? rs.getLong(1) : 0;
+			if (!connection.getAutoCommit()) {
+				connection.commit();
+			}
+			return replicaRouter.recordLag(replica.poolKey(), lagMillis);
+		}
+	}
+
+	private Connection checkout(TenantRoute route) throws SQLException {
+		HikariDataSource target = resolve(route);
+		long started = System.nanoTime();
+		Connection connection;
+		try {
+			connection = target.getConnection();
+		} catch (SQLException e) {
+			// The pool may have been evicted between lookup and checkout; resolve it again
+			if (!target.isClosed()) {
+				throw e;
+			}
+			target = resolve(route);
+			connection = target.getConnection();
+		}
+		registry.recordCheckout(route.poolKey(), System.nanoTime() - started);
+
+		if (route.schema() == null) {
+			return connection;
+		}
+		return TenantSchemaConnections.bind(connection, route.schema(), target);
+	}
+
+	private static String currentTenantId() {
 		String tenantId = TenantContext.getCurrentTenant();
 
 		if (tenantId == null) {
 			throw new IllegalStateException("No tenant context set");
 		}
+		return tenantId;
+	}
 
-		// Check cache first
-		DataSource dataSource = tenantDataSources.get(tenantId);
-		if (dataSource == null) {
-			dataSource = createTenantDataSource(tenantId);
-			tenantDataSources.put(tenantId, dataSource);
-		}
-
-		return dataSource;
+	private TenantRoute route(String tenantId) {
+		return routes.computeIfAbsent(tenantId, this::loadRoute);
 	}
 
-	private DataSource createTenantDataSource(String tenantId) {
+	private TenantRoute loadRoute(String tenantId) {
 		Tenant tenant = tenantService.findByTenantId(tenantId);
 
-		if (tenant == null || !"ACTIVE".equals(tenant.getStatus())) {
+		if (tenant == null || !("ACTIVE".equals(tenant.getStatus()) || "RELOCATING".equals(tenant.getStatus()))) {
 			throw new IllegalStateException("Tenant not found or inactive: " + tenantId);
 		}
+		boolean writesPaused = "RELOCATING".equals(tenant.getStatus());
+
+		if (tenant.isSchemaIsolated()) {
+			String schema = TenantSchemaConnections.requireValidSchema(tenantId, tenant.getDbSchema());
+			List<TenantRoute> replicas = tenant.replicaUrls().stream()
+					.map(url -> new TenantRoute(sharedPoolKey(tenant, url), schema, tenant, url, false, List.of()))
+					.toList();
+			return new TenantRoute(sharedPoolKey(tenant, tenant.getDbUrl()), schema, tenant, tenant.getDbUrl(),
+					writesPaused, replicas);
+		}
+		List<TenantRoute> replicas = tenant.replicaUrls().stream()
+				.map(url -> new TenantRoute(REPLICA_PREFIX + tenantId + "@" + url, null, tenant, url, false,
+						List.of()))
+				.toList();
+		return new TenantRoute(tenantId, null, tenant, tenant.getDbUrl(), writesPaused, replicas);
+	}
 
+	/**
+	 * Drops the routes served by a closed pool; an evicted tenant is looked up
+	 * in the catalog again on its next request
+	 */
+	private void forgetRoutes(String poolKey) {
+		routes.values().removeIf(route -> route.poolKey().equals(poolKey));
+	}
+
+	private HikariDataSource resolve(TenantRoute route) {
+		return registry.getOrCreate(route.poolKey(), () -> createDataSource(route));
+	}
+
+	private HikariDataSource createDataSource(TenantRoute route) {
+		Tenant tenant = route.tenant();
+
+		// Pool sizes start from tenant.datasource.hikari.* and are then adjusted at
+		// runtime by TenantConnectionBudgetManager
 		HikariDataSource ds = new HikariDataSource();
-		ds.setJdbcUrl(tenant.getDbUrl());
+		poolTemplate.copyStateTo(ds);
+		boolean replica = !route.jdbcUrl().equals(tenant.getDbUrl());
+		if (route.schema() != null) {
+			ds.setPoolName("shared-" + Integer.toHexString(route.poolKey().hashCode()));
+			ds.setMaximumPoolSize(sharedPoolSize);
+		} else if (replica) {
+			ds.setPoolName("replica-" + Integer.toHexString(route.poolKey().hashCode()));
+		} else {
+			ds.setPoolName(TenantPoolMetrics.POOL_PREFIX + tenant.getTenantId());
+		}
+		ds.setReadOnly(replica);
+		ds.setJdbcUrl(route.jdbcUrl());
 		ds.setUsername(tenant.getDbUsername());
 		ds.setPassword(tenant.getDbPassword());
-		ds.setMaximumPoolSize(10);
-		ds.setMinimumIdle(2);
-		ds.setConnectionTimeout(30000);
+		ds.setMetricsTrackerFactory(metricsTrackerFactory);
 
 		return ds;
 	}
 
+	/**
+	 * Schema tenants on the same server and login share a pool
+	 */
+	private static String sharedPoolKey(Tenant tenant, String jdbcUrl) {
+		return "shared:" + tenant.getDbUsername() + "@" + jdbcUrl;
+	}
+
+	/**
+	 * Re-reads the tenant's route after a catalog change. Its pools are only
+	 * closed when the connection target changed (database, credentials,
+	 * schema or replicas) or the tenant can no longer be served; a status flip
+	 * such as pausing writes for a relocation keeps in-flight connections
+	 *
+	 * @return true if the tenant's pools were dropped
+	 */
+	public boolean refreshTenant(String tenantId) {
+		TenantRoute current = routes.get(tenantId);
+		if (current != null) {
+			TenantRoute fresh;
+			try {
+				fresh = loadRoute(tenantId);
+			} catch (RuntimeException e) {
+				// Deleted or no longer active
+				fresh = null;
+			}
+			if (fresh != null && current.sameTargetAs(fresh)) {
+				routes.replace(tenantId, current, fresh);
+				return false;
+			}
+		}
+		removeTenantDataSource(tenantId);
+		return true;
+	}
+
 	// Call this when tenant is deleted/suspended
 	public void removeTenantDataSource(String tenantId) {
-		DataSource ds = tenantDataSources.remove(tenantId);
-		if (ds instanceof HikariDataSource) {
-			((HikariDataSource) ds).close();
+		TenantRoute route = routes.remove(tenantId);
+		if (route == null) {
+			registry.remove(tenantId);
+			replicaRouter.forget(tenantId, List.of());
+			return;
+		}
+		if (route.schema() == null) {
+			registry.remove(route.poolKey());
+			route.replicaKeys().forEach(registry::remove);
+		}
+		// Shared pools stay open for the other tenants and are evicted once idle
+		replicaRouter.forget(tenantId, route.schema() == null ? route.replicaKeys() : List.of());
+	}
+
+	private record TenantRoute(String poolKey, String schema, Tenant tenant, String jdbcUrl, boolean writesPaused,
+			List<TenantRoute> replicas) {
+
+		List<String> replicaKeys() {
+			return replicas.stream().map(TenantRoute::poolKey).toList();
+		}
+
+		boolean sameTargetAs(TenantRoute other) {
+			return poolKey.equals(other.poolKey) && Objects.equals(schema, other.schema)
+					&& jdbcUrl.equals(other.jdbcUrl)
+					&& Objects.equals(tenant.getDbUsername(), other.tenant.getDbUsername())
+					&& Objects.equals(tenant.getDbPassword(), other.tenant.getDbPassword())
+					&& replicaKeys().equals(other.replicaKeys());
 		}
 	}
 }
@@ -0,0 +1,122 @@
+package com.optahaul.mas_java_poc.multitenancy;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.regex.Pattern;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Binds pooled connections to a tenant schema for the schema isolation mode.
+ * The search_path is switched when the connection is checked out and reset
+ * before it goes back to the shared pool, so a connection never leaks one
+ * tenant's schema to the next borrower
+ */
+@Slf4j
+final class TenantSchemaConnections {
+
+	// Unquoted Postgres identifier, at most 63 bytes
+	private static final Pattern SCHEMA_NAME = Pattern.compile("[A-Za-z_][A-Za-z0-9_]{0,62}");
+
+	private TenantSchemaConnections() {
+	}
+
+	static String requireValidSchema(String tenantId, String schema) {
+		if (schema == null || !SCHEMA_NAME.matcher(schema).matches()) {
+			throw new IllegalStateException("Invalid schema for tenant " + tenantId + ": " + schema);
+		}
+		return schema;
+	}
+
+	/**
+	 * Switches the connection to the given schema and returns a wrapper whose
+	 * close() restores the default search_path first
+	 */
+	static Connection bind(Connection connection, String schema, HikariDataSource pool) throws SQLException {
+		try (Statement stmt = connection.createStatement()) {
+			stmt.execute("SET search_path TO \"" + schema + "\"");
+			// SET is transactional in Postgres; make sure it survives a later rollback
+			if (!connection.getAutoCommit()) {
+				connection.commit();
+			}
+		} catch (SQLException e) {
+			connection.close();
+			throw e;
+		}
+
+		return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+				new Class<?>[] { Connection.class }, new SchemaBoundHandler(connection, pool));
+	}
+
+	private static final class SchemaBoundHandler implements InvocationHandler {
+
+		private final Connection target;
+		private final HikariDataSource pool;
+		private boolean closed;
+
+		private SchemaBoundHandler(Connection target, HikariDataSource pool) {
+			this.target = target;
+			this.pool = pool;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+				case "close":
+					close();
+					return null;
+				case "isClosed":
+					return closed || target.isClosed();
+				case "equals":
+					return proxy == args[0];
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				case "toString":
+					return "SchemaBound[" + target + "]";
+				default:
+					try {
+						return method.invoke(target, args);
+					} catch (InvocationTargetException e) {
+						throw e.getTargetException();
+					}
+			}
+		}
+
+		private void close() throws SQLException {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			try {
+				resetSearchPath();
+			} catch (SQLException e) {
+				// Never hand a connection still pointing at this tenant back to the pool
+				log.warn("Could not reset search_path, evicting connection: {}", e.getMessage());
+				pool.evictConnection(target);
+			}
+			target.close();
+		}
+
+		private void resetSearchPath() throws SQLException {
+			if (target.isClosed()) {
+				return;
+			}
+			// Finish any open transaction first, otherwise the pool's rollback on
+			// return would undo the reset as well
+			if (!target.getAutoCommit()) {
+				target.rollback();
+				target.setAutoCommit(true);
+			}
+			try (Statement stmt = target.createStatement()) {
+				stmt.execute("RESET search_path");
+			}
+		}
+	}
+}
@@ -0,0 +1,12 @@
+package com.optahaul.mas_java_poc.multitenancy;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.optahaul.mas_java_poc.domain.catalog.TenantSchemaVersion;
+
+@Repository
+@ConditionalOnProperty(name = "multitenancy.enabled", havingValue = "true")
+public interface TenantSchemaVersionRepository extends JpaRepository<TenantSchemaVersion, String> {
+}
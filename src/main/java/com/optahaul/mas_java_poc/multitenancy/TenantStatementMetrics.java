@@ -0,0 +1,122 @@
+package com.optahaul.mas_java_poc.multitenancy;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.SessionEventListener;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * tenant.jdbc.statements histogram: how long each JDBC statement and batch run
+ * by the tenant entity manager takes, tagged by tenant. Timings come from a
+ * Hibernate session listener ({@link Listener}, added to every session by the
+ * tenant entity manager factory, see {@link MultiTenancyConfig}); timers are
+ * dropped when the tenant's pool is closed or the tenant changes
+ */
+@Component
+@ConditionalOnProperty(name = "multitenancy.enabled", havingValue = "true")
+public class TenantStatementMetrics {
+
+	private final MeterRegistry meterRegistry;
+	private final Map<String, Timers> timers = new ConcurrentHashMap<>();
+
+	public TenantStatementMetrics(ObjectProvider<MeterRegistry> meterRegistry, TenantDataSourceRegistry registry) {
+		this.meterRegistry = meterRegistry.getIfAvailable();
+		registry.addCloseListener(this::remove);
+	}
+
+	/**
+	 * A listener for one new Hibernate session
+	 */
+	public SessionEventListener listener() {
+		return new Listener(this);
+	}
+
+	void record(String tenantId, long nanos, boolean batch) {
+		if (meterRegistry == null || tenantId == null) {
+			return;
+		}
+		Timers tenantTimers = timers.get(tenantId);
+		if (tenantTimers == null) {
+			tenantTimers = timers.computeIfAbsent(tenantId, this::register);
+		}
+		(batch ? tenantTimers.batch() : tenantTimers.statement()).record(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Drops the tenant's timers; they are registered again on its next statement
+	 */
+	public void remove(String tenantId) {
+		Timers removed = timers.remove(tenantId);
+		if (removed != null && meterRegistry != null) {
+			meterRegistry.remove(removed.statement());
+			meterRegistry.remove(removed.batch());
+		}
+	}
+
+	private Timers register(String tenantId) {
+		return new Timers(timer(tenantId, "statement"), timer(tenantId, "batch"));
+	}
+
+	private Timer timer(String tenantId, String kind) {
+		return Timer.builder("tenant.jdbc.statements")
+				.description("JDBC statement execution time per tenant")
+				.tag("tenant", tenantId)
+				.tag("kind", kind)
+				.publishPercentileHistogram()
+				.minimumExpectedValue(Duration.ofMillis(1))
+				.maximumExpectedValue(Duration.ofSeconds(30))
+				.register(meterRegistry);
+	}
+
+	private record Timers(Timer statement, Timer batch) {
+	}
+
+	/**
+	 * One per Hibernate session; times statement and batch execution on the
+	 * session's thread
+	 */
+	static final class Listener implements SessionEventListener {
+
+		private final TenantStatementMetrics metrics;
+		private long statementStart;
+		private long batchStart;
+
+		private Listener(TenantStatementMetrics metrics) {
+			this.metrics = metrics;
+		}
+
+		@Override
+		public void jdbcExecuteStatementStart() {
+			statementStart = System.nanoTime();
+		}
+
+		@Override
+		public void jdbcExecuteStatementEnd() {
+			record(statementStart, false);
+		}
+
+		@Override
+		public void jdbcExecuteBatchStart() {
+			batchStart = System.nanoTime();
+		}
+
+		@Override
+		public void jdbcExecuteBatchEnd() {
+			record(batchStart, true);
+		}
+
+		private void record(long started, boolean batch) {
+			if (started != 0) {
+				metrics.record(TenantContext.getCurrentTenant(), System.nanoTime() - started, batch);
+			}
+		}
+	}
+}
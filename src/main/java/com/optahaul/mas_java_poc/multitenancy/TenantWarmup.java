@@ -0,0 +1,232 @@
+package com.optahaul.mas_java_poc.multitenancy;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import com.optahaul.mas_java_poc.domain.catalog.Tenant;
+import com.optahaul.mas_java_poc.dto.AuthorDto;
+import com.optahaul.mas_java_poc.dto.BookDto;
+import com.optahaul.mas_java_poc.dto.PageParams;
+import com.optahaul.mas_java_poc.service.AuthorService;
+import com.optahaul.mas_java_poc.service.BookService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Warms the node up after startup so the first real requests don't pay for it:
+ * opens pools for the most active tenants (from tenant_activity), primes the
+ * catalog cache, and replays the reads a client starts with through the book
+ * and author services (the first page of each list, then a few of the books
+ * and authors on it by id) until round times stop improving. Reported as the
+ * tenantWarmup health indicator, which is part of the readiness group, so the
+ * node only takes traffic once warm-up is done or has timed out
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "multitenancy.enabled", havingValue = "true")
+public class TenantWarmup implements HealthIndicator {
+
+	// By-id reads per list and round, taken from the first page
+	private static final int BY_ID_READS = 5;
+
+	private final TenantActivityRepository activityRepository;
+	private final TenantCatalogCache catalogCache;
+	private final TenantMigrationTracker migrationTracker;
+	private final TenantRoutingDataSource routingDataSource;
+	private final BookService bookService;
+	private final AuthorService authorService;
+	private final boolean enabled;
+	private final int topTenants;
+	private final double halfLifeSeconds;
+	private final long maxDurationMillis;
+	private final int maxRounds;
+	private final int stableRounds;
+	private final double tolerance;
+
+	private volatile String phase = "waiting";
+	private volatile boolean finished;
+	private volatile List<String> warmedTenants = List.of();
+	private volatile int rounds;
+	private volatile long lastRoundMillis;
+
+	public TenantWarmup(
+			TenantActivityRepository activityRepository,
+			TenantCatalogCache catalogCache,
+			TenantMigrationTracker migrationTracker,
+			TenantRoutingDataSource routingDataSource,
+			BookService bookService,
+			AuthorService authorService,
+			@Value("${tenant.warmup.enabled:true}") boolean enabled,
+			@Value("${tenant.warmup.top-tenants:10}") int topTenants,
+			@Value("${tenant.activity.half-life:6h}") Duration halfLife,
+			@Value("${tenant.warmup.max-duration:2m}") Duration maxDuration,
+			@Value("${tenant.warmup.max-rounds:30}") int maxRounds,
+			@Value("${tenant.warmup.stable-rounds:3}") int stableRounds,
+			@Value("${tenant.warmup.tolerance:0.1}") double tolerance) {
+		this.activityRepository = activityRepository;
+		this.catalogCache = catalogCache;
+		this.migrationTracker = migrationTracker;
+		this.routingDataSource = routingDataSource;
+		this.bookService = bookService;
+		this.authorService = authorService;
+		this.enabled = enabled;
+		this.topTenants = topTenants;
+		this.halfLifeSeconds = halfLife.toSeconds();
+		this.maxDurationMillis = maxDuration.toMillis();
+		this.maxRounds = maxRounds;
+		this.stableRounds = stableRounds;
+		this.tolerance = tolerance;
+	}
+
+	@Order(5) // After migrations have been started for every tenant
+	@EventListener(ApplicationReadyEvent.class)
+	public void start() {
+		if (!enabled || topTenants <= 0) {
+			phase = "disabled";
+			finished = true;
+			return;
+		}
+		Thread thread = new Thread(this::run, "tenant-warmup");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	@Override
+	public Health health() {
+		Health.Builder builder = finished ? Health.up() : Health.outOfService();
+		return builder.withDetail("phase", phase)
+				.withDetail("tenants", warmedTenants)
+				.withDetail("rounds", rounds)
+				.withDetail("lastRoundMillis", lastRoundMillis)
+				.build();
+	}
+
+	private void run() {
+		long started = System.currentTimeMillis();
+		long deadline = started + maxDurationMillis;
+		try {
+			phase = "caches";
+			List<String> candidates = new ArrayList<>();
+			for (String tenantId : activityRepository.findMostActive(halfLifeSeconds, topTenants)) {
+				catalogCache.find(tenantId)
+						.filter(tenant -> "ACTIVE".equals(tenant.getStatus()))
+						.map(Tenant::getTenantId)
+						.ifPresent(candidates::add);
+			}
+
+			phase = "pools";
+			List<String> tenants = new ArrayList<>();
+			for (String tenantId : candidates) {
+				if (awaitMigration(tenantId, deadline) && openPool(tenantId)) {
+					tenants.add(tenantId);
+				}
+			}
+			warmedTenants = List.copyOf(tenants);
+
+			phase = "replay";
+			replay(tenants, deadline);
+			phase = System.currentTimeMillis() < deadline ? "done" : "timed out";
+		} catch (Exception e) {
+			log.warn("Tenant warm-up failed, marking node ready anyway: {}", e.getMessage(), e);
+			phase = "failed";
+		} finally {
+			finished = true;
+			log.info("Tenant warm-up {} in {} ms: {} tenant(s), {} round(s), last round {} ms", phase,
+					System.currentTimeMillis() - started, warmedTenants.size(), rounds, lastRoundMillis);
+		}
+	}
+
+	/**
+	 * Waits for the tenant's startup migration; false if it failed or the
+	 * warm-up ran out of time
+	 */
+	private boolean awaitMigration(String tenantId, long deadline) throws InterruptedException {
+		while (!migrationTracker.isReady(tenantId)) {
+			if (migrationTracker.stateOf(tenantId) == TenantMigrationTracker.State.FAILED
+					|| System.currentTimeMillis() >= deadline) {
+				return false;
+			}
+			Thread.sleep(100);
+		}
+		return true;
+	}
+
+	private boolean openPool(String tenantId) {
+		try {
+			return TenantContext.callAs(tenantId, () -> {
+				try (Connection connection = routingDataSource.getConnection()) {
+					return connection.isValid(1);
+				}
+			});
+		} catch (Exception e) {
+			log.warn("Could not open pool for tenant {} during warm-up: {}", tenantId, e.getMessage());
+			return false;
+		}
+	}
+
+	void replay(List<String> tenants, long deadline) {
+		if (tenants.isEmpty()) {
+			return;
+		}
+		List<Long> roundNanos = new ArrayList<>();
+		while (rounds < maxRounds && System.currentTimeMillis() < deadline) {
+			long started = System.nanoTime();
+			for (String tenantId : tenants) {
+				TenantContext.runAs(tenantId, this::replayReads);
+			}
+			long elapsed = System.nanoTime() - started;
+			roundNanos.add(elapsed);
+			rounds++;
+			lastRoundMillis = elapsed / 1_000_000;
+			if (isStable(roundNanos, stableRounds, tolerance)) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * The default first page of books and authors, then by-id reads of the
+	 * first few entries on each, as a client opening the catalog would
+	 */
+	private void replayReads() {
+		List<BookDto> books = bookService.getAllBooks(new PageParams()).getItems();
+		List<AuthorDto> authors = authorService.getAllAuthors(new PageParams()).getItems();
+		for (BookDto book : books.subList(0, Math.min(BY_ID_READS, books.size()))) {
+			bookService.getBookById(book.getId());
+		}
+		for (AuthorDto author : authors.subList(0, Math.min(BY_ID_READS, authors.size()))) {
+			authorService.getAuthorById(author.getId());
+		}
+	}
+
+	/**
+	 * True when the last {@code window} rounds are all within {@code tolerance}
+	 * of each other
+	 */
+	static boolean isStable(List<Long> roundNanos, int window, double tolerance) {
+		if (window <= 0) {
+			return true;
+		}
+		if (roundNanos.size() < window) {
+			return false;
+		}
+		long min = Long.MAX_VALUE;
+		long max = Long.MIN_VALUE;
+		for (long nanos : roundNanos.subList(roundNanos.size() - window, roundNanos.size())) {
+			min = Math.min(min, nanos);
+			max = Math.max(max, nanos);
+		}
+		return max <= min * (1 + tolerance);
+	}
+}
@@ -0,0 +1,22 @@
+package com.optahaul.mas_java_poc.repository;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+
+import com.optahaul.mas_java_poc.dto.AuthorDto;
+
+/**
+ * Read path for author listings: a page of authors and one aggregate query
+ * for the book ids of the whole page, two statements however many authors
+ * and books, without initializing any books collection. Pages are keyset
+ * scrolled; sort by author properties only
+ */
+public interface AuthorDtoRepository {
+
+	Window<AuthorDto> findAllDtos(ScrollPosition position, Limit limit, Sort sort);
+
+	Window<AuthorDto> findDtosByNameContainingIgnoreCase(String name, ScrollPosition position, Limit limit,
+			Sort sort);
+}
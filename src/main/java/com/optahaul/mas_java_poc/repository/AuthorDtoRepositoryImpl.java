@@ -0,0 +1,88 @@
+package com.optahaul.mas_java_poc.repository;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+
+import com.optahaul.mas_java_poc.domain.Author;
+import com.optahaul.mas_java_poc.dto.AuthorDto;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+class AuthorDtoRepositoryImpl implements AuthorDtoRepository {
+
+	private static final long[] NO_BOOKS = new long[0];
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Override
+	public Window<AuthorDto> findAllDtos(ScrollPosition position, Limit limit, Sort sort) {
+		return scroll((author, cb) -> cb.conjunction(), position, limit, sort);
+	}
+
+	@Override
+	public Window<AuthorDto> findDtosByNameContainingIgnoreCase(String name, ScrollPosition position, Limit limit,
+			Sort sort) {
+		String pattern = KeysetQueries.containsPattern(name);
+		return scroll((author, cb) -> cb.like(cb.upper(author.get("name")), pattern, '\\'), position, limit, sort);
+	}
+
+	private Window<AuthorDto> scroll(BiFunction<Root<Author>, CriteriaBuilder, Predicate> filter,
+			ScrollPosition position, Limit limit, Sort sort) {
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<AuthorDto> query = cb.createQuery(AuthorDto.class);
+		Root<Author> author = query.from(Author.class);
+		query.select(cb.construct(AuthorDto.class, author.get("id"), author.get("name"), author.get("birthDate"),
+				author.get("createdAt"), author.get("updatedAt")));
+		KeysetQueries.scroll(query, author, cb, filter.apply(author, cb), position, sort);
+
+		Window<AuthorDto> window = KeysetQueries.window(entityManager.createQuery(query), limit, sort);
+		if (!window.isEmpty()) {
+			Map<Long, long[]> bookIds = bookIds(window.getContent().stream().map(AuthorDto::getId).toList());
+			for (AuthorDto dto : window) {
+				long[] ids = bookIds.getOrDefault(dto.getId(), NO_BOOKS);
+				dto.setBookIds(ids);
+				dto.setBookCount(ids.length);
+			}
+		}
+		return window;
+	}
+
+	/**
+	 * Book ids of the given authors, ascending, aggregated per author by the
+	 * database; authors without books are missing from the map
+	 */
+	private Map<Long, long[]> bookIds(List<Long> authorIds) {
+		Map<Long, long[]> bookIds = new HashMap<>();
+		entityManager.createQuery("SELECT b.author.id, array_agg(b.id) WITHIN GROUP (ORDER BY b.id) FROM Book b "
+				+ "WHERE b.author.id IN :authorIds GROUP BY b.author.id", Object[].class)
+				.setParameter("authorIds", authorIds)
+				.getResultList()
+				.forEach(row -> bookIds.put((Long) row[0], toLongs(row[1])));
+		return bookIds;
+	}
+
+	private static long[] toLongs(Object array) {
+		if (array instanceof long[] longs) {
+			return longs;
+		}
+		Object[] values = (Object[]) array;
+		long[] longs = new long[values.length];
+		for (int i = 0; i < values.length; i++) {
+			longs[i] = ((Number) values[i]).longValue();
+		}
+		return longs;
+	}
+}
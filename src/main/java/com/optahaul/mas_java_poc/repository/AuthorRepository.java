@@ -1,19 +1,34 @@
 package com.optahaul.mas_java_poc.repository;
 
-import java.util.List;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.optahaul.mas_java_poc.domain.Author;
 
-@Repository
-public interface AuthorRepository extends JpaRepository<Author, Long> {
+import jakarta.persistence.QueryHint;
+import jakarta.persistence.Tuple;
 
-	List<Author> findByNameContainingIgnoreCase(String name);
+@Repository
+public interface AuthorRepository extends JpaRepository<Author, Long>, AuthorDtoRepository {
 
 	@Query("SELECT a FROM Author a LEFT JOIN FETCH a.books WHERE a.id = :id")
 	Author findByIdWithBooks(@Param("id") Long id);
+
+	/**
+	 * Every author, in id order, read through a cursor; consume inside a
+	 * read-only transaction and close the stream
+	 */
+	@QueryHints({
+			@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+			@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+	})
+	@Query("SELECT a.id AS id, a.name AS name, a.birthDate AS birthDate, a.bio AS bio, a.createdAt AS createdAt, "
+			+ "a.updatedAt AS updatedAt FROM Author a ORDER BY a.id")
+	Stream<Tuple> streamAllForExport();
 }
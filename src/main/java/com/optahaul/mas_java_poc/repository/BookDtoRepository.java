@@ -0,0 +1,25 @@
+package com.optahaul.mas_java_poc.repository;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+
+import com.optahaul.mas_java_poc.dto.BookDto;
+
+/**
+ * Read path for book listings: each page is one query joining the author and
+ * selecting straight into {@link BookDto}, so no entity is loaded, snapshot or
+ * dirty-checked. Pages are keyset scrolled; sort by book properties only
+ */
+public interface BookDtoRepository {
+
+	Window<BookDto> findAllDtos(ScrollPosition position, Limit limit, Sort sort);
+
+	Window<BookDto> findDtosByAuthorId(Long authorId, ScrollPosition position, Limit limit, Sort sort);
+
+	Window<BookDto> findDtosByGenreIgnoreCase(String genre, ScrollPosition position, Limit limit, Sort sort);
+
+	Window<BookDto> findDtosByTitleContainingIgnoreCase(String title, ScrollPosition position, Limit limit,
+			Sort sort);
+}
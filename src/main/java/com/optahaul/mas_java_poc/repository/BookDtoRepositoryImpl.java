@@ -0,0 +1,71 @@
+package com.optahaul.mas_java_poc.repository;
+
+import java.util.Locale;
+import java.util.function.BiFunction;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+
+import com.optahaul.mas_java_poc.domain.Author;
+import com.optahaul.mas_java_poc.domain.Book;
+import com.optahaul.mas_java_poc.dto.BookDto;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+class BookDtoRepositoryImpl implements BookDtoRepository {
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Override
+	public Window<BookDto> findAllDtos(ScrollPosition position, Limit limit, Sort sort) {
+		return scroll((book, cb) -> cb.conjunction(), false, position, limit, sort);
+	}
+
+	@Override
+	public Window<BookDto> findDtosByAuthorId(Long authorId, ScrollPosition position, Limit limit, Sort sort) {
+		return scroll((book, cb) -> cb.equal(book.get("author").get("id"), authorId), true, position, limit, sort);
+	}
+
+	@Override
+	public Window<BookDto> findDtosByGenreIgnoreCase(String genre, ScrollPosition position, Limit limit, Sort sort) {
+		return scroll((book, cb) -> cb.equal(cb.upper(book.get("genre")), genre.toUpperCase(Locale.ROOT)), true,
+				position, limit, sort);
+	}
+
+	@Override
+	public Window<BookDto> findDtosByTitleContainingIgnoreCase(String title, ScrollPosition position, Limit limit,
+			Sort sort) {
+		String pattern = KeysetQueries.containsPattern(title);
+		return scroll((book, cb) -> cb.like(cb.upper(book.get("title")), pattern, '\\'), false, position, limit,
+				sort);
+	}
+
+	private Window<BookDto> scroll(BiFunction<Root<Book>, CriteriaBuilder, Predicate> filter, boolean cacheable,
+			ScrollPosition position, Limit limit, Sort sort) {
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<BookDto> query = cb.createQuery(BookDto.class);
+		Root<Book> book = query.from(Book.class);
+		Join<Book, Author> author = book.join("author");
+		query.select(cb.construct(BookDto.class, book.get("id"), book.get("title"), author.get("id"),
+				author.get("name"), book.get("genre"), book.get("pageCount"), book.get("language"),
+				book.get("publicationDate"), book.get("createdAt"), book.get("updatedAt")));
+		KeysetQueries.scroll(query, book, cb, filter.apply(book, cb), position, sort);
+
+		TypedQuery<BookDto> typed = entityManager.createQuery(query);
+		if (cacheable) {
+			typed.setHint(HibernateHints.HINT_CACHEABLE, true);
+		}
+		return KeysetQueries.window(typed, limit, sort);
+	}
+}
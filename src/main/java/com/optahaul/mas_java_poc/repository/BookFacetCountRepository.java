@@ -0,0 +1,23 @@
+package com.optahaul.mas_java_poc.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import com.optahaul.mas_java_poc.domain.BookFacetCount;
+
+/**
+ * Reads the facet counts; they are written through {@link BookFacetCountUpdater}
+ */
+@Repository
+public interface BookFacetCountRepository extends JpaRepository<BookFacetCount, BookFacetCount.Key> {
+
+	/**
+	 * Every combination that has books; a few hundred rows at most, whatever
+	 * the number of books
+	 */
+	@Query("SELECT f FROM BookFacetCount f WHERE f.bookCount > 0")
+	List<BookFacetCount> findAllNonEmpty();
+}
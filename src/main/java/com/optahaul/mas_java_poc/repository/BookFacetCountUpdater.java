@@ -0,0 +1,68 @@
+package com.optahaul.mas_java_poc.repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Map;
+
+import org.postgresql.PGConnection;
+
+import com.optahaul.mas_java_poc.domain.BookFacetCount;
+
+/**
+ * Adds to the facet counts in plain JDBC, so both JPA transactions and the
+ * bulk import's own connections can keep them in step with their writes
+ */
+public final class BookFacetCountUpdater {
+
+	private static final String UPSERT = "INSERT INTO book_facet_counts (genre, language, decade, book_count) "
+			+ "VALUES (?, ?, ?, ?) ON CONFLICT (genre, language, decade) "
+			+ "DO UPDATE SET book_count = book_facet_counts.book_count + EXCLUDED.book_count";
+	private static final String UPDATE = "UPDATE book_facet_counts SET book_count = book_count + ? "
+			+ "WHERE genre = ? AND language = ? AND decade = ?";
+	private static final String INSERT = "INSERT INTO book_facet_counts (genre, language, decade, book_count) "
+			+ "VALUES (?, ?, ?, ?)";
+
+	private BookFacetCountUpdater() {
+	}
+
+	/**
+	 * Adds the deltas on the given connection, and so in its transaction. Pass
+	 * a sorted map, so concurrent writers lock the rows in the same order
+	 */
+	public static void add(Connection connection, Map<BookFacetCount.Key, Long> deltas) throws SQLException {
+		if (deltas.isEmpty()) {
+			return;
+		}
+		if (connection.isWrapperFor(PGConnection.class)) {
+			try (PreparedStatement stmt = connection.prepareStatement(UPSERT)) {
+				for (Map.Entry<BookFacetCount.Key, Long> delta : deltas.entrySet()) {
+					bindKey(stmt, 1, delta.getKey());
+					stmt.setLong(4, delta.getValue());
+					stmt.addBatch();
+				}
+				stmt.executeBatch();
+			}
+			return;
+		}
+		// Other databases (H2 in tests): update, then insert the rows that did not exist yet
+		try (PreparedStatement update = connection.prepareStatement(UPDATE);
+				PreparedStatement insert = connection.prepareStatement(INSERT)) {
+			for (Map.Entry<BookFacetCount.Key, Long> delta : deltas.entrySet()) {
+				update.setLong(1, delta.getValue());
+				bindKey(update, 2, delta.getKey());
+				if (update.executeUpdate() == 0) {
+					bindKey(insert, 1, delta.getKey());
+					insert.setLong(4, delta.getValue());
+					insert.executeUpdate();
+				}
+			}
+		}
+	}
+
+	private static void bindKey(PreparedStatement stmt, int first, BookFacetCount.Key key) throws SQLException {
+		stmt.setString(first, key.getGenre());
+		stmt.setString(first + 1, key.getLanguage());
+		stmt.setInt(first + 2, key.getDecade());
+	}
+}
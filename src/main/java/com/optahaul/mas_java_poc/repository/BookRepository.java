@@ -1,23 +1,47 @@
 package com.optahaul.mas_java_poc.repository;
 
-import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.optahaul.mas_java_poc.domain.Book;
 
-@Repository
-public interface BookRepository extends JpaRepository<Book, Long> {
-
-	List<Book> findByAuthorId(Long authorId);
-
-	List<Book> findByGenreIgnoreCase(String genre);
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import jakarta.persistence.Tuple;
 
-	List<Book> findByTitleContainingIgnoreCase(String title);
+@Repository
+public interface BookRepository extends JpaRepository<Book, Long>, BookDtoRepository {
 
 	@Query("SELECT b FROM Book b JOIN FETCH b.author WHERE b.id = :id")
 	Book findByIdWithAuthor(@Param("id") Long id);
+
+	/**
+	 * The book, read from the database and locked until the transaction ends,
+	 * for writes derived from its current values
+	 */
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("SELECT b FROM Book b WHERE b.id = :id")
+	Optional<Book> findByIdForUpdate(@Param("id") Long id);
+
+	/**
+	 * Every book with its author's name, in id order, read through a cursor;
+	 * consume inside a read-only transaction and close the stream
+	 */
+	@QueryHints({
+			@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+			@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+	})
+	@Query("SELECT b.id AS id, b.title AS title, a.id AS authorId, a.name AS authorName, b.genre AS genre, "
+			+ "b.pageCount AS pageCount, b.language AS language, b.publicationDate AS publicationDate, "
+			+ "b.isbn AS isbn, b.createdAt AS createdAt, b.updatedAt AS updatedAt "
+			+ "FROM Book b JOIN b.author a ORDER BY b.id")
+	Stream<Tuple> streamAllForExport();
 }
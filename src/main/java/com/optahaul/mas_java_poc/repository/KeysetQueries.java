@@ -0,0 +1,102 @@
+package com.optahaul.mas_java_poc.repository;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+/**
+ * Keyset scrolling for criteria queries that select DTOs, which Spring Data's
+ * derived scroll queries cannot do. Sort properties are read from the root
+ * entity and, for the next position, from the DTO's properties of the same name
+ */
+final class KeysetQueries {
+
+	private KeysetQueries() {
+	}
+
+	/**
+	 * Restricts {@code query} to rows after {@code position} and orders it by
+	 * {@code sort}, adding to the existing {@code where}
+	 */
+	static void scroll(CriteriaQuery<?> query, Root<?> root, CriteriaBuilder cb, Predicate where,
+			ScrollPosition position, Sort sort) {
+		if (position instanceof KeysetScrollPosition keyset && !keyset.isInitial()) {
+			where = cb.and(where, after(root, cb, sort, keyset.getKeys()));
+		}
+		query.where(where);
+		List<Order> orders = new ArrayList<>();
+		for (Sort.Order order : sort) {
+			Path<?> path = root.get(order.getProperty());
+			orders.add(order.isAscending() ? cb.asc(path) : cb.desc(path));
+		}
+		query.orderBy(orders);
+	}
+
+	/**
+	 * Fetches one row more than the limit to learn whether another page follows
+	 */
+	static <T> Window<T> window(TypedQuery<T> query, Limit limit, Sort sort) {
+		if (limit.isLimited()) {
+			query.setMaxResults(limit.max() + 1);
+		}
+		List<T> rows = query.getResultList();
+		boolean hasNext = limit.isLimited() && rows.size() > limit.max();
+		List<T> content = hasNext ? rows.subList(0, limit.max()) : rows;
+		return Window.from(content, i -> ScrollPosition.forward(keys(content.get(i), sort)), hasNext);
+	}
+
+	/**
+	 * Rows strictly after {@code keys} in sort order: (a > x) or (a = x and b > y) ...
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static Predicate after(Root<?> root, CriteriaBuilder cb, Sort sort, Map<String, Object> keys) {
+		List<Predicate> alternatives = new ArrayList<>();
+		List<Predicate> equalSoFar = new ArrayList<>();
+		for (Sort.Order order : sort) {
+			Expression<Comparable> path = root.<Comparable>get(order.getProperty());
+			Comparable value = (Comparable) keys.get(order.getProperty());
+			Predicate beyond = order.isAscending() ? cb.greaterThan(path, value) : cb.lessThan(path, value);
+			List<Predicate> alternative = new ArrayList<>(equalSoFar);
+			alternative.add(beyond);
+			alternatives.add(cb.and(alternative.toArray(Predicate[]::new)));
+			equalSoFar.add(cb.equal(path, value));
+		}
+		return cb.or(alternatives.toArray(Predicate[]::new));
+	}
+
+	private static Map<String, Object> keys(Object row, Sort sort) {
+		BeanWrapper wrapper = new BeanWrapperImpl(row);
+		Map<String, Object> keys = new LinkedHashMap<>();
+		for (Sort.Order order : sort) {
+			keys.put(order.getProperty(), wrapper.getPropertyValue(order.getProperty()));
+		}
+		return keys;
+	}
+
+	/**
+	 * LIKE pattern matching {@code text} anywhere, case-insensitively; escaped with backslash
+	 */
+	static String containsPattern(String text) {
+		return "%" + text.toUpperCase(Locale.ROOT).replace("\\", "\\\\").replace("%", "\\%")
+				.replace("_", "\\_") + "%";
+	}
+}
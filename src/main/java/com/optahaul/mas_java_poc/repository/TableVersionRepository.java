@@ -0,0 +1,13 @@
+package com.optahaul.mas_java_poc.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.optahaul.mas_java_poc.domain.TableVersion;
+
+/**
+ * Reads the table versions; they are raised through {@link TableVersionUpdater}
+ */
+@Repository
+public interface TableVersionRepository extends JpaRepository<TableVersion, String> {
+}
@@ -0,0 +1,44 @@
+package com.optahaul.mas_java_poc.repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * Raises table versions in plain JDBC, so both JPA transactions and the bulk
+ * import's own connections can raise them with their writes
+ */
+public final class TableVersionUpdater {
+
+	private static final String UPDATE = "UPDATE table_versions SET version = version + 1, updated_at = ? "
+			+ "WHERE table_name = ?";
+	private static final String INSERT = "INSERT INTO table_versions (table_name, version, updated_at) "
+			+ "VALUES (?, 1, ?)";
+
+	private TableVersionUpdater() {
+	}
+
+	/**
+	 * Raises the versions on the given connection, and so in its transaction.
+	 * The rows stay locked until it ends, so call this just before committing;
+	 * they are locked in name order, the same in every transaction
+	 */
+	public static void bump(Connection connection, LocalDateTime now, String... tables) throws SQLException {
+		try (PreparedStatement update = connection.prepareStatement(UPDATE);
+				PreparedStatement insert = connection.prepareStatement(INSERT)) {
+			for (String table : Arrays.stream(tables).sorted().toList()) {
+				update.setTimestamp(1, Timestamp.valueOf(now));
+				update.setString(2, table);
+				if (update.executeUpdate() == 0) {
+					// Seeded by tenant migration V7, so only missing where the schema is generated
+					insert.setString(1, table);
+					insert.setTimestamp(2, Timestamp.valueOf(now));
+					insert.executeUpdate();
+				}
+			}
+		}
+	}
+}
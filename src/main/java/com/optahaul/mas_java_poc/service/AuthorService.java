@@ -1,14 +1,20 @@
 package com.optahaul.mas_java_poc.service;
 
 import java.time.LocalDate;
-import java.util.List;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.optahaul.mas_java_poc.domain.Author;
 import com.optahaul.mas_java_poc.dto.AuthorDto;
 import com.optahaul.mas_java_poc.dto.CreateAuthorRequest;
+import com.optahaul.mas_java_poc.dto.PageParams;
+import com.optahaul.mas_java_poc.dto.PageResponse;
 import com.optahaul.mas_java_poc.mapper.AuthorMapper;
 import com.optahaul.mas_java_poc.repository.AuthorRepository;
 
@@ -21,8 +27,15 @@ import lombok.extern.slf4j.Slf4j;
 @Transactional
 public class AuthorService {
 
+	private static final KeysetPager.SortKeys SORT_KEYS = KeysetPager.SortKeys.of("id",
+			Map.of("id", Long.class, "name", String.class, "createdAt", LocalDateTime.class));
+
 	private final AuthorRepository authorRepository;
 	private final AuthorMapper authorMapper;
+	private final KeysetPager keysetPager;
+	private final RowCountEstimator rowCountEstimator;
+	private final BookFacetService bookFacetService;
+	private final ApplicationEventPublisher eventPublisher;
 
 	public AuthorDto createAuthor(CreateAuthorRequest request) {
 		log.info("Creating new author: {}", request.getName());
@@ -31,6 +44,7 @@ public class AuthorService {
 			author.setBirthDate(LocalDate.parse(request.getBirthDate()));
 		}
 		Author saved = authorRepository.save(author);
+		eventPublisher.publishEvent(CatalogChangedEvent.authorSaved(saved.getId(), saved.getName()));
 		return authorMapper.toDto(saved);
 	}
 
@@ -43,15 +57,21 @@ public class AuthorService {
 	}
 
 	@Transactional(readOnly = true)
-	public List<AuthorDto> getAllAuthors() {
-		log.info("Fetching all authors");
-		return authorMapper.toDtoList(authorRepository.findAll());
+	public PageResponse<AuthorDto> getAllAuthors(PageParams params) {
+		log.info("Fetching authors page");
+		KeysetPager.ScrollRequest page = keysetPager.request(params, SORT_KEYS);
+		return keysetPager.page(page, authorRepository.findAllDtos(page.position(), page.limit(), page.sort()),
+				Function.identity(), () -> rowCountEstimator.estimate("SELECT 1 FROM authors"));
 	}
 
 	@Transactional(readOnly = true)
-	public List<AuthorDto> searchAuthorsByName(String name) {
+	public PageResponse<AuthorDto> searchAuthorsByName(String name, PageParams params) {
 		log.info("Searching authors by name: {}", name);
-		return authorMapper.toDtoList(authorRepository.findByNameContainingIgnoreCase(name));
+		KeysetPager.ScrollRequest page = keysetPager.request(params, SORT_KEYS);
+		return keysetPager.page(page,
+				authorRepository.findDtosByNameContainingIgnoreCase(name, page.position(), page.limit(), page.sort()),
+				Function.identity(), () -> rowCountEstimator.estimate("SELECT 1 FROM authors WHERE upper(name) LIKE ?1",
+						"%" + name.toUpperCase(Locale.ROOT) + "%"));
 	}
 
 	public AuthorDto updateAuthor(Long id, CreateAuthorRequest request) {
@@ -65,14 +85,17 @@ public class AuthorService {
 		}
 
 		Author updated = authorRepository.save(author);
+		eventPublisher.publishEvent(CatalogChangedEvent.authorSaved(updated.getId(), updated.getName()));
 		return authorMapper.toDto(updated);
 	}
 
 	public void deleteAuthor(Long id) {
 		log.info("Deleting author with id: {}", id);
-		if (!authorRepository.existsById(id)) {
-			throw new RuntimeException("Author not found with id: " + id);
-		}
-		authorRepository.deleteById(id);
+		Author author = authorRepository.findById(id)
+				.orElseThrow(() -> new RuntimeException("Author not found with id: " + id));
+		// The author's books go with it
+		bookFacetService.booksRemoved(author.getBooks());
+		authorRepository.delete(author);
+		eventPublisher.publishEvent(CatalogChangedEvent.authorDeleted(id));
 	}
 }
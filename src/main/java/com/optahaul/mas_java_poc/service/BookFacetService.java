@@ -0,0 +1,129 @@
+package com.optahaul.mas_java_poc.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.hibernate.Session;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.optahaul.mas_java_poc.domain.Book;
+import com.optahaul.mas_java_poc.domain.BookFacetCount;
+import com.optahaul.mas_java_poc.dto.BookFacets;
+import com.optahaul.mas_java_poc.dto.FacetCount;
+import com.optahaul.mas_java_poc.repository.BookFacetCountRepository;
+import com.optahaul.mas_java_poc.repository.BookFacetCountUpdater;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Book counts by genre, language and publication decade, read from the
+ * book_facet_counts table (tenant migration V6) rather than from books. The
+ * table holds one row per combination of the three; the services that write
+ * books adjust it in the same transaction, so the counts are exact and a
+ * facet request reads a few hundred rows however large the catalog
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class BookFacetService {
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	private final BookFacetCountRepository facetCountRepository;
+
+	/**
+	 * Counts of the books matching the filters; null filters match everything
+	 */
+	@Transactional(readOnly = true)
+	public BookFacets getFacets(String genre, String language, Integer decade) {
+		log.info("Fetching book facets for genre: {}, language: {}, decade: {}", genre, language, decade);
+		Integer decadeStart = decade == null ? null : Math.floorDiv(decade, 10) * 10;
+		long total = 0;
+		Map<String, Long> genres = new HashMap<>();
+		Map<String, Long> languages = new HashMap<>();
+		Map<Integer, Long> decades = new HashMap<>();
+		for (BookFacetCount row : facetCountRepository.findAllNonEmpty()) {
+			BookFacetCount.Key key = row.getKey();
+			boolean genreMatches = genre == null || genre.equalsIgnoreCase(key.getGenre());
+			boolean languageMatches = language == null || language.equalsIgnoreCase(key.getLanguage());
+			boolean decadeMatches = decadeStart == null || decadeStart == key.getDecade();
+			if (languageMatches && decadeMatches) {
+				genres.merge(key.getGenre(), row.getBookCount(), Long::sum);
+			}
+			if (genreMatches && decadeMatches) {
+				languages.merge(key.getLanguage(), row.getBookCount(), Long::sum);
+			}
+			if (genreMatches && languageMatches) {
+				decades.merge(key.getDecade(), row.getBookCount(), Long::sum);
+				if (decadeMatches) {
+					total += row.getBookCount();
+				}
+			}
+		}
+		return BookFacets.builder()
+				.total(total)
+				.genres(largestFirst(genres))
+				.languages(largestFirst(languages))
+				.decades(decades.entrySet().stream()
+						.map(e -> new FacetCount<>(e.getKey() == BookFacetCount.UNKNOWN_DECADE ? null : e.getKey(),
+								e.getValue()))
+						.sorted(Comparator.comparing(FacetCount<Integer>::getValue,
+								Comparator.nullsLast(Comparator.naturalOrder())))
+						.toList())
+				.build();
+	}
+
+	/**
+	 * Moves a book from one combination to another; {@code before} is null for
+	 * a new book, {@code after} for a deleted one. Call in the transaction that
+	 * writes the book
+	 */
+	public void bookChanged(BookFacetCount.Key before, BookFacetCount.Key after) {
+		if (Objects.equals(before, after)) {
+			return;
+		}
+		SortedMap<BookFacetCount.Key, Long> deltas = new TreeMap<>();
+		if (before != null) {
+			deltas.merge(before, -1L, Long::sum);
+		}
+		if (after != null) {
+			deltas.merge(after, 1L, Long::sum);
+		}
+		add(deltas);
+	}
+
+	public void booksRemoved(Collection<Book> books) {
+		SortedMap<BookFacetCount.Key, Long> deltas = new TreeMap<>();
+		for (Book book : books) {
+			deltas.merge(BookFacetCount.Key.of(book), -1L, Long::sum);
+		}
+		add(deltas);
+	}
+
+	private void add(SortedMap<BookFacetCount.Key, Long> deltas) {
+		if (!deltas.isEmpty()) {
+			entityManager.unwrap(Session.class).doWork(connection -> BookFacetCountUpdater.add(connection, deltas));
+		}
+	}
+
+	private static List<FacetCount<String>> largestFirst(Map<String, Long> counts) {
+		List<FacetCount<String>> facets = new ArrayList<>(counts.size());
+		counts.forEach((value, count) -> facets.add(new FacetCount<>(value.isEmpty() ? null : value, count)));
+		facets.sort(Comparator.comparingLong(FacetCount<String>::getCount).reversed()
+				.thenComparing(FacetCount::getValue, Comparator.nullsLast(Comparator.naturalOrder())));
+		return facets;
+	}
+}
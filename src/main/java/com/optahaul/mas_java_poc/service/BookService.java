@@ -1,15 +1,22 @@
 package com.optahaul.mas_java_poc.service;
 
 import java.time.LocalDate;
-import java.util.List;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.optahaul.mas_java_poc.domain.Author;
 import com.optahaul.mas_java_poc.domain.Book;
+import com.optahaul.mas_java_poc.domain.BookFacetCount;
 import com.optahaul.mas_java_poc.dto.BookDto;
 import com.optahaul.mas_java_poc.dto.CreateBookRequest;
+import com.optahaul.mas_java_poc.dto.PageParams;
+import com.optahaul.mas_java_poc.dto.PageResponse;
 import com.optahaul.mas_java_poc.mapper.BookMapper;
 import com.optahaul.mas_java_poc.repository.AuthorRepository;
 import com.optahaul.mas_java_poc.repository.BookRepository;
@@ -23,9 +30,16 @@ import lombok.extern.slf4j.Slf4j;
 @Transactional
 public class BookService {
 
+	private static final KeysetPager.SortKeys SORT_KEYS = KeysetPager.SortKeys.of("id",
+			Map.of("id", Long.class, "title", String.class, "createdAt", LocalDateTime.class));
+
 	private final BookRepository bookRepository;
 	private final AuthorRepository authorRepository;
 	private final BookMapper bookMapper;
+	private final KeysetPager keysetPager;
+	private final RowCountEstimator rowCountEstimator;
+	private final BookFacetService bookFacetService;
+	private final ApplicationEventPublisher eventPublisher;
 
 	public BookDto createBook(CreateBookRequest request) {
 		log.info("Creating new book: {}", request.getTitle());
@@ -39,6 +53,8 @@ public class BookService {
 		}
 
 		Book saved = bookRepository.save(book);
+		bookFacetService.bookChanged(null, BookFacetCount.Key.of(saved));
+		publishSaved(saved);
 		return bookMapper.toDto(saved);
 	}
 
@@ -51,37 +67,53 @@ public class BookService {
 	}
 
 	@Transactional(readOnly = true)
-	public List<BookDto> getAllBooks() {
-		log.info("Fetching all books");
-		return bookMapper.toDtoList(bookRepository.findAll());
+	public PageResponse<BookDto> getAllBooks(PageParams params) {
+		log.info("Fetching books page");
+		KeysetPager.ScrollRequest page = keysetPager.request(params, SORT_KEYS);
+		return keysetPager.page(page, bookRepository.findAllDtos(page.position(), page.limit(), page.sort()),
+				Function.identity(), () -> rowCountEstimator.estimate("SELECT 1 FROM books"));
 	}
 
 	@Transactional(readOnly = true)
-	public List<BookDto> getBooksByAuthor(Long authorId) {
+	public PageResponse<BookDto> getBooksByAuthor(Long authorId, PageParams params) {
 		log.info("Fetching books by author id: {}", authorId);
-		return bookMapper.toDtoList(bookRepository.findByAuthorId(authorId));
+		KeysetPager.ScrollRequest page = keysetPager.request(params, SORT_KEYS);
+		return keysetPager.page(page,
+				bookRepository.findDtosByAuthorId(authorId, page.position(), page.limit(), page.sort()),
+				Function.identity(),
+				() -> rowCountEstimator.estimate("SELECT 1 FROM books WHERE author_id = ?1", authorId));
 	}
 
 	@Transactional(readOnly = true)
-	public List<BookDto> getBooksByGenre(String genre) {
+	public PageResponse<BookDto> getBooksByGenre(String genre, PageParams params) {
 		log.info("Fetching books by genre: {}", genre);
-		return bookMapper.toDtoList(bookRepository.findByGenreIgnoreCase(genre));
+		KeysetPager.ScrollRequest page = keysetPager.request(params, SORT_KEYS);
+		return keysetPager.page(page,
+				bookRepository.findDtosByGenreIgnoreCase(genre, page.position(), page.limit(), page.sort()),
+				Function.identity(),
+				() -> rowCountEstimator.estimate("SELECT 1 FROM books WHERE upper(genre) = upper(?1)", genre));
 	}
 
 	@Transactional(readOnly = true)
-	public List<BookDto> searchBooksByTitle(String title) {
+	public PageResponse<BookDto> searchBooksByTitle(String title, PageParams params) {
 		log.info("Searching books by title: {}", title);
-		return bookMapper.toDtoList(bookRepository.findByTitleContainingIgnoreCase(title));
+		KeysetPager.ScrollRequest page = keysetPager.request(params, SORT_KEYS);
+		return keysetPager.page(page,
+				bookRepository.findDtosByTitleContainingIgnoreCase(title, page.position(), page.limit(), page.sort()),
+				Function.identity(), () -> rowCountEstimator.estimate("SELECT 1 FROM books WHERE upper(title) LIKE ?1",
+						"%" + title.toUpperCase(Locale.ROOT) + "%"));
 	}
 
 	public BookDto updateBook(Long id, CreateBookRequest request) {
 		log.info("Updating book with id: {}", id);
-		Book book = bookRepository.findById(id)
+		// Locked, so concurrent updates move the facet counts from the values each one replaces
+		Book book = bookRepository.findByIdForUpdate(id)
 				.orElseThrow(() -> new RuntimeException("Book not found with id: " + id));
 
 		Author author = authorRepository.findById(request.getAuthorId())
 				.orElseThrow(() -> new RuntimeException("Author not found with id: " + request.getAuthorId()));
 
+		BookFacetCount.Key facetsBefore = BookFacetCount.Key.of(book);
 		book.setTitle(request.getTitle());
 		book.setAuthor(author);
 		book.setGenre(request.getGenre());
@@ -92,14 +124,22 @@ public class BookService {
 		}
 
 		Book updated = bookRepository.save(book);
+		bookFacetService.bookChanged(facetsBefore, BookFacetCount.Key.of(updated));
+		publishSaved(updated);
 		return bookMapper.toDto(updated);
 	}
 
 	public void deleteBook(Long id) {
 		log.info("Deleting book with id: {}", id);
-		if (!bookRepository.existsById(id)) {
-			throw new RuntimeException("Book not found with id: " + id);
-		}
-		bookRepository.deleteById(id);
+		Book book = bookRepository.findByIdForUpdate(id)
+				.orElseThrow(() -> new RuntimeException("Book not found with id: " + id));
+		bookRepository.delete(book);
+		bookFacetService.bookChanged(BookFacetCount.Key.of(book), null);
+		eventPublisher.publishEvent(CatalogChangedEvent.bookDeleted(id));
+	}
+
+	private void publishSaved(Book book) {
+		eventPublisher.publishEvent(CatalogChangedEvent.bookSaved(book.getId(), book.getTitle(),
+				book.getAuthor().getId(), book.getAuthor().getName()));
 	}
 }
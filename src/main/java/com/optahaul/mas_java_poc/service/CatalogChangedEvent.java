@@ -0,0 +1,41 @@
+package com.optahaul.mas_java_poc.service;
+
+import com.optahaul.mas_java_poc.multitenancy.TenantContext;
+
+/**
+ * Published inside the transaction that changes a book or author, for the
+ * in-memory views of the current tenant's catalog to follow once it commits.
+ * RELOADED means rows were written around Hibernate and views should be
+ * rebuilt
+ */
+public record CatalogChangedEvent(String tenantId, Change change, Long bookId, String title, Long authorId,
+		String authorName) {
+
+	public enum Change {
+		BOOK_SAVED, BOOK_DELETED, AUTHOR_SAVED, AUTHOR_DELETED, RELOADED
+	}
+
+	public static CatalogChangedEvent bookSaved(long bookId, String title, long authorId, String authorName) {
+		return new CatalogChangedEvent(TenantContext.getCurrentTenant(), Change.BOOK_SAVED, bookId, title, authorId,
+				authorName);
+	}
+
+	public static CatalogChangedEvent bookDeleted(long bookId) {
+		return new CatalogChangedEvent(TenantContext.getCurrentTenant(), Change.BOOK_DELETED, bookId, null, null,
+				null);
+	}
+
+	public static CatalogChangedEvent authorSaved(long authorId, String authorName) {
+		return new CatalogChangedEvent(TenantContext.getCurrentTenant(), Change.AUTHOR_SAVED, null, null, authorId,
+				authorName);
+	}
+
+	public static CatalogChangedEvent authorDeleted(long authorId) {
+		return new CatalogChangedEvent(TenantContext.getCurrentTenant(), Change.AUTHOR_DELETED, null, null,
+				authorId, null);
+	}
+
+	public static CatalogChangedEvent reloaded(String tenantId) {
+		return new CatalogChangedEvent(tenantId, Change.RELOADED, null, null, null, null);
+	}
+}
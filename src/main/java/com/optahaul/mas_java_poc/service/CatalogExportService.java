@@ -0,0 +1,113 @@
+package com.optahaul.mas_java_poc.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.optahaul.mas_java_poc.repository.AuthorRepository;
+import com.optahaul.mas_java_poc.repository.BookRepository;
+
+import jakarta.persistence.Tuple;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Exports a tenant's books or authors as CSV or NDJSON. Rows are read through
+ * a database cursor with a fixed fetch size, as plain column values rather
+ * than entities, in a read-only transaction, and written out one at a time;
+ * the export holds one fetch of rows at most, however large the table. A slow
+ * client blocks the writes and with them the cursor, so the database is read
+ * no faster than the client takes the data
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CatalogExportService {
+
+	static final List<String> BOOK_COLUMNS = List.of("id", "title", "authorId", "authorName", "genre", "pageCount",
+			"language", "publicationDate", "isbn", "createdAt", "updatedAt");
+	static final List<String> AUTHOR_COLUMNS = List.of("id", "name", "birthDate", "bio", "createdAt",
+			"updatedAt");
+
+	private final BookRepository bookRepository;
+	private final AuthorRepository authorRepository;
+	private final ObjectMapper objectMapper;
+
+	/**
+	 * Writes every book to {@code out}, which is flushed but left open; returns
+	 * the number of rows written
+	 */
+	@Transactional(readOnly = true)
+	public long exportBooks(CatalogFormat format, OutputStream out) throws IOException {
+		try (Stream<Tuple> rows = bookRepository.streamAllForExport()) {
+			return write(rows, BOOK_COLUMNS, format, out, "books");
+		}
+	}
+
+	@Transactional(readOnly = true)
+	public long exportAuthors(CatalogFormat format, OutputStream out) throws IOException {
+		try (Stream<Tuple> rows = authorRepository.streamAllForExport()) {
+			return write(rows, AUTHOR_COLUMNS, format, out, "authors");
+		}
+	}
+
+	private long write(Stream<Tuple> rows, List<String> columns, CatalogFormat format, OutputStream out,
+			String name) throws IOException {
+		long started = System.nanoTime();
+		long count = format == CatalogFormat.CSV ? writeCsv(rows, columns, out) : writeNdjson(rows, columns, out);
+		log.info("Exported {} {} as {} in {} ms", count, name, format, (System.nanoTime() - started) / 1_000_000);
+		return count;
+	}
+
+	private long writeCsv(Stream<Tuple> rows, List<String> columns, OutputStream out) throws IOException {
+		Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+		Csv.appendRecord(writer, columns.toArray());
+		Object[] values = new Object[columns.size()];
+		long count = 0;
+		for (Tuple row : (Iterable<Tuple>) rows::iterator) {
+			for (int i = 0; i < values.length; i++) {
+				values[i] = row.get(columns.get(i));
+			}
+			Csv.appendRecord(writer, values);
+			count++;
+		}
+		writer.flush();
+		return count;
+	}
+
+	private long writeNdjson(Stream<Tuple> rows, List<String> columns, OutputStream out) throws IOException {
+		// Values are written without the mapper's flush after each one; the caller decides when to flush
+		ObjectWriter values = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+		long count = 0;
+		try (JsonGenerator json = objectMapper.createGenerator(out)) {
+			json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+			json.setRootValueSeparator(new SerializedString("\n"));
+			for (Tuple row : (Iterable<Tuple>) rows::iterator) {
+				json.writeStartObject();
+				for (String column : columns) {
+					json.writeFieldName(column);
+					values.writeValue(json, row.get(column));
+				}
+				json.writeEndObject();
+				count++;
+			}
+			if (count > 0) {
+				json.writeRaw('\n');
+			}
+		}
+		return count;
+	}
+}
@@ -0,0 +1,49 @@
+package com.optahaul.mas_java_poc.service;
+
+import java.util.Locale;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Wire formats of bulk imports and exports: CSV with a header row, or one JSON
+ * object per line
+ */
+public enum CatalogFormat {
+
+	CSV(MediaType.parseMediaType("text/csv"), "csv"),
+	NDJSON(MediaType.APPLICATION_NDJSON, "ndjson");
+
+	private final MediaType mediaType;
+	private final String extension;
+
+	CatalogFormat(MediaType mediaType, String extension) {
+		this.mediaType = mediaType;
+		this.extension = extension;
+	}
+
+	public MediaType mediaType() {
+		return mediaType;
+	}
+
+	public String extension() {
+		return extension;
+	}
+
+	public static CatalogFormat ofContentType(String contentType) {
+		MediaType type = MediaType.parseMediaType(contentType);
+		for (CatalogFormat format : values()) {
+			if (format.mediaType.isCompatibleWith(type)) {
+				return format;
+			}
+		}
+		throw new IllegalArgumentException("Unsupported format: " + contentType);
+	}
+
+	public static CatalogFormat ofName(String name) {
+		try {
+			return valueOf(name.toUpperCase(Locale.ROOT));
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("Unsupported format: " + name);
+		}
+	}
+}
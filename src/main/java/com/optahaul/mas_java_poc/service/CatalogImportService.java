@@ -0,0 +1,681 @@
+package com.optahaul.mas_java_poc.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import javax.sql.DataSource;
+
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.optahaul.mas_java_poc.domain.BookFacetCount;
+import com.optahaul.mas_java_poc.domain.TableVersion;
+import com.optahaul.mas_java_poc.dto.AuthorImportRow;
+import com.optahaul.mas_java_poc.dto.BookImportRow;
+import com.optahaul.mas_java_poc.dto.ImportError;
+import com.optahaul.mas_java_poc.dto.ImportReport;
+import com.optahaul.mas_java_poc.multitenancy.TenantCacheRegionFactory;
+import com.optahaul.mas_java_poc.multitenancy.TenantContext;
+import com.optahaul.mas_java_poc.repository.BookFacetCountUpdater;
+import com.optahaul.mas_java_poc.repository.TableVersionUpdater;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bulk import of books and authors from streamed CSV (with a header row naming
+ * the columns) or NDJSON. Rows are read one at a time and written in chunks of
+ * catalog.import.batch-size, each in its own transaction, through the Postgres
+ * COPY protocol (plain JDBC batches on other databases), so memory use does not
+ * grow with the input. The authors of a chunk's books are looked up, and
+ * created when named but unknown, with one query per chunk.
+ * <p>
+ * Rejected rows are reported to the listener and skipped; a chunk whose COPY
+ * fails is written again row by row to find the rows at fault. Chunks already
+ * committed stay imported if the import stops early
+ */
+@Slf4j
+@Service
+public class CatalogImportService {
+
+	private static final String COPY_BOOKS = "COPY books (title, author_id, genre, page_count, language, "
+			+ "publication_date, isbn) FROM STDIN WITH (FORMAT csv)";
+	private static final String INSERT_BOOK = "INSERT INTO books (title, author_id, genre, page_count, language, "
+			+ "publication_date, isbn) VALUES (?, ?, ?, ?, ?, ?, ?)";
+	private static final int[] BOOK_TYPES = { Types.VARCHAR, Types.BIGINT, Types.VARCHAR, Types.INTEGER,
+			Types.VARCHAR, Types.DATE, Types.VARCHAR };
+
+	private static final String COPY_AUTHORS = "COPY authors (name, birth_date, bio) FROM STDIN WITH (FORMAT csv)";
+	private static final String INSERT_AUTHOR = "INSERT INTO authors (name, birth_date, bio) VALUES (?, ?, ?)";
+	private static final int[] AUTHOR_TYPES = { Types.VARCHAR, Types.DATE, Types.VARCHAR };
+
+	private final DataSource dataSource;
+	private final ObjectMapper objectMapper;
+	private final ObjectProvider<TenantCacheRegionFactory> cacheRegionFactory;
+	private final ApplicationEventPublisher eventPublisher;
+	private final int batchSize;
+	private final int authorCacheSize;
+	private final long maxErrors;
+
+	public CatalogImportService(
+			DataSource dataSource,
+			ObjectMapper objectMapper,
+			ObjectProvider<TenantCacheRegionFactory> cacheRegionFactory,
+			ApplicationEventPublisher eventPublisher,
+			@Value("${catalog.import.batch-size:5000}") int batchSize,
+			@Value("${catalog.import.author-cache-size:10000}") int authorCacheSize,
+			@Value("${catalog.import.max-errors:1000}") long maxErrors) {
+		this.dataSource = dataSource;
+		this.objectMapper = objectMapper;
+		this.cacheRegionFactory = cacheRegionFactory;
+		this.eventPublisher = eventPublisher;
+		this.batchSize = Math.max(1, batchSize);
+		this.authorCacheSize = Math.max(1, authorCacheSize);
+		this.maxErrors = maxErrors;
+	}
+
+	/**
+	 * Receives rejected rows as they occur and a report after every chunk and at
+	 * the end
+	 */
+	public interface ImportListener {
+
+		void rowFailed(ImportError error);
+
+		void progress(ImportReport report);
+	}
+
+	/**
+	 * Imports books, resolving each one's author by authorId or, failing that, by
+	 * authorName (creating the author when no author has that name)
+	 */
+	public ImportReport importBooks(InputStream in, CatalogFormat format, ImportListener listener) {
+		return run(in, format, BookImportRow.class, new BookTable(), listener);
+	}
+
+	public ImportReport importAuthors(InputStream in, CatalogFormat format, ImportListener listener) {
+		return run(in, format, AuthorImportRow.class, new AuthorTable(), listener);
+	}
+
+	private <T> ImportReport run(InputStream in, CatalogFormat format, Class<T> type, Table<T> table,
+			ImportListener listener) {
+		Run run = new Run(listener);
+		log.info("Starting {} import of {}", format, table.name());
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+			RowSource<T> source = format == CatalogFormat.CSV
+					? new CsvSource<>(reader, type)
+					: new NdjsonSource<>(reader, type);
+			List<Pending> chunk = new ArrayList<>(batchSize);
+			for (Parsed<T> parsed = source.next(); parsed != null; parsed = source.next()) {
+				run.rowsRead++;
+				if (parsed.error() != null) {
+					run.reject(parsed.line(), parsed.error());
+					continue;
+				}
+				try {
+					chunk.add(table.prepare(parsed.line(), parsed.row()));
+				} catch (RejectedRowException e) {
+					run.reject(parsed.line(), e.getMessage());
+					continue;
+				}
+				if (chunk.size() == batchSize) {
+					flush(chunk, table, run);
+					chunk.clear();
+				}
+			}
+			flush(chunk, table, run);
+			return run.finish("COMPLETED", null);
+		} catch (IOException | SQLException | UncheckedIOException | TooManyErrorsException e) {
+			log.warn("Import of {} stopped after {} rows: {}", table.name(), run.rowsRead, e.getMessage());
+			return run.finish("FAILED", e.getMessage());
+		} finally {
+			if (run.imported > 0 || run.authorsCreated > 0) {
+				// The rows bypassed Hibernate, so cached collections and queries of this tenant are stale
+				String tenantId = TenantContext.getCurrentTenant();
+				cacheRegionFactory.ifAvailable(factory -> factory.evictTenant(tenantId));
+				eventPublisher.publishEvent(CatalogChangedEvent.reloaded(tenantId));
+			}
+		}
+	}
+
+	private <T> void flush(List<Pending> chunk, Table<T> table, Run run) throws IOException, SQLException {
+		if (chunk.isEmpty()) {
+			return;
+		}
+		long authorsCreated = run.authorsCreated;
+		try (Connection connection = dataSource.getConnection()) {
+			boolean autoCommit = connection.getAutoCommit();
+			connection.setAutoCommit(false);
+			try {
+				List<Pending> rows = table.resolve(connection, chunk, run);
+				List<Pending> written = write(connection, table, rows, run);
+				table.written(connection, written);
+				// Last, so the version rows stay locked only while committing
+				List<String> changed = new ArrayList<>(2);
+				if (!written.isEmpty()) {
+					changed.add(table.name());
+				}
+				if (run.authorsCreated > authorsCreated) {
+					changed.add(TableVersion.AUTHORS);
+				}
+				TableVersionUpdater.bump(connection, LocalDateTime.now(), changed.toArray(String[]::new));
+				connection.commit();
+				run.imported += written.size();
+			} catch (IOException | SQLException | RuntimeException e) {
+				connection.rollback();
+				run.authorsCreated = authorsCreated;
+				throw e;
+			} finally {
+				connection.setAutoCommit(autoCommit);
+			}
+		}
+		run.report("RUNNING", null);
+	}
+
+	/**
+	 * Rows written; rows the database refuses are rejected
+	 */
+	private <T> List<Pending> write(Connection connection, Table<T> table, List<Pending> rows, Run run)
+			throws IOException, SQLException {
+		if (rows.isEmpty()) {
+			return rows;
+		}
+		Savepoint beforeChunk = connection.setSavepoint();
+		try {
+			if (connection.isWrapperFor(PGConnection.class)) {
+				StringBuilder csv = new StringBuilder(rows.size() * 128);
+				for (Pending row : rows) {
+					Csv.appendRecord(csv, row.values());
+				}
+				connection.unwrap(PGConnection.class).getCopyAPI().copyIn(table.copySql(),
+						new StringReader(csv.toString()));
+			} else {
+				try (PreparedStatement stmt = connection.prepareStatement(table.insertSql())) {
+					for (Pending row : rows) {
+						bind(stmt, row.values(), table.sqlTypes());
+						stmt.addBatch();
+					}
+					stmt.executeBatch();
+				}
+			}
+			connection.releaseSavepoint(beforeChunk);
+			return rows;
+		} catch (SQLException e) {
+			log.debug("Bulk write of {} rows failed, retrying row by row: {}", rows.size(), e.getMessage());
+			connection.rollback(beforeChunk);
+			return writeRowByRow(connection, table, rows, run);
+		}
+	}
+
+	private <T> List<Pending> writeRowByRow(Connection connection, Table<T> table, List<Pending> rows, Run run)
+			throws SQLException {
+		List<Pending> written = new ArrayList<>(rows.size());
+		try (PreparedStatement stmt = connection.prepareStatement(table.insertSql())) {
+			for (Pending row : rows) {
+				Savepoint beforeRow = connection.setSavepoint();
+				try {
+					bind(stmt, row.values(), table.sqlTypes());
+					stmt.executeUpdate();
+					connection.releaseSavepoint(beforeRow);
+					written.add(row);
+				} catch (SQLException e) {
+					connection.rollback(beforeRow);
+					run.reject(row.line(), e.getMessage());
+				}
+			}
+		}
+		return written;
+	}
+
+	private static void bind(PreparedStatement stmt, Object[] values, int[] sqlTypes) throws SQLException {
+		for (int i = 0; i < values.length; i++) {
+			if (values[i] == null) {
+				stmt.setNull(i + 1, sqlTypes[i]);
+			} else {
+				stmt.setObject(i + 1, values[i]);
+			}
+		}
+	}
+
+	private static String require(String value, String message) {
+		if (value == null || value.isBlank()) {
+			throw new RejectedRowException(message);
+		}
+		return value.trim();
+	}
+
+	private static String limit(String value, int maxLength, String label) {
+		if (value != null && value.length() > maxLength) {
+			throw new RejectedRowException(label + " is longer than " + maxLength + " characters");
+		}
+		return value;
+	}
+
+	private static LocalDate date(String value, String label) {
+		if (value == null || value.isBlank()) {
+			return null;
+		}
+		try {
+			return LocalDate.parse(value.trim());
+		} catch (DateTimeParseException e) {
+			throw new RejectedRowException("Invalid " + label + ": " + value);
+		}
+	}
+
+	private static <K, V> Map<K, V> lru(int maxSize) {
+		return new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+				return size() > maxSize;
+			}
+		};
+	}
+
+	/**
+	 * One import's counters and author lookups. The lookups are bounded, so an
+	 * import naming millions of authors only costs more queries
+	 */
+	private final class Run {
+
+		private final ImportListener listener;
+		private final long startedAt = System.nanoTime();
+		private final Map<String, Long> authorIdsByName = lru(authorCacheSize);
+		private final Map<Long, Boolean> knownAuthorIds = lru(authorCacheSize);
+		private long rowsRead;
+		private long imported;
+		private long failed;
+		private long authorsCreated;
+
+		private Run(ImportListener listener) {
+			this.listener = listener;
+		}
+
+		void reject(long line, String message) {
+			failed++;
+			listener.rowFailed(new ImportError(line, message));
+			if (failed > maxErrors) {
+				throw new TooManyErrorsException("More than " + maxErrors + " rows rejected");
+			}
+		}
+
+		ImportReport report(String status, String message) {
+			ImportReport report = ImportReport.builder()
+					.status(status)
+					.rowsRead(rowsRead)
+					.imported(imported)
+					.failed(failed)
+					.authorsCreated(authorsCreated)
+					.elapsedMillis((System.nanoTime() - startedAt) / 1_000_000)
+					.message(message)
+					.build();
+			listener.progress(report);
+			return report;
+		}
+
+		ImportReport finish(String status, String message) {
+			log.info("Import {}: {} rows read, {} imported, {} rejected, {} authors created", status, rowsRead,
+					imported, failed, authorsCreated);
+			try {
+				return report(status, message);
+			} catch (UncheckedIOException e) {
+				// The client is gone; the result is still logged above
+				return ImportReport.builder().status(status).rowsRead(rowsRead).imported(imported).failed(failed)
+						.authorsCreated(authorsCreated).message(message).build();
+			}
+		}
+	}
+
+	/**
+	 * Validated row, as the values of the table's columns
+	 */
+	private record Pending(long line, Object[] values, String authorName) {
+	}
+
+	private interface Table<T> {
+
+		String name();
+
+		String copySql();
+
+		String insertSql();
+
+		int[] sqlTypes();
+
+		Pending prepare(long line, T row);
+
+		/**
+		 * Rows of the chunk that can be written, with references resolved
+		 */
+		List<Pending> resolve(Connection connection, List<Pending> chunk, Run run) throws SQLException;
+
+		/**
+		 * Called in the chunk's transaction with the rows it wrote
+		 */
+		void written(Connection connection, List<Pending> rows) throws SQLException;
+	}
+
+	private final class BookTable implements Table<BookImportRow> {
+
+		@Override
+		public String name() {
+			return "books";
+		}
+
+		@Override
+		public String copySql() {
+			return COPY_BOOKS;
+		}
+
+		@Override
+		public String insertSql() {
+			return INSERT_BOOK;
+		}
+
+		@Override
+		public int[] sqlTypes() {
+			return BOOK_TYPES;
+		}
+
+		@Override
+		public Pending prepare(long line, BookImportRow row) {
+			String title = limit(require(row.getTitle(), "Title is required"), 500, "Title");
+			String authorName = row.getAuthorId() == null
+					? limit(require(row.getAuthorName(), "Author ID or name is required"), 255, "Author name")
+					: null;
+			if (row.getPageCount() != null && row.getPageCount() <= 0) {
+				throw new RejectedRowException("Page count must be positive");
+			}
+			Object[] values = { title, row.getAuthorId(), limit(row.getGenre(), 100, "Genre"), row.getPageCount(),
+					limit(row.getLanguage(), 50, "Language"), date(row.getPublicationDate(), "publication date"),
+					limit(row.getIsbn(), 32, "ISBN") };
+			return new Pending(line, values, authorName);
+		}
+
+		@Override
+		public List<Pending> resolve(Connection connection, List<Pending> chunk, Run run) throws SQLException {
+			Set<Long> ids = new LinkedHashSet<>();
+			Set<String> names = new LinkedHashSet<>();
+			for (Pending row : chunk) {
+				if (row.authorName() == null) {
+					ids.add((Long) row.values()[1]);
+				} else {
+					names.add(row.authorName());
+				}
+			}
+			Set<Long> existingIds = existingAuthorIds(connection, ids, run);
+			Map<String, Long> idsByName = authorIdsByName(connection, names, run);
+
+			List<Pending> resolved = new ArrayList<>(chunk.size());
+			for (Pending row : chunk) {
+				if (row.authorName() != null) {
+					row.values()[1] = idsByName.get(row.authorName());
+					resolved.add(row);
+				} else if (existingIds.contains((Long) row.values()[1])) {
+					resolved.add(row);
+				} else {
+					run.reject(row.line(), "Author not found with id: " + row.values()[1]);
+				}
+			}
+			return resolved;
+		}
+
+		@Override
+		public void written(Connection connection, List<Pending> rows) throws SQLException {
+			// One facet count update per combination, rather than per book
+			SortedMap<BookFacetCount.Key, Long> deltas = new TreeMap<>();
+			for (Pending row : rows) {
+				Object[] values = row.values();
+				deltas.merge(BookFacetCount.Key.of((String) values[2], (String) values[4], (LocalDate) values[5]), 1L,
+						Long::sum);
+			}
+			BookFacetCountUpdater.add(connection, deltas);
+		}
+
+		private Set<Long> existingAuthorIds(Connection connection, Set<Long> ids, Run run) throws SQLException {
+			Set<Long> existing = new LinkedHashSet<>();
+			List<Long> unknown = new ArrayList<>();
+			for (Long id : ids) {
+				if (run.knownAuthorIds.get(id) != null) {
+					existing.add(id);
+				} else {
+					unknown.add(id);
+				}
+			}
+			if (unknown.isEmpty()) {
+				return existing;
+			}
+			try (PreparedStatement stmt = connection.prepareStatement("SELECT id FROM authors WHERE id = ANY(?)")) {
+				stmt.setArray(1, connection.createArrayOf("bigint", unknown.toArray()));
+				try (ResultSet rs = stmt.executeQuery()) {
+					while (rs.next()) {
+						existing.add(rs.getLong(1));
+						run.knownAuthorIds.put(rs.getLong(1), Boolean.TRUE);
+					}
+				}
+			}
+			return existing;
+		}
+
+		private Map<String, Long> authorIdsByName(Connection connection, Set<String> names, Run run)
+				throws SQLException {
+			Map<String, Long> found = new HashMap<>();
+			List<String> unknown = new ArrayList<>();
+			for (String name : names) {
+				Long id = run.authorIdsByName.get(name);
+				if (id != null) {
+					found.put(name, id);
+				} else {
+					unknown.add(name);
+				}
+			}
+			if (unknown.isEmpty()) {
+				return found;
+			}
+
+			try (PreparedStatement stmt = connection.prepareStatement(
+					"SELECT name, MIN(id) FROM authors WHERE name = ANY(?) GROUP BY name")) {
+				stmt.setArray(1, connection.createArrayOf("varchar", unknown.toArray()));
+				try (ResultSet rs = stmt.executeQuery()) {
+					while (rs.next()) {
+						found.put(rs.getString(1), rs.getLong(2));
+					}
+				}
+			}
+
+			List<String> missing = unknown.stream().filter(name -> !found.containsKey(name)).toList();
+			if (!missing.isEmpty()) {
+				try (PreparedStatement stmt = connection.prepareStatement("INSERT INTO authors (name) VALUES (?)",
+						new String[] { "id" })) {
+					for (String name : missing) {
+						stmt.setString(1, name);
+						stmt.addBatch();
+					}
+					stmt.executeBatch();
+					try (ResultSet keys = stmt.getGeneratedKeys()) {
+						for (String name : missing) {
+							if (!keys.next()) {
+								throw new SQLException("No id returned for new author " + name);
+							}
+							found.put(name, keys.getLong(1));
+						}
+					}
+				}
+				run.authorsCreated += missing.size();
+			}
+			unknown.forEach(name -> run.authorIdsByName.put(name, found.get(name)));
+			return found;
+		}
+	}
+
+	private static final class AuthorTable implements Table<AuthorImportRow> {
+
+		@Override
+		public String name() {
+			return "authors";
+		}
+
+		@Override
+		public String copySql() {
+			return COPY_AUTHORS;
+		}
+
+		@Override
+		public String insertSql() {
+			return INSERT_AUTHOR;
+		}
+
+		@Override
+		public int[] sqlTypes() {
+			return AUTHOR_TYPES;
+		}
+
+		@Override
+		public Pending prepare(long line, AuthorImportRow row) {
+			Object[] values = { limit(require(row.getName(), "Name is required"), 255, "Name"),
+					date(row.getBirthDate(), "birth date"), limit(row.getBio(), 32, "Bio") };
+			return new Pending(line, values, null);
+		}
+
+		@Override
+		public List<Pending> resolve(Connection connection, List<Pending> chunk, Run run) {
+			return chunk;
+		}
+
+		@Override
+		public void written(Connection connection, List<Pending> rows) {
+		}
+	}
+
+	private record Parsed<T>(long line, T row, String error) {
+	}
+
+	private interface RowSource<T> {
+
+		/**
+		 * Next row, or null at the end of the input
+		 */
+		Parsed<T> next() throws IOException;
+	}
+
+	/**
+	 * CSV whose first record names the columns after the row's properties
+	 */
+	private final class CsvSource<T> implements RowSource<T> {
+
+		private final Csv.RecordReader records;
+		private final Class<T> type;
+		private List<String> header;
+
+		private CsvSource(BufferedReader reader, Class<T> type) {
+			this.records = new Csv.RecordReader(reader);
+			this.type = type;
+		}
+
+		@Override
+		public Parsed<T> next() throws IOException {
+			if (header == null) {
+				List<String> names = records.next();
+				if (names == null) {
+					return null;
+				}
+				header = names.stream().map(String::trim).toList();
+			}
+			List<String> fields = records.next();
+			if (fields == null) {
+				return null;
+			}
+			if (fields.size() != header.size()) {
+				return new Parsed<>(records.line(), null,
+						"Expected " + header.size() + " fields but found " + fields.size());
+			}
+			Map<String, String> values = new HashMap<>();
+			for (int i = 0; i < fields.size(); i++) {
+				if (!fields.get(i).isEmpty()) {
+					values.put(header.get(i), fields.get(i));
+				}
+			}
+			try {
+				return new Parsed<>(records.line(), objectMapper.convertValue(values, type), null);
+			} catch (IllegalArgumentException e) {
+				return new Parsed<>(records.line(), null, "Invalid row: " + rootMessage(e));
+			}
+		}
+
+		private static String rootMessage(Throwable e) {
+			Throwable cause = e;
+			while (cause.getCause() != null) {
+				cause = cause.getCause();
+			}
+			return cause instanceof JsonProcessingException json ? json.getOriginalMessage() : cause.getMessage();
+		}
+	}
+
+	private final class NdjsonSource<T> implements RowSource<T> {
+
+		private final BufferedReader reader;
+		private final Class<T> type;
+		private long line;
+
+		private NdjsonSource(BufferedReader reader, Class<T> type) {
+			this.reader = reader;
+			this.type = type;
+		}
+
+		@Override
+		public Parsed<T> next() throws IOException {
+			for (String text = reader.readLine(); text != null; text = reader.readLine()) {
+				line++;
+				if (text.isBlank()) {
+					continue;
+				}
+				try {
+					return new Parsed<>(line, objectMapper.readValue(text, type), null);
+				} catch (JsonProcessingException e) {
+					return new Parsed<>(line, null, "Invalid row: " + e.getOriginalMessage());
+				}
+			}
+			return null;
+		}
+	}
+
+	private static final class RejectedRowException extends RuntimeException {
+
+		RejectedRowException(String message) {
+			super(message);
+		}
+	}
+
+	private static final class TooManyErrorsException extends RuntimeException {
+
+		TooManyErrorsException(String message) {
+			super(message);
+		}
+	}
+}
@@ -0,0 +1,223 @@
+package com.optahaul.mas_java_poc.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.util.HtmlUtils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.optahaul.mas_java_poc.dto.PageResponse;
+import com.optahaul.mas_java_poc.dto.SearchHit;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Ranked search over book titles, genres and ISBNs and author names, on the
+ * tsvector columns and GIN indexes of tenant migration V5 (PostgreSQL only).
+ * <p>
+ * Title and author matches each contribute at most
+ * {@code catalog.search.max-candidates} books, the newest by id, which are
+ * then ranked, so ranking and sorting a common word stay bounded; the price
+ * is that such a search ranks its newest matches rather than all of them.
+ * Finding the newest is not bounded: it reads every match off the GIN index
+ * and keeps the top ones by id (or walks the primary key back until enough
+ * rows match), so a common word still costs more in a bigger catalog.
+ * Taking the newest, rather than whichever rows the index returns first,
+ * keeps the candidates the same from one request to the next, so a cursor
+ * pages through one result set. Highlights are built for the rows of the page
+ * only. A search matching nothing is retried as a fuzzy trigram search, which
+ * forgives typos
+ */
+@Slf4j
+@Service
+@Transactional(readOnly = true)
+public class CatalogSearchService {
+
+	static final char MARK_START = '\u0002';
+	static final char MARK_END = '\u0003';
+
+	private static final Pattern ISBN = Pattern.compile("\\d{9}[\\dXx]|\\d{13}");
+	private static final Pattern ISBN_SEPARATORS = Pattern.compile("[\\s-]");
+	private static final String HEADLINE_OPTIONS = "StartSel=" + MARK_START + ", StopSel=" + MARK_END
+			+ ", HighlightAll=true";
+
+	private static final String FULL_TEXT_HITS = """
+			WITH q AS (SELECT websearch_to_tsquery('english', :q) AS words,
+					websearch_to_tsquery('simple', :q) AS names),
+			hits AS (
+				(SELECT b.id, ts_rank_cd(b.search_vector, q.words) AS rank FROM books b, q
+					WHERE b.search_vector @@ q.words ORDER BY b.id DESC LIMIT :candidates)
+				UNION ALL
+				(SELECT b.id, ts_rank_cd(a.search_vector, q.names) AS rank FROM authors a
+					JOIN books b ON b.author_id = a.id, q
+					WHERE a.search_vector @@ q.names ORDER BY b.id DESC LIMIT :candidates)),
+			candidates AS (SELECT id, sum(rank)::float8 AS rank FROM hits GROUP BY id)
+			""";
+
+	private static final String FUZZY_HITS = """
+			WITH q AS (SELECT websearch_to_tsquery('english', :q) AS words,
+					websearch_to_tsquery('simple', :q) AS names),
+			hits AS (
+				(SELECT b.id, similarity(upper(b.title), upper(:q)) AS rank FROM books b
+					WHERE upper(b.title) % upper(:q) ORDER BY b.id DESC LIMIT :candidates)
+				UNION ALL
+				(SELECT b.id, similarity(upper(a.name), upper(:q)) AS rank FROM authors a
+					JOIN books b ON b.author_id = a.id
+					WHERE upper(a.name) % upper(:q) ORDER BY b.id DESC LIMIT :candidates)),
+			candidates AS (SELECT id, max(rank)::float8 AS rank FROM hits GROUP BY id)
+			""";
+
+	private static final String PAGE = """
+			SELECT c.id, c.rank, b.title, ts_headline('english', b.title, q.words, :options), a.id, a.name,
+					ts_headline('simple', a.name, q.names, :options), b.genre, b.isbn
+			FROM candidates c JOIN books b ON b.id = c.id JOIN authors a ON a.id = b.author_id, q
+			%s
+			ORDER BY c.rank DESC, c.id
+			LIMIT :limit
+			""";
+
+	private static final String AFTER = "WHERE c.rank < :rank OR (c.rank = :rank AND c.id > :id)";
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	private final KeysetPager keysetPager;
+	private final ObjectMapper objectMapper;
+	private final int maxCandidates;
+
+	public CatalogSearchService(KeysetPager keysetPager, ObjectMapper objectMapper,
+			@Value("${catalog.search.max-candidates:1000}") int maxCandidates) {
+		this.keysetPager = keysetPager;
+		this.objectMapper = objectMapper;
+		this.maxCandidates = maxCandidates;
+	}
+
+	/**
+	 * One page of books matching {@code text}, best first; {@code cursor} is
+	 * the nextCursor of the previous page
+	 */
+	public PageResponse<SearchHit> search(String text, String cursor, Integer size) {
+		if (text == null || text.isBlank()) {
+			throw new InvalidPageRequestException("Search text is required");
+		}
+		String query = searchText(text);
+		Limit limit = keysetPager.limit(size);
+		if (cursor != null && !cursor.isBlank()) {
+			Cursor after = decode(cursor);
+			return page(after.fuzzy(), query, after, limit);
+		}
+		PageResponse<SearchHit> page = page(false, query, null, limit);
+		if (page.getItems().isEmpty()) {
+			log.debug("No full-text match for '{}', searching by similarity", text);
+			page = page(true, query, null, limit);
+		}
+		return page;
+	}
+
+	private PageResponse<SearchHit> page(boolean fuzzy, String text, Cursor after, Limit limit) {
+		Query query = entityManager.createNativeQuery(sql(fuzzy, after != null))
+				.setParameter("q", text)
+				.setParameter("candidates", maxCandidates)
+				.setParameter("options", HEADLINE_OPTIONS)
+				.setParameter("limit", limit.max() + 1);
+		if (after != null) {
+			query.setParameter("rank", after.rank()).setParameter("id", after.id());
+		}
+
+		List<SearchHit> hits = new ArrayList<>();
+		for (Object row : query.getResultList()) {
+			Object[] columns = (Object[]) row;
+			hits.add(SearchHit.builder()
+					.bookId(((Number) columns[0]).longValue())
+					.rank(((Number) columns[1]).doubleValue())
+					.title((String) columns[2])
+					.titleHighlight(highlight((String) columns[3]))
+					.authorId(((Number) columns[4]).longValue())
+					.authorName((String) columns[5])
+					.authorNameHighlight(highlight((String) columns[6]))
+					.genre((String) columns[7])
+					.isbn((String) columns[8])
+					.build());
+		}
+		boolean hasNext = hits.size() > limit.max();
+		List<SearchHit> items = hasNext ? hits.subList(0, limit.max()) : hits;
+		SearchHit last = items.isEmpty() ? null : items.get(items.size() - 1);
+		return PageResponse.<SearchHit>builder()
+				.items(items)
+				.size(items.size())
+				.hasNext(hasNext)
+				.nextCursor(hasNext ? encode(new Cursor(fuzzy, last.getRank(), last.getBookId())) : null)
+				.build();
+	}
+
+	/**
+	 * A page of hits; the parameters are q, candidates, options and limit, and
+	 * rank and id of the last hit of the previous page when {@code after}
+	 */
+	static String sql(boolean fuzzy, boolean after) {
+		return (fuzzy ? FUZZY_HITS : FULL_TEXT_HITS) + PAGE.formatted(after ? AFTER : "");
+	}
+
+	/**
+	 * An ISBN, with or without hyphens, is searched for as its digits, the
+	 * form in which ISBNs are indexed
+	 */
+	static String searchText(String text) {
+		String trimmed = text.trim();
+		String digits = ISBN_SEPARATORS.matcher(trimmed).replaceAll("");
+		return ISBN.matcher(digits).matches() ? digits : trimmed;
+	}
+
+	/**
+	 * Escapes the headline for HTML, then turns the match markers into marks
+	 */
+	static String highlight(String headline) {
+		if (headline == null) {
+			return null;
+		}
+		return HtmlUtils.htmlEscape(headline)
+				.replace(String.valueOf(MARK_START), "<mark>")
+				.replace(String.valueOf(MARK_END), "</mark>");
+	}
+
+	record Cursor(boolean fuzzy, double rank, long id) {
+	}
+
+	String encode(Cursor cursor) {
+		ObjectNode json = objectMapper.createObjectNode();
+		json.put("m", cursor.fuzzy() ? "f" : "t");
+		json.put("r", cursor.rank());
+		json.put("i", cursor.id());
+		try {
+			return Base64.getUrlEncoder().withoutPadding().encodeToString(objectMapper.writeValueAsBytes(json));
+		} catch (IOException e) {
+			throw new IllegalStateException("Cannot encode cursor", e);
+		}
+	}
+
+	Cursor decode(String encoded) {
+		try {
+			JsonNode json = objectMapper.readTree(Base64.getUrlDecoder().decode(encoded));
+			String mode = json.path("m").asText();
+			if (!(mode.equals("t") || mode.equals("f")) || !json.path("r").isNumber()
+					|| !json.path("i").canConvertToLong()) {
+				throw new InvalidPageRequestException("Invalid cursor");
+			}
+			return new Cursor(mode.equals("f"), json.path("r").doubleValue(), json.path("i").longValue());
+		} catch (IOException | IllegalArgumentException e) {
+			throw new InvalidPageRequestException("Invalid cursor");
+		}
+	}
+}
@@ -0,0 +1,167 @@
+package com.optahaul.mas_java_poc.service;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.Session;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.optahaul.mas_java_poc.domain.TableVersion;
+import com.optahaul.mas_java_poc.multitenancy.TenantContext;
+import com.optahaul.mas_java_poc.repository.TableVersionRepository;
+import com.optahaul.mas_java_poc.repository.TableVersionUpdater;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * ETags and modification times for conditional GETs, found without loading
+ * what they describe. A book's come from its and its author's updatedAt, as
+ * it shows the author's name; an author's from its updatedAt and the books
+ * table version, as it lists book ids. Lists depend on both table versions
+ * (tenant migration V7), which every transaction writing books or authors
+ * raises just before it commits.
+ * <p>
+ * Every ETag ends with the tenant id, so equal versions of two tenants never
+ * match. Read the version in the transaction that reads the content it
+ * validates, as {@code ConditionalGet} does, so the two agree
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CatalogVersionService {
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	private final TableVersionRepository tableVersionRepository;
+	private final Clock clock;
+
+	/**
+	 * Null when there is no such book
+	 */
+	@Transactional(readOnly = true)
+	public ContentVersion book(long id) {
+		List<Object[]> rows = entityManager.createQuery(
+				"SELECT b.updatedAt, a.updatedAt FROM Book b JOIN b.author a WHERE b.id = :id", Object[].class)
+				.setParameter("id", id)
+				.getResultList();
+		if (rows.isEmpty()) {
+			return null;
+		}
+		LocalDateTime book = (LocalDateTime) rows.get(0)[0];
+		LocalDateTime author = (LocalDateTime) rows.get(0)[1];
+		return new ContentVersion(etag(false, "b", id, ContentVersion.epochMillis(book),
+				ContentVersion.epochMillis(author)), latest(book, author));
+	}
+
+	/**
+	 * Null when there is no such author
+	 */
+	@Transactional(readOnly = true)
+	public ContentVersion author(long id) {
+		List<LocalDateTime> rows = entityManager.createQuery(
+				"SELECT a.updatedAt FROM Author a WHERE a.id = :id", LocalDateTime.class)
+				.setParameter("id", id)
+				.getResultList();
+		if (rows.isEmpty()) {
+			return null;
+		}
+		TableVersion books = versions().get(TableVersion.BOOKS);
+		return new ContentVersion(etag(false, "a", id, ContentVersion.epochMillis(rows.get(0)), books.getVersion()),
+				latest(rows.get(0), books.getUpdatedAt()));
+	}
+
+	/**
+	 * Version of every list of books or authors. Weak, as pages may carry an
+	 * approximate total that changes without any write
+	 */
+	@Transactional(readOnly = true)
+	public ContentVersion lists() {
+		Map<String, TableVersion> versions = versions();
+		TableVersion books = versions.get(TableVersion.BOOKS);
+		TableVersion authors = versions.get(TableVersion.AUTHORS);
+		return new ContentVersion(etag(true, "l", books.getVersion(), authors.getVersion()),
+				latest(books.getUpdatedAt(), authors.getUpdatedAt()));
+	}
+
+	/**
+	 * Version number of each catalog table, for views that follow the writes
+	 * made on this node and need to tell them from those made elsewhere
+	 */
+	@Transactional(readOnly = true)
+	public Map<String, Long> tableVersions() {
+		Map<String, Long> versions = new HashMap<>();
+		versions().forEach((table, version) -> versions.put(table, version.getVersion()));
+		return versions;
+	}
+
+	/**
+	 * Raises the versions of the tables the change wrote, in its transaction
+	 */
+	@TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+	public void onCatalogChanged(CatalogChangedEvent event) {
+		List<String> tables = tablesRaisedBy(event.change());
+		if (!tables.isEmpty()) {
+			LocalDateTime now = LocalDateTime.now(clock);
+			entityManager.unwrap(Session.class)
+					.doWork(connection -> TableVersionUpdater.bump(connection, now, tables.toArray(String[]::new)));
+			log.debug("Raised versions of {} for {}", String.join(", ", tables), event.change());
+		}
+	}
+
+	/**
+	 * The tables whose versions {@link #onCatalogChanged} raises by one for a
+	 * change
+	 */
+	public static List<String> tablesRaisedBy(CatalogChangedEvent.Change change) {
+		return switch (change) {
+			case BOOK_SAVED, BOOK_DELETED -> List.of(TableVersion.BOOKS);
+			case AUTHOR_SAVED -> List.of(TableVersion.AUTHORS);
+			// The author's books are deleted with it
+			case AUTHOR_DELETED -> List.of(TableVersion.AUTHORS, TableVersion.BOOKS);
+			// Bulk imports raise the versions with each chunk they commit
+			case RELOADED -> List.of();
+		};
+	}
+
+	private Map<String, TableVersion> versions() {
+		Map<String, TableVersion> versions = new HashMap<>();
+		versions.put(TableVersion.BOOKS, new TableVersion(TableVersion.BOOKS, 0, null));
+		versions.put(TableVersion.AUTHORS, new TableVersion(TableVersion.AUTHORS, 0, null));
+		tableVersionRepository.findAllById(List.of(TableVersion.BOOKS, TableVersion.AUTHORS))
+				.forEach(version -> versions.put(version.getTableName(), version));
+		return versions;
+	}
+
+	/**
+	 * Each kind has a fixed number of parts, so the tenant id that follows them
+	 * cannot be mistaken for one
+	 */
+	private static String etag(boolean weak, String kind, long... parts) {
+		StringBuilder etag = new StringBuilder(weak ? "W/\"" : "\"").append(kind);
+		for (long part : parts) {
+			etag.append('-').append(Long.toHexString(part));
+		}
+		String tenantId = TenantContext.getCurrentTenant();
+		if (tenantId != null) {
+			etag.append('@').append(tenantId);
+		}
+		return etag.append('"').toString();
+	}
+
+	private static LocalDateTime latest(LocalDateTime a, LocalDateTime b) {
+		if (a == null || b == null) {
+			return a == null ? b : a;
+		}
+		return a.isAfter(b) ? a : b;
+	}
+}
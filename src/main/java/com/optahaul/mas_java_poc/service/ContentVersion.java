@@ -0,0 +1,23 @@
+package com.optahaul.mas_java_poc.service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Validators of a response: its ETag, quoted and possibly weak, and the time
+ * its content last changed, which may be null
+ */
+public record ContentVersion(String etag, LocalDateTime lastModified) {
+
+	/**
+	 * Milliseconds since the epoch, or -1 when unknown, as
+	 * {@code WebRequest.checkNotModified} expects
+	 */
+	public long lastModifiedMillis() {
+		return epochMillis(lastModified);
+	}
+
+	static long epochMillis(LocalDateTime time) {
+		return time == null ? -1 : time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+	}
+}
@@ -0,0 +1,157 @@
+package com.optahaul.mas_java_poc.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal RFC 4180 CSV: comma-separated, fields quoted with double quotes
+ * (doubled inside), records ended by LF or CRLF. Quoted fields may span lines
+ */
+final class Csv {
+
+	private Csv() {
+	}
+
+	/**
+	 * Appends one record, quoting only the fields that need it. Null becomes an
+	 * empty unquoted field, which COPY reads as NULL
+	 */
+	static void appendRecord(Appendable out, Object... fields) throws IOException {
+		for (int i = 0; i < fields.length; i++) {
+			if (i > 0) {
+				out.append(',');
+			}
+			appendField(out, fields[i]);
+		}
+		out.append('\n');
+	}
+
+	private static void appendField(Appendable out, Object field) throws IOException {
+		if (field == null) {
+			return;
+		}
+		String value = field.toString();
+		if (value.isEmpty() || needsQuotes(value)) {
+			// An empty string is quoted to keep it apart from NULL
+			out.append('"').append(value.replace("\"", "\"\"")).append('"');
+		} else {
+			out.append(value);
+		}
+	}
+
+	private static boolean needsQuotes(String value) {
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Reads records one at a time; the reader should be buffered
+	 */
+	static final class RecordReader {
+
+		private final Reader in;
+		private long line = 1;
+		private long recordLine;
+		private int pending = -2;
+
+		RecordReader(Reader in) {
+			this.in = in;
+		}
+
+		/**
+		 * Next non-blank record, or null at the end of the input
+		 */
+		List<String> next() throws IOException {
+			while (true) {
+				int c = read();
+				if (c == -1) {
+					return null;
+				}
+				if (c == '\r' || c == '\n') {
+					skipLineEnd(c);
+					continue;
+				}
+				pending = c;
+				return record();
+			}
+		}
+
+		/**
+		 * Line on which the last record returned by {@link #next()} started
+		 */
+		long line() {
+			return recordLine;
+		}
+
+		private List<String> record() throws IOException {
+			recordLine = line;
+			List<String> fields = new ArrayList<>();
+			StringBuilder field = new StringBuilder();
+			boolean quoted = false;
+			boolean wasQuoted = false;
+			while (true) {
+				int c = read();
+				if (quoted) {
+					if (c == -1) {
+						throw new IOException("Unterminated quoted field starting on line " + recordLine);
+					}
+					if (c == '"') {
+						int next = read();
+						if (next == '"') {
+							field.append('"');
+						} else {
+							quoted = false;
+							pending = next;
+						}
+					} else {
+						if (c == '\n') {
+							line++;
+						}
+						field.append((char) c);
+					}
+				} else if (c == '"' && field.isEmpty() && !wasQuoted) {
+					quoted = true;
+					wasQuoted = true;
+				} else if (c == ',') {
+					fields.add(field.toString());
+					field.setLength(0);
+					wasQuoted = false;
+				} else if (c == -1 || c == '\n' || c == '\r') {
+					skipLineEnd(c);
+					fields.add(field.toString());
+					return fields;
+				} else {
+					field.append((char) c);
+				}
+			}
+		}
+
+		private void skipLineEnd(int c) throws IOException {
+			if (c == '\r') {
+				int next = read();
+				if (next != '\n') {
+					pending = next;
+				}
+			}
+			if (c != -1) {
+				line++;
+			}
+		}
+
+		private int read() throws IOException {
+			if (pending != -2) {
+				int c = pending;
+				pending = -2;
+				return c;
+			}
+			return in.read();
+		}
+	}
+}
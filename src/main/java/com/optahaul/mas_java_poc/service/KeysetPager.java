@@ -0,0 +1,181 @@
+package com.optahaul.mas_java_poc.service;
+
+import java.io.IOException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.optahaul.mas_java_poc.dto.PageParams;
+import com.optahaul.mas_java_poc.dto.PageResponse;
+
+/**
+ * Turns {@link PageParams} into a keyset scroll request and a {@link Window}
+ * back into a {@link PageResponse}. Lists are ordered by one sort key with the
+ * id as tie-breaker, so the order is total and a page starts right after the
+ * last row of the previous one, whatever was inserted or deleted meanwhile,
+ * at the cost of an index seek rather than skipping an offset.
+ * <p>
+ * The cursor is the sort, the direction and the last row's key values as
+ * base64url JSON; it is validated against the keys the list allows, never
+ * trusted
+ */
+@Component
+public class KeysetPager {
+
+	private static final String TIE_BREAKER = "id";
+
+	private final ObjectMapper objectMapper;
+	private final int defaultSize;
+	private final int maxSize;
+
+	public KeysetPager(ObjectMapper objectMapper,
+			@Value("${api.pagination.default-size:20}") int defaultSize,
+			@Value("${api.pagination.max-size:100}") int maxSize) {
+		this.objectMapper = objectMapper;
+		this.defaultSize = defaultSize;
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Sort keys a list allows, with the Java type of each; only non-null
+	 * columns qualify, as a null key cannot be compared
+	 */
+	public record SortKeys(String defaultKey, Map<String, Class<?>> types) {
+
+		public static SortKeys of(String defaultKey, Map<String, Class<?>> types) {
+			if (!types.containsKey(defaultKey) || !types.containsKey(TIE_BREAKER)) {
+				throw new IllegalArgumentException("Sort keys must include " + defaultKey + " and " + TIE_BREAKER);
+			}
+			return new SortKeys(defaultKey, Map.copyOf(types));
+		}
+	}
+
+	/**
+	 * One page to fetch: pass position, limit and sort to a repository method
+	 * returning a {@link Window}
+	 */
+	public record ScrollRequest(String key, Sort.Direction direction, ScrollPosition position, Limit limit,
+			boolean includeTotal) {
+
+		public Sort sort() {
+			Sort sort = Sort.by(direction, key);
+			return TIE_BREAKER.equals(key) ? sort : sort.and(Sort.by(direction, TIE_BREAKER));
+		}
+	}
+
+	public ScrollRequest request(PageParams params, SortKeys keys) {
+		Limit limit = limit(params.getSize());
+		String key = params.getSort() == null || params.getSort().isBlank() ? null : params.getSort();
+		Sort.Direction direction = direction(params.getDirection());
+
+		if (params.getCursor() == null || params.getCursor().isBlank()) {
+			key = key == null ? keys.defaultKey() : key;
+			if (!keys.types().containsKey(key)) {
+				throw new InvalidPageRequestException("Cannot sort by " + key + "; use one of "
+						+ keys.types().keySet());
+			}
+			return new ScrollRequest(key, direction == null ? Sort.Direction.ASC : direction,
+					ScrollPosition.keyset(), limit, params.isIncludeTotal());
+		}
+
+		Cursor cursor = decode(params.getCursor(), keys);
+		if ((key != null && !key.equals(cursor.key())) || (direction != null && direction != cursor.direction())) {
+			throw new InvalidPageRequestException("Cursor was issued for a different sort");
+		}
+		return new ScrollRequest(cursor.key(), cursor.direction(), ScrollPosition.forward(cursor.values()), limit,
+				params.isIncludeTotal());
+	}
+
+	/**
+	 * Requested page size, defaulted and capped by the configured limits
+	 */
+	public Limit limit(Integer size) {
+		int requested = size == null ? defaultSize : size;
+		if (requested < 1) {
+			throw new InvalidPageRequestException("Page size must be positive");
+		}
+		return Limit.of(Math.min(requested, maxSize));
+	}
+
+	/**
+	 * Maps the window's items; the total is only computed when it was asked for
+	 */
+	public <E, D> PageResponse<D> page(ScrollRequest request, Window<E> window, Function<E, D> mapper,
+			LongSupplier total) {
+		String nextCursor = null;
+		if (window.hasNext() && !window.isEmpty()) {
+			KeysetScrollPosition last = (KeysetScrollPosition) window.positionAt(window.size() - 1);
+			nextCursor = encode(request, last.getKeys());
+		}
+		return PageResponse.<D>builder()
+				.items(window.getContent().stream().map(mapper).toList())
+				.size(window.size())
+				.hasNext(nextCursor != null)
+				.nextCursor(nextCursor)
+				.approximateTotal(request.includeTotal() ? total.getAsLong() : null)
+				.build();
+	}
+
+	private record Cursor(String key, Sort.Direction direction, Map<String, Object> values) {
+	}
+
+	private String encode(ScrollRequest request, Map<String, ?> values) {
+		ObjectNode json = objectMapper.createObjectNode();
+		json.put("s", request.key());
+		json.put("d", request.direction().name().toLowerCase(Locale.ROOT));
+		json.set("k", objectMapper.valueToTree(values));
+		try {
+			return Base64.getUrlEncoder().withoutPadding().encodeToString(objectMapper.writeValueAsBytes(json));
+		} catch (IOException e) {
+			throw new IllegalStateException("Cannot encode cursor", e);
+		}
+	}
+
+	private Cursor decode(String encoded, SortKeys keys) {
+		try {
+			JsonNode json = objectMapper.readTree(Base64.getUrlDecoder().decode(encoded));
+			String key = json.path("s").asText();
+			Sort.Direction direction = direction(json.path("d").asText(null));
+			JsonNode values = json.path("k");
+			if (!keys.types().containsKey(key) || direction == null || !values.isObject()) {
+				throw new InvalidPageRequestException("Invalid cursor");
+			}
+			Map<String, Object> decoded = new LinkedHashMap<>();
+			for (String name : TIE_BREAKER.equals(key) ? new String[] { key } : new String[] { key, TIE_BREAKER }) {
+				JsonNode value = values.get(name);
+				if (value == null || value.isNull()) {
+					throw new InvalidPageRequestException("Invalid cursor");
+				}
+				decoded.put(name, objectMapper.convertValue(value, keys.types().get(name)));
+			}
+			if (values.size() != decoded.size()) {
+				throw new InvalidPageRequestException("Invalid cursor");
+			}
+			return new Cursor(key, direction, decoded);
+		} catch (IOException | IllegalArgumentException e) {
+			throw new InvalidPageRequestException("Invalid cursor");
+		}
+	}
+
+	private static Sort.Direction direction(String value) {
+		if (value == null || value.isBlank()) {
+			return null;
+		}
+		return Sort.Direction.fromOptionalString(value)
+				.orElseThrow(() -> new InvalidPageRequestException("Direction must be asc or desc"));
+	}
+}
@@ -0,0 +1,106 @@
+package com.optahaul.mas_java_poc.service;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing map from long keys to non-negative int values, without
+ * boxing: two arrays and linear probing, removals shift later entries back
+ * rather than leaving tombstones
+ */
+final class LongIntMap {
+
+	static final int MISSING = -1;
+
+	private long[] keys;
+	private int[] values;
+	private int size;
+
+	LongIntMap(int expected) {
+		int capacity = Integer.highestOneBit(Math.max(8, expected * 2 - 1)) << 1;
+		keys = new long[capacity];
+		values = new int[capacity];
+		Arrays.fill(values, MISSING);
+	}
+
+	int get(long key) {
+		int mask = keys.length - 1;
+		for (int i = slot(key, mask);; i = (i + 1) & mask) {
+			if (values[i] == MISSING || keys[i] == key) {
+				return values[i];
+			}
+		}
+	}
+
+	void put(long key, int value) {
+		if ((size + 1) * 2 > keys.length) {
+			resize(keys.length * 2);
+		}
+		int mask = keys.length - 1;
+		for (int i = slot(key, mask);; i = (i + 1) & mask) {
+			if (values[i] == MISSING) {
+				keys[i] = key;
+				values[i] = value;
+				size++;
+				return;
+			}
+			if (keys[i] == key) {
+				values[i] = value;
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Removes the key; returns its value, or {@link #MISSING}
+	 */
+	int remove(long key) {
+		int mask = keys.length - 1;
+		int gap = slot(key, mask);
+		while (values[gap] != MISSING && keys[gap] != key) {
+			gap = (gap + 1) & mask;
+		}
+		int removed = values[gap];
+		if (removed == MISSING) {
+			return MISSING;
+		}
+		// Move back every later entry of the probe run that may not sit past the gap
+		for (int i = (gap + 1) & mask; values[i] != MISSING; i = (i + 1) & mask) {
+			int home = slot(keys[i], mask);
+			if (((i - home) & mask) >= ((i - gap) & mask)) {
+				keys[gap] = keys[i];
+				values[gap] = values[i];
+				gap = i;
+			}
+		}
+		values[gap] = MISSING;
+		size--;
+		return removed;
+	}
+
+	int size() {
+		return size;
+	}
+
+	long estimatedBytes() {
+		return 12L * keys.length;
+	}
+
+	private void resize(int capacity) {
+		long[] oldKeys = keys;
+		int[] oldValues = values;
+		keys = new long[capacity];
+		values = new int[capacity];
+		Arrays.fill(values, MISSING);
+		size = 0;
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldValues[i] != MISSING) {
+				put(oldKeys[i], oldValues[i]);
+			}
+		}
+	}
+
+	private static int slot(long key, int mask) {
+		long hash = key * 0x9E3779B97F4A7C15L;
+		return (int) (hash ^ (hash >>> 32)) & mask;
+	}
+}
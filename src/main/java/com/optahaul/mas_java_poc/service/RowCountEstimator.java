@@ -0,0 +1,52 @@
+package com.optahaul.mas_java_poc.service;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.stereotype.Component;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+
+/**
+ * Approximate row counts for list totals. On PostgreSQL the query is only
+ * planned, not run, and the planner's row estimate is returned, which costs
+ * the same for a million rows as for ten; other databases count exactly
+ */
+@Component
+public class RowCountEstimator {
+
+	private static final Pattern PLAN_ROWS = Pattern.compile("rows=(\\d+)");
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	/**
+	 * Estimated number of rows of the native {@code select}, whose positional
+	 * parameters ?1, ?2, ... are bound to {@code parameters}
+	 */
+	public long estimate(String select, Object... parameters) {
+		boolean planned = isPostgres();
+		Query query = entityManager.createNativeQuery(planned ? "EXPLAIN " + select
+				: "SELECT COUNT(*) FROM (" + select + ") counted");
+		for (int i = 0; i < parameters.length; i++) {
+			query.setParameter(i + 1, parameters[i]);
+		}
+		List<?> rows = query.getResultList();
+		if (!planned) {
+			return ((Number) rows.get(0)).longValue();
+		}
+		// The first plan line is the top node, whose estimate is the whole result's
+		Matcher matcher = PLAN_ROWS.matcher(String.valueOf(rows.get(0)));
+		return matcher.find() ? Long.parseLong(matcher.group(1)) : 0;
+	}
+
+	private boolean isPostgres() {
+		return entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class).getJdbcServices()
+				.getDialect() instanceof PostgreSQLDialect;
+	}
+}
@@ -2,11 +2,15 @@ package com.optahaul.mas_java_poc.service;
 
 import org.quartz.SchedulerException;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.optahaul.mas_java_poc.domain.catalog.Tenant;
+import com.optahaul.mas_java_poc.multitenancy.TenantCatalogCache;
+import com.optahaul.mas_java_poc.multitenancy.TenantChangedEvent;
+import com.optahaul.mas_java_poc.multitenancy.TenantChangedEvent.Change;
+import com.optahaul.mas_java_poc.multitenancy.TenantHostIndex;
 import com.optahaul.mas_java_poc.multitenancy.TenantRepository;
 
 import lombok.RequiredArgsConstructor;
@@ -14,7 +18,9 @@ import lombok.extern.slf4j.Slf4j;
 
 /**
  * Service for managing tenant metadata Uses catalog database (not
- * tenant-specific) Only active when multitenancy.enabled=true
+ * tenant-specific) Lookups go through {@link TenantCatalogCache}; lifecycle
+ * changes publish a {@link TenantChangedEvent} so caches and pools are dropped
+ * Only active when multitenancy.enabled=true
  */
 @Slf4j
 @Service
@@ -24,19 +30,21 @@ public class TenantService {
 
 	private final TenantRepository tenantRepository;
 	private final TenantJobSchedulerService jobSchedulerService;
+	private final TenantHostIndex hostIndex;
+	private final TenantCatalogCache catalogCache;
+	private final ApplicationEventPublisher eventPublisher;
 
-	@Cacheable(value = "tenants", key = "#tenantId")
-	@Transactional(transactionManager = "catalogTransactionManager", readOnly = true)
 	public Tenant findByTenantId(String tenantId) {
-		return tenantRepository.findByTenantId(tenantId)
+		return catalogCache.find(tenantId)
 				.orElseThrow(() -> new TenantNotFoundException("Tenant not found: " + tenantId));
 	}
 
-	@Cacheable(value = "tenantsBySubdomain", key = "#subdomain")
-	@Transactional(transactionManager = "catalogTransactionManager", readOnly = true)
 	public Tenant findBySubdomain(String subdomain) {
-		return tenantRepository.findBySubdomain(subdomain)
-				.orElseThrow(() -> new TenantNotFoundException("Tenant not found for subdomain: " + subdomain));
+		String tenantId = hostIndex.findBySubdomain(subdomain, 0, subdomain.length());
+		if (tenantId == null) {
+			throw new TenantNotFoundException("Tenant not found for subdomain: " + subdomain);
+		}
+		return findByTenantId(tenantId);
 	}
 
 	@Transactional(transactionManager = "catalogTransactionManager")
@@ -52,6 +60,7 @@ public class TenantService {
 		tenant.setStatus("ACTIVE");
 
 		tenant = tenantRepository.save(tenant);
+		eventPublisher.publishEvent(new TenantChangedEvent(tenantId, Change.CREATED));
 
 		// 2. Create physical database (you'd use Flyway/Liquibase for this)
 		// createTenantDatabase(tenantId);
@@ -66,9 +75,11 @@ public class TenantService {
 
 	@Transactional(transactionManager = "catalogTransactionManager")
 	public void suspendTenant(String tenantId) {
-		Tenant tenant = findByTenantId(tenantId);
+		Tenant tenant = loadForUpdate(tenantId);
 		tenant.setStatus("SUSPENDED");
 		tenantRepository.save(tenant);
+		// Cache, route and pool are dropped once this commits
+		eventPublisher.publishEvent(new TenantChangedEvent(tenantId, Change.SUSPENDED));
 
 		// Pause all scheduled jobs for this tenant
 		try {
@@ -77,16 +88,14 @@ public class TenantService {
 		} catch (SchedulerException e) {
 			log.error("Failed to pause jobs for tenant {}: {}", tenantId, e.getMessage());
 		}
-
-		// Clear cache and close connections
-		// cacheManager.getCache("tenants").evict(tenantId);
 	}
 
 	@Transactional(transactionManager = "catalogTransactionManager")
 	public void activateTenant(String tenantId) {
-		Tenant tenant = findByTenantId(tenantId);
+		Tenant tenant = loadForUpdate(tenantId);
 		tenant.setStatus("ACTIVE");
 		tenantRepository.save(tenant);
+		eventPublisher.publishEvent(new TenantChangedEvent(tenantId, Change.ACTIVATED));
 
 		// Resume all scheduled jobs for this tenant
 		try {
@@ -108,12 +117,60 @@ public class TenantService {
 		}
 
 		// Delete tenant from catalog
-		Tenant tenant = findByTenantId(tenantId);
+		Tenant tenant = loadForUpdate(tenantId);
 		tenantRepository.delete(tenant);
-
-		// Clear cache
-		// cacheManager.getCache("tenants").evict(tenantId);
+		eventPublisher.publishEvent(new TenantChangedEvent(tenantId, Change.DELETED));
 
 		log.info("Tenant deleted: {}", tenantId);
 	}
+
+	/**
+	 * Makes every node refuse the tenant's writes while reads carry on; used
+	 * for the final step of a relocation
+	 */
+	@Transactional(transactionManager = "catalogTransactionManager")
+	public void pauseWrites(String tenantId) {
+		Tenant tenant = loadForUpdate(tenantId);
+		if (!"ACTIVE".equals(tenant.getStatus())) {
+			throw new IllegalStateException("Tenant " + tenantId + " is " + tenant.getStatus() + ", not ACTIVE");
+		}
+		tenant.setStatus("RELOCATING");
+		tenantRepository.save(tenant);
+		eventPublisher.publishEvent(new TenantChangedEvent(tenantId, Change.RELOCATING));
+	}
+
+	@Transactional(transactionManager = "catalogTransactionManager")
+	public void resumeWrites(String tenantId) {
+		Tenant tenant = loadForUpdate(tenantId);
+		if ("RELOCATING".equals(tenant.getStatus())) {
+			tenant.setStatus("ACTIVE");
+			tenantRepository.save(tenant);
+			eventPublisher.publishEvent(new TenantChangedEvent(tenantId, Change.ACTIVATED));
+		}
+	}
+
+	/**
+	 * Points the tenant at its new database and resumes writes; every node
+	 * swaps its pool once this commits
+	 */
+	@Transactional(transactionManager = "catalogTransactionManager")
+	public void completeRelocation(String tenantId, String dbUrl, String dbUsername, String dbPassword,
+			String replicaDbUrls) {
+		Tenant tenant = loadForUpdate(tenantId);
+		tenant.setDbUrl(dbUrl);
+		tenant.setDbUsername(dbUsername);
+		tenant.setDbPassword(dbPassword);
+		tenant.setReplicaDbUrls(replicaDbUrls);
+		tenant.setStatus("ACTIVE");
+		tenantRepository.save(tenant);
+		eventPublisher.publishEvent(new TenantChangedEvent(tenantId, Change.RELOCATED));
+
+		log.info("Tenant {} relocated to {}", tenantId, dbUrl);
+	}
+
+	// Lifecycle changes work on a fresh row, never on the shared cached instance
+	private Tenant loadForUpdate(String tenantId) {
+		return tenantRepository.findByTenantId(tenantId)
+				.orElseThrow(() -> new TenantNotFoundException("Tenant not found: " + tenantId));
+	}
 }
@@ -0,0 +1,472 @@
+package com.optahaul.mas_java_poc.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+import com.optahaul.mas_java_poc.dto.BookSuggestion;
+
+/**
+ * Prefix index over one tenant's book titles and author names. Books are rows
+ * of parallel arrays, addressed by ordinal. Every distinct word is stored once,
+ * in a sorted array, with the ordinals of its books in one flat int array, so a
+ * prefix is a binary search and a scan of adjacent terms. Writes go to a small
+ * delta, sorted too, and mark replaced rows deleted; both are folded into the
+ * sorted arrays once they reach a quarter of the index.
+ * <p>
+ * Safe for concurrent use: reads share a lock, writes take it exclusively.
+ * Rows below {@code size} are never changed, only marked deleted, so a
+ * compaction rebuilds from a snapshot of them without the lock, and takes it
+ * only to replay the writes made meanwhile and swap the result in; one write
+ * may have to wait for that, suggestions don't
+ */
+final class TypeaheadIndex {
+
+	private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+	private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+	private static final int MIN_COMPACTION = 1024;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private final ReentrantLock compaction = new ReentrantLock();
+
+	// Books, by ordinal
+	private long[] bookIds = new long[16];
+	private long[] authorIds = new long[16];
+	private String[] titles = new String[16];
+	private String[] authorNames = new String[16];
+	private int size;
+	private final BitSet deleted = new BitSet();
+	private int deletedCount;
+	private LongIntMap ordinals = new LongIntMap(16);
+	private Map<String, String> names = new HashMap<>();
+	private long textChars;
+
+	// Sorted terms; the ordinals of terms[t] are postings[starts[t]] .. postings[starts[t + 1] - 1]
+	private String[] terms = new String[0];
+	private int[] starts = { 0 };
+	private int[] postings = new int[0];
+
+	// Terms of books added since the last compaction
+	private final NavigableMap<String, IntList> delta = new TreeMap<>();
+	private int deltaPostings;
+
+	/**
+	 * Adds or replaces a book
+	 */
+	void put(long bookId, String title, long authorId, String authorName) {
+		lock.writeLock().lock();
+		try {
+			append(bookId, title, authorId, authorName);
+		} finally {
+			lock.writeLock().unlock();
+		}
+		compactIfNeeded();
+	}
+
+	void remove(long bookId) {
+		lock.writeLock().lock();
+		try {
+			int ordinal = ordinals.remove(bookId);
+			if (ordinal != LongIntMap.MISSING) {
+				markDeleted(ordinal);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+		compactIfNeeded();
+	}
+
+	/**
+	 * Re-indexes the author's books under the new name
+	 */
+	void renameAuthor(long authorId, String authorName) {
+		lock.writeLock().lock();
+		try {
+			for (int ordinal : ordinalsOfAuthor(authorId)) {
+				if (!authorNames[ordinal].equals(authorName)) {
+					append(bookIds[ordinal], titles[ordinal], authorId, authorName);
+				}
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+		compactIfNeeded();
+	}
+
+	void removeAuthor(long authorId) {
+		lock.writeLock().lock();
+		try {
+			for (int ordinal : ordinalsOfAuthor(authorId)) {
+				ordinals.remove(bookIds[ordinal]);
+				markDeleted(ordinal);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+		compactIfNeeded();
+	}
+
+	/**
+	 * Adds a book without compacting; for bulk loads, which call
+	 * {@link #compact()} at the end
+	 */
+	void load(long bookId, String title, long authorId, String authorName) {
+		lock.writeLock().lock();
+		try {
+			append(bookId, title, authorId, authorName);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Books having, for every word typed, a title or author word starting with
+	 * it; titles starting with the whole text first, then shorter titles
+	 */
+	List<BookSuggestion> suggest(String text, int limit) {
+		List<String> prefixes = words(text);
+		if (prefixes.isEmpty() || limit < 1) {
+			return List.of();
+		}
+		String typed = text.strip();
+		lock.readLock().lock();
+		try {
+			BitSet matches = null;
+			for (String prefix : prefixes) {
+				BitSet matching = matching(prefix);
+				if (matches == null) {
+					matches = matching;
+				} else {
+					matches.and(matching);
+				}
+			}
+			matches.andNot(deleted);
+
+			int[] best = new int[limit];
+			int found = 0;
+			for (int o = matches.nextSetBit(0); o >= 0; o = matches.nextSetBit(o + 1)) {
+				if (found < limit) {
+					best[found++] = o;
+				} else if (better(o, best[limit - 1], typed)) {
+					best[limit - 1] = o;
+				} else {
+					continue;
+				}
+				// Keep best[] ordered: move the new entry up to its place
+				for (int i = found - 1; i > 0 && better(best[i], best[i - 1], typed); i--) {
+					int swap = best[i];
+					best[i] = best[i - 1];
+					best[i - 1] = swap;
+				}
+			}
+
+			List<BookSuggestion> suggestions = new ArrayList<>(found);
+			for (int i = 0; i < found; i++) {
+				int o = best[i];
+				suggestions.add(new BookSuggestion(bookIds[o], titles[o], authorIds[o], authorNames[o]));
+			}
+			return suggestions;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	int size() {
+		lock.readLock().lock();
+		try {
+			return ordinals.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Approximate heap held by the index, in bytes
+	 */
+	long estimatedBytes() {
+		lock.readLock().lock();
+		try {
+			long rows = (long) bookIds.length * (8 + 8 + 4 + 4) + ordinals.estimatedBytes();
+			long dictionary = (long) terms.length * 48 + starts.length * 4L + postings.length * 4L;
+			long pending = (long) delta.size() * 96 + deltaPostings * 4L;
+			return rows + dictionary + pending + textChars * 2 + (long) (size + names.size()) * 40;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Drops deleted rows and folds the delta into the sorted terms
+	 */
+	void compact() {
+		compaction.lock();
+		try {
+			rebuild();
+		} finally {
+			compaction.unlock();
+		}
+	}
+
+	private void rebuild() {
+		int snapshotSize;
+		long[] oldBookIds;
+		long[] oldAuthorIds;
+		String[] oldTitles;
+		String[] oldAuthorNames;
+		BitSet snapshotDeleted;
+		lock.readLock().lock();
+		try {
+			snapshotSize = size;
+			oldBookIds = bookIds;
+			oldAuthorIds = authorIds;
+			oldTitles = titles;
+			oldAuthorNames = authorNames;
+			snapshotDeleted = (BitSet) deleted.clone();
+		} finally {
+			lock.readLock().unlock();
+		}
+
+		int live = snapshotSize - snapshotDeleted.cardinality();
+		int capacity = Math.max(16, live + live / 4);
+		long[] newBookIds = new long[capacity];
+		long[] newAuthorIds = new long[capacity];
+		String[] newTitles = new String[capacity];
+		String[] newAuthorNames = new String[capacity];
+		LongIntMap newOrdinals = new LongIntMap(capacity);
+		Map<String, String> newNames = new HashMap<>();
+		Map<String, IntList> byTerm = new HashMap<>();
+		int[] moved = new int[snapshotSize];
+		long chars = 0;
+		int next = 0;
+		for (int o = snapshotDeleted.nextClearBit(0); o < snapshotSize; o = snapshotDeleted.nextClearBit(o + 1)) {
+			newBookIds[next] = oldBookIds[o];
+			newAuthorIds[next] = oldAuthorIds[o];
+			newTitles[next] = oldTitles[o];
+			newAuthorNames[next] = newNames.computeIfAbsent(oldAuthorNames[o], name -> name);
+			newOrdinals.put(oldBookIds[o], next);
+			moved[o] = next;
+			chars += oldTitles[o].length();
+			for (String term : terms(oldTitles[o], oldAuthorNames[o])) {
+				byTerm.computeIfAbsent(term, t -> new IntList()).add(next);
+			}
+			next++;
+		}
+
+		String[] sorted = byTerm.keySet().toArray(String[]::new);
+		Arrays.sort(sorted);
+		int[] newStarts = new int[sorted.length + 1];
+		int total = 0;
+		for (int t = 0; t < sorted.length; t++) {
+			newStarts[t] = total;
+			total += byTerm.get(sorted[t]).size;
+		}
+		newStarts[sorted.length] = total;
+		int[] newPostings = new int[total];
+		for (int t = 0; t < sorted.length; t++) {
+			IntList list = byTerm.get(sorted[t]);
+			System.arraycopy(list.values, 0, newPostings, newStarts[t], list.size);
+		}
+
+		lock.writeLock().lock();
+		try {
+			// Writes made during the rebuild: snapshot rows deleted since, and rows appended since
+			BitSet deletedNow = (BitSet) deleted.clone();
+			BitSet deletedSince = (BitSet) deletedNow.clone();
+			deletedSince.andNot(snapshotDeleted);
+			int appended = size;
+			long[] appendedBookIds = bookIds;
+			long[] appendedAuthorIds = authorIds;
+			String[] appendedTitles = titles;
+			String[] appendedAuthorNames = authorNames;
+
+			bookIds = newBookIds;
+			authorIds = newAuthorIds;
+			titles = newTitles;
+			authorNames = newAuthorNames;
+			ordinals = newOrdinals;
+			names = newNames;
+			size = next;
+			textChars = chars + newNames.keySet().stream().mapToLong(String::length).sum();
+			deleted.clear();
+			deletedCount = 0;
+			terms = sorted;
+			starts = newStarts;
+			postings = newPostings;
+			delta.clear();
+			deltaPostings = 0;
+
+			for (int o = deletedSince.nextSetBit(0); o >= 0 && o < snapshotSize; o = deletedSince.nextSetBit(o + 1)) {
+				markDeleted(moved[o]);
+				// Unless the book was written again since, which the replay below adds back
+				if (ordinals.get(oldBookIds[o]) == moved[o]) {
+					ordinals.remove(oldBookIds[o]);
+				}
+			}
+			for (int o = snapshotSize; o < appended; o++) {
+				if (!deletedNow.get(o)) {
+					append(appendedBookIds[o], appendedTitles[o], appendedAuthorIds[o], appendedAuthorNames[o]);
+				}
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void append(long bookId, String title, long authorId, String authorName) {
+		String safeTitle = title == null ? "" : title;
+		String safeName = authorName == null ? "" : authorName;
+		int previous = ordinals.get(bookId);
+		if (previous != LongIntMap.MISSING) {
+			markDeleted(previous);
+		}
+		if (size == bookIds.length) {
+			int capacity = size + (size >> 1);
+			bookIds = Arrays.copyOf(bookIds, capacity);
+			authorIds = Arrays.copyOf(authorIds, capacity);
+			titles = Arrays.copyOf(titles, capacity);
+			authorNames = Arrays.copyOf(authorNames, capacity);
+		}
+		int ordinal = size++;
+		bookIds[ordinal] = bookId;
+		authorIds[ordinal] = authorId;
+		titles[ordinal] = safeTitle;
+		String name = names.get(safeName);
+		if (name == null) {
+			name = safeName;
+			names.put(name, name);
+			textChars += name.length();
+		}
+		authorNames[ordinal] = name;
+		textChars += safeTitle.length();
+		ordinals.put(bookId, ordinal);
+		for (String term : terms(safeTitle, name)) {
+			delta.computeIfAbsent(term, t -> new IntList()).add(ordinal);
+			deltaPostings++;
+		}
+	}
+
+	private void markDeleted(int ordinal) {
+		if (!deleted.get(ordinal)) {
+			deleted.set(ordinal);
+			deletedCount++;
+		}
+	}
+
+	/**
+	 * Compacts in the writing thread once a write has left too much behind,
+	 * unless another thread is already at it
+	 */
+	private void compactIfNeeded() {
+		if (needsCompaction() && compaction.tryLock()) {
+			try {
+				if (needsCompaction()) {
+					rebuild();
+				}
+			} finally {
+				compaction.unlock();
+			}
+		}
+	}
+
+	private boolean needsCompaction() {
+		lock.readLock().lock();
+		try {
+			int threshold = Math.max(MIN_COMPACTION, size / 4);
+			return deltaPostings > Math.max(MIN_COMPACTION, postings.length / 4) || deletedCount > threshold;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private List<Integer> ordinalsOfAuthor(long authorId) {
+		List<Integer> found = new ArrayList<>();
+		for (int o = deleted.nextClearBit(0); o < size; o = deleted.nextClearBit(o + 1)) {
+			if (authorIds[o] == authorId) {
+				found.add(o);
+			}
+		}
+		return found;
+	}
+
+	private BitSet matching(String prefix) {
+		BitSet matching = new BitSet(size);
+		int from = Arrays.binarySearch(terms, prefix);
+		for (int t = from < 0 ? -from - 1 : from; t < terms.length && terms[t].startsWith(prefix); t++) {
+			for (int p = starts[t]; p < starts[t + 1]; p++) {
+				matching.set(postings[p]);
+			}
+		}
+		for (Map.Entry<String, IntList> entry : delta.tailMap(prefix, true).entrySet()) {
+			if (!entry.getKey().startsWith(prefix)) {
+				break;
+			}
+			IntList list = entry.getValue();
+			for (int i = 0; i < list.size; i++) {
+				matching.set(list.values[i]);
+			}
+		}
+		return matching;
+	}
+
+	private boolean better(int a, int b, String typed) {
+		boolean aStarts = titles[a].regionMatches(true, 0, typed, 0, typed.length());
+		boolean bStarts = titles[b].regionMatches(true, 0, typed, 0, typed.length());
+		if (aStarts != bStarts) {
+			return aStarts;
+		}
+		if (titles[a].length() != titles[b].length()) {
+			return titles[a].length() < titles[b].length();
+		}
+		return bookIds[a] < bookIds[b];
+	}
+
+	private static Set<String> terms(String title, String authorName) {
+		Set<String> terms = new LinkedHashSet<>(words(title));
+		terms.addAll(words(authorName));
+		return terms;
+	}
+
+	/**
+	 * Lower-case words without accents, so "Émile" is found by "emi"
+	 */
+	static List<String> words(String text) {
+		if (text == null || text.isBlank()) {
+			return List.of();
+		}
+		String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+				.toLowerCase(Locale.ROOT);
+		List<String> words = new ArrayList<>();
+		for (String word : NON_WORD.split(folded)) {
+			if (!word.isEmpty()) {
+				words.add(word);
+			}
+		}
+		return words;
+	}
+
+	private static final class IntList {
+
+		private int[] values = new int[2];
+		private int size;
+
+		void add(int value) {
+			if (size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+			}
+			values[size++] = value;
+		}
+	}
+}
@@ -0,0 +1,216 @@
+package com.optahaul.mas_java_poc.service;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.optahaul.mas_java_poc.dto.BookSuggestion;
+import com.optahaul.mas_java_poc.multitenancy.TenantChangedEvent;
+import com.optahaul.mas_java_poc.multitenancy.TenantContext;
+import com.optahaul.mas_java_poc.repository.BookRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.persistence.Tuple;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Title and author-name suggestions served from a {@link TypeaheadIndex} per
+ * tenant, built on the tenant's first request and then kept current from
+ * {@link CatalogChangedEvent}s after each commit rather than rebuilt. Indexes
+ * of tenants idle for typeahead.inactive-ttl are dropped, and the least used
+ * ones go first when together they would outgrow typeahead.max-memory.
+ * <p>
+ * The events only reach the node that made the change. Each index keeps the
+ * table versions it was built from, raised as {@link CatalogVersionService}
+ * raises them for every change applied to it, so they only fall behind the
+ * database's when another node wrote. Every typeahead.refresh-interval-ms,
+ * indexes that fell behind are rebuilt in the background, the old index
+ * serving meanwhile, so writes made on other nodes show up within about twice
+ * that interval
+ */
+@Slf4j
+@Service
+public class TypeaheadService {
+
+	private static final String NO_TENANT = "#none#";
+
+	private final BookRepository bookRepository;
+	private final CatalogVersionService catalogVersionService;
+	private final TransactionTemplate readOnly;
+	private final Cache<String, LoadedIndex> indexes;
+	private final int maxSuggestions;
+
+	@Autowired
+	public TypeaheadService(
+			BookRepository bookRepository,
+			CatalogVersionService catalogVersionService,
+			PlatformTransactionManager transactionManager,
+			ObjectProvider<MeterRegistry> meterRegistry,
+			@Value("${typeahead.max-memory:256MB}") DataSize maxMemory,
+			@Value("${typeahead.inactive-ttl:30m}") Duration inactiveTtl,
+			@Value("${typeahead.max-suggestions:20}") int maxSuggestions) {
+		this(bookRepository, catalogVersionService, transactionManager, meterRegistry, maxMemory, inactiveTtl,
+				maxSuggestions, Ticker.systemTicker());
+	}
+
+	TypeaheadService(BookRepository bookRepository, CatalogVersionService catalogVersionService,
+			PlatformTransactionManager transactionManager, ObjectProvider<MeterRegistry> meterRegistry,
+			DataSize maxMemory, Duration inactiveTtl, int maxSuggestions, Ticker ticker) {
+		this.bookRepository = bookRepository;
+		this.catalogVersionService = catalogVersionService;
+		this.readOnly = new TransactionTemplate(transactionManager);
+		this.readOnly.setReadOnly(true);
+		this.maxSuggestions = Math.max(1, maxSuggestions);
+		this.indexes = Caffeine.newBuilder()
+				.maximumWeight(Math.max(1, maxMemory.toKilobytes()))
+				.weigher((String tenantId, LoadedIndex loaded) -> kilobytes(loaded.index()))
+				.expireAfterAccess(inactiveTtl)
+				.ticker(ticker)
+				.recordStats()
+				.build();
+
+		meterRegistry.ifAvailable(registry -> CaffeineCacheMetrics.monitor(registry, indexes, "typeahead"));
+	}
+
+	/**
+	 * Up to {@code limit} books with a title or author word starting with each
+	 * word of {@code text}
+	 */
+	public List<BookSuggestion> suggest(String text, int limit) {
+		if (text == null || text.isBlank()) {
+			return List.of();
+		}
+		return indexes.get(key(TenantContext.getCurrentTenant()), this::load).index()
+				.suggest(text, Math.min(Math.max(1, limit), maxSuggestions));
+	}
+
+	@TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+	public void onCatalogChanged(CatalogChangedEvent event) {
+		String key = key(event.tenantId());
+		if (event.change() == CatalogChangedEvent.Change.RELOADED) {
+			indexes.invalidate(key);
+			return;
+		}
+		// Only indexes already built follow changes; others are loaded with them on first use.
+		// Put back through the map, so the cache weighs the index again and sees the raised versions
+		indexes.asMap().computeIfPresent(key, (tenantId, loaded) -> {
+			TypeaheadIndex index = loaded.index();
+			switch (event.change()) {
+				case BOOK_SAVED -> index.put(event.bookId(), event.title(), event.authorId(), event.authorName());
+				case BOOK_DELETED -> index.remove(event.bookId());
+				case AUTHOR_SAVED -> index.renameAuthor(event.authorId(), event.authorName());
+				case AUTHOR_DELETED -> index.removeAuthor(event.authorId());
+				default -> {
+				}
+			}
+			return loaded.raise(CatalogVersionService.tablesRaisedBy(event.change()));
+		});
+	}
+
+	/**
+	 * A relocated, suspended or deleted tenant is loaded afresh if used again
+	 */
+	@EventListener
+	public void onTenantChanged(TenantChangedEvent event) {
+		indexes.invalidate(key(event.tenantId()));
+	}
+
+	/**
+	 * Rebuilds the indexes whose books or authors were written on another node
+	 * since they were built; each in its tenant, one at a time
+	 */
+	@Scheduled(fixedDelayString = "${typeahead.refresh-interval-ms:60000}",
+			initialDelayString = "${typeahead.refresh-interval-ms:60000}")
+	public void refreshChanged() {
+		for (Map.Entry<String, LoadedIndex> entry : List.copyOf(indexes.asMap().entrySet())) {
+			String key = entry.getKey();
+			try {
+				Map<String, Long> versions = asTenant(key, catalogVersionService::tableVersions);
+				if (!versions.equals(entry.getValue().versions())) {
+					LoadedIndex fresh = asTenant(key, () -> load(key));
+					// Unless it was dropped or replaced meanwhile
+					indexes.asMap().replace(key, entry.getValue(), fresh);
+				}
+			} catch (RuntimeException e) {
+				log.warn("Could not refresh typeahead index of tenant {}: {}", key, e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Tenants with an index, after pending evictions
+	 */
+	Set<String> indexedTenants() {
+		indexes.cleanUp();
+		return Set.copyOf(indexes.asMap().keySet());
+	}
+
+	long indexedKilobytes() {
+		indexes.cleanUp();
+		return indexes.policy().eviction().orElseThrow().weightedSize().orElseThrow();
+	}
+
+	private LoadedIndex load(String key) {
+		long started = System.nanoTime();
+		LoadedIndex loaded = readOnly.execute(status -> {
+			// Read first: rows can then only be newer than the version, and a refresh never misses a write
+			Map<String, Long> versions = catalogVersionService.tableVersions();
+			TypeaheadIndex index = new TypeaheadIndex();
+			try (Stream<Tuple> rows = bookRepository.streamAllForExport()) {
+				rows.forEach(row -> index.load(row.get("id", Long.class), row.get("title", String.class),
+						row.get("authorId", Long.class), row.get("authorName", String.class)));
+			}
+			index.compact();
+			return new LoadedIndex(index, versions);
+		});
+		log.info("Built typeahead index of {} books for tenant {} in {} ms ({} KB)", loaded.index().size(), key,
+				(System.nanoTime() - started) / 1_000_000, kilobytes(loaded.index()));
+		return loaded;
+	}
+
+	private static <T> T asTenant(String key, TenantContext.TenantCall<T, RuntimeException> call) {
+		return NO_TENANT.equals(key) ? call.call() : TenantContext.callAs(key, call);
+	}
+
+	private static String key(String tenantId) {
+		return tenantId == null ? NO_TENANT : tenantId;
+	}
+
+	private static int kilobytes(TypeaheadIndex index) {
+		return (int) Math.min(Integer.MAX_VALUE, index.estimatedBytes() / 1024 + 1);
+	}
+
+	/**
+	 * An index and the table versions of the catalog it reflects
+	 */
+	private record LoadedIndex(TypeaheadIndex index, Map<String, Long> versions) {
+
+		LoadedIndex raise(List<String> tables) {
+			if (tables.isEmpty()) {
+				return this;
+			}
+			Map<String, Long> raised = new HashMap<>(versions);
+			tables.forEach(table -> raised.merge(table, 1L, Long::sum));
+			return new LoadedIndex(index, raised);
+		}
+	}
+}
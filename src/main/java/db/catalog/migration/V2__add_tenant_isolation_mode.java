@@ -0,0 +1,26 @@
+package db.catalog.migration;
+
+import java.sql.Statement;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+/**
+ * Adds the per-tenant isolation mode. Existing tenants keep their own database
+ */
+public class V2__add_tenant_isolation_mode extends BaseJavaMigration {
+	@Override
+	public void migrate(Context context) throws Exception {
+		try (Statement stmt = context.getConnection().createStatement()) {
+			// Hibernate's ddl update may already have added the column (nullable)
+			stmt.execute("ALTER TABLE tenants ADD COLUMN IF NOT EXISTS isolation_mode VARCHAR(20)");
+			stmt.execute("UPDATE tenants SET isolation_mode = 'DATABASE' WHERE isolation_mode IS NULL");
+			stmt.execute("ALTER TABLE tenants ALTER COLUMN isolation_mode SET DEFAULT 'DATABASE'");
+			stmt.execute("ALTER TABLE tenants ALTER COLUMN isolation_mode SET NOT NULL");
+
+			stmt.execute(
+					"ALTER TABLE tenants ADD CONSTRAINT tenants_schema_required " +
+							"CHECK (isolation_mode <> 'SCHEMA' OR db_schema IS NOT NULL)");
+		}
+	}
+}
@@ -0,0 +1,24 @@
+package db.catalog.migration;
+
+import java.sql.Statement;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+/**
+ * Ledger of the tenant migration set applied to each tenant
+ */
+public class V3__create_tenant_schema_versions extends BaseJavaMigration {
+	@Override
+	public void migrate(Context context) throws Exception {
+		try (Statement stmt = context.getConnection().createStatement()) {
+			stmt.execute(
+					"CREATE TABLE IF NOT EXISTS tenant_schema_versions (" +
+							"tenant_id VARCHAR(255) PRIMARY KEY, " +
+							"version VARCHAR(50) NOT NULL, " +
+							"checksum VARCHAR(64) NOT NULL, " +
+							"target VARCHAR(1024) NOT NULL, " +
+							"migrated_at TIMESTAMP NOT NULL)");
+		}
+	}
+}
@@ -0,0 +1,32 @@
+package db.catalog.migration;
+
+import java.sql.Statement;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+/**
+ * Tracks when each tenant row last changed so nodes can refresh their host
+ * index incrementally. The trigger also covers rows edited by hand in SQL
+ */
+public class V4__add_tenant_updated_at extends BaseJavaMigration {
+	@Override
+	public void migrate(Context context) throws Exception {
+		try (Statement stmt = context.getConnection().createStatement()) {
+			stmt.execute("ALTER TABLE tenants ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP");
+			stmt.execute("UPDATE tenants SET updated_at = CURRENT_TIMESTAMP WHERE updated_at IS NULL");
+			stmt.execute("ALTER TABLE tenants ALTER COLUMN updated_at SET DEFAULT CURRENT_TIMESTAMP");
+			stmt.execute("ALTER TABLE tenants ALTER COLUMN updated_at SET NOT NULL");
+			stmt.execute("CREATE INDEX IF NOT EXISTS idx_tenants_updated_at ON tenants(updated_at)");
+
+			stmt.execute(
+					"CREATE OR REPLACE FUNCTION tenants_touch_updated_at() RETURNS trigger AS $$ " +
+							"BEGIN NEW.updated_at := CURRENT_TIMESTAMP; RETURN NEW; END; " +
+							"$$ LANGUAGE plpgsql");
+			stmt.execute("DROP TRIGGER IF EXISTS tenants_touch_updated_at ON tenants");
+			stmt.execute(
+					"CREATE TRIGGER tenants_touch_updated_at BEFORE UPDATE ON tenants " +
+							"FOR EACH ROW EXECUTE FUNCTION tenants_touch_updated_at()");
+		}
+	}
+}
@@ -0,0 +1,51 @@
+package db.catalog.migration;
+
+import java.sql.Statement;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+/**
+ * Catalog change feed. Every insert/update/delete on tenants is appended to
+ * tenant_change_log and announced on the tenant_changes channel, so all nodes
+ * can drop their cached state for that tenant. The log lets nodes catch up on
+ * changes missed while they were not listening
+ */
+public class V5__create_tenant_change_log extends BaseJavaMigration {
+	@Override
+	public void migrate(Context context) throws Exception {
+		try (Statement stmt = context.getConnection().createStatement()) {
+			stmt.execute(
+					"CREATE TABLE IF NOT EXISTS tenant_change_log (" +
+							"seq BIGSERIAL PRIMARY KEY, " +
+							"tenant_id VARCHAR(255) NOT NULL, " +
+							"change VARCHAR(20) NOT NULL, " +
+							"changed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)");
+			stmt.execute("CREATE INDEX IF NOT EXISTS idx_tenant_change_log_changed_at ON tenant_change_log(changed_at)");
+
+			// Payload is "<seq>:<change>:<tenant_id>"; NOTIFY is only delivered on commit
+			stmt.execute(
+					"CREATE OR REPLACE FUNCTION tenants_log_change() RETURNS trigger AS $$ " +
+							"DECLARE " +
+							"  changed_tenant VARCHAR(255); " +
+							"  next_seq BIGINT; " +
+							"BEGIN " +
+							"  IF TG_OP = 'DELETE' THEN changed_tenant := OLD.tenant_id; " +
+							"  ELSE changed_tenant := NEW.tenant_id; END IF; " +
+							"  INSERT INTO tenant_change_log (tenant_id, change) VALUES (changed_tenant, TG_OP) " +
+							"    RETURNING seq INTO next_seq; " +
+							"  PERFORM pg_notify('tenant_changes', next_seq || ':' || TG_OP || ':' || changed_tenant); " +
+							"  IF TG_OP = 'UPDATE' AND OLD.tenant_id <> NEW.tenant_id THEN " +
+							"    INSERT INTO tenant_change_log (tenant_id, change) VALUES (OLD.tenant_id, 'DELETE') " +
+							"      RETURNING seq INTO next_seq; " +
+							"    PERFORM pg_notify('tenant_changes', next_seq || ':DELETE:' || OLD.tenant_id); " +
+							"  END IF; " +
+							"  RETURN NULL; " +
+							"END; $$ LANGUAGE plpgsql");
+			stmt.execute("DROP TRIGGER IF EXISTS tenants_log_change ON tenants");
+			stmt.execute(
+					"CREATE TRIGGER tenants_log_change AFTER INSERT OR UPDATE OR DELETE ON tenants " +
+							"FOR EACH ROW EXECUTE FUNCTION tenants_log_change()");
+		}
+	}
+}
@@ -0,0 +1,23 @@
+package db.catalog.migration;
+
+import java.sql.Statement;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+/**
+ * Decayed request counts per tenant, used to pick which tenants to warm up on
+ * startup
+ */
+public class V6__create_tenant_activity extends BaseJavaMigration {
+	@Override
+	public void migrate(Context context) throws Exception {
+		try (Statement stmt = context.getConnection().createStatement()) {
+			stmt.execute(
+					"CREATE TABLE IF NOT EXISTS tenant_activity (" +
+							"tenant_id VARCHAR(255) PRIMARY KEY, " +
+							"score DOUBLE PRECISION NOT NULL, " +
+							"updated_at TIMESTAMP NOT NULL)");
+		}
+	}
+}
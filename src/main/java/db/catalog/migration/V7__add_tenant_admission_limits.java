@@ -0,0 +1,40 @@
+package db.catalog.migration;
+
+import java.sql.Statement;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+/**
+ * Admission limits: defaults per tier, with optional per-tenant overrides.
+ * NULL means unlimited on a tier and "use the tier's value" on a tenant. The
+ * tiers are seeded without limits, so existing tenants are not throttled
+ * until an operator sets them
+ */
+public class V7__add_tenant_admission_limits extends BaseJavaMigration {
+	@Override
+	public void migrate(Context context) throws Exception {
+		try (Statement stmt = context.getConnection().createStatement()) {
+			stmt.execute(
+					"CREATE TABLE IF NOT EXISTS tenant_tiers (" +
+							"tier VARCHAR(50) PRIMARY KEY, " +
+							"requests_per_second DOUBLE PRECISION, " +
+							"burst INTEGER, " +
+							"max_concurrent_requests INTEGER)");
+			stmt.execute(
+					"INSERT INTO tenant_tiers (tier, requests_per_second, burst, max_concurrent_requests) VALUES " +
+							"('standard', NULL, NULL, NULL), " +
+							"('premium', NULL, NULL, NULL) " +
+							"ON CONFLICT (tier) DO NOTHING");
+
+			// Hibernate's ddl update may already have added the columns (nullable)
+			stmt.execute("ALTER TABLE tenants ADD COLUMN IF NOT EXISTS tier VARCHAR(50)");
+			stmt.execute("UPDATE tenants SET tier = 'standard' WHERE tier IS NULL");
+			stmt.execute("ALTER TABLE tenants ALTER COLUMN tier SET DEFAULT 'standard'");
+			stmt.execute("ALTER TABLE tenants ALTER COLUMN tier SET NOT NULL");
+			stmt.execute("ALTER TABLE tenants ADD COLUMN IF NOT EXISTS requests_per_second DOUBLE PRECISION");
+			stmt.execute("ALTER TABLE tenants ADD COLUMN IF NOT EXISTS burst INTEGER");
+			stmt.execute("ALTER TABLE tenants ADD COLUMN IF NOT EXISTS max_concurrent_requests INTEGER");
+		}
+	}
+}
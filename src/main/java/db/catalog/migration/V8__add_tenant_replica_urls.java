@@ -0,0 +1,19 @@
+package db.catalog.migration;
+
+import java.sql.Statement;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+/**
+ * Read replicas per tenant: comma-separated JDBC URLs, reached with the
+ * tenant's own credentials. NULL means every read goes to the primary
+ */
+public class V8__add_tenant_replica_urls extends BaseJavaMigration {
+	@Override
+	public void migrate(Context context) throws Exception {
+		try (Statement stmt = context.getConnection().createStatement()) {
+			stmt.execute("ALTER TABLE tenants ADD COLUMN IF NOT EXISTS replica_db_urls TEXT");
+		}
+	}
+}
@@ -0,0 +1,32 @@
+package db.catalog.migration;
+
+import java.sql.Statement;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+/**
+ * Progress of tenant relocations, one row per tenant (its latest move), so
+ * every node can report it and a cancel reaches whichever node runs it
+ */
+public class V9__create_tenant_relocations extends BaseJavaMigration {
+	@Override
+	public void migrate(Context context) throws Exception {
+		try (Statement stmt = context.getConnection().createStatement()) {
+			stmt.execute(
+					"CREATE TABLE IF NOT EXISTS tenant_relocations (" +
+							"tenant_id VARCHAR(255) PRIMARY KEY, " +
+							"source_db_url VARCHAR(255) NOT NULL, " +
+							"target_db_url VARCHAR(255) NOT NULL, " +
+							"phase VARCHAR(20) NOT NULL, " +
+							"detail TEXT, " +
+							"tables_copied INTEGER NOT NULL DEFAULT 0, " +
+							"tables_total INTEGER NOT NULL DEFAULT 0, " +
+							"lag_bytes BIGINT, " +
+							"cancel_requested BOOLEAN NOT NULL DEFAULT FALSE, " +
+							"started_at TIMESTAMP NOT NULL, " +
+							"updated_at TIMESTAMP NOT NULL, " +
+							"finished_at TIMESTAMP)");
+		}
+	}
+}
@@ -0,0 +1,36 @@
+package db.migration;
+
+import java.sql.Statement;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+/**
+ * Full-text and trigram search. Books and authors get stored tsvector columns
+ * kept up to date by PostgreSQL, with GIN indexes; ISBNs are indexed without
+ * hyphens. Trigram indexes on upper(title) and upper(name) serve both fuzzy
+ * matching and the case-insensitive substring searches
+ */
+public class V5__add_search_indexes extends BaseJavaMigration {
+	@Override
+	public void migrate(Context context) throws Exception {
+		try (Statement stmt = context.getConnection().createStatement()) {
+			stmt.execute("CREATE EXTENSION IF NOT EXISTS pg_trgm");
+
+			stmt.execute("ALTER TABLE books ADD COLUMN IF NOT EXISTS search_vector tsvector GENERATED ALWAYS AS ("
+					+ "setweight(to_tsvector('english', coalesce(title, '')), 'A') || "
+					+ "setweight(to_tsvector('simple', "
+					+ "regexp_replace(coalesce(isbn, ''), '[^0-9Xx]', '', 'g')), 'A') || "
+					+ "setweight(to_tsvector('english', coalesce(genre, '')), 'C')) STORED");
+			stmt.execute("CREATE INDEX IF NOT EXISTS idx_books_search_vector ON books USING gin (search_vector)");
+			stmt.execute("CREATE INDEX IF NOT EXISTS idx_books_title_trgm "
+					+ "ON books USING gin (upper(title) gin_trgm_ops)");
+
+			stmt.execute("ALTER TABLE authors ADD COLUMN IF NOT EXISTS search_vector tsvector GENERATED ALWAYS AS ("
+					+ "to_tsvector('simple', coalesce(name, ''))) STORED");
+			stmt.execute("CREATE INDEX IF NOT EXISTS idx_authors_search_vector ON authors USING gin (search_vector)");
+			stmt.execute("CREATE INDEX IF NOT EXISTS idx_authors_name_trgm "
+					+ "ON authors USING gin (upper(name) gin_trgm_ops)");
+		}
+	}
+}
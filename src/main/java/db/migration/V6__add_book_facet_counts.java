@@ -0,0 +1,31 @@
+package db.migration;
+
+import java.sql.Statement;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+/**
+ * Book counts per genre, language and publication decade, for the facets
+ * endpoint. Filled here from the existing books; from then on the
+ * application adjusts them with every book it writes. Missing values are ''
+ * and decade -1, as they are part of the key
+ */
+public class V6__add_book_facet_counts extends BaseJavaMigration {
+	@Override
+	public void migrate(Context context) throws Exception {
+		try (Statement stmt = context.getConnection().createStatement()) {
+			stmt.execute("CREATE TABLE IF NOT EXISTS book_facet_counts (" +
+					"genre VARCHAR(100) NOT NULL, " +
+					"language VARCHAR(50) NOT NULL, " +
+					"decade INTEGER NOT NULL, " +
+					"book_count BIGINT NOT NULL, " +
+					"PRIMARY KEY (genre, language, decade))");
+			stmt.execute("INSERT INTO book_facet_counts (genre, language, decade, book_count) " +
+					"SELECT coalesce(genre, ''), coalesce(language, ''), " +
+					"coalesce((floor(extract(year FROM publication_date) / 10) * 10)::int, -1), count(*) " +
+					"FROM books GROUP BY 1, 2, 3 " +
+					"ON CONFLICT (genre, language, decade) DO NOTHING");
+		}
+	}
+}
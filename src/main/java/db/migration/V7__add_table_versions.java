@@ -0,0 +1,25 @@
+package db.migration;
+
+import java.sql.Statement;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+/**
+ * A version number per catalog table, raised by every transaction that writes
+ * the table; list responses derive their ETags from it
+ */
+public class V7__add_table_versions extends BaseJavaMigration {
+	@Override
+	public void migrate(Context context) throws Exception {
+		try (Statement stmt = context.getConnection().createStatement()) {
+			stmt.execute("CREATE TABLE IF NOT EXISTS table_versions (" +
+					"table_name VARCHAR(64) PRIMARY KEY, " +
+					"version BIGINT NOT NULL, " +
+					"updated_at TIMESTAMP NOT NULL)");
+			stmt.execute("INSERT INTO table_versions (table_name, version, updated_at) " +
+					"VALUES ('books', 1, now()), ('authors', 1, now()) " +
+					"ON CONFLICT (table_name) DO NOTHING");
+		}
+	}
+}
@@ -0,0 +1,245 @@
+package com.optahaul.mas_java_poc.benchmark;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.quartz.simpl.SimpleThreadPool;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.quartz.SchedulerFactoryBean;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.optahaul.mas_java_poc.MasJavaPocApplication;
+import com.optahaul.mas_java_poc.config.AsyncConfig;
+import com.optahaul.mas_java_poc.config.QuartzConfig;
+import com.optahaul.mas_java_poc.multitenancy.TenantContext;
+
+import jakarta.servlet.Filter;
+
+/**
+ * Throughput of the application's own executors with platform threads and with
+ * spring.threads.virtual.enabled=true, for work that mostly waits on I/O:
+ * <ul>
+ * <li>the {@code @Async} executors of {@link AsyncConfig}, submitted to as a
+ * request's tenant so the task decorator has to carry it over</li>
+ * <li>the Quartz job pool: Quartz's SimpleThreadPool of threadCount workers,
+ * or the virtual-thread executor {@link QuartzConfig} installs instead</li>
+ * <li>the web tier: the application started with the test profile on a random
+ * port, its Tomcat connector serving GET /public/api/books</li>
+ * </ul>
+ * Every task blocks for a simulated database round trip; for the web tier a
+ * filter in front of the controller does the waiting. Tasks the platform
+ * {@code @Async} pools refuse once their queue is full are counted as rejected,
+ * not retried. Not a unit test; run with
+ *
+ * <pre>
+ * mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.optahaul.mas_java_poc.benchmark.ExecutorThroughputBenchmark
+ * </pre>
+ */
+public class ExecutorThroughputBenchmark {
+
+	private static final long IO_MILLIS = 20;
+	private static final int REQUESTS_PER_CLIENT = 20;
+	// Around and beyond the taskExecutor's 10 threads plus 100 queued tasks
+	private static final int[] TASK_CONCURRENCY = { 10, 110, 500 };
+	// Around and beyond Tomcat's 200 worker threads
+	private static final int[] WEB_CONCURRENCY = { 200, 1_000 };
+
+	public static void main(String[] args) throws Exception {
+		// Devtools would restart the application, and with it this method, in a new class loader
+		System.setProperty("spring.devtools.restart.enabled", "false");
+		int quartzThreads = Integer.parseInt(PropertiesLoaderUtils
+				.loadProperties(new ClassPathResource("application.properties"))
+				.getProperty("spring.quartz.properties.org.quartz.threadPool.threadCount", "10"));
+
+		System.out.printf("%-9s %-24s %12s %12s %12s %10s %8s%n", "threads", "executor", "concurrency",
+				"requests/s", "elapsed ms", "rejected", "failed");
+		for (boolean virtual : new boolean[] { false, true }) {
+			AsyncConfig asyncConfig = new AsyncConfig();
+			ReflectionTestUtils.setField(asyncConfig, "virtualThreads", virtual);
+			for (int concurrency : TASK_CONCURRENCY) {
+				runExecutor(virtual, "taskExecutor", asyncConfig.taskExecutor(), concurrency);
+				runExecutor(virtual, "longRunningTaskExecutor", asyncConfig.longRunningTaskExecutor(), concurrency);
+				runQuartz(virtual, quartzThreads, concurrency);
+			}
+			runWeb(virtual);
+		}
+	}
+
+	private static void runExecutor(boolean virtual, String name, Executor executor, int concurrency)
+			throws Exception {
+		try {
+			// The decorator binds the submitting request's tenant in the task
+			report(virtual, name, concurrency, run(concurrency, (tenantId, done) -> TenantContext.runAs(tenantId,
+					() -> executor.execute(() -> done.accept(ioBoundWork(tenantId))))));
+		} finally {
+			shutdown(executor);
+		}
+	}
+
+	private static void runQuartz(boolean virtual, int threadCount, int concurrency) throws Exception {
+		// Jobs bind their tenant themselves, as TenantAwareJob does
+		if (virtual) {
+			SchedulerFactoryBean schedulerFactory = new SchedulerFactoryBean();
+			new QuartzConfig().virtualThreadJobExecutor(threadCount).customize(schedulerFactory);
+			Executor executor = (Executor) ReflectionTestUtils.getField(schedulerFactory, "taskExecutor");
+			try {
+				report(true, "quartz", concurrency, run(concurrency, (tenantId, done) -> executor.execute(
+						() -> TenantContext.runAs(tenantId, () -> done.accept(ioBoundWork(tenantId))))));
+			} finally {
+				shutdown(executor);
+			}
+			return;
+		}
+		SimpleThreadPool pool = new SimpleThreadPool(threadCount, Thread.NORM_PRIORITY);
+		pool.setThreadNamePrefix("quartz-job-");
+		pool.initialize();
+		try {
+			// Blocks until a worker is free, as Quartz's scheduler thread does
+			report(false, "quartz", concurrency, run(concurrency, (tenantId, done) -> pool.runInThread(
+					() -> TenantContext.runAs(tenantId, () -> done.accept(ioBoundWork(tenantId))))));
+		} finally {
+			pool.shutdown(true);
+		}
+	}
+
+	private static void runWeb(boolean virtual) throws Exception {
+		try (ConfigurableApplicationContext context = new SpringApplicationBuilder(MasJavaPocApplication.class)
+				.profiles("test")
+				.initializers(applicationContext -> ((GenericApplicationContext) applicationContext)
+						.registerBean("databaseRoundTrip", FilterRegistrationBean.class,
+								ExecutorThroughputBenchmark::databaseRoundTrip))
+				// Arguments, so they win over application.properties
+				.run("--server.port=0", "--spring.threads.virtual.enabled=" + virtual,
+						"--spring.docker.compose.enabled=false", "--logging.level.root=WARN");
+				ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+				HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).executor(clients)
+						.build()) {
+			int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+			HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/public/api/books"))
+					.build();
+			Dispatcher client = (tenantId, done) -> clients.execute(() -> done.accept(ok(http, request)));
+
+			// One round to warm up the JIT and the connector before measuring
+			run(WEB_CONCURRENCY[0], client);
+			for (int concurrency : WEB_CONCURRENCY) {
+				report(virtual, "tomcat", concurrency, run(concurrency, client));
+			}
+		}
+	}
+
+	/**
+	 * Runs {@code REQUESTS_PER_CLIENT} requests for each of {@code concurrency}
+	 * clients, each waiting for its previous request before sending the next
+	 */
+	private static Result run(int concurrency, Dispatcher dispatcher) throws InterruptedException {
+		int requests = concurrency * REQUESTS_PER_CLIENT;
+		CountDownLatch done = new CountDownLatch(requests);
+		Semaphore clients = new Semaphore(concurrency);
+		AtomicInteger rejected = new AtomicInteger();
+		AtomicInteger failed = new AtomicInteger();
+		long started = System.nanoTime();
+		for (int i = 0; i < requests; i++) {
+			String tenantId = "tenant" + (i % 50);
+			clients.acquire();
+			try {
+				dispatcher.dispatch(tenantId, succeeded -> {
+					if (!succeeded) {
+						failed.incrementAndGet();
+					}
+					clients.release();
+					done.countDown();
+				});
+			} catch (TaskRejectedException e) {
+				rejected.incrementAndGet();
+				clients.release();
+				done.countDown();
+			}
+		}
+		done.await();
+		return new Result(requests, System.nanoTime() - started, rejected.get(), failed.get());
+	}
+
+	/**
+	 * The simulated database round trip; false if the task saw the wrong tenant
+	 */
+	private static boolean ioBoundWork(String tenantId) {
+		boolean sameTenant = tenantId.equals(TenantContext.getCurrentTenant());
+		sleep(IO_MILLIS);
+		return sameTenant;
+	}
+
+	private static boolean ok(HttpClient http, HttpRequest request) {
+		try {
+			return http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+		} catch (IOException e) {
+			return false;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	private static FilterRegistrationBean<Filter> databaseRoundTrip() {
+		FilterRegistrationBean<Filter> registration = new FilterRegistrationBean<>((request, response, chain) -> {
+			sleep(IO_MILLIS);
+			chain.doFilter(request, response);
+		});
+		registration.addUrlPatterns("/public/*");
+		return registration;
+	}
+
+	private static void shutdown(Executor executor) throws Exception {
+		if (executor instanceof DisposableBean disposable) {
+			disposable.destroy();
+		} else if (executor instanceof AutoCloseable closeable) {
+			closeable.close();
+		}
+	}
+
+	private static void report(boolean virtual, String executor, int concurrency, Result result) {
+		double seconds = result.elapsedNanos() / 1e9;
+		System.out.printf("%-9s %-24s %12d %12.0f %12d %10d %8d%n", virtual ? "virtual" : "platform", executor,
+				concurrency, (result.requests() - result.rejected()) / seconds,
+				TimeUnit.NANOSECONDS.toMillis(result.elapsedNanos()), result.rejected(), result.failed());
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@FunctionalInterface
+	private interface Dispatcher {
+
+		/**
+		 * Starts one task or request; {@code done} is called with whether it
+		 * succeeded. Throws TaskRejectedException if the executor refuses it
+		 */
+		void dispatch(String tenantId, Consumer<Boolean> done);
+	}
+
+	private record Result(int requests, long elapsedNanos, int rejected, int failed) {
+	}
+}
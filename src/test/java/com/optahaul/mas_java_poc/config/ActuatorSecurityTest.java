@@ -0,0 +1,45 @@
+package com.optahaul.mas_java_poc.config;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+class ActuatorSecurityTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Test
+	void health_ShouldBeOpen() throws Exception {
+		mockMvc.perform(get("/actuator/health/liveness")).andExpect(status().isOk());
+	}
+
+	@Test
+	void otherEndpoints_WithoutAuthentication_ShouldBeRefused() throws Exception {
+		mockMvc.perform(get("/actuator/metrics")).andExpect(status().isForbidden());
+	}
+
+	@Test
+	@WithMockUser(roles = "USER")
+	void otherEndpoints_ForNonAdmin_ShouldBeRefused() throws Exception {
+		mockMvc.perform(get("/actuator/metrics")).andExpect(status().isForbidden());
+	}
+
+	@Test
+	@WithMockUser(roles = "ADMIN")
+	void otherEndpoints_ForAdmin_ShouldBeServed() throws Exception {
+		mockMvc.perform(get("/actuator/metrics")).andExpect(status().isOk());
+	}
+}
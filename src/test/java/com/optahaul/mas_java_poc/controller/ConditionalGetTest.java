@@ -0,0 +1,162 @@
+package com.optahaul.mas_java_poc.controller;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.optahaul.mas_java_poc.dto.CreateAuthorRequest;
+import com.optahaul.mas_java_poc.dto.CreateBookRequest;
+import com.optahaul.mas_java_poc.repository.AuthorRepository;
+import com.optahaul.mas_java_poc.repository.BookFacetCountRepository;
+import com.optahaul.mas_java_poc.repository.BookRepository;
+import com.optahaul.mas_java_poc.repository.TableVersionRepository;
+import com.optahaul.mas_java_poc.service.AuthorService;
+import com.optahaul.mas_java_poc.service.BookService;
+
+/**
+ * Conditional GETs through the whole filter chain, Spring Security's headers
+ * included
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@WithMockUser(roles = "USER")
+class ConditionalGetTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private BookService bookService;
+
+	@Autowired
+	private AuthorService authorService;
+
+	@Autowired
+	private BookRepository bookRepository;
+
+	@Autowired
+	private AuthorRepository authorRepository;
+
+	@Autowired
+	private BookFacetCountRepository facetCountRepository;
+
+	@Autowired
+	private TableVersionRepository tableVersionRepository;
+
+	private Long authorId;
+	private Long bookId;
+
+	@BeforeEach
+	void setUp() {
+		CreateAuthorRequest author = new CreateAuthorRequest();
+		author.setName("George Orwell");
+		authorId = authorService.createAuthor(author).getId();
+		bookId = bookService.createBook(book("1984")).getId();
+	}
+
+	@AfterEach
+	void tearDown() {
+		bookRepository.deleteAll();
+		authorRepository.deleteAll();
+		facetCountRepository.deleteAll();
+		tableVersionRepository.deleteAll();
+	}
+
+	@Test
+	void getBookById_ShouldSendValidatorsThatMustBeRevalidatedPerTenant() throws Exception {
+		mockMvc.perform(get("/api/books/{id}", bookId))
+				.andExpect(status().isOk())
+				.andExpect(header().exists(HttpHeaders.ETAG))
+				.andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+				.andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"))
+				.andExpect(header().stringValues(HttpHeaders.VARY, hasItem("X-Tenant-ID")))
+				.andExpect(jsonPath("$.title").value("1984"));
+	}
+
+	@Test
+	void getBookById_WithTheCurrentETag_ShouldAnswer304WithoutABody() throws Exception {
+		// Given
+		String etag = getBook().getResponse().getHeader(HttpHeaders.ETAG);
+
+		// When / Then
+		MvcResult result = mockMvc.perform(get("/api/books/{id}", bookId).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified())
+				.andExpect(header().string(HttpHeaders.ETAG, etag))
+				.andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"))
+				.andReturn();
+		assertEquals("", result.getResponse().getContentAsString());
+	}
+
+	@Test
+	void getBookById_WithAnOutdatedETag_ShouldSendTheNewVersion() throws Exception {
+		// Given
+		String etag = getBook().getResponse().getHeader(HttpHeaders.ETAG);
+
+		// When
+		bookService.updateBook(bookId, book("Nineteen Eighty-Four"));
+
+		// Then
+		MvcResult result = mockMvc.perform(get("/api/books/{id}", bookId).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.title").value("Nineteen Eighty-Four"))
+				.andReturn();
+		assertNotEquals(etag, result.getResponse().getHeader(HttpHeaders.ETAG));
+	}
+
+	@Test
+	void getBookById_WithIfModifiedSince_ShouldCompareWithLastModified() throws Exception {
+		// Given
+		String lastModified = getBook().getResponse().getHeader(HttpHeaders.LAST_MODIFIED);
+		String anHourEarlier = DateTimeFormatter.RFC_1123_DATE_TIME.format(
+				ZonedDateTime.parse(lastModified, DateTimeFormatter.RFC_1123_DATE_TIME).minusHours(1));
+
+		// When / Then
+		mockMvc.perform(get("/api/books/{id}", bookId).header(HttpHeaders.IF_MODIFIED_SINCE, lastModified))
+				.andExpect(status().isNotModified());
+		mockMvc.perform(get("/api/books/{id}", bookId).header(HttpHeaders.IF_MODIFIED_SINCE, anHourEarlier))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	void getAllBooks_WithTheCurrentWeakETag_ShouldAnswer304() throws Exception {
+		// Given
+		String etag = mockMvc.perform(get("/api/books"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+		// When / Then
+		assertTrue(etag.startsWith("W/"));
+		mockMvc.perform(get("/api/books").header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified());
+	}
+
+	private MvcResult getBook() throws Exception {
+		return mockMvc.perform(get("/api/books/{id}", bookId)).andExpect(status().isOk()).andReturn();
+	}
+
+	private CreateBookRequest book(String title) {
+		CreateBookRequest request = new CreateBookRequest();
+		request.setTitle(title);
+		request.setAuthorId(authorId);
+		return request;
+	}
+}
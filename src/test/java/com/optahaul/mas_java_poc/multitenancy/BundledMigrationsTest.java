@@ -0,0 +1,27 @@
+package com.optahaul.mas_java_poc.multitenancy;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class BundledMigrationsTest {
+
+	@Test
+	void scan_ShouldReportHighestVersionAndStableChecksum() {
+		// When
+		BundledMigrations.MigrationSet first = BundledMigrations.scan("db/migration");
+		BundledMigrations.MigrationSet second = BundledMigrations.scan("db/migration");
+
+		// Then
+		assertEquals("7", first.version());
+		assertEquals(64, first.checksum().length());
+		assertEquals(first, second);
+	}
+
+	@Test
+	void compareVersions_ShouldCompareNumerically() {
+		assertTrue(BundledMigrations.compareVersions("10", "9") > 0);
+		assertTrue(BundledMigrations.compareVersions("1.2", "1.10") < 0);
+		assertEquals(0, BundledMigrations.compareVersions("2.0", "2"));
+	}
+}
@@ -0,0 +1,110 @@
+package com.optahaul.mas_java_poc.multitenancy;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+/**
+ * Sequence handling of {@link CatalogChangeFeed} against an H2 change log;
+ * the LISTEN side is covered by {@link CatalogChangeFeedTest}
+ */
+class CatalogChangeFeedGapsTest {
+
+	private final DriverManagerDataSource dataSource = new DriverManagerDataSource(
+			"jdbc:h2:mem:change_feed_gaps;DB_CLOSE_DELAY=-1", "sa", "");
+	private final AtomicLong clock = new AtomicLong();
+	private final List<String> published = new ArrayList<>();
+	private CatalogChangeFeed feed;
+
+	@BeforeEach
+	void setUp() throws SQLException {
+		execute("CREATE TABLE tenant_change_log (seq BIGINT PRIMARY KEY, tenant_id VARCHAR(255) NOT NULL, "
+				+ "change VARCHAR(20) NOT NULL, changed_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+		feed = new CatalogChangeFeed(dataSource, event -> {
+			if (event instanceof TenantChangedEvent changed) {
+				published.add(changed.tenantId());
+			}
+		}, "", "", "", "poll", 200, 24, Duration.ofMinutes(5).toMillis(), clock::get);
+
+		commit(1, "company1");
+		feed.catchUp();
+		published.clear();
+	}
+
+	@AfterEach
+	void tearDown() throws SQLException {
+		execute("DROP TABLE tenant_change_log");
+	}
+
+	@Test
+	void handleNotification_ForALowerSequenceCommittedLate_ShouldStillApplyIt() throws SQLException {
+		// Given: seq 3 commits while the transaction holding seq 2 is still open
+		commit(3, "company3");
+		feed.handleNotification("3:UPDATE:company3");
+		assertTrue(feed.hasGaps());
+
+		// When
+		commit(2, "company2");
+		feed.handleNotification("2:UPDATE:company2");
+
+		// Then
+		assertEquals(List.of("company3", "company2"), published);
+		assertEquals(3, feed.lastSeq());
+		assertFalse(feed.hasGaps());
+	}
+
+	@Test
+	void catchUp_ShouldReReadGapsBelowTheLastSequence() throws SQLException {
+		// Given
+		commit(4, "company4");
+		feed.catchUp();
+
+		// When: no notification, as when polling or after the LISTEN connection dropped
+		commit(3, "company3");
+		feed.catchUp();
+		feed.catchUp();
+
+		// Then
+		assertEquals(List.of("company4", "company3"), published);
+		assertTrue(feed.hasGaps());
+	}
+
+	@Test
+	void catchUp_ShouldGiveUpOnGapsAfterTheTimeout() throws SQLException {
+		// Given: seq 2 rolled back and never commits
+		commit(3, "company3");
+		feed.catchUp();
+
+		// When
+		clock.addAndGet(Duration.ofMinutes(5).toNanos());
+		feed.catchUp();
+
+		// Then
+		assertFalse(feed.hasGaps());
+		commit(2, "company2");
+		feed.catchUp();
+		assertEquals(List.of("company3"), published);
+	}
+
+	private void commit(long seq, String tenantId) throws SQLException {
+		execute("INSERT INTO tenant_change_log (seq, tenant_id, change) VALUES (" + seq + ", '" + tenantId
+				+ "', 'UPDATE')");
+	}
+
+	private void execute(String sql) throws SQLException {
+		try (Connection connection = dataSource.getConnection(); Statement stmt = connection.createStatement()) {
+			stmt.execute(sql);
+		}
+	}
+}
@@ -0,0 +1,75 @@
+package com.optahaul.mas_java_poc.multitenancy;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+/**
+ * Needs a PostgreSQL catalog, e.g.
+ * CATALOG_TEST_JDBC_URL=jdbc:postgresql://localhost:5432/catalog_db
+ */
+@EnabledIfEnvironmentVariable(named = "CATALOG_TEST_JDBC_URL", matches = ".+")
+class CatalogChangeFeedTest {
+
+	private DriverManagerDataSource dataSource;
+	private CatalogChangeFeed feed;
+	private final BlockingQueue<TenantChangedEvent> events = new LinkedBlockingQueue<>();
+
+	@BeforeEach
+	void setUp() {
+		String url = System.getenv("CATALOG_TEST_JDBC_URL");
+		String username = System.getenv().getOrDefault("CATALOG_TEST_USERNAME", "postgres");
+		String password = System.getenv().getOrDefault("CATALOG_TEST_PASSWORD", "postgres");
+		dataSource = new DriverManagerDataSource(url, username, password);
+
+		Flyway.configure()
+				.dataSource(dataSource)
+				.locations("classpath:db/catalog/migration")
+				.baselineOnMigrate(true)
+				.baselineVersion("0")
+				.table("flyway_catalog_schema_history")
+				.load()
+				.migrate();
+
+		feed = new CatalogChangeFeed(dataSource, event -> {
+			if (event instanceof TenantChangedEvent changed) {
+				events.add(changed);
+			}
+		}, url, username, password, "listen", 200, 24, 300000);
+	}
+
+	@AfterEach
+	void tearDown() {
+		feed.stop();
+	}
+
+	@Test
+	void tenantUpdate_ShouldBePublishedAsChangeEvent() throws Exception {
+		// Given
+		feed.start();
+		long startSeq = feed.lastSeq();
+
+		// When
+		try (Connection connection = dataSource.getConnection(); Statement stmt = connection.createStatement()) {
+			stmt.executeUpdate("UPDATE tenants SET company_name = company_name WHERE tenant_id = 'company1'");
+		}
+
+		// Then
+		TenantChangedEvent event = events.poll(5, TimeUnit.SECONDS);
+		assertNotNull(event);
+		assertEquals("company1", event.tenantId());
+		assertEquals(TenantChangedEvent.Change.UPDATED, event.change());
+		assertTrue(feed.lastSeq() > startSeq);
+	}
+}
@@ -0,0 +1,103 @@
+package com.optahaul.mas_java_poc.multitenancy;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+class TenantAdmissionLimiterTest {
+
+	private final AtomicLong clock = new AtomicLong();
+
+	@Test
+	void tryAcquire_ShouldAdmitBurstThenRejectWithRetryAfter() {
+		// Given - 10 requests/s, burst 4, over 2 stripes
+		TenantAdmissionLimiter limiter = new TenantAdmissionLimiter(
+				new TenantAdmissionLimiter.Limits(10.0, 4, null), 2, clock::get);
+
+		// When / Then
+		for (int i = 0; i < 4; i++) {
+			assertTrue(limiter.tryAcquire(0).admitted());
+		}
+		TenantAdmissionLimiter.Admission rejected = limiter.tryAcquire(0);
+		assertFalse(rejected.admitted());
+		assertEquals(TenantAdmissionLimiter.Reason.RATE, rejected.rejectedFor());
+		assertEquals(1, rejected.retryAfterSeconds());
+	}
+
+	@Test
+	void tryAcquire_WhenTheBurstDoesNotDivideEvenly_ShouldStillAdmitAllOfIt() {
+		// Given - burst 10 over 4 stripes: 3, 3, 2 and 2
+		TenantAdmissionLimiter limiter = new TenantAdmissionLimiter(
+				new TenantAdmissionLimiter.Limits(10.0, 10, null), 4, clock::get);
+
+		// When / Then
+		for (int i = 0; i < 10; i++) {
+			assertTrue(limiter.tryAcquire(0).admitted(), "request " + i);
+		}
+		assertFalse(limiter.tryAcquire(0).admitted());
+	}
+
+	@Test
+	void tryAcquire_ShouldRefillOverTime() {
+		// Given
+		TenantAdmissionLimiter limiter = new TenantAdmissionLimiter(
+				new TenantAdmissionLimiter.Limits(10.0, 1, null), 1, clock::get);
+		assertTrue(limiter.tryAcquire(0).admitted());
+		assertFalse(limiter.tryAcquire(0).admitted());
+
+		// When
+		clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+
+		// Then
+		assertTrue(limiter.tryAcquire(0).admitted());
+	}
+
+	@Test
+	void tryAcquire_ShouldCapRequestsInFlightAcrossStripes() {
+		// Given
+		TenantAdmissionLimiter limiter = new TenantAdmissionLimiter(
+				new TenantAdmissionLimiter.Limits(null, null, 3), 8, clock::get);
+
+		// When - every caller hashes to the same stripe
+		TenantAdmissionLimiter.Admission first = limiter.tryAcquire(5);
+		TenantAdmissionLimiter.Admission second = limiter.tryAcquire(5);
+		TenantAdmissionLimiter.Admission third = limiter.tryAcquire(5);
+		TenantAdmissionLimiter.Admission fourth = limiter.tryAcquire(5);
+
+		// Then
+		assertTrue(first.admitted() && second.admitted() && third.admitted());
+		assertEquals(TenantAdmissionLimiter.Reason.CONCURRENCY, fourth.rejectedFor());
+		assertEquals(3, limiter.inFlight());
+
+		second.release();
+		assertTrue(limiter.tryAcquire(5).admitted());
+	}
+
+	@Test
+	void tryAcquire_ShouldReturnSlotWhenRateLimited() {
+		// Given
+		TenantAdmissionLimiter limiter = new TenantAdmissionLimiter(
+				new TenantAdmissionLimiter.Limits(1.0, 1, 5), 1, clock::get);
+		limiter.tryAcquire(0).release();
+
+		// When
+		TenantAdmissionLimiter.Admission rejected = limiter.tryAcquire(0);
+
+		// Then
+		assertEquals(TenantAdmissionLimiter.Reason.RATE, rejected.rejectedFor());
+		assertEquals(0, limiter.inFlight());
+	}
+
+	@Test
+	void tryAcquire_ShouldAdmitEverythingWhenUnlimited() {
+		TenantAdmissionLimiter limiter = new TenantAdmissionLimiter(TenantAdmissionLimiter.Limits.UNLIMITED, 8,
+				clock::get);
+
+		for (int i = 0; i < 1000; i++) {
+			assertTrue(limiter.tryAcquire(i).admitted());
+		}
+	}
+}
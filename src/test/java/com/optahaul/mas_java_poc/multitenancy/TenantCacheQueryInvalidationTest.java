@@ -0,0 +1,83 @@
+package com.optahaul.mas_java_poc.multitenancy;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.mock.env.MockEnvironment;
+
+import com.optahaul.mas_java_poc.domain.Author;
+import com.optahaul.mas_java_poc.domain.Book;
+
+/**
+ * Cached queries against {@link TenantCacheRegionFactory} regions through
+ * Hibernate itself, with every region bounded to a single entry
+ */
+class TenantCacheQueryInvalidationTest {
+
+	private SessionFactory sessionFactory;
+	private Long authorId;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void setUp() {
+		TenantCacheRegionFactory regionFactory = new TenantCacheRegionFactory(new MockEnvironment(),
+				mock(ObjectProvider.class), Duration.ofMinutes(10), 1);
+		StandardServiceRegistry registry = new StandardServiceRegistryBuilder()
+				.applySetting("hibernate.connection.url", "jdbc:h2:mem:cache_invalidation;DB_CLOSE_DELAY=-1")
+				.applySetting("hibernate.connection.username", "sa")
+				.applySetting("hibernate.hbm2ddl.auto", "create-drop")
+				.applySetting("hibernate.cache.use_second_level_cache", "true")
+				.applySetting("hibernate.cache.use_query_cache", "true")
+				.applySetting("hibernate.cache.region.factory_class", regionFactory)
+				.applySetting("jakarta.persistence.sharedCache.mode", "ENABLE_SELECTIVE")
+				.build();
+		sessionFactory = new MetadataSources(registry)
+				.addAnnotatedClass(Author.class)
+				.addAnnotatedClass(Book.class)
+				.buildMetadata()
+				.buildSessionFactory();
+		authorId = sessionFactory.fromTransaction(session -> {
+			Author author = Author.builder().name("George Orwell").build();
+			session.persist(author);
+			session.persist(Book.builder().title("1984").author(author).build());
+			return author.getId();
+		});
+	}
+
+	@AfterEach
+	void tearDown() {
+		sessionFactory.close();
+	}
+
+	@Test
+	void cachedQuery_AfterItsTimestampWouldHaveBeenPushedOut_ShouldStillBeInvalidated() {
+		// Given
+		assertEquals(List.of("1984"), cachedTitles());
+		sessionFactory.inTransaction(session -> session.persist(Book.builder().title("Animal Farm")
+				.author(session.find(Author.class, authorId)).build()));
+
+		// When: a write to another table takes the timestamps region past its entry bound
+		sessionFactory.inTransaction(session -> session.find(Author.class, authorId).setName("Eric Blair"));
+
+		// Then
+		assertEquals(List.of("1984", "Animal Farm"), cachedTitles());
+	}
+
+	private List<String> cachedTitles() {
+		return sessionFactory.fromSession(session -> session
+				.createQuery("SELECT b.title FROM Book b ORDER BY b.id", String.class)
+				.setCacheable(true)
+				.getResultList());
+	}
+}
@@ -0,0 +1,104 @@
+package com.optahaul.mas_java_poc.multitenancy;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class TenantCacheRegionFactoryTest {
+
+	private SimpleMeterRegistry meterRegistry;
+	private TenantCacheRegionFactory.TenantRegionStorage storage;
+
+	@BeforeEach
+	void setUp() {
+		meterRegistry = new SimpleMeterRegistry();
+		storage = new TenantCacheRegionFactory.TenantRegionStorage("books", Duration.ofMinutes(10), 100,
+				meterRegistry);
+	}
+
+	@Test
+	void getFromCache_ShouldOnlySeeEntriesOfTheSessionTenant() {
+		// Given
+		storage.putIntoCache(1L, "company1-book", session("company1"));
+		storage.putIntoCache(1L, "company2-book", session("company2"));
+
+		// When / Then
+		assertEquals("company1-book", storage.getFromCache(1L, session("company1")));
+		assertEquals("company2-book", storage.getFromCache(1L, session("company2")));
+		assertNull(storage.getFromCache(1L, session("company3")));
+		assertNull(storage.getFromCache(1L, session(TenantHibernateSupport.NO_TENANT)));
+	}
+
+	@Test
+	void evictTenant_ShouldKeepOtherTenantsEntries() {
+		// Given
+		storage.putIntoCache(1L, "company1-book", session("company1"));
+		storage.putIntoCache(2L, "company1-other", session("company1"));
+		storage.putIntoCache(1L, "company2-book", session("company2"));
+
+		// When
+		storage.evictTenant("company1");
+
+		// Then
+		assertNull(storage.getFromCache(1L, session("company1")));
+		assertEquals("company2-book", storage.getFromCache(1L, session("company2")));
+		assertEquals(1, storage.size());
+	}
+
+	@Test
+	void getFromCache_ShouldCountHitsAndMissesPerTenant() {
+		// Given
+		storage.putIntoCache(1L, "company1-book", session("company1"));
+
+		// When
+		storage.getFromCache(1L, session("company1"));
+		storage.getFromCache(1L, session("company1"));
+		storage.getFromCache(2L, session("company1"));
+		storage.getFromCache(1L, session("company2"));
+
+		// Then
+		assertEquals(2, count("company1", "hit"));
+		assertEquals(1, count("company1", "miss"));
+		assertEquals(1, count("company2", "miss"));
+
+		storage.evictTenant("company1");
+		assertNull(meterRegistry.find("tenant.cache.requests").tag("tenant", "company1").counter());
+	}
+
+	@Test
+	void storage_ShouldBeBounded() {
+		// Given
+		TenantCacheRegionFactory.TenantRegionStorage small = new TenantCacheRegionFactory.TenantRegionStorage(
+				"books", Duration.ofMinutes(10), 10, null);
+
+		// When
+		for (long id = 0; id < 100; id++) {
+			small.putIntoCache(id, "book", session("company1"));
+		}
+
+		// Then
+		assertTrue(small.size() <= 10);
+	}
+
+	private double count(String tenantId, String result) {
+		return meterRegistry.get("tenant.cache.requests")
+				.tag("tenant", tenantId)
+				.tag("region", "books")
+				.tag("result", result)
+				.counter()
+				.count();
+	}
+
+	private static SharedSessionContractImplementor session(String tenantId) {
+		SharedSessionContractImplementor session = mock(SharedSessionContractImplementor.class);
+		when(session.getTenantIdentifier()).thenReturn(tenantId);
+		return session;
+	}
+}
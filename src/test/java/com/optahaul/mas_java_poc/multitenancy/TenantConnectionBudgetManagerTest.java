@@ -0,0 +1,77 @@
+package com.optahaul.mas_java_poc.multitenancy;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.optahaul.mas_java_poc.multitenancy.TenantConnectionBudgetManager.Allocation;
+import com.optahaul.mas_java_poc.multitenancy.TenantDataSourceRegistry.PoolDemand;
+
+class TenantConnectionBudgetManagerTest {
+
+	private TenantConnectionBudgetManager manager;
+
+	@BeforeEach
+	void setUp() {
+		manager = new TenantConnectionBudgetManager(null, 20, 1.0, 30);
+	}
+
+	@Test
+	void allocate_WhenPoolIsIdle_ShouldShrinkToSingleConnection() {
+		// Given
+		List<PoolDemand> demand = List.of(new PoolDemand("company1", 10, 0, 0, 0, 0));
+
+		// When
+		List<Allocation> allocations = manager.allocate(demand, 100);
+
+		// Then
+		Allocation allocation = allocations.get(0);
+		assertEquals(1, allocation.maximumPoolSize());
+		assertEquals(0, allocation.minimumIdle());
+	}
+
+	@Test
+	void allocate_WhenThreadsAreWaiting_ShouldGrowPastTheTemplateSize() {
+		// Given: a pool still at the size it was built with
+		List<PoolDemand> demand = List.of(new PoolDemand("company1", 10, 10, 12, 500, 0));
+
+		// When
+		List<Allocation> allocations = manager.allocate(demand, 100);
+
+		// Then
+		assertEquals(23, allocations.get(0).maximumPoolSize());
+	}
+
+	@Test
+	void allocate_ForAPoolThatKeepsWaiting_ShouldStopAtMaxPerPool() {
+		// Given
+		List<PoolDemand> demand = List.of(new PoolDemand("company1", 23, 23, 4, 500, 0));
+
+		// When
+		List<Allocation> allocations = manager.allocate(demand, 100);
+
+		// Then
+		assertEquals(30, allocations.get(0).maximumPoolSize());
+	}
+
+	@Test
+	void allocate_WhenDemandExceedsBudget_ShouldStayWithinBudget() {
+		// Given
+		List<PoolDemand> demand = List.of(
+				new PoolDemand("company1", 10, 10, 5, 500, 0),
+				new PoolDemand("company2", 10, 10, 5, 500, 0),
+				new PoolDemand("company3", 2, 0, 0, 0, 0));
+
+		// When
+		List<Allocation> allocations = manager.allocate(demand, 25);
+
+		// Then
+		int total = allocations.stream().mapToInt(Allocation::maximumPoolSize).sum();
+		assertTrue(total <= 25);
+		assertEquals(1, allocations.get(2).maximumPoolSize());
+		assertTrue(allocations.get(0).maximumPoolSize() > 1);
+	}
+}
@@ -0,0 +1,146 @@
+package com.optahaul.mas_java_poc.multitenancy;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+class TenantDataSourceRegistryTest {
+
+	private TenantDataSourceRegistry registry;
+
+	@AfterEach
+	void tearDown() {
+		if (registry != null) {
+			registry.close();
+		}
+	}
+
+	@Test
+	void getOrCreate_WhenPoolLimitReached_ShouldEvictLeastRecentlyUsed() throws InterruptedException {
+		// Given
+		registry = new TenantDataSourceRegistry(2, 100, 600000);
+		HikariDataSource first = registry.getOrCreate("company1", () -> pool(5));
+		Thread.sleep(5);
+		registry.getOrCreate("company2", () -> pool(5));
+		Thread.sleep(5);
+
+		// When
+		registry.getOrCreate("company3", () -> pool(5));
+
+		// Then
+		assertTrue(first.isClosed());
+		TenantDataSourceRegistry.PoolStats stats = registry.stats();
+		assertEquals(2, stats.openPools());
+		assertEquals(1, stats.evicted());
+	}
+
+	@Test
+	void getOrCreate_WhenConnectionBudgetReached_ShouldEvictAndCountRebuild() {
+		// Given
+		registry = new TenantDataSourceRegistry(10, 10, 600000);
+		registry.getOrCreate("company1", () -> pool(10));
+		registry.getOrCreate("company2", () -> pool(10));
+
+		// When
+		HikariDataSource reopened = registry.getOrCreate("company1", () -> pool(10));
+
+		// Then
+		assertFalse(reopened.isClosed());
+		TenantDataSourceRegistry.PoolStats stats = registry.stats();
+		assertEquals(1, stats.openPools());
+		assertEquals(10, stats.committedConnections());
+		assertEquals(1, stats.rebuilt());
+	}
+
+	@Test
+	void getOrCreate_WhenRequestsRace_ShouldBuildPoolOnce() throws Exception {
+		// Given
+		registry = new TenantDataSourceRegistry(10, 100, 600000);
+		AtomicInteger builds = new AtomicInteger();
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+
+		// When
+		List<Future<HikariDataSource>> results = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			results.add(executor.submit(() -> {
+				start.await();
+				return registry.getOrCreate("company1", () -> {
+					builds.incrementAndGet();
+					return pool(5);
+				});
+			}));
+		}
+		start.countDown();
+
+		// Then
+		HikariDataSource expected = results.get(0).get();
+		for (Future<HikariDataSource> result : results) {
+			assertSame(expected, result.get());
+		}
+		assertEquals(1, builds.get());
+		executor.shutdown();
+	}
+
+	@Test
+	void evictIdlePools_ShouldCloseUnusedPools() throws InterruptedException {
+		// Given
+		registry = new TenantDataSourceRegistry(10, 100, 1);
+		HikariDataSource dataSource = registry.getOrCreate("company1", () -> pool(5));
+		Thread.sleep(5);
+
+		// When
+		registry.evictIdlePools();
+
+		// Then
+		assertTrue(dataSource.isClosed());
+		assertEquals(0, registry.stats().openPools());
+	}
+
+	@Test
+	void getOrCreate_AfterIdleEviction_ShouldBuildAFreshPoolAndCountRebuild() throws InterruptedException {
+		// Given
+		registry = new TenantDataSourceRegistry(10, 100, 1);
+		HikariDataSource evicted = registry.getOrCreate("company1", () -> pool(5));
+		Thread.sleep(5);
+		registry.evictIdlePools();
+
+		// When
+		HikariDataSource reopened = registry.getOrCreate("company1", () -> pool(5));
+
+		// Then
+		assertNotSame(evicted, reopened);
+		assertFalse(reopened.isClosed());
+		assertEquals(1, registry.stats().rebuilt());
+	}
+
+	@Test
+	void getOrCreate_WhenFactoryFails_ShouldNotKeepEntry() {
+		// Given
+		registry = new TenantDataSourceRegistry(10, 100, 600000);
+
+		// When & Then
+		assertThrows(IllegalStateException.class, () -> registry.getOrCreate("unknown", () -> {
+			throw new IllegalStateException("Tenant not found or inactive: unknown");
+		}));
+		assertTrue(registry.snapshot().isEmpty());
+		assertEquals(0, registry.stats().opened());
+	}
+
+	private static HikariDataSource pool(int size) {
+		HikariDataSource dataSource = new HikariDataSource();
+		dataSource.setMaximumPoolSize(size);
+		return dataSource;
+	}
+}
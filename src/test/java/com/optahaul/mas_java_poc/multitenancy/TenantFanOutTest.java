@@ -0,0 +1,106 @@
+package com.optahaul.mas_java_poc.multitenancy;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+class TenantFanOutTest {
+
+	private TenantFanOut fanOut;
+
+	@BeforeEach
+	void setUp() {
+		TenantMigrationTracker tracker = new TenantMigrationTracker();
+		tracker.begin(List.of());
+		PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+		when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+		fanOut = new TenantFanOut(mock(TenantRepository.class), tracker, transactionManager, 2,
+				Duration.ofSeconds(5));
+	}
+
+	@AfterEach
+	void tearDown() {
+		fanOut.shutdown();
+	}
+
+	@Test
+	void sorted_ShouldMergePerTenantSortedResults() {
+		// Given
+		Map<String, List<Integer>> data = Map.of(
+				"company1", List.of(1, 4, 7),
+				"company2", List.of(2, 5),
+				"company3", List.of(3, 6, 8));
+
+		// When
+		List<Integer> merged;
+		try (TenantFanOut.Results<Integer> results = fanOut.query(data.keySet(), Duration.ofSeconds(5),
+				tenantId -> data.get(TenantContext.getCurrentTenant()))) {
+			merged = results.sorted(Integer::compare).map(TenantFanOut.Row::value).toList();
+		}
+
+		// Then
+		assertEquals(List.of(1, 2, 3, 4, 5, 6, 7, 8), merged);
+	}
+
+	@Test
+	void stream_WhenTenantFailsOrTimesOut_ShouldReturnPartialResults() {
+		// Given
+		List<String> tenants = List.of("company1", "broken", "slow");
+
+		// When
+		TenantFanOut.Results<String> results = fanOut.query(tenants, Duration.ofMillis(200), tenantId -> {
+			if (tenantId.equals("broken")) {
+				throw new IllegalStateException("connection refused");
+			}
+			if (tenantId.equals("slow")) {
+				Thread.sleep(5_000);
+			}
+			return List.of(tenantId + "-row");
+		});
+		Map<String, List<String>> rows = results.stream().collect(Collectors.groupingBy(TenantFanOut.Row::tenantId,
+				Collectors.mapping(TenantFanOut.Row::value, Collectors.toList())));
+
+		// Then
+		assertEquals(Map.of("company1", List.of("company1-row")), rows);
+		assertTrue(results.isPartial());
+		Map<String, TenantFanOut.Failure> failures = results.failures().stream()
+				.collect(Collectors.toMap(TenantFanOut.Failure::tenantId, failure -> failure));
+		assertEquals("connection refused", failures.get("broken").reason());
+		assertFalse(failures.get("broken").timedOut());
+		assertTrue(failures.get("slow").timedOut());
+	}
+
+	@Test
+	void query_ShouldBindTenantAndBoundConcurrency() {
+		// Given
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger peak = new AtomicInteger();
+		List<String> tenants = List.of("t1", "t2", "t3", "t4", "t5", "t6");
+
+		// When
+		long total = fanOut.query(tenants, Duration.ofSeconds(5), tenantId -> {
+			peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+			Thread.sleep(50);
+			running.decrementAndGet();
+			return List.of(tenantId.equals(TenantContext.getCurrentTenant()) ? 1L : 0L);
+		}).aggregate(Collectors.summingLong(Long::longValue));
+
+		// Then
+		assertEquals(6, total);
+		assertTrue(peak.get() <= 2);
+		assertNull(TenantContext.getCurrentTenant());
+	}
+}
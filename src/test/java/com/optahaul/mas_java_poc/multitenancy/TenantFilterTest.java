@@ -0,0 +1,198 @@
+package com.optahaul.mas_java_poc.multitenancy;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.optahaul.mas_java_poc.domain.catalog.Tenant;
+import com.optahaul.mas_java_poc.security.JwtAuthenticationFilter;
+import com.optahaul.mas_java_poc.security.JwtTokenProvider;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+class TenantFilterTest {
+
+	private final TenantResolver tenantResolver = mock(TenantResolver.class);
+	private final TenantMigrationTracker migrationTracker = new TenantMigrationTracker();
+	private final TenantAdmissionController admissionController = mock(TenantAdmissionController.class);
+	private final TenantCatalogCache catalogCache = mock(TenantCatalogCache.class);
+	private final TenantFilter filter = new TenantFilter(tenantResolver, migrationTracker,
+			mock(TenantActivityRecorder.class), admissionController, catalogCache);
+
+	@BeforeEach
+	void setUp() {
+		when(tenantResolver.isReady()).thenReturn(true);
+		when(tenantResolver.resolve(any())).thenReturn("company1");
+		when(admissionController.tryAcquire("company1"))
+				.thenReturn(new TenantAdmissionLimiter.Admission(null, -1, 0, null));
+		when(catalogCache.find("company1")).thenReturn(Optional.of(tenant("ACTIVE")));
+	}
+
+	@Test
+	void doFilter_WhileTheTenantIsMigrating_ShouldAnswer503WithRetryAfter() throws Exception {
+		// Given
+		migrationTracker.begin(List.of("company1"));
+		migrationTracker.running("company1");
+
+		// When
+		MockHttpServletResponse response = perform("GET");
+
+		// Then
+		assertEquals(503, response.getStatus());
+		assertEquals("5", response.getHeader("Retry-After"));
+		assertEquals("Tenant database is not ready", response.getErrorMessage());
+	}
+
+	@Test
+	void doFilter_AfterAFailedMigration_ShouldAnswer503WithoutRetryAfter() throws Exception {
+		// Given
+		migrationTracker.begin(List.of("company1"));
+		migrationTracker.failed("company1", "boom");
+
+		// When
+		MockHttpServletResponse response = perform("GET");
+
+		// Then
+		assertEquals(503, response.getStatus());
+		assertNull(response.getHeader("Retry-After"));
+	}
+
+	@Test
+	void doFilter_OnceMigrated_ShouldServeTheRequestAsTheTenant() throws Exception {
+		// Given
+		migrationTracker.begin(List.of("company1"));
+		migrationTracker.succeeded("company1", 1);
+		String[] tenantSeen = new String[1];
+
+		// When
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request("POST"), response,
+				new MockFilterChain(new HttpServlet() {
+					@Override
+					protected void service(HttpServletRequest req, HttpServletResponse res) {
+						tenantSeen[0] = TenantContext.getCurrentTenant();
+					}
+				}));
+
+		// Then
+		assertEquals(200, response.getStatus());
+		assertEquals("company1", tenantSeen[0]);
+	}
+
+	@Test
+	void doFilter_WhileTheTenantIsRelocating_ShouldRefuseUnsafeMethods() throws Exception {
+		// Given
+		migrationTracker.begin(List.of());
+		when(catalogCache.find("company1")).thenReturn(Optional.of(tenant("RELOCATING")));
+
+		// When
+		MockHttpServletResponse response = perform("POST");
+
+		// Then
+		assertEquals(503, response.getStatus());
+		assertEquals("5", response.getHeader("Retry-After"));
+		assertEquals("Tenant is being relocated", response.getErrorMessage());
+	}
+
+	@Test
+	void doFilter_WhileTheTenantIsRelocating_ShouldServeReads() throws Exception {
+		// Given
+		migrationTracker.begin(List.of());
+		when(catalogCache.find("company1")).thenReturn(Optional.of(tenant("RELOCATING")));
+
+		// When
+		MockHttpServletResponse response = perform("GET");
+
+		// Then
+		assertEquals(200, response.getStatus());
+	}
+
+	@Test
+	void doFilter_ForAnAdminActuatorEndpoint_ShouldBindTheTenantSoItsJwtAuthenticates() throws Exception {
+		// Given: users are read from the tenant's database, which is still migrating
+		migrationTracker.begin(List.of("company1"));
+		migrationTracker.running("company1");
+		JwtTokenProvider tokenProvider = new JwtTokenProvider();
+		ReflectionTestUtils.setField(tokenProvider, "jwtSecret",
+				"404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970");
+		ReflectionTestUtils.setField(tokenProvider, "jwtExpirationMs", 60000L);
+		String token = TenantContext.callAs("company1", () -> tokenProvider.generateTokenFromUsername("admin"));
+		UserDetailsService users = username -> {
+			if (TenantContext.getCurrentTenant() == null) {
+				throw new IllegalStateException("No tenant context set");
+			}
+			return User.withUsername(username).password("secret").roles("ADMIN").build();
+		};
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/actuator/tenantpools");
+		request.addHeader("Authorization", "Bearer " + token);
+		Authentication[] authenticated = new Authentication[1];
+
+		// When
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		try {
+			filter.doFilter(request, response, new MockFilterChain(new HttpServlet() {
+				@Override
+				protected void service(HttpServletRequest req, HttpServletResponse res) {
+					authenticated[0] = SecurityContextHolder.getContext().getAuthentication();
+				}
+			}, new JwtAuthenticationFilter(tokenProvider, users)));
+		} finally {
+			SecurityContextHolder.clearContext();
+		}
+
+		// Then
+		assertEquals(200, response.getStatus());
+		assertNotNull(authenticated[0], "the JWT should have authenticated the operator");
+		assertEquals("ROLE_ADMIN", authenticated[0].getAuthorities().iterator().next().getAuthority());
+		verify(admissionController, never()).tryAcquire(any());
+	}
+
+	@Test
+	void doFilter_ForProbes_ShouldNotResolveATenant() throws Exception {
+		// When
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(new MockHttpServletRequest("GET", "/actuator/health/readiness"), response,
+				new MockFilterChain());
+
+		// Then
+		assertEquals(200, response.getStatus());
+		verify(tenantResolver, never()).resolve(any());
+	}
+
+	private MockHttpServletResponse perform(String method) throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		MockFilterChain chain = new MockFilterChain();
+		filter.doFilter(request(method), response, chain);
+		if (response.getStatus() != 200) {
+			assertNull(chain.getRequest(), "request should not have reached the chain");
+		}
+		return response;
+	}
+
+	private static MockHttpServletRequest request(String method) {
+		return new MockHttpServletRequest(method, "/api/books");
+	}
+
+	private static Tenant tenant(String status) {
+		Tenant tenant = new Tenant();
+		tenant.setTenantId("company1");
+		tenant.setStatus(status);
+		return tenant;
+	}
+}
@@ -0,0 +1,69 @@
+package com.optahaul.mas_java_poc.multitenancy;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class TenantMigrationTrackerTest {
+
+	private final TenantMigrationTracker tracker = new TenantMigrationTracker();
+
+	@Test
+	void isReady_BeforeTheStartupRun_ShouldServeNoTenant() {
+		assertFalse(tracker.isReady("company1"));
+		assertNull(tracker.stateOf("company1"));
+	}
+
+	@Test
+	void isReady_ShouldFollowEachTenantsOwnMigration() {
+		// Given
+		tracker.begin(List.of("company1", "company2", "company3", "company4"));
+
+		// When
+		tracker.running("company1");
+		tracker.succeeded("company1", 3);
+		tracker.skipped("company2");
+		tracker.running("company3");
+		tracker.failed("company3", "relation \"books\" already exists");
+
+		// Then
+		assertTrue(tracker.isReady("company1"));
+		assertTrue(tracker.isReady("company2"));
+		assertFalse(tracker.isReady("company3"));
+		assertFalse(tracker.isReady("company4"));
+		assertEquals(TenantMigrationTracker.State.FAILED, tracker.stateOf("company3"));
+		assertEquals(TenantMigrationTracker.State.PENDING, tracker.stateOf("company4"));
+		// Tenants added after the run began are left to the routing checks
+		assertTrue(tracker.isReady("company5"));
+	}
+
+	@Test
+	void report_ShouldCountStatesAndKeepTimings() {
+		// Given
+		tracker.begin(List.of("company2", "company1", "company3"));
+		tracker.running("company1");
+		tracker.succeeded("company1", 2);
+		tracker.running("company2");
+		tracker.failed("company2", "timeout");
+
+		// When
+		tracker.finish();
+		TenantMigrationTracker.MigrationReport report = tracker.report();
+
+		// Then
+		assertEquals(3, report.total());
+		assertEquals(1, report.pending());
+		assertEquals(0, report.running());
+		assertEquals(1, report.succeeded());
+		assertEquals(1, report.failed());
+		assertNotNull(report.finishedAt());
+		assertEquals(List.of("company1", "company2", "company3"),
+				report.tenants().stream().map(TenantMigrationTracker.TenantMigration::tenantId).toList());
+		TenantMigrationTracker.TenantMigration succeeded = report.tenants().get(0);
+		assertEquals(2, succeeded.migrationsApplied());
+		assertNotNull(succeeded.durationMillis());
+		assertEquals("timeout", report.tenants().get(1).error());
+	}
+}
@@ -0,0 +1,74 @@
+package com.optahaul.mas_java_poc.multitenancy;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class TenantPoolMetricsTest {
+
+	@Test
+	void create_ShouldCountSlowReleasesPerTenantAndRemoveThemOnClose() {
+		// Given
+		MeterRegistry registry = new SimpleMeterRegistry();
+		HikariConfig template = new HikariConfig();
+		template.setLeakDetectionThreshold(60_000);
+		TenantPoolMetrics metrics = new TenantPoolMetrics(providerOf(registry), template);
+
+		// When
+		IMetricsTracker tracker = metrics.create("tenant-company1", stats());
+		tracker.recordConnectionUsageMillis(5);
+		tracker.recordConnectionUsageMillis(90_000);
+
+		// Then
+		Counter slowReleases = registry.find("tenant.connections.slow-releases").tag("tenant", "company1").counter();
+		assertNotNull(slowReleases);
+		assertEquals(1, slowReleases.count());
+
+		tracker.close();
+		assertNull(registry.find("tenant.connections.slow-releases").counter());
+	}
+
+	@Test
+	void tenantTagFilter_ShouldTagOnlyDatabaseTenantPools() {
+		// Given
+		MeterRegistry registry = new SimpleMeterRegistry();
+		registry.config().meterFilter(TenantPoolMetrics.tenantTagFilter());
+		TenantPoolMetrics metrics = new TenantPoolMetrics(providerOf(registry), new HikariConfig());
+
+		// When
+		metrics.create("tenant-company1", stats());
+		metrics.create("shared-1a2b", stats());
+
+		// Then
+		Gauge tenantPool = registry.find("hikaricp.connections.active").tag("pool", "tenant-company1").gauge();
+		Gauge sharedPool = registry.find("hikaricp.connections.active").tag("pool", "shared-1a2b").gauge();
+		assertEquals("company1", tenantPool.getId().getTag("tenant"));
+		assertNull(sharedPool.getId().getTag("tenant"));
+	}
+
+	@SuppressWarnings("unchecked")
+	private static ObjectProvider<MeterRegistry> providerOf(MeterRegistry registry) {
+		ObjectProvider<MeterRegistry> provider = mock(ObjectProvider.class);
+		when(provider.getIfAvailable()).thenReturn(registry);
+		return provider;
+	}
+
+	private static PoolStats stats() {
+		return new PoolStats(0) {
+			@Override
+			protected void update() {
+			}
+		};
+	}
+}
@@ -0,0 +1,305 @@
+package com.optahaul.mas_java_poc.multitenancy;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.mockito.InOrder;
+
+import com.optahaul.mas_java_poc.domain.catalog.Tenant;
+import com.optahaul.mas_java_poc.domain.catalog.TenantRelocation;
+import com.optahaul.mas_java_poc.service.TenantService;
+
+class TenantRelocatorTest {
+
+	private static final String SOURCE_URL = "jdbc:postgresql://db1/tenant_company1";
+	private static final String TARGET_URL = "jdbc:postgresql://db2/tenant_company1";
+	private static final String FENCE = "ALTER DATABASE tenant_company1 SET default_transaction_read_only = on";
+	private static final String LIFT = "ALTER DATABASE tenant_company1 RESET default_transaction_read_only";
+	private static final TenantRelocator.RelocationRequest REQUEST = new TenantRelocator.RelocationRequest(
+			TARGET_URL, null, null, null, null);
+
+	private final TenantRepository tenantRepository = mock(TenantRepository.class);
+	private final TenantRelocationRepository relocationRepository = mock(TenantRelocationRepository.class);
+	private final TenantService tenantService = mock(TenantService.class);
+	private final TenantFlywayMigrator flywayMigrator = mock(TenantFlywayMigrator.class);
+	private final FakeDatabase source = new FakeDatabase();
+	private final FakeDatabase target = new FakeDatabase();
+	private final List<String> phases = new CopyOnWriteArrayList<>();
+
+	@BeforeEach
+	void setUp() {
+		Tenant tenant = new Tenant();
+		tenant.setTenantId("company1");
+		tenant.setStatus("ACTIVE");
+		tenant.setDbUrl(SOURCE_URL);
+		tenant.setDbUsername("tenant_user");
+		tenant.setDbPassword("secret");
+		when(tenantRepository.findByTenantId("company1")).thenReturn(Optional.of(tenant));
+		when(tenantRepository.findAll()).thenReturn(List.of(tenant));
+		when(relocationRepository.claim(eq("company1"), eq(SOURCE_URL), eq(TARGET_URL), anyDouble())).thenReturn(1);
+		when(relocationRepository.findById("company1")).thenReturn(Optional.of(new TenantRelocation()));
+		when(relocationRepository.isCancelRequested("company1")).thenReturn(false);
+		when(relocationRepository.updateProgress(eq("company1"), anyString(), any(), anyInt(), anyInt(), anyLong(),
+				anyBoolean())).thenAnswer(invocation -> {
+					String phase = invocation.getArgument(1);
+					if (phases.isEmpty() || !phases.get(phases.size() - 1).equals(phase)) {
+						phases.add(phase);
+					}
+					return 1;
+				});
+
+		source.answer("FROM pg_tables", row("public.authors"), row("public.books"));
+		source.answer("pg_wal_lsn_diff", row(0L));
+		source.answer("pg_stat_activity", row(0L));
+		source.answer("pg_current_wal_lsn()::text", row("0/16B3748"));
+		source.answer("format('%I', current_database())", row("tenant_company1"));
+		source.answer("confirmed_flush_lsn >=", row(1L));
+		source.answer("pg_sequences", row("public.books_id_seq", 42L));
+		target.answer("pg_subscription_rel", row(2L));
+	}
+
+	@Test
+	void start_ShouldWalkThePhasesAndSwitchTheTenantWhileWritesArePaused() throws Exception {
+		// When
+		relocator(Duration.ofSeconds(5)).start("company1", REQUEST);
+
+		// Then
+		awaitFinished("DONE");
+		assertEquals(List.of("PREPARING", "COPYING", "CATCHING_UP", "PAUSING_WRITES", "DRAINING", "SWITCHING",
+				"DONE"), phases);
+		verify(flywayMigrator).migrateTenantDatabase(argThat(t -> TARGET_URL.equals(t.getDbUrl())));
+		InOrder inOrder = inOrder(tenantService);
+		inOrder.verify(tenantService).pauseWrites("company1");
+		inOrder.verify(tenantService).completeRelocation("company1", TARGET_URL, "tenant_user", "secret", null);
+		verify(tenantService, never()).resumeWrites(any());
+		assertTrue(source.executed.contains("CREATE PUBLICATION relocate_company1 FOR TABLE public.authors, "
+				+ "public.books"));
+		assertTrue(target.executed.contains("SELECT setval(?::regclass, ?)"));
+		assertEquals("DROP SUBSCRIPTION relocate_company1", target.executed.get(target.executed.size() - 1));
+		assertEquals("DROP PUBLICATION relocate_company1", source.executed.get(source.executed.size() - 1));
+		// Fenced before the drain's LSN is taken, and left read-only after the switch
+		int fence = source.executed.indexOf(FENCE);
+		assertTrue(fence >= 0);
+		assertTrue(source.executed.get(fence + 1).startsWith("SELECT pg_terminate_backend(pid)"));
+		assertTrue(fence < source.executed.indexOf("SELECT pg_current_wal_lsn()::text"));
+		assertFalse(source.executed.contains(LIFT));
+	}
+
+	@Test
+	void start_WhenCancelledBeforeTheSwitch_ShouldDropReplicationWithoutPausingWrites() throws Exception {
+		// Given
+		when(relocationRepository.isCancelRequested("company1")).thenReturn(true);
+
+		// When
+		relocator(Duration.ofSeconds(5)).start("company1", REQUEST);
+
+		// Then
+		awaitFinished("CANCELLED");
+		assertEquals(List.of("PREPARING", "COPYING", "CATCHING_UP", "CANCELLED"), phases);
+		verify(tenantService, never()).pauseWrites(any());
+		verify(tenantService, never()).completeRelocation(any(), any(), any(), any(), any());
+		assertEquals("DROP SUBSCRIPTION IF EXISTS relocate_company1", target.executed.get(target.executed.size() - 1));
+		assertTrue(source.executed.get(source.executed.size() - 1).startsWith("SELECT pg_drop_replication_slot"));
+	}
+
+	@Test
+	void start_WhenWritesDoNotDrainInTime_ShouldFailAndResumeWritesOnTheSource() throws Exception {
+		// Given: a write transaction that never finishes
+		source.answer("pg_stat_activity", row(1L));
+
+		// When
+		relocator(Duration.ofMillis(50)).start("company1", REQUEST);
+
+		// Then
+		awaitFinished("FAILED");
+		assertEquals(List.of("PREPARING", "COPYING", "CATCHING_UP", "PAUSING_WRITES", "FAILED"), phases);
+		InOrder inOrder = inOrder(tenantService);
+		inOrder.verify(tenantService).pauseWrites("company1");
+		inOrder.verify(tenantService).resumeWrites("company1");
+		verify(tenantService, never()).completeRelocation(any(), any(), any(), any(), any());
+		assertEquals("DROP SUBSCRIPTION IF EXISTS relocate_company1", target.executed.get(target.executed.size() - 1));
+	}
+
+	@Test
+	void start_WhenTheDrainFailsAfterTheFence_ShouldLiftItBeforeResumingWrites() throws Exception {
+		// Given: the target never confirms the fence LSN
+		source.answer("confirmed_flush_lsn >=", row(0L));
+		doAnswer(invocation -> source.executed.add("resumeWrites")).when(tenantService).resumeWrites("company1");
+
+		// When
+		relocator(Duration.ofMillis(50)).start("company1", REQUEST);
+
+		// Then
+		awaitFinished("FAILED");
+		assertEquals(List.of("PREPARING", "COPYING", "CATCHING_UP", "PAUSING_WRITES", "DRAINING", "FAILED"), phases);
+		assertTrue(source.executed.indexOf(FENCE) < source.executed.indexOf(LIFT));
+		assertTrue(source.executed.indexOf(LIFT) < source.executed.indexOf("resumeWrites"));
+		verify(tenantService, never()).completeRelocation(any(), any(), any(), any(), any());
+	}
+
+	@Test
+	@EnabledIfEnvironmentVariable(named = "TENANT_TEST_JDBC_URL", matches = ".+")
+	void fenceWrites_OnARealPostgres_ShouldRefuseLateWritesRatherThanLoseThem() throws SQLException {
+		try (Connection relocation = connectToTestDatabase()) {
+			// Given: a node that connected before the fence and has not seen the pause
+			execute(relocation, "CREATE TABLE relocation_fence_test (id INT)");
+			try (Connection lateNode = connectToTestDatabase()) {
+				try {
+					// When
+					TenantRelocator.fenceWrites(relocation);
+
+					// Then: its session is gone, and the one its pool opens next is read-only
+					assertThrows(SQLException.class,
+							() -> execute(lateNode, "INSERT INTO relocation_fence_test VALUES (1)"));
+					try (Connection reconnected = connectToTestDatabase()) {
+						SQLException refused = assertThrows(SQLException.class,
+								() -> execute(reconnected, "INSERT INTO relocation_fence_test VALUES (2)"));
+						assertEquals("25006", refused.getSQLState());
+					}
+					try (Statement stmt = relocation.createStatement();
+							ResultSet rs = stmt.executeQuery("SELECT count(*) FROM relocation_fence_test")) {
+						rs.next();
+						assertEquals(0, rs.getLong(1));
+					}
+				} finally {
+					TenantRelocator.liftWriteFence(relocation);
+					execute(relocation, "DROP TABLE relocation_fence_test");
+				}
+			}
+		}
+	}
+
+	@Test
+	void start_ForATenantThatIsNotActive_ShouldBeRefused() {
+		// Given
+		tenantRepository.findByTenantId("company1").orElseThrow().setStatus("RELOCATING");
+
+		// When / Then
+		assertThrows(IllegalStateException.class, () -> relocator(Duration.ofSeconds(5)).start("company1", REQUEST));
+		verify(relocationRepository, never()).claim(any(), any(), any(), anyDouble());
+	}
+
+	@Test
+	void conninfoOf_ShouldConvertJdbcUrlAndQuoteValues() {
+		// When
+		String conninfo = TenantRelocator.conninfoOf("jdbc:postgresql://db1:5434/tenant_company1?ssl=true",
+				"tenant_user", "pa'ss\\word");
+
+		// Then
+		assertEquals("host='db1' port=5434 dbname='tenant_company1' user='tenant_user' password='pa\\'ss\\\\word'",
+				conninfo);
+	}
+
+	@Test
+	void conninfoOf_WithoutPort_ShouldUseDefaultPort() {
+		assertTrue(TenantRelocator.conninfoOf("jdbc:postgresql://db1/tenant_a", "u", "p").contains("port=5432"));
+		assertThrows(IllegalArgumentException.class,
+				() -> TenantRelocator.conninfoOf("jdbc:postgresql://db1/", "u", "p"));
+	}
+
+	@Test
+	void replicationName_ShouldBeValidIdentifier() {
+		assertEquals("relocate_acme_eu_1", TenantRelocator.replicationName("Acme-EU.1"));
+		assertEquals(63, TenantRelocator.replicationName("x".repeat(100)).length());
+	}
+
+	private TenantRelocator relocator(Duration drainTimeout) {
+		return new TenantRelocator(tenantRepository, relocationRepository, tenantService, flywayMigrator,
+				Duration.ofMillis(1), 1024, Duration.ZERO, drainTimeout, Duration.ofMinutes(5),
+				(url, username, password) -> SOURCE_URL.equals(url) ? source.connect() : target.connect());
+	}
+
+	private void awaitFinished(String phase) {
+		verify(relocationRepository, timeout(5000)).updateProgress(eq("company1"), eq(phase), any(), anyInt(),
+				anyInt(), anyLong(), eq(true));
+	}
+
+	private static Connection connectToTestDatabase() throws SQLException {
+		return DriverManager.getConnection(System.getenv("TENANT_TEST_JDBC_URL"),
+				System.getenv().getOrDefault("TENANT_TEST_USERNAME", "postgres"),
+				System.getenv().getOrDefault("TENANT_TEST_PASSWORD", "postgres"));
+	}
+
+	private static void execute(Connection connection, String sql) throws SQLException {
+		try (Statement stmt = connection.createStatement()) {
+			stmt.execute(sql);
+		}
+	}
+
+	private static Object[] row(Object... values) {
+		return values;
+	}
+
+	/**
+	 * Answers queries by a fragment of their SQL and records every statement
+	 * in order, so the workflow runs without a Postgres server
+	 */
+	private static final class FakeDatabase {
+
+		private final Map<String, List<Object[]>> answers = new LinkedHashMap<>();
+		private final List<String> executed = new CopyOnWriteArrayList<>();
+
+		void answer(String fragment, Object[]... rows) {
+			answers.put(fragment, List.of(rows));
+		}
+
+		Connection connect() throws SQLException {
+			Connection connection = mock(Connection.class);
+			when(connection.createStatement()).thenAnswer(invocation -> {
+				Statement stmt = mock(Statement.class);
+				when(stmt.execute(anyString())).thenAnswer(call -> executed.add(call.getArgument(0)));
+				when(stmt.executeQuery(anyString())).thenAnswer(call -> {
+					executed.add(call.getArgument(0));
+					return resultSet(call.getArgument(0));
+				});
+				return stmt;
+			});
+			when(connection.prepareStatement(anyString())).thenAnswer(invocation -> {
+				String sql = invocation.getArgument(0);
+				PreparedStatement stmt = mock(PreparedStatement.class);
+				when(stmt.execute()).thenAnswer(call -> executed.add(sql));
+				when(stmt.executeQuery()).thenAnswer(call -> {
+					executed.add(sql);
+					return resultSet(sql);
+				});
+				return stmt;
+			});
+			return connection;
+		}
+
+		private ResultSet resultSet(String sql) throws SQLException {
+			List<Object[]> rows = answers.entrySet().stream()
+					.filter(answer -> sql.contains(answer.getKey()))
+					.map(Map.Entry::getValue)
+					.findFirst()
+					.orElseGet(ArrayList::new);
+			AtomicInteger current = new AtomicInteger(-1);
+			ResultSet rs = mock(ResultSet.class);
+			when(rs.next()).thenAnswer(call -> current.incrementAndGet() < rows.size());
+			when(rs.getString(anyInt())).thenAnswer(
+					call -> String.valueOf(rows.get(current.get())[call.<Integer>getArgument(0) - 1]));
+			when(rs.getLong(anyInt())).thenAnswer(
+					call -> ((Number) rows.get(current.get())[call.<Integer>getArgument(0) - 1]).longValue());
+			return rs;
+		}
+	}
+}
@@ -0,0 +1,63 @@
+package com.optahaul.mas_java_poc.multitenancy;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+class TenantReplicaRouterTest {
+
+	private static final List<String> REPLICAS = List.of("replica:company1@r1", "replica:company1@r2");
+
+	private final AtomicLong clock = new AtomicLong();
+	private final TenantReplicaRouter router = new TenantReplicaRouter(true, Duration.ofSeconds(5),
+			Duration.ofSeconds(10), Duration.ofSeconds(5), Duration.ofSeconds(30), clock::get);
+
+	@Test
+	void choose_ShouldRotateAcrossReplicas() {
+		// When
+		Set<Integer> chosen = IntStream.range(0, 4)
+				.mapToObj(i -> router.choose("company1", REPLICAS))
+				.collect(Collectors.toSet());
+
+		// Then
+		assertEquals(Set.of(0, 1), chosen);
+	}
+
+	@Test
+	void choose_ShouldSkipLaggingAndUnavailableReplicas() {
+		// Given
+		assertFalse(router.recordLag(REPLICAS.get(0), 60_000));
+
+		// When / Then
+		for (int i = 0; i < 3; i++) {
+			assertEquals(1, router.choose("company1", REPLICAS));
+		}
+		router.markUnavailable(REPLICAS.get(1));
+		assertEquals(-1, router.choose("company1", REPLICAS));
+
+		// After the lag check interval the lagging replica is tried again
+		clock.addAndGet(Duration.ofSeconds(5).toNanos());
+		assertTrue(router.needsLagCheck(REPLICAS.get(0)));
+		assertEquals(0, router.choose("company1", REPLICAS));
+	}
+
+	@Test
+	void choose_AfterWrite_ShouldReadFromPrimaryUntilWindowEnds() {
+		// Given
+		router.recordWrite("company1");
+
+		// When / Then
+		assertEquals(-1, router.choose("company1", REPLICAS));
+		assertNotEquals(-1, router.choose("company2", List.of("replica:company2@r1")));
+
+		clock.addAndGet(Duration.ofSeconds(10).toNanos());
+		assertNotEquals(-1, router.choose("company1", REPLICAS));
+	}
+}
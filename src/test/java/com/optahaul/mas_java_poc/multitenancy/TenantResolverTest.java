@@ -0,0 +1,85 @@
+package com.optahaul.mas_java_poc.multitenancy;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import com.optahaul.mas_java_poc.domain.catalog.Tenant;
+
+class TenantResolverTest {
+
+	private TenantHostIndex hostIndex;
+	private TenantResolver resolver;
+
+	@BeforeEach
+	void setUp() {
+		TenantRepository tenantRepository = mock(TenantRepository.class);
+		when(tenantRepository.findAll()).thenReturn(List.of(
+				tenant("company1", "company1", null),
+				tenant("company2", "acme", "app.company2.com")));
+		hostIndex = new TenantHostIndex(tenantRepository, 600000);
+		hostIndex.reload();
+
+		resolver = new TenantResolver(hostIndex, List.of(
+				new SubdomainTenantStrategy(hostIndex, "optahaul.com"),
+				new CustomDomainTenantStrategy(hostIndex),
+				new HeaderTenantStrategy(hostIndex, "X-Tenant-ID")),
+				new String[] { "subdomain", "custom-domain", "header" });
+	}
+
+	@Test
+	void resolve_WhenSubdomainKnown_ShouldReturnTenantId() {
+		assertEquals("company1", resolver.resolve(request("Company1.optahaul.com")));
+		assertEquals("company2", resolver.resolve(request("acme.optahaul.com")));
+	}
+
+	@Test
+	void resolve_WhenSubdomainUnknownOrNested_ShouldReturnNull() {
+		assertNull(resolver.resolve(request("unknown.optahaul.com")));
+		assertNull(resolver.resolve(request("x.company1.optahaul.com")));
+		assertNull(resolver.resolve(request("optahaul.com")));
+	}
+
+	@Test
+	void resolve_WhenCustomDomain_ShouldReturnTenantId() {
+		assertEquals("company2", resolver.resolve(request("APP.company2.com")));
+	}
+
+	@Test
+	void resolve_WhenHeaderPresent_ShouldReturnCanonicalTenantId() {
+		// Given
+		MockHttpServletRequest request = request("localhost");
+		request.addHeader("X-Tenant-ID", "COMPANY1");
+
+		// When & Then
+		assertEquals("company1", resolver.resolve(request));
+	}
+
+	@Test
+	void put_ShouldBeVisibleToNextLookup() {
+		// When
+		hostIndex.put(tenant("company3", "company3", null));
+
+		// Then
+		assertEquals("company3", resolver.resolve(request("company3.optahaul.com")));
+	}
+
+	private static MockHttpServletRequest request(String host) {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setServerName(host);
+		return request;
+	}
+
+	private static Tenant tenant(String tenantId, String subdomain, String customDomain) {
+		Tenant tenant = new Tenant();
+		tenant.setTenantId(tenantId);
+		tenant.setSubdomain(subdomain);
+		tenant.setCustomDomain(customDomain);
+		return tenant;
+	}
+}
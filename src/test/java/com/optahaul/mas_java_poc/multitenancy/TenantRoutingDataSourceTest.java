@@ -0,0 +1,288 @@
+package com.optahaul.mas_java_poc.multitenancy;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.optahaul.mas_java_poc.domain.catalog.Tenant;
+import com.optahaul.mas_java_poc.service.TenantService;
+import com.zaxxer.hikari.HikariConfig;
+
+class TenantRoutingDataSourceTest {
+
+	private static final String PRIMARY_URL = "jdbc:h2:mem:routing_primary;DB_CLOSE_DELAY=-1";
+	private static final String OTHER_URL = "jdbc:h2:mem:routing_other;DB_CLOSE_DELAY=-1";
+	private static final String REPLICA_URL = "jdbc:h2:mem:routing_replica;DB_CLOSE_DELAY=-1";
+	private static final String DOWN_REPLICA_URL = "jdbc:h2:tcp://localhost:1/routing_down";
+
+	private final TenantService tenantService = mock(TenantService.class);
+	private final AtomicLong clock = new AtomicLong();
+	private final TenantReplicaRouter replicaRouter = new TenantReplicaRouter(true, Duration.ofSeconds(5),
+			Duration.ofSeconds(10), Duration.ofSeconds(5), Duration.ofSeconds(30), clock::get);
+	private TenantDataSourceRegistry registry;
+	private TenantRoutingDataSource dataSource;
+	private JdbcTemplate jdbcTemplate;
+	private DataSourceTransactionManager transactionManager;
+
+	@BeforeEach
+	void setUp() throws SQLException {
+		registry = new TenantDataSourceRegistry(10, 50, 600000);
+		HikariConfig template = new HikariConfig();
+		template.setMaximumPoolSize(2);
+		template.setMinimumIdle(0);
+		template.setConnectionTimeout(250);
+		dataSource = new TenantRoutingDataSource(tenantService, registry, template, 2, null, replicaRouter);
+
+		// Wired as in MultiTenancyConfig, so the read-only flag is known by the first statement
+		LazyConnectionDataSourceProxy lazyDataSource = new LazyConnectionDataSourceProxy(dataSource);
+		lazyDataSource.setDefaultAutoCommit(true);
+		lazyDataSource.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+		jdbcTemplate = new JdbcTemplate(lazyDataSource);
+		transactionManager = new DataSourceTransactionManager(lazyDataSource);
+
+		createDatabase(PRIMARY_URL, "primary");
+		createDatabase(REPLICA_URL, "replica");
+	}
+
+	@AfterEach
+	void tearDown() {
+		registry.close();
+	}
+
+	@Test
+	void refreshTenant_OnAStatusOnlyChange_ShouldKeepThePoolAndItsConnections() throws SQLException {
+		// Given
+		catalogHas(tenant("ACTIVE", PRIMARY_URL));
+		try (Connection inFlight = connectionAs("company1")) {
+
+			// When
+			catalogHas(tenant("RELOCATING", PRIMARY_URL));
+			boolean dropped = dataSource.refreshTenant("company1");
+
+			// Then
+			assertFalse(dropped);
+			assertTrue(inFlight.isValid(1));
+			assertEquals(1, registry.stats().openPools());
+		}
+	}
+
+	@Test
+	void refreshTenant_WhenTheDatabaseMoved_ShouldDropThePool() throws SQLException {
+		// Given
+		catalogHas(tenant("ACTIVE", PRIMARY_URL));
+		connectionAs("company1").close();
+
+		// When
+		catalogHas(tenant("ACTIVE", OTHER_URL));
+		boolean dropped = dataSource.refreshTenant("company1");
+
+		// Then
+		assertTrue(dropped);
+		assertEquals(0, registry.stats().openPools());
+		try (Connection connection = connectionAs("company1")) {
+			assertTrue(OTHER_URL.startsWith(connection.getMetaData().getURL()));
+		}
+	}
+
+	@Test
+	void refreshTenant_WhenTheTenantIsSuspended_ShouldDropThePool() throws SQLException {
+		// Given
+		catalogHas(tenant("ACTIVE", PRIMARY_URL));
+		connectionAs("company1").close();
+
+		// When
+		catalogHas(tenant("SUSPENDED", PRIMARY_URL));
+		boolean dropped = dataSource.refreshTenant("company1");
+
+		// Then
+		assertTrue(dropped);
+		assertEquals(0, registry.stats().openPools());
+	}
+
+	@Test
+	void getConnection_AfterThePoolWasEvicted_ShouldLookTheTenantUpAgain() throws SQLException, InterruptedException {
+		// Given
+		TenantDataSourceRegistry evicting = new TenantDataSourceRegistry(10, 50, 1);
+		HikariConfig template = new HikariConfig();
+		template.setMaximumPoolSize(2);
+		template.setMinimumIdle(0);
+		TenantRoutingDataSource routing = new TenantRoutingDataSource(tenantService, evicting, template, 2, null,
+				replicaRouter);
+		catalogHas(tenant("ACTIVE", PRIMARY_URL));
+		TenantContext.callAs("company1", routing::getConnection).close();
+		Thread.sleep(5);
+
+		try {
+			// When
+			evicting.evictIdlePools();
+			TenantContext.callAs("company1", routing::getConnection).close();
+
+			// Then
+			verify(tenantService, times(2)).findByTenantId("company1");
+			assertEquals(1, evicting.stats().rebuilt());
+		} finally {
+			evicting.close();
+		}
+	}
+
+	@Test
+	void readOnlyTransaction_ShouldReadFromAReplicaAndWritesFromThePrimary() {
+		// Given
+		catalogHas(tenant("ACTIVE", PRIMARY_URL, REPLICA_URL));
+
+		// When / Then
+		assertEquals("replica", read(true));
+		assertEquals("primary", read(false));
+	}
+
+	@Test
+	void readOnlyTransaction_WhenTheReplicaLags_ShouldReadFromThePrimary() throws SQLException {
+		// Given
+		catalogHas(tenant("ACTIVE", PRIMARY_URL, REPLICA_URL));
+		setLagSeconds(REPLICA_URL, 60);
+
+		// When / Then
+		assertEquals("primary", read(true));
+		// Until the next lag check the replica is not tried again
+		setLagSeconds(REPLICA_URL, 0);
+		assertEquals("primary", read(true));
+		clock.addAndGet(Duration.ofSeconds(5).toNanos());
+		assertEquals("replica", read(true));
+	}
+
+	@Test
+	void readOnlyTransaction_AfterAWrite_ShouldReadItsOwnWritesFromThePrimary() {
+		// Given
+		catalogHas(tenant("ACTIVE", PRIMARY_URL, REPLICA_URL));
+		assertEquals("replica", read(true));
+
+		// When
+		TenantContext.runAs("company1", () -> new TransactionTemplate(transactionManager)
+				.executeWithoutResult(status -> jdbcTemplate.update("UPDATE marker SET name = name")));
+
+		// Then
+		assertEquals("primary", read(true));
+		clock.addAndGet(Duration.ofSeconds(10).toNanos());
+		assertEquals("replica", read(true));
+	}
+
+	@Test
+	void readOnlyTransaction_WhenTheReplicaIsDown_ShouldReadFromThePrimary() {
+		// Given
+		catalogHas(tenant("ACTIVE", PRIMARY_URL, DOWN_REPLICA_URL));
+
+		// When / Then
+		assertEquals("primary", read(true));
+		assertEquals("primary", read(true));
+	}
+
+	@Test
+	void getConnection_WhileTheTenantIsRelocating_ShouldRefuseWritesWithSqlState25006() throws SQLException {
+		// Given
+		catalogHas(tenant("RELOCATING", PRIMARY_URL));
+
+		// When
+		SQLException refused = assertThrows(SQLException.class, () -> connectionAs("company1"));
+
+		// Then
+		assertEquals("25006", refused.getSQLState());
+		assertEquals("primary", read(true));
+	}
+
+	private String read(boolean readOnly) {
+		TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+		transaction.setReadOnly(readOnly);
+		return TenantContext.callAs("company1",
+				() -> transaction.execute(status -> jdbcTemplate.queryForObject("SELECT name FROM marker",
+						String.class)));
+	}
+
+	private static void createDatabase(String url, String name) throws SQLException {
+		try (Connection connection = DriverManager.getConnection(url, "sa", "");
+				Statement stmt = connection.createStatement()) {
+			stmt.execute("DROP ALL OBJECTS");
+			stmt.execute("CREATE TABLE marker (name VARCHAR(20))");
+			stmt.execute("INSERT INTO marker VALUES ('" + name + "')");
+			stmt.execute("CREATE TABLE replica_state (lag_seconds INT)");
+			stmt.execute("INSERT INTO replica_state VALUES (0)");
+			String functions = ReplicaFunctions.class.getName();
+			stmt.execute("CREATE ALIAS pg_is_in_recovery FOR '" + functions + ".inRecovery'");
+			stmt.execute("CREATE ALIAS pg_last_wal_receive_lsn FOR '" + functions + ".receiveLsn'");
+			stmt.execute("CREATE ALIAS pg_last_wal_replay_lsn FOR '" + functions + ".replayLsn'");
+			stmt.execute("CREATE ALIAS pg_last_xact_replay_timestamp FOR '" + functions + ".replayTimestamp'");
+		}
+	}
+
+	private static void setLagSeconds(String url, int lagSeconds) throws SQLException {
+		try (Connection connection = DriverManager.getConnection(url, "sa", "");
+				Statement stmt = connection.createStatement()) {
+			stmt.execute("UPDATE replica_state SET lag_seconds = " + lagSeconds);
+		}
+	}
+
+	private void catalogHas(Tenant tenant) {
+		when(tenantService.findByTenantId(tenant.getTenantId())).thenReturn(tenant);
+	}
+
+	private Connection connectionAs(String tenantId) throws SQLException {
+		return TenantContext.callAs(tenantId, dataSource::getConnection);
+	}
+
+	private static Tenant tenant(String status, String dbUrl) {
+		return tenant(status, dbUrl, null);
+	}
+
+	private static Tenant tenant(String status, String dbUrl, String replicaDbUrls) {
+		Tenant tenant = new Tenant();
+		tenant.setReplicaDbUrls(replicaDbUrls);
+		tenant.setTenantId("company1");
+		tenant.setStatus(status);
+		tenant.setDbUrl(dbUrl);
+		tenant.setDbUsername("sa");
+		tenant.setDbPassword("");
+		return tenant;
+	}
+
+	/**
+	 * The functions TenantReplicaRouter.LAG_QUERY calls, replaying lag_seconds
+	 * behind the primary
+	 */
+	public static final class ReplicaFunctions {
+
+		public static boolean inRecovery() {
+			return true;
+		}
+
+		public static String receiveLsn() {
+			return "0/2";
+		}
+
+		public static String replayLsn() {
+			return "0/1";
+		}
+
+		public static Timestamp replayTimestamp(Connection connection) throws SQLException {
+			try (Statement stmt = connection.createStatement();
+					ResultSet rs = stmt.executeQuery("SELECT lag_seconds FROM replica_state")) {
+				rs.next();
+				return new Timestamp(System.currentTimeMillis() - rs.getInt(1) * 1000L);
+			}
+		}
+	}
+}
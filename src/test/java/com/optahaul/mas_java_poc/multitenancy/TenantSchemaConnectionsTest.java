@@ -0,0 +1,100 @@
+package com.optahaul.mas_java_poc.multitenancy;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+class TenantSchemaConnectionsTest {
+
+	private Connection connection;
+	private Statement statement;
+	private HikariDataSource pool;
+
+	@BeforeEach
+	void setUp() throws SQLException {
+		connection = mock(Connection.class);
+		statement = mock(Statement.class);
+		pool = mock(HikariDataSource.class);
+		when(connection.createStatement()).thenReturn(statement);
+	}
+
+	@Test
+	void bind_ShouldSwitchTheSchemaAndResetItOnClose() throws SQLException {
+		// Given
+		when(connection.getAutoCommit()).thenReturn(false);
+
+		// When
+		Connection bound = TenantSchemaConnections.bind(connection, "company1", pool);
+		bound.prepareStatement("SELECT 1");
+		bound.close();
+
+		// Then
+		InOrder order = inOrder(connection, statement);
+		order.verify(statement).execute("SET search_path TO \"company1\"");
+		order.verify(connection).commit();
+		order.verify(connection).prepareStatement("SELECT 1");
+		order.verify(connection).rollback();
+		order.verify(connection).setAutoCommit(true);
+		order.verify(statement).execute("RESET search_path");
+		order.verify(connection).close();
+		assertTrue(bound.isClosed());
+		verify(pool, never()).evictConnection(any());
+	}
+
+	@Test
+	void close_ShouldOnlyResetOnce() throws SQLException {
+		// Given
+		when(connection.getAutoCommit()).thenReturn(true);
+		Connection bound = TenantSchemaConnections.bind(connection, "company1", pool);
+
+		// When
+		bound.close();
+		bound.close();
+
+		// Then
+		verify(statement, times(1)).execute("RESET search_path");
+		verify(connection, times(1)).close();
+	}
+
+	@Test
+	void close_WhenResetFails_ShouldEvictTheConnection() throws SQLException {
+		// Given
+		when(connection.getAutoCommit()).thenReturn(true);
+		Connection bound = TenantSchemaConnections.bind(connection, "company1", pool);
+		when(statement.execute("RESET search_path")).thenThrow(new SQLException("connection reset"));
+
+		// When
+		bound.close();
+
+		// Then
+		verify(pool).evictConnection(connection);
+		verify(connection).close();
+	}
+
+	@Test
+	void bind_WhenTheSwitchFails_ShouldCloseTheConnection() throws SQLException {
+		// Given
+		when(statement.execute("SET search_path TO \"company1\"")).thenThrow(new SQLException("no schema"));
+
+		// When / Then
+		assertThrows(SQLException.class, () -> TenantSchemaConnections.bind(connection, "company1", pool));
+		verify(connection).close();
+	}
+
+	@Test
+	void requireValidSchema_ShouldRejectAnythingButAPlainIdentifier() {
+		assertEquals("company_1", TenantSchemaConnections.requireValidSchema("company1", "company_1"));
+		assertThrows(IllegalStateException.class,
+				() -> TenantSchemaConnections.requireValidSchema("company1", "x\"; DROP SCHEMA public; --"));
+		assertThrows(IllegalStateException.class, () -> TenantSchemaConnections.requireValidSchema("company1", null));
+	}
+}
@@ -0,0 +1,117 @@
+package com.optahaul.mas_java_poc.multitenancy;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.SessionEventListener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class TenantStatementMetricsTest {
+
+	private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final TenantDataSourceRegistry registry = new TenantDataSourceRegistry(10, 50, 600000);
+	private final TenantStatementMetrics metrics = new TenantStatementMetrics(providerOf(meterRegistry), registry);
+
+	@AfterEach
+	void tearDown() {
+		registry.close();
+	}
+
+	@Test
+	void listener_ShouldTimeStatementsAndBatchesOfTheCurrentTenant() {
+		// Given
+		SessionEventListener listener = metrics.listener();
+
+		// When
+		TenantContext.runAs("company1", () -> {
+			listener.jdbcExecuteStatementStart();
+			listener.jdbcExecuteStatementEnd();
+			listener.jdbcExecuteStatementStart();
+			listener.jdbcExecuteStatementEnd();
+			listener.jdbcExecuteBatchStart();
+			listener.jdbcExecuteBatchEnd();
+		});
+		TenantContext.runAs("company2", () -> {
+			listener.jdbcExecuteStatementStart();
+			listener.jdbcExecuteStatementEnd();
+		});
+
+		// Then
+		assertEquals(2, timer("company1", "statement").count());
+		assertEquals(1, timer("company1", "batch").count());
+		assertEquals(1, timer("company2", "statement").count());
+	}
+
+	@Test
+	void listener_WithoutATenantOrStart_ShouldRecordNothing() {
+		// Given
+		SessionEventListener listener = metrics.listener();
+
+		// When
+		listener.jdbcExecuteStatementStart();
+		listener.jdbcExecuteStatementEnd();
+		TenantContext.runAs("company1", listener::jdbcExecuteBatchEnd);
+
+		// Then
+		assertTrue(meterRegistry.find("tenant.jdbc.statements").timers().isEmpty());
+	}
+
+	@Test
+	void remove_ShouldDropTheTenantsTimersUntilItsNextStatement() {
+		// Given
+		metrics.record("company1", TimeUnit.MILLISECONDS.toNanos(3), false);
+		metrics.record("company2", TimeUnit.MILLISECONDS.toNanos(3), false);
+
+		// When
+		metrics.remove("company1");
+
+		// Then
+		assertNull(meterRegistry.find("tenant.jdbc.statements").tag("tenant", "company1").timer());
+		assertNotNull(meterRegistry.find("tenant.jdbc.statements").tag("tenant", "company2").timer());
+
+		metrics.record("company1", TimeUnit.MILLISECONDS.toNanos(3), false);
+		assertEquals(1, timer("company1", "statement").count());
+	}
+
+	@Test
+	void closingTheTenantsPool_ShouldDropItsTimers() {
+		// Given
+		registry.getOrCreate("company1", () -> {
+			HikariDataSource pool = new HikariDataSource();
+			pool.setJdbcUrl("jdbc:h2:mem:statement_metrics");
+			pool.setMaximumPoolSize(1);
+			pool.setMinimumIdle(0);
+			return pool;
+		});
+		metrics.record("company1", TimeUnit.MILLISECONDS.toNanos(3), true);
+
+		// When
+		registry.remove("company1");
+
+		// Then
+		assertNull(meterRegistry.find("tenant.jdbc.statements").tag("tenant", "company1").timer());
+	}
+
+	private Timer timer(String tenantId, String kind) {
+		Timer timer = meterRegistry.find("tenant.jdbc.statements").tag("tenant", tenantId).tag("kind", kind).timer();
+		assertNotNull(timer);
+		return timer;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static ObjectProvider<MeterRegistry> providerOf(MeterRegistry registry) {
+		ObjectProvider<MeterRegistry> provider = mock(ObjectProvider.class);
+		when(provider.getIfAvailable()).thenReturn(registry);
+		return provider;
+	}
+}
@@ -0,0 +1,95 @@
+package com.optahaul.mas_java_poc.multitenancy;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.optahaul.mas_java_poc.dto.AuthorDto;
+import com.optahaul.mas_java_poc.dto.BookDto;
+import com.optahaul.mas_java_poc.dto.PageParams;
+import com.optahaul.mas_java_poc.dto.PageResponse;
+import com.optahaul.mas_java_poc.service.AuthorService;
+import com.optahaul.mas_java_poc.service.BookService;
+
+class TenantWarmupTest {
+
+	private final BookService bookService = mock(BookService.class);
+	private final AuthorService authorService = mock(AuthorService.class);
+
+	@Test
+	void replay_ShouldReadTheFirstPagesThenEntriesFromThemById() {
+		// Given
+		List<String> tenants = new ArrayList<>();
+		when(bookService.getAllBooks(any(PageParams.class))).thenAnswer(invocation -> {
+			tenants.add(TenantContext.getCurrentTenant());
+			return page(LongStream.rangeClosed(1, 8).mapToObj(id -> BookDto.builder().id(id).build()).toList());
+		});
+		when(authorService.getAllAuthors(any(PageParams.class)))
+				.thenReturn(page(List.of(AuthorDto.builder().id(7L).build())));
+		TenantWarmup warmup = warmup(2);
+
+		// When
+		warmup.replay(List.of("company1", "company2"), System.currentTimeMillis() + 60_000);
+
+		// Then
+		assertEquals(List.of("company1", "company2", "company1", "company2"), tenants);
+		verify(authorService, times(4)).getAllAuthors(new PageParams());
+		for (long id = 1; id <= 5; id++) {
+			verify(bookService, times(4)).getBookById(id);
+		}
+		verify(bookService, never()).getBookById(6L);
+		verify(authorService, times(4)).getAuthorById(7L);
+		assertEquals(2, warmup.health().getDetails().get("rounds"));
+	}
+
+	@Test
+	void replay_WhenTheTenantIsEmpty_ShouldOnlyReadTheFirstPages() {
+		// Given
+		when(bookService.getAllBooks(any(PageParams.class))).thenReturn(page(List.of()));
+		when(authorService.getAllAuthors(any(PageParams.class))).thenReturn(page(List.of()));
+
+		// When
+		warmup(1).replay(List.of("company1"), System.currentTimeMillis() + 60_000);
+
+		// Then
+		verify(bookService).getAllBooks(new PageParams());
+		verify(bookService, never()).getBookById(anyLong());
+		verify(authorService, never()).getAuthorById(anyLong());
+	}
+
+	@Test
+	void isStable_ShouldWaitForEnoughRounds() {
+		assertFalse(TenantWarmup.isStable(List.of(100L, 100L), 3, 0.1));
+	}
+
+	@Test
+	void isStable_ShouldIgnoreSlowEarlyRounds() {
+		// Given
+		List<Long> rounds = List.of(900L, 400L, 105L, 100L, 108L);
+
+		// Then
+		assertTrue(TenantWarmup.isStable(rounds, 3, 0.1));
+		assertFalse(TenantWarmup.isStable(rounds, 4, 0.1));
+	}
+
+	@Test
+	void isStable_ShouldRejectRoundsOutsideTolerance() {
+		assertFalse(TenantWarmup.isStable(List.of(100L, 125L, 100L), 3, 0.1));
+	}
+
+	private TenantWarmup warmup(int maxRounds) {
+		return new TenantWarmup(mock(TenantActivityRepository.class), mock(TenantCatalogCache.class),
+				mock(TenantMigrationTracker.class), mock(TenantRoutingDataSource.class), bookService, authorService,
+				true, 10, Duration.ofHours(6), Duration.ofMinutes(2), maxRounds, 3, 0.1);
+	}
+
+	private static <T> PageResponse<T> page(List<T> items) {
+		return PageResponse.<T>builder().items(items).size(items.size()).build();
+	}
+}
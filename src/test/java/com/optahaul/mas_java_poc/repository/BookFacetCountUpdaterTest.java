@@ -0,0 +1,106 @@
+package com.optahaul.mas_java_poc.repository;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.mockito.InOrder;
+import org.postgresql.PGConnection;
+
+import com.optahaul.mas_java_poc.domain.BookFacetCount;
+
+class BookFacetCountUpdaterTest {
+
+	private static final String TABLE = "CREATE %s TABLE book_facet_counts (genre VARCHAR(100) NOT NULL, "
+			+ "language VARCHAR(50) NOT NULL, decade INTEGER NOT NULL, book_count BIGINT NOT NULL, "
+			+ "PRIMARY KEY (genre, language, decade))";
+
+	private static final BookFacetCount.Key FANTASY = new BookFacetCount.Key("Fantasy", "English", 1930);
+	private static final BookFacetCount.Key SATIRE = new BookFacetCount.Key("Satire", "English", 1940);
+
+	@Test
+	void add_OnPostgres_ShouldUpsertEveryDeltaInOneBatchInKeyOrder() throws SQLException {
+		// Given
+		Connection connection = mock(Connection.class);
+		PreparedStatement upsert = mock(PreparedStatement.class);
+		when(connection.isWrapperFor(PGConnection.class)).thenReturn(true);
+		when(connection.prepareStatement(contains("ON CONFLICT (genre, language, decade)"))).thenReturn(upsert);
+
+		// When
+		BookFacetCountUpdater.add(connection, new TreeMap<>(Map.of(SATIRE, -1L, FANTASY, 2L)));
+
+		// Then
+		InOrder inOrder = inOrder(upsert);
+		inOrder.verify(upsert).setString(1, "Fantasy");
+		inOrder.verify(upsert).setLong(4, 2L);
+		inOrder.verify(upsert).addBatch();
+		inOrder.verify(upsert).setString(1, "Satire");
+		inOrder.verify(upsert).setLong(4, -1L);
+		inOrder.verify(upsert).addBatch();
+		inOrder.verify(upsert).executeBatch();
+		verify(connection, times(1)).prepareStatement(anyString());
+	}
+
+	@Test
+	void add_OnOtherDatabases_ShouldUpdateOrInsert() throws SQLException {
+		try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:facet_counts", "sa", "")) {
+			// Given
+			execute(connection, TABLE.formatted(""));
+			BookFacetCountUpdater.add(connection, new TreeMap<>(Map.of(FANTASY, 2L)));
+
+			// When
+			BookFacetCountUpdater.add(connection, new TreeMap<>(Map.of(FANTASY, -1L, SATIRE, 1L)));
+
+			// Then
+			assertEquals(Map.of("Fantasy", 1L, "Satire", 1L), counts(connection));
+		}
+	}
+
+	@Test
+	@EnabledIfEnvironmentVariable(named = "TENANT_TEST_JDBC_URL", matches = ".+")
+	void add_OnARealPostgres_ShouldTakeTheUpsertPath() throws SQLException {
+		String url = System.getenv("TENANT_TEST_JDBC_URL");
+		String username = System.getenv().getOrDefault("TENANT_TEST_USERNAME", "postgres");
+		String password = System.getenv().getOrDefault("TENANT_TEST_PASSWORD", "postgres");
+		try (Connection connection = DriverManager.getConnection(url, username, password)) {
+			// Given: a temporary table hides the tenant's own, if any
+			assertTrue(connection.isWrapperFor(PGConnection.class));
+			execute(connection, TABLE.formatted("TEMPORARY"));
+			BookFacetCountUpdater.add(connection, new TreeMap<>(Map.of(FANTASY, 2L)));
+
+			// When
+			BookFacetCountUpdater.add(connection, new TreeMap<>(Map.of(FANTASY, -1L, SATIRE, 1L)));
+
+			// Then
+			assertEquals(Map.of("Fantasy", 1L, "Satire", 1L), counts(connection));
+		}
+	}
+
+	private static Map<String, Long> counts(Connection connection) throws SQLException {
+		Map<String, Long> counts = new TreeMap<>();
+		try (Statement stmt = connection.createStatement();
+				ResultSet rs = stmt.executeQuery("SELECT genre, book_count FROM book_facet_counts")) {
+			while (rs.next()) {
+				counts.put(rs.getString(1), rs.getLong(2));
+			}
+		}
+		return counts;
+	}
+
+	private static void execute(Connection connection, String sql) throws SQLException {
+		try (Statement stmt = connection.createStatement()) {
+			stmt.execute(sql);
+		}
+	}
+}
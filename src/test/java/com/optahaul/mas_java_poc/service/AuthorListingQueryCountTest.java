@@ -0,0 +1,81 @@
+package com.optahaul.mas_java_poc.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.optahaul.mas_java_poc.domain.Author;
+import com.optahaul.mas_java_poc.domain.Book;
+import com.optahaul.mas_java_poc.dto.AuthorDto;
+import com.optahaul.mas_java_poc.dto.PageParams;
+import com.optahaul.mas_java_poc.dto.PageResponse;
+
+/**
+ * Guards the author listings against loading books collections: a page costs
+ * two statements however many authors and books it holds
+ */
+class AuthorListingQueryCountTest extends CatalogDatabaseTest {
+
+	private static final int AUTHORS = 5;
+
+	private Statistics statistics;
+	private final List<long[]> bookIds = new ArrayList<>();
+
+	@BeforeEach
+	void setUp() {
+		// Author i has i books
+		for (int i = 0; i < AUTHORS; i++) {
+			Author author = new Author();
+			author.setName("Writer " + i);
+			author = authorRepository.save(author);
+			long[] ids = new long[i];
+			for (int j = 0; j < i; j++) {
+				Book book = new Book();
+				book.setTitle("Book " + i + "." + j);
+				book.setAuthor(author);
+				ids[j] = bookRepository.save(book).getId();
+			}
+			bookIds.add(ids);
+		}
+		statistics = clearedStatistics();
+	}
+
+	@Test
+	void getAllAuthors_ShouldAggregateBookIdsInOneStatement() {
+		// When
+		PageResponse<AuthorDto> page = authorService.getAllAuthors(new PageParams());
+
+		// Then
+		assertEquals(AUTHORS, page.getSize());
+		for (int i = 0; i < AUTHORS; i++) {
+			AuthorDto author = page.getItems().get(i);
+			assertArrayEquals(bookIds.get(i), author.getBookIds());
+			assertEquals(i, author.getBookCount());
+		}
+		assertEquals(2, statistics.getPrepareStatementCount());
+		assertEquals(0, statistics.getEntityLoadCount());
+		assertEquals(0, statistics.getCollectionLoadCount());
+	}
+
+	@Test
+	void searchAuthorsByName_ShouldKeepTwoStatementsPerPage() {
+		// When
+		PageResponse<AuthorDto> first = authorService.searchAuthorsByName("writer",
+				PageParams.builder().sort("name").direction("desc").size(3).build());
+		PageResponse<AuthorDto> second = authorService.searchAuthorsByName("writer",
+				PageParams.builder().cursor(first.getNextCursor()).size(3).build());
+
+		// Then
+		assertEquals(List.of("Writer 4", "Writer 3", "Writer 2"),
+				first.getItems().stream().map(AuthorDto::getName).toList());
+		assertEquals(List.of("Writer 1", "Writer 0"), second.getItems().stream().map(AuthorDto::getName).toList());
+		assertArrayEquals(new long[0], second.getItems().get(1).getBookIds());
+		assertEquals(4, statistics.getPrepareStatementCount());
+		assertEquals(0, statistics.getCollectionLoadCount());
+	}
+}
@@ -5,8 +5,8 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 import java.time.LocalDate;
-import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -14,12 +14,19 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.test.context.ActiveProfiles;
 
 import com.optahaul.mas_java_poc.domain.Author;
 import com.optahaul.mas_java_poc.dto.AuthorDto;
 import com.optahaul.mas_java_poc.dto.CreateAuthorRequest;
+import com.optahaul.mas_java_poc.dto.PageParams;
+import com.optahaul.mas_java_poc.dto.PageResponse;
 import com.optahaul.mas_java_poc.mapper.AuthorMapper;
 import com.optahaul.mas_java_poc.repository.AuthorRepository;
 
@@ -33,6 +40,18 @@ class AuthorServiceTest {
 	@Mock
 	private AuthorMapper authorMapper;
 
+	@Mock
+	private RowCountEstimator rowCountEstimator;
+
+	@Mock
+	private BookFacetService bookFacetService;
+
+	@Mock
+	private ApplicationEventPublisher eventPublisher;
+
+	@Spy
+	private KeysetPager keysetPager = new KeysetPager(Jackson2ObjectMapperBuilder.json().build(), 20, 100);
+
 	@InjectMocks
 	private AuthorService authorService;
 
@@ -101,20 +120,38 @@ class AuthorServiceTest {
 	}
 
 	@Test
-	void getAllAuthors_ShouldReturnListOfAuthors() {
+	void getAllAuthors_ShouldReturnFirstPage() {
 		// Given
-		List<Author> authors = Arrays.asList(author);
-		List<AuthorDto> authorDtos = Arrays.asList(authorDto);
-		when(authorRepository.findAll()).thenReturn(authors);
-		when(authorMapper.toDtoList(authors)).thenReturn(authorDtos);
+		Window<AuthorDto> window = Window.from(List.of(authorDto), i -> ScrollPosition.forward(Map.of("id", 1L)),
+				false);
+		when(authorRepository.findAllDtos(eq(ScrollPosition.keyset()), any(), any())).thenReturn(window);
+		when(rowCountEstimator.estimate("SELECT 1 FROM authors")).thenReturn(1L);
 
 		// When
-		List<AuthorDto> result = authorService.getAllAuthors();
+		PageResponse<AuthorDto> result = authorService.getAllAuthors(PageParams.builder().includeTotal(true).build());
 
 		// Then
-		assertNotNull(result);
-		assertEquals(1, result.size());
-		assertEquals("John Doe", result.get(0).getName());
-		verify(authorRepository).findAll();
+		assertEquals(1, result.getSize());
+		assertEquals("John Doe", result.getItems().get(0).getName());
+		assertFalse(result.isHasNext());
+		assertNull(result.getNextCursor());
+		assertEquals(1L, result.getApproximateTotal());
+	}
+
+	@Test
+	void searchAuthorsByName_WithoutTotal_ShouldNotEstimate() {
+		// Given
+		Window<AuthorDto> window = Window.from(List.of(authorDto), i -> ScrollPosition.forward(Map.of("id", 1L)),
+				true);
+		when(authorRepository.findDtosByNameContainingIgnoreCase(eq("doe"), any(), any(), any())).thenReturn(window);
+
+		// When
+		PageResponse<AuthorDto> result = authorService.searchAuthorsByName("doe", new PageParams());
+
+		// Then
+		assertTrue(result.isHasNext());
+		assertNotNull(result.getNextCursor());
+		assertNull(result.getApproximateTotal());
+		verifyNoInteractions(rowCountEstimator);
 	}
 }
@@ -0,0 +1,130 @@
+package com.optahaul.mas_java_poc.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.optahaul.mas_java_poc.dto.AuthorDto;
+import com.optahaul.mas_java_poc.dto.BookDto;
+import com.optahaul.mas_java_poc.dto.BookFacets;
+import com.optahaul.mas_java_poc.dto.FacetCount;
+
+/**
+ * Facet counts follow book and author writes without the books table being
+ * read to serve them
+ */
+class BookFacetServiceTest extends CatalogDatabaseTest {
+
+	@Autowired
+	private BookFacetService bookFacetService;
+
+	private Long orwell;
+	private Long tolkien;
+
+	@BeforeEach
+	void setUp() {
+		orwell = author("George Orwell");
+		tolkien = author("J.R.R. Tolkien");
+		book("1984", orwell, "Dystopian", "English", "1949-06-08");
+		book("Animal Farm", orwell, "Satire", "English", "1945-08-17");
+		book("The Hobbit", tolkien, "Fantasy", "English", "1937-09-21");
+		book("Der Hobbit", tolkien, "Fantasy", "German", null);
+	}
+
+	@Test
+	void getFacets_WithoutFilters_ShouldCountEveryBook() {
+		// When
+		BookFacets facets = bookFacetService.getFacets(null, null, null);
+
+		// Then
+		assertEquals(4, facets.getTotal());
+		assertEquals(List.of(facet("Fantasy", 2), facet("Dystopian", 1), facet("Satire", 1)), facets.getGenres());
+		assertEquals(List.of(facet("English", 3), facet("German", 1)), facets.getLanguages());
+		assertEquals(List.of(facet(1930, 1), facet(1940, 2), facet(null, 1)), facets.getDecades());
+	}
+
+	@Test
+	void getFacets_WithFilters_ShouldCountEachFacetUnderTheOtherFilters() {
+		// When
+		BookFacets facets = bookFacetService.getFacets("fantasy", null, 1937);
+
+		// Then
+		assertEquals(1, facets.getTotal());
+		assertEquals(List.of(facet("Fantasy", 1)), facets.getGenres());
+		assertEquals(List.of(facet("English", 1)), facets.getLanguages());
+		assertEquals(List.of(facet(1930, 1), facet(null, 1)), facets.getDecades());
+	}
+
+	@Test
+	void writes_ShouldAdjustTheCounts() {
+		// Given
+		Long hobbit = bookRepository.findAll().stream()
+				.filter(book -> book.getTitle().equals("The Hobbit"))
+				.findFirst().orElseThrow().getId();
+		Long animalFarm = bookRepository.findAll().stream()
+				.filter(book -> book.getTitle().equals("Animal Farm"))
+				.findFirst().orElseThrow().getId();
+
+		// When
+		bookService.updateBook(hobbit, bookRequest("The Hobbit", tolkien, "Children's", "English", "1937-09-21"));
+		bookService.deleteBook(animalFarm);
+		authorService.deleteAuthor(orwell);
+
+		// Then
+		BookFacets facets = bookFacetService.getFacets(null, null, null);
+		assertEquals(2, facets.getTotal());
+		assertEquals(List.of(facet("Children's", 1), facet("Fantasy", 1)), facets.getGenres());
+		assertEquals(List.of(facet(1930, 1), facet(null, 1)), facets.getDecades());
+	}
+
+	@Test
+	void concurrentUpdatesOfOneBook_ShouldEachMoveTheCountFromTheGenreTheyReplace() throws Exception {
+		// Given
+		Long hobbit = bookRepository.findAll().stream()
+				.filter(book -> book.getTitle().equals("The Hobbit"))
+				.findFirst().orElseThrow().getId();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		List<Future<?>> updates = new ArrayList<>();
+
+		// When
+		for (int i = 0; i < 20; i++) {
+			String genre = "Genre " + i % 4;
+			updates.add(executor.submit(() -> bookService.updateBook(hobbit,
+					bookRequest("The Hobbit", tolkien, genre, "English", "1937-09-21"))));
+		}
+		for (Future<?> update : updates) {
+			update.get();
+		}
+		executor.shutdown();
+
+		// Then
+		String genre = bookRepository.findById(hobbit).orElseThrow().getGenre();
+		BookFacets facets = bookFacetService.getFacets(null, null, null);
+		assertEquals(4, facets.getTotal());
+		assertEquals(List.of(facet("Dystopian", 1), facet("Fantasy", 1), facet(genre, 1), facet("Satire", 1)),
+				facets.getGenres().stream().sorted(Comparator.comparing((FacetCount<String> count) -> count.getValue())).toList());
+	}
+
+	private Long author(String name) {
+		AuthorDto author = authorService.createAuthor(authorRequest(name));
+		return author.getId();
+	}
+
+	private void book(String title, Long authorId, String genre, String language, String published) {
+		BookDto book = bookService.createBook(bookRequest(title, authorId, genre, language, published));
+		assertNotNull(book.getId());
+	}
+
+	private static <T> FacetCount<T> facet(T value, long count) {
+		return new FacetCount<>(value, count);
+	}
+}
@@ -0,0 +1,96 @@
+package com.optahaul.mas_java_poc.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.optahaul.mas_java_poc.domain.Author;
+import com.optahaul.mas_java_poc.domain.Book;
+import com.optahaul.mas_java_poc.dto.BookDto;
+import com.optahaul.mas_java_poc.dto.PageParams;
+import com.optahaul.mas_java_poc.dto.PageResponse;
+
+/**
+ * Guards the book listings against N+1: a page costs one statement however
+ * many books, and authors, it holds
+ */
+class BookListingQueryCountTest extends CatalogDatabaseTest {
+
+	private static final int BOOKS = 6;
+
+	private Statistics statistics;
+	private Long authorId;
+
+	@BeforeEach
+	void setUp() {
+		for (int i = 0; i < BOOKS; i++) {
+			Author author = new Author();
+			author.setName("Author " + i);
+			author = authorRepository.save(author);
+			authorId = author.getId();
+
+			Book book = new Book();
+			book.setTitle("Book " + i);
+			book.setGenre("Fiction");
+			book.setAuthor(author);
+			bookRepository.save(book);
+		}
+		statistics = clearedStatistics();
+	}
+
+	@Test
+	void getAllBooks_ShouldUseOneStatementPerPage() {
+		// When
+		PageResponse<BookDto> page = bookService.getAllBooks(new PageParams());
+
+		// Then
+		assertEquals(BOOKS, page.getSize());
+		assertTrue(page.getItems().stream().allMatch(book -> book.getAuthorName() != null));
+		assertEquals(1, statistics.getPrepareStatementCount());
+		assertEquals(0, statistics.getEntityLoadCount());
+	}
+
+	@Test
+	void getBooksByGenre_ShouldUseOneStatementPerPage() {
+		// When
+		PageResponse<BookDto> first = bookService.getBooksByGenre("fiction",
+				PageParams.builder().sort("title").direction("desc").size(4).build());
+		PageResponse<BookDto> second = bookService.getBooksByGenre("fiction",
+				PageParams.builder().cursor(first.getNextCursor()).size(4).build());
+
+		// Then
+		assertEquals(List.of("Book 5", "Book 4", "Book 3", "Book 2"),
+				first.getItems().stream().map(BookDto::getTitle).toList());
+		assertEquals(List.of("Book 1", "Book 0"), second.getItems().stream().map(BookDto::getTitle).toList());
+		assertFalse(second.isHasNext());
+		assertEquals(2, statistics.getPrepareStatementCount());
+		assertEquals(0, statistics.getEntityLoadCount());
+	}
+
+	@Test
+	void searchBooksByTitle_ShouldUseOneStatementPerPage() {
+		// When
+		PageResponse<BookDto> page = bookService.searchBooksByTitle("book", new PageParams());
+
+		// Then
+		assertEquals(BOOKS, page.getSize());
+		assertEquals(1, statistics.getPrepareStatementCount());
+		assertEquals(0, statistics.getEntityLoadCount());
+	}
+
+	@Test
+	void getBooksByAuthor_ShouldUseOneStatementPerPage() {
+		// When
+		PageResponse<BookDto> page = bookService.getBooksByAuthor(authorId, new PageParams());
+
+		// Then
+		assertEquals(1, page.getSize());
+		assertEquals("Author " + (BOOKS - 1), page.getItems().get(0).getAuthorName());
+		assertEquals(1, statistics.getPrepareStatementCount());
+		assertEquals(0, statistics.getEntityLoadCount());
+	}
+}
@@ -13,10 +13,12 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.test.context.ActiveProfiles;
 
 import com.optahaul.mas_java_poc.domain.Author;
 import com.optahaul.mas_java_poc.domain.Book;
+import com.optahaul.mas_java_poc.domain.BookFacetCount;
 import com.optahaul.mas_java_poc.dto.BookDto;
 import com.optahaul.mas_java_poc.dto.CreateBookRequest;
 import com.optahaul.mas_java_poc.mapper.BookMapper;
@@ -36,6 +38,12 @@ class BookServiceTest {
 	@Mock
 	private BookMapper bookMapper;
 
+	@Mock
+	private BookFacetService bookFacetService;
+
+	@Mock
+	private ApplicationEventPublisher eventPublisher;
+
 	@InjectMocks
 	private BookService bookService;
 
@@ -83,6 +91,8 @@ class BookServiceTest {
 		assertEquals("Test Book", result.getTitle());
 		verify(authorRepository).findById(1L);
 		verify(bookRepository).save(any(Book.class));
+		verify(bookFacetService).bookChanged(null, new BookFacetCount.Key("", "", 2020));
+		verify(eventPublisher).publishEvent(CatalogChangedEvent.bookSaved(1L, "Test Book", 1L, "John Doe"));
 	}
 
 	@Test
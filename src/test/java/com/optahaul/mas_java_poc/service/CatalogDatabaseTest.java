@@ -0,0 +1,141 @@
+package com.optahaul.mas_java_poc.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Primary;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.optahaul.mas_java_poc.dto.CreateAuthorRequest;
+import com.optahaul.mas_java_poc.dto.CreateBookRequest;
+import com.optahaul.mas_java_poc.repository.AuthorRepository;
+import com.optahaul.mas_java_poc.repository.BookFacetCountRepository;
+import com.optahaul.mas_java_poc.repository.BookRepository;
+import com.optahaul.mas_java_poc.repository.TableVersionRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Application context on the test database shared by the catalog service
+ * tests, so they run in one context. Every test leaves the catalog tables
+ * empty, including the facet counts and table versions its writes maintain.
+ * Timestamps come from {@link #clock}, which tests move instead of sleeping
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@Import(CatalogDatabaseTest.ClockConfig.class)
+abstract class CatalogDatabaseTest {
+
+	@Autowired
+	protected AdjustableClock clock;
+
+	@Autowired
+	protected BookService bookService;
+
+	@Autowired
+	protected AuthorService authorService;
+
+	@Autowired
+	protected BookRepository bookRepository;
+
+	@Autowired
+	protected AuthorRepository authorRepository;
+
+	@Autowired
+	private BookFacetCountRepository facetCountRepository;
+
+	@Autowired
+	private TableVersionRepository tableVersionRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@AfterEach
+	void deleteCatalog() {
+		clock.reset();
+		bookRepository.deleteAll();
+		authorRepository.deleteAll();
+		facetCountRepository.deleteAll();
+		tableVersionRepository.deleteAll();
+	}
+
+	/**
+	 * Hibernate's statistics, cleared so they count from here on
+	 */
+	protected Statistics clearedStatistics() {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		return statistics;
+	}
+
+	protected static CreateAuthorRequest authorRequest(String name) {
+		CreateAuthorRequest request = new CreateAuthorRequest();
+		request.setName(name);
+		return request;
+	}
+
+	protected static CreateBookRequest bookRequest(String title, Long authorId, String genre, String language,
+			String published) {
+		CreateBookRequest request = new CreateBookRequest();
+		request.setTitle(title);
+		request.setAuthorId(authorId);
+		request.setGenre(genre);
+		request.setLanguage(language);
+		request.setPublicationDate(published);
+		return request;
+	}
+
+	@TestConfiguration
+	static class ClockConfig {
+
+		@Bean
+		@Primary
+		AdjustableClock adjustableClock() {
+			return new AdjustableClock();
+		}
+	}
+
+	/**
+	 * The system clock, ahead by however far tests moved it
+	 */
+	protected static final class AdjustableClock extends Clock {
+
+		private final AtomicReference<Duration> offset = new AtomicReference<>(Duration.ZERO);
+
+		void advance(Duration duration) {
+			offset.accumulateAndGet(duration, Duration::plus);
+		}
+
+		void reset() {
+			offset.set(Duration.ZERO);
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneId.systemDefault();
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Instant instant() {
+			return Instant.now().plus(offset.get());
+		}
+	}
+}
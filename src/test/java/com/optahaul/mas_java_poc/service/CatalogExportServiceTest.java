@@ -0,0 +1,109 @@
+package com.optahaul.mas_java_poc.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.optahaul.mas_java_poc.repository.AuthorRepository;
+import com.optahaul.mas_java_poc.repository.BookRepository;
+
+import jakarta.persistence.Tuple;
+
+class CatalogExportServiceTest {
+
+	private BookRepository bookRepository;
+	private AuthorRepository authorRepository;
+	private CatalogExportService exportService;
+
+	@BeforeEach
+	void setUp() {
+		bookRepository = mock(BookRepository.class);
+		authorRepository = mock(AuthorRepository.class);
+		// Dates as ISO strings, as Spring Boot configures the application's mapper
+		ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+				.featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+				.build();
+		exportService = new CatalogExportService(bookRepository, authorRepository, objectMapper);
+	}
+
+	@Test
+	void exportBooks_AsNdjson_ShouldWriteOneObjectPerLine() throws Exception {
+		// Given
+		Tuple first = tuple(Map.of("id", 1L, "title", "1984", "authorId", 1L, "authorName", "George Orwell",
+				"publicationDate", LocalDate.of(1949, 6, 8)));
+		Tuple second = tuple(Map.of("id", 2L, "title", "Animal Farm", "authorId", 1L, "authorName", "George Orwell"));
+		when(bookRepository.streamAllForExport()).thenReturn(Stream.of(first, second));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		// When
+		long count = exportService.exportBooks(CatalogFormat.NDJSON, out);
+
+		// Then
+		assertEquals(2, count);
+		String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+		assertEquals(2, lines.length);
+		assertTrue(lines[0].startsWith("{\"id\":1,\"title\":\"1984\",\"authorId\":1,\"authorName\":\"George Orwell\""));
+		assertTrue(lines[0].contains("\"publicationDate\":\"1949-06-08\""));
+		assertTrue(lines[1].contains("\"genre\":null"));
+	}
+
+	@Test
+	void exportAuthors_AsCsv_ShouldWriteHeaderAndQuoteWhereNeeded() throws Exception {
+		// Given
+		Tuple first = tuple(Map.of("id", 1L, "name", "Tolkien, J.R.R.", "birthDate", LocalDate.of(1892, 1, 3)));
+		Tuple second = tuple(Map.of("id", 2L, "name", "Le \"Guin\"", "bio", ""));
+		when(authorRepository.streamAllForExport()).thenReturn(Stream.of(first, second));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		// When
+		exportService.exportAuthors(CatalogFormat.CSV, out);
+
+		// Then
+		assertEquals("""
+				id,name,birthDate,bio,createdAt,updatedAt
+				1,"Tolkien, J.R.R.",1892-01-03,,,
+				2,"Le ""Guin\""",,"",,
+				""", out.toString(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void exportBooks_WhenEmpty_ShouldStillWriteCsvHeader() throws Exception {
+		// Given
+		when(bookRepository.streamAllForExport()).thenReturn(Stream.empty());
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		// When
+		long count = exportService.exportBooks(CatalogFormat.CSV, out);
+
+		// Then
+		assertEquals(0, count);
+		assertEquals(String.join(",", CatalogExportService.BOOK_COLUMNS) + "\n", out.toString(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void format_ShouldBeChosenByName() {
+		assertEquals(CatalogFormat.CSV, CatalogFormat.ofName("csv"));
+		assertEquals(CatalogFormat.NDJSON, CatalogFormat.ofName("NDJSON"));
+		assertThrows(IllegalArgumentException.class, () -> CatalogFormat.ofName("xml"));
+	}
+
+	private static Tuple tuple(Map<String, Object> values) {
+		Map<String, Object> row = new HashMap<>(values);
+		Tuple tuple = mock(Tuple.class);
+		when(tuple.get(anyString())).thenAnswer(invocation -> row.get(invocation.<String>getArgument(0)));
+		return tuple;
+	}
+}
@@ -0,0 +1,159 @@
+package com.optahaul.mas_java_poc.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import com.optahaul.mas_java_poc.dto.ImportError;
+import com.optahaul.mas_java_poc.dto.ImportReport;
+
+class CatalogImportServiceTest {
+
+	private JdbcTemplate jdbc;
+	private CatalogImportService importService;
+	private final List<ImportError> errors = new ArrayList<>();
+	private final List<ImportReport> reports = new ArrayList<>();
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void setUp() {
+		DriverManagerDataSource dataSource = new DriverManagerDataSource(
+				"jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+		jdbc = new JdbcTemplate(dataSource);
+		jdbc.execute("CREATE TABLE authors (id BIGINT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(255) NOT NULL, "
+				+ "birth_date DATE, bio VARCHAR(32))");
+		jdbc.execute("CREATE TABLE books (id BIGINT AUTO_INCREMENT PRIMARY KEY, title VARCHAR(500) NOT NULL, "
+				+ "author_id BIGINT NOT NULL REFERENCES authors(id), genre VARCHAR(100), page_count INTEGER, "
+				+ "language VARCHAR(50), publication_date DATE, isbn VARCHAR(32) UNIQUE)");
+		jdbc.execute("CREATE TABLE book_facet_counts (genre VARCHAR(100) NOT NULL, language VARCHAR(50) NOT NULL, "
+				+ "decade INTEGER NOT NULL, book_count BIGINT NOT NULL, PRIMARY KEY (genre, language, decade))");
+		jdbc.execute("CREATE TABLE table_versions (table_name VARCHAR(64) PRIMARY KEY, version BIGINT NOT NULL, "
+				+ "updated_at TIMESTAMP NOT NULL)");
+		jdbc.update("INSERT INTO authors (name) VALUES ('George Orwell')");
+
+		importService = new CatalogImportService(dataSource, Jackson2ObjectMapperBuilder.json().build(),
+				mock(ObjectProvider.class), mock(ApplicationEventPublisher.class), 2, 100, 10);
+	}
+
+	@Test
+	void importBooks_FromCsv_ShouldResolveAuthorsAndReportRejectedRows() {
+		// Given
+		String csv = """
+				title,authorId,authorName,genre,pageCount,publicationDate,isbn
+				1984,1,,Dystopian,328,1949-06-08,isbn-1
+				Animal Farm,,George Orwell,Satire,112,,isbn-2
+				"The Hobbit, or There and Back Again",,J.R.R. Tolkien,Fantasy,310,,isbn-3
+				"The Lord of the Rings",,J.R.R. Tolkien,"Fantasy
+				Epic",1178,,isbn-4
+				,1,,,,,
+				Ghost,99,,,,,
+				Bad Date,1,,,,not-a-date,
+				Duplicate,1,,,,,isbn-1
+				""";
+
+		// When
+		ImportReport report = importService.importBooks(input(csv), CatalogFormat.CSV, listener());
+
+		// Then
+		assertEquals("COMPLETED", report.getStatus());
+		assertEquals(8, report.getRowsRead());
+		assertEquals(4, report.getImported());
+		assertEquals(4, report.getFailed());
+		assertEquals(1, report.getAuthorsCreated());
+		assertEquals(List.of(7L, 8L, 9L, 10L), errors.stream().map(ImportError::getLine).sorted().toList());
+		assertTrue(errors.stream().anyMatch(error -> error.getMessage().equals("Author not found with id: 99")));
+
+		assertEquals(2, jdbc.queryForObject("SELECT COUNT(*) FROM authors", Integer.class));
+		assertEquals(2, jdbc.queryForObject("SELECT COUNT(*) FROM books b JOIN authors a ON a.id = b.author_id "
+				+ "WHERE a.name = 'J.R.R. Tolkien'", Integer.class));
+		assertEquals("Fantasy\nEpic", jdbc.queryForObject("SELECT genre FROM books WHERE isbn = 'isbn-4'",
+				String.class));
+		assertTrue(reports.size() > 1);
+		assertEquals("RUNNING", reports.get(0).getStatus());
+
+		assertEquals(4, jdbc.queryForObject("SELECT SUM(book_count) FROM book_facet_counts", Integer.class));
+		assertEquals(1, jdbc.queryForObject("SELECT book_count FROM book_facet_counts "
+				+ "WHERE genre = 'Dystopian' AND language = '' AND decade = 1940", Integer.class));
+		assertEquals(2, jdbc.queryForObject("SELECT version FROM table_versions WHERE table_name = 'books'",
+				Integer.class));
+		assertEquals(1, jdbc.queryForObject("SELECT version FROM table_versions WHERE table_name = 'authors'",
+				Integer.class));
+	}
+
+	@Test
+	void importAuthors_FromNdjson_ShouldSkipInvalidLines() {
+		// Given
+		String ndjson = """
+				{"name":"Ursula K. Le Guin","birthDate":"1929-10-21"}
+
+				{"name":"Octavia E. Butler","birthDate":"1947-06-22"}
+				{"name":
+				{"birthDate":"1900-01-01"}
+				""";
+
+		// When
+		ImportReport report = importService.importAuthors(input(ndjson), CatalogFormat.NDJSON, listener());
+
+		// Then
+		assertEquals("COMPLETED", report.getStatus());
+		assertEquals(2, report.getImported());
+		assertEquals(List.of(4L, 5L), errors.stream().map(ImportError::getLine).toList());
+		assertEquals(3, jdbc.queryForObject("SELECT COUNT(*) FROM authors", Integer.class));
+	}
+
+	@Test
+	void importAuthors_WithTooManyRejectedRows_ShouldStop() {
+		// Given
+		StringBuilder csv = new StringBuilder("name,birthDate\n");
+		for (int i = 0; i < 20; i++) {
+			csv.append("Author ").append(i).append(",bad\n");
+		}
+
+		// When
+		ImportReport report = importService.importAuthors(input(csv.toString()), CatalogFormat.CSV, listener());
+
+		// Then
+		assertEquals("FAILED", report.getStatus());
+		assertEquals(11, report.getFailed());
+		assertEquals(report, reports.get(reports.size() - 1));
+	}
+
+	@Test
+	void format_ShouldFollowContentType() {
+		assertEquals(CatalogFormat.CSV, CatalogFormat.ofContentType("text/csv;charset=UTF-8"));
+		assertEquals(CatalogFormat.NDJSON, CatalogFormat.ofContentType("application/x-ndjson"));
+		assertThrows(IllegalArgumentException.class, () -> CatalogFormat.ofContentType("application/json"));
+	}
+
+	private CatalogImportService.ImportListener listener() {
+		return new CatalogImportService.ImportListener() {
+			@Override
+			public void rowFailed(ImportError error) {
+				errors.add(error);
+			}
+
+			@Override
+			public void progress(ImportReport report) {
+				reports.add(report);
+			}
+		};
+	}
+
+	private static InputStream input(String text) {
+		return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+	}
+}
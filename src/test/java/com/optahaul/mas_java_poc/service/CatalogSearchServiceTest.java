@@ -0,0 +1,60 @@
+package com.optahaul.mas_java_poc.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+class CatalogSearchServiceTest {
+
+	private final CatalogSearchService searchService = new CatalogSearchService(
+			new KeysetPager(Jackson2ObjectMapperBuilder.json().build(), 20, 100),
+			Jackson2ObjectMapperBuilder.json().build(), 1000);
+
+	@Test
+	void searchText_ShouldReduceIsbnsToTheirIndexedDigits() {
+		assertEquals("9780452284234", CatalogSearchService.searchText(" 978-0-452-28423-4 "));
+		assertEquals("045228423X", CatalogSearchService.searchText("0 452 28423 X"));
+		assertEquals("brave new world", CatalogSearchService.searchText(" brave new world"));
+		assertEquals("1984", CatalogSearchService.searchText("1984"));
+	}
+
+	@Test
+	void highlight_ShouldEscapeHtmlAndMarkMatches() {
+		// Given
+		String headline = "Tom & <b>" + CatalogSearchService.MARK_START + "Jerry" + CatalogSearchService.MARK_END;
+
+		// When
+		String highlighted = CatalogSearchService.highlight(headline);
+
+		// Then
+		assertEquals("Tom &amp; &lt;b&gt;<mark>Jerry</mark>", highlighted);
+	}
+
+	@Test
+	void sql_ShouldTakeTheSameCandidatesOnEveryRequest() {
+		for (boolean fuzzy : new boolean[] { false, true }) {
+			// When
+			String sql = CatalogSearchService.sql(fuzzy, true);
+
+			// Then: an unordered LIMIT could rank a different sample on the next page
+			assertEquals(2, sql.split("LIMIT :candidates", -1).length - 1);
+			assertEquals(2, sql.split("ORDER BY b.id DESC LIMIT :candidates", -1).length - 1);
+			assertTrue(sql.contains("c.rank < :rank"));
+		}
+	}
+
+	@Test
+	void cursor_ShouldRoundTripAndRejectTampering() {
+		// Given
+		CatalogSearchService.Cursor cursor = new CatalogSearchService.Cursor(true, 0.1f, 42L);
+
+		// When
+		CatalogSearchService.Cursor decoded = searchService.decode(searchService.encode(cursor));
+
+		// Then
+		assertEquals(cursor, decoded);
+		assertThrows(InvalidPageRequestException.class, () -> searchService.decode("bm90LWpzb24"));
+		assertThrows(InvalidPageRequestException.class, () -> searchService.search(" ", null, null));
+	}
+}
@@ -0,0 +1,189 @@
+package com.optahaul.mas_java_poc.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Runs the search SQL of {@link CatalogSearchService} on the tenant schema,
+ * in a schema of its own. Needs a PostgreSQL database with pg_trgm available,
+ * e.g. TENANT_TEST_JDBC_URL=jdbc:postgresql://localhost:5432/tenant_company1
+ */
+@EnabledIfEnvironmentVariable(named = "TENANT_TEST_JDBC_URL", matches = ".+")
+class CatalogSearchSqlTest {
+
+	private static final String SCHEMA = "catalog_search_test";
+
+	private SingleConnectionDataSource dataSource;
+	private JdbcTemplate jdbcTemplate;
+
+	@BeforeEach
+	void setUp() {
+		String url = System.getenv("TENANT_TEST_JDBC_URL");
+		String username = System.getenv().getOrDefault("TENANT_TEST_USERNAME", "postgres");
+		String password = System.getenv().getOrDefault("TENANT_TEST_PASSWORD", "postgres");
+		dataSource = new SingleConnectionDataSource(url, username, password, true);
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+
+		Flyway.configure()
+				.dataSource(dataSource)
+				.locations("classpath:db/migration")
+				.schemas(SCHEMA)
+				.createSchemas(true)
+				.load()
+				.migrate();
+		jdbcTemplate.execute("SET search_path TO " + SCHEMA + ", public");
+
+		jdbcTemplate.update("INSERT INTO authors (id, name) VALUES (1, 'Frank Herbert'), (2, 'George Orwell')");
+		for (int id = 1; id <= 5; id++) {
+			jdbcTemplate.update("INSERT INTO books (id, title, author_id, genre) VALUES (?, ?, 1, 'Science Fiction')",
+					id, "Dune part " + id);
+		}
+		jdbcTemplate.update("INSERT INTO books (id, title, author_id, genre) VALUES "
+				+ "(6, 'Nineteen Eighty-Four', 2, 'Dystopian'), (7, 'Animal Farm', 2, 'Satire')");
+	}
+
+	@AfterEach
+	void tearDown() {
+		jdbcTemplate.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+		dataSource.destroy();
+	}
+
+	@Test
+	void fullText_ShouldMatchTitlesAndAuthorNames() {
+		assertEquals(List.of(6L), ids(false, "eighty", 1000, 10));
+		assertEquals(List.of(6L, 7L), ids(false, "orwell", 1000, 10));
+	}
+
+	@Test
+	void fullText_ShouldRankTheSameNewestCandidatesOnEveryRequest() {
+		// When
+		List<Long> first = ids(false, "dune", 3, 10);
+		List<Long> second = ids(false, "dune", 3, 10);
+
+		// Then
+		assertEquals(List.of(3L, 4L, 5L), first);
+		assertEquals(first, second);
+	}
+
+	@Test
+	void fullText_AfterTheLastHit_ShouldContinueWithoutOverlap() {
+		// Given
+		List<Object[]> firstPage = hits(CatalogSearchService.sql(false, false), params("dune", 4, 2));
+
+		// When
+		Object[] last = firstPage.get(firstPage.size() - 1);
+		List<Object[]> secondPage = hits(CatalogSearchService.sql(false, true), params("dune", 4, 10)
+				.addValue("rank", ((Number) last[1]).doubleValue())
+				.addValue("id", ((Number) last[0]).longValue()));
+
+		// Then
+		assertEquals(List.of(2L, 3L), idsOf(firstPage));
+		assertEquals(List.of(4L, 5L), idsOf(secondPage));
+	}
+
+	@Test
+	void fullText_ShouldRankOnlyTheCandidatesButReadEveryMatchToFindThem() throws Exception {
+		// Given: 2000 more title matches, all older than 20000 books that don't match
+		jdbcTemplate.update("INSERT INTO books (id, title, author_id, genre) "
+				+ "SELECT g, 'Dune part ' || g, 1, 'Science Fiction' FROM generate_series(1000, 2999) g");
+		jdbcTemplate.update("INSERT INTO books (id, title, author_id, genre) "
+				+ "SELECT g, 'Unrelated volume ' || g, 2, 'Satire' FROM generate_series(10000, 29999) g");
+		jdbcTemplate.execute("ANALYZE books");
+		jdbcTemplate.execute("ANALYZE authors");
+
+		// When
+		String plan = new NamedParameterJdbcTemplate(jdbcTemplate).queryForObject(
+				"EXPLAIN (ANALYZE, FORMAT JSON) " + CatalogSearchService.sql(false, false), params("dune", 10, 10),
+				String.class);
+		JsonNode titleBranch = titleBranch(new ObjectMapper().readTree(plan).get(0).get("Plan"));
+
+		// Then: the branch hands on 10 candidates, whichever plan found them
+		assertNotNull(titleBranch, plan);
+		assertEquals(10, titleBranch.get("Actual Rows").asLong(), plan);
+		assertTrue(rowsRead(titleBranch) >= 2000, plan);
+	}
+
+	@Test
+	void fuzzy_ShouldForgiveTyposAndKeepTheNewestCandidates() {
+		assertEquals(List.of(7L), ids(true, "Animal Farn", 1000, 10));
+		assertEquals(List.of(4L, 5L), ids(true, "Dune prat", 2, 10));
+	}
+
+	private List<Long> ids(boolean fuzzy, String text, int candidates, int limit) {
+		return idsOf(hits(CatalogSearchService.sql(fuzzy, false), params(text, candidates, limit)));
+	}
+
+	private List<Object[]> hits(String sql, MapSqlParameterSource params) {
+		return new NamedParameterJdbcTemplate(jdbcTemplate).query(sql, params,
+				(rs, row) -> new Object[] { rs.getLong(1), rs.getDouble(2) });
+	}
+
+	private static MapSqlParameterSource params(String text, int candidates, int limit) {
+		return new MapSqlParameterSource()
+				.addValue("q", text)
+				.addValue("candidates", candidates)
+				.addValue("options", "StartSel=<, StopSel=>")
+				.addValue("limit", limit);
+	}
+
+	private static List<Long> idsOf(List<Object[]> hits) {
+		return hits.stream().map(hit -> (Long) hit[0]).toList();
+	}
+
+	/**
+	 * The Limit node of the title matches: the one reading books only
+	 */
+	private static JsonNode titleBranch(JsonNode node) {
+		if ("Limit".equals(node.path("Node Type").asText()) && relations(node).equals(Set.of("books"))) {
+			return node;
+		}
+		for (JsonNode child : node.path("Plans")) {
+			JsonNode found = titleBranch(child);
+			if (found != null) {
+				return found;
+			}
+		}
+		return null;
+	}
+
+	private static Set<String> relations(JsonNode node) {
+		Set<String> relations = new HashSet<>();
+		if (node.has("Relation Name")) {
+			relations.add(node.get("Relation Name").asText());
+		}
+		node.path("Plans").forEach(child -> relations.addAll(relations(child)));
+		return relations;
+	}
+
+	/**
+	 * Rows the scans below the node returned or threw away
+	 */
+	private static long rowsRead(JsonNode node) {
+		long rows = 0;
+		if (node.path("Node Type").asText().endsWith("Scan")) {
+			rows += (node.path("Actual Rows").asLong() + node.path("Rows Removed by Filter").asLong()
+					+ node.path("Rows Removed by Index Recheck").asLong()) * node.path("Actual Loops").asLong(1);
+		}
+		for (JsonNode child : node.path("Plans")) {
+			rows += rowsRead(child);
+		}
+		return rows;
+	}
+}
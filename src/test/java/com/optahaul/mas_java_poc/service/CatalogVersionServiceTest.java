@@ -0,0 +1,118 @@
+package com.optahaul.mas_java_poc.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.optahaul.mas_java_poc.domain.TableVersion;
+import com.optahaul.mas_java_poc.dto.CreateBookRequest;
+import com.optahaul.mas_java_poc.dto.PageParams;
+import com.optahaul.mas_java_poc.multitenancy.TenantContext;
+
+class CatalogVersionServiceTest extends CatalogDatabaseTest {
+
+	@Autowired
+	private CatalogVersionService catalogVersionService;
+
+	private Long authorId;
+	private Long bookId;
+
+	@BeforeEach
+	void setUp() {
+		authorId = authorService.createAuthor(authorRequest("George Orwell")).getId();
+		bookId = bookService.createBook(book("1984")).getId();
+	}
+
+	@Test
+	void lists_ShouldChangeWithEveryWriteOnly() {
+		// Given
+		ContentVersion before = catalogVersionService.lists();
+
+		// When
+		bookService.getAllBooks(new PageParams());
+		ContentVersion afterRead = catalogVersionService.lists();
+		bookService.createBook(book("Animal Farm"));
+		ContentVersion afterBook = catalogVersionService.lists();
+		authorService.updateAuthor(authorId, authorRequest("Eric Blair"));
+		ContentVersion afterAuthor = catalogVersionService.lists();
+
+		// Then
+		assertTrue(before.etag().startsWith("W/\""));
+		assertNotNull(before.lastModified());
+		assertEquals(before, afterRead);
+		assertNotEquals(afterRead.etag(), afterBook.etag());
+		assertNotEquals(afterBook.etag(), afterAuthor.etag());
+	}
+
+	@Test
+	void book_ShouldChangeWhenTheBookOrItsAuthorChanges() {
+		// Given
+		ContentVersion before = catalogVersionService.book(bookId);
+
+		// When
+		clock.advance(Duration.ofSeconds(1));
+		authorService.updateAuthor(authorId, authorRequest("Eric Blair"));
+		ContentVersion afterRename = catalogVersionService.book(bookId);
+
+		// Then
+		assertTrue(before.etag().startsWith("\""));
+		assertNotEquals(before.etag(), afterRename.etag());
+		assertTrue(afterRename.lastModified().isAfter(before.lastModified()));
+		assertNull(catalogVersionService.book(-1));
+	}
+
+	@Test
+	void author_ShouldChangeWhenItsBooksChange() {
+		// Given
+		ContentVersion before = catalogVersionService.author(authorId);
+
+		// When
+		bookService.deleteBook(bookId);
+		ContentVersion after = catalogVersionService.author(authorId);
+
+		// Then
+		assertNotEquals(before.etag(), after.etag());
+		assertEquals(after, catalogVersionService.author(authorId));
+		assertNull(catalogVersionService.author(-1));
+	}
+
+	@Test
+	void tableVersions_ShouldRiseByOnePerChangeToTheTablesItWrote() {
+		// Given
+		Map<String, Long> before = catalogVersionService.tableVersions();
+
+		// When
+		bookService.createBook(book("Animal Farm"));
+		Map<String, Long> afterBook = catalogVersionService.tableVersions();
+		authorService.updateAuthor(authorId, authorRequest("Eric Blair"));
+		Map<String, Long> afterAuthor = catalogVersionService.tableVersions();
+
+		// Then
+		assertEquals(before.get(TableVersion.BOOKS) + 1, afterBook.get(TableVersion.BOOKS));
+		assertEquals(before.get(TableVersion.AUTHORS), afterBook.get(TableVersion.AUTHORS));
+		assertEquals(afterBook.get(TableVersion.BOOKS), afterAuthor.get(TableVersion.BOOKS));
+		assertEquals(afterBook.get(TableVersion.AUTHORS) + 1, afterAuthor.get(TableVersion.AUTHORS));
+	}
+
+	@Test
+	void etags_ShouldEndWithTheTenantId() {
+		// When
+		ContentVersion company1 = TenantContext.callAs("company1", () -> catalogVersionService.book(bookId));
+		ContentVersion company2 = TenantContext.callAs("company2", () -> catalogVersionService.book(bookId));
+
+		// Then
+		assertTrue(company1.etag().endsWith("@company1\""));
+		assertTrue(company2.etag().endsWith("@company2\""));
+		assertEquals(company1.lastModified(), company2.lastModified());
+		assertFalse(catalogVersionService.lists().etag().contains("@"));
+	}
+
+	private CreateBookRequest book(String title) {
+		return bookRequest(title, authorId, null, null, null);
+	}
+}
@@ -0,0 +1,110 @@
+package com.optahaul.mas_java_poc.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.optahaul.mas_java_poc.dto.PageParams;
+import com.optahaul.mas_java_poc.dto.PageResponse;
+
+class KeysetPagerTest {
+
+	private static final KeysetPager.SortKeys KEYS = KeysetPager.SortKeys.of("id",
+			Map.of("id", Long.class, "title", String.class, "createdAt", LocalDateTime.class));
+
+	// Dates as ISO strings, as Spring Boot configures the application's mapper
+	private final KeysetPager pager = new KeysetPager(Jackson2ObjectMapperBuilder.json()
+			.featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+			.build(), 20, 100);
+
+	@Test
+	void request_WithoutCursor_ShouldStartAtTheFirstRowSortedWithIdTieBreaker() {
+		// When
+		KeysetPager.ScrollRequest request = pager.request(
+				PageParams.builder().sort("title").direction("desc").build(), KEYS);
+
+		// Then
+		assertEquals(ScrollPosition.keyset(), request.position());
+		assertEquals(20, request.limit().max());
+		assertEquals(Sort.by(Sort.Direction.DESC, "title", "id"), request.sort());
+	}
+
+	@Test
+	void nextCursor_ShouldResumeAfterTheLastRowOfThePage() {
+		// Given
+		LocalDateTime created = LocalDateTime.of(2024, 5, 1, 12, 30, 15);
+		KeysetPager.ScrollRequest first = pager.request(PageParams.builder().sort("createdAt").size(2).build(), KEYS);
+		Window<String> window = Window.from(List.of("a", "b"),
+				i -> ScrollPosition.forward(Map.of("createdAt", created, "id", 7L + i)), true);
+
+		// When
+		PageResponse<String> page = pager.page(first, window, String::toUpperCase, () -> 99);
+		KeysetPager.ScrollRequest next = pager.request(PageParams.builder().cursor(page.getNextCursor()).build(), KEYS);
+
+		// Then
+		assertEquals(List.of("A", "B"), page.getItems());
+		assertTrue(page.isHasNext());
+		assertNull(page.getApproximateTotal());
+		assertEquals(Map.of("createdAt", created, "id", 8L), ((KeysetScrollPosition) next.position()).getKeys());
+		assertEquals(Sort.by(Sort.Direction.ASC, "createdAt", "id"), next.sort());
+		assertEquals(20, next.limit().max());
+	}
+
+	@Test
+	void page_OnTheLastPage_ShouldHaveNoCursor() {
+		// Given
+		KeysetPager.ScrollRequest request = pager.request(PageParams.builder().includeTotal(true).build(), KEYS);
+		Window<String> window = Window.from(List.of("a"), i -> ScrollPosition.forward(Map.of("id", 1L)), false);
+
+		// When
+		PageResponse<String> page = pager.page(request, window, s -> s, () -> 1);
+
+		// Then
+		assertFalse(page.isHasNext());
+		assertNull(page.getNextCursor());
+		assertEquals(1L, page.getApproximateTotal());
+	}
+
+	@Test
+	void request_WithOversizedPage_ShouldBeCapped() {
+		assertEquals(100, pager.request(PageParams.builder().size(10_000).build(), KEYS).limit().max());
+		assertThrows(InvalidPageRequestException.class,
+				() -> pager.request(PageParams.builder().size(0).build(), KEYS));
+	}
+
+	@Test
+	void request_WithUnknownSortOrBadCursor_ShouldBeRejected() {
+		KeysetPager.ScrollRequest request = pager.request(PageParams.builder().sort("title").build(), KEYS);
+		Window<String> window = Window.from(List.of("a"),
+				i -> ScrollPosition.forward(Map.of("title", "a", "id", 1L)), true);
+		String cursor = pager.page(request, window, s -> s, () -> 0).getNextCursor();
+
+		assertThrows(InvalidPageRequestException.class,
+				() -> pager.request(PageParams.builder().sort("genre").build(), KEYS));
+		assertThrows(InvalidPageRequestException.class,
+				() -> pager.request(PageParams.builder().direction("sideways").build(), KEYS));
+		assertThrows(InvalidPageRequestException.class,
+				() -> pager.request(PageParams.builder().cursor(cursor).sort("createdAt").build(), KEYS));
+		assertThrows(InvalidPageRequestException.class,
+				() -> pager.request(PageParams.builder().cursor("not-a-cursor").build(), KEYS));
+		assertThrows(InvalidPageRequestException.class,
+				() -> pager.request(PageParams.builder().cursor(encode("{\"s\":\"title\",\"d\":\"asc\","
+						+ "\"k\":{\"title\":\"a\",\"id\":\"x\"}}")).build(), KEYS));
+	}
+
+	private static String encode(String json) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+	}
+}
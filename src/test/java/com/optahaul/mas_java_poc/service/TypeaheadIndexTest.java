@@ -0,0 +1,151 @@
+package com.optahaul.mas_java_poc.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.optahaul.mas_java_poc.dto.BookSuggestion;
+
+class TypeaheadIndexTest {
+
+	private TypeaheadIndex index;
+
+	@BeforeEach
+	void setUp() {
+		index = new TypeaheadIndex();
+		index.load(1, "The Lord of the Rings", 10, "J.R.R. Tolkien");
+		index.load(2, "The Hobbit", 10, "J.R.R. Tolkien");
+		index.load(3, "Lord of the Flies", 20, "William Golding");
+		index.load(4, "Les Misérables", 30, "Victor Hugo");
+		index.compact();
+	}
+
+	@Test
+	void suggest_ShouldMatchWordPrefixesOfTitlesAndAuthors() {
+		assertEquals(List.of(3L, 1L), ids(index.suggest("lord", 10)));
+		assertEquals(List.of(2L, 1L), ids(index.suggest("tolk", 10)));
+		assertEquals(List.of(4L), ids(index.suggest("MISER", 10)));
+		assertEquals(List.of(), ids(index.suggest("ord", 10)));
+	}
+
+	@Test
+	void suggest_WithSeveralWords_ShouldRequireEveryOne() {
+		assertEquals(List.of(1L), ids(index.suggest("lord tolkien", 10)));
+		assertEquals(List.of(1L), ids(index.suggest("the lord of the r", 10)));
+		assertEquals(List.of(), ids(index.suggest("hobbit golding", 10)));
+	}
+
+	@Test
+	void suggest_ShouldRankTitlesStartingWithTheTextFirstAndKeepTheBest() {
+		// Given
+		index.put(5, "A Hobbit Companion", 40, "David Day");
+
+		// When
+		List<BookSuggestion> suggestions = index.suggest("hob", 1);
+
+		// Then
+		assertEquals(1, suggestions.size());
+		assertEquals("The Hobbit", suggestions.get(0).getTitle());
+		assertEquals(List.of(2L, 5L), ids(index.suggest("hob", 10)));
+	}
+
+	@Test
+	void updates_ShouldBeVisibleBeforeAndAfterCompaction() {
+		// When
+		index.put(2, "The Hobbit, or There and Back Again", 10, "J.R.R. Tolkien");
+		index.put(6, "Lord Jim", 50, "Joseph Conrad");
+		index.remove(3);
+		index.renameAuthor(10, "John Ronald Reuel Tolkien");
+		index.removeAuthor(30);
+
+		// Then
+		assertEquals(List.of(6L, 1L), ids(index.suggest("lord", 10)));
+		assertEquals(List.of(), ids(index.suggest("golding", 10)));
+		assertEquals(List.of(), ids(index.suggest("hugo", 10)));
+		assertEquals(List.of(1L, 2L), ids(index.suggest("ronald", 10)));
+		assertEquals(3, index.size());
+
+		index.compact();
+		assertEquals(List.of(6L, 1L), ids(index.suggest("lord", 10)));
+		assertEquals(List.of(1L, 2L), ids(index.suggest("ronald", 10)));
+		assertEquals("The Hobbit, or There and Back Again", index.suggest("back", 10).get(0).getTitle());
+		assertEquals(3, index.size());
+	}
+
+	@Test
+	void manyUpdates_ShouldCompactAutomatically() {
+		// When
+		for (int i = 0; i < 5000; i++) {
+			index.put(100 + i % 50, "Volume " + i, 60, "Anonymous");
+		}
+
+		// Then
+		assertEquals(54, index.size());
+		assertEquals(List.of(149L), ids(index.suggest("volume 4999", 10)));
+		long before = index.estimatedBytes();
+		index.compact();
+		assertTrue(index.estimatedBytes() < before);
+		assertEquals(List.of(149L), ids(index.suggest("volume 4999", 10)));
+	}
+
+	@Test
+	void writesDuringACompaction_ShouldSurviveIt() throws Exception {
+		// Given: each writer has books of its own, so the last write to each is known
+		String[] writers = { "alpha", "bravo", "charlie", "delta" };
+		int rounds = 3000;
+		ExecutorService executor = Executors.newFixedThreadPool(writers.length);
+		List<Future<?>> writing = new ArrayList<>();
+
+		// When
+		for (int w = 0; w < writers.length; w++) {
+			int writer = w;
+			writing.add(executor.submit(() -> {
+				for (int i = 0; i < rounds; i++) {
+					long bookId = 1000 + writer * 100 + i % 100;
+					if (i % 7 == 0) {
+						index.remove(bookId);
+					} else {
+						index.put(bookId, "Edition " + writers[writer] + " " + i, 70 + writer, "Writer");
+					}
+				}
+			}));
+		}
+		while (writing.stream().anyMatch(future -> !future.isDone())) {
+			index.compact();
+			index.suggest("edition", 5);
+		}
+		for (Future<?> future : writing) {
+			future.get();
+		}
+		executor.shutdown();
+
+		// Then
+		int live = 4;
+		for (int w = 0; w < writers.length; w++) {
+			for (int k = 0; k < 100; k++) {
+				int last = rounds - 100 + k;
+				List<Long> found = ids(index.suggest("edition " + writers[w] + " " + last, 10));
+				if (last % 7 == 0) {
+					assertEquals(List.of(), found);
+				} else {
+					assertEquals(List.of(1000L + w * 100 + k), found);
+					live++;
+				}
+			}
+		}
+		assertEquals(live, index.size());
+		index.compact();
+		assertEquals(live, index.size());
+	}
+
+	private static List<Long> ids(List<BookSuggestion> suggestions) {
+		return suggestions.stream().map(BookSuggestion::getBookId).toList();
+	}
+}
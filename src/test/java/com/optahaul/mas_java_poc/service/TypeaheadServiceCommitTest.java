@@ -0,0 +1,73 @@
+package com.optahaul.mas_java_poc.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.optahaul.mas_java_poc.dto.BookSuggestion;
+
+/**
+ * The index follows writes once they commit, through the application's own
+ * event wiring
+ */
+class TypeaheadServiceCommitTest extends CatalogDatabaseTest {
+
+	@Autowired
+	private TypeaheadService typeaheadService;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private Long authorId;
+
+	@BeforeEach
+	void setUp() {
+		// Other tests empty the tables behind the index's back
+		typeaheadService.onCatalogChanged(CatalogChangedEvent.reloaded(null));
+		authorId = authorService.createAuthor(authorRequest("Ursula K. Le Guin")).getId();
+		bookService.createBook(bookRequest("A Wizard of Earthsea", authorId, null, null, null));
+	}
+
+	@Test
+	void write_ShouldBeSuggestedOnlyOnceCommitted() {
+		// Given
+		assertEquals(List.of("A Wizard of Earthsea"), titles("earth"));
+
+		// When
+		List<String> inside = new TransactionTemplate(transactionManager).execute(status -> {
+			bookService.createBook(bookRequest("The Tombs of Atuan", authorId, null, null, null));
+			return titles("tombs");
+		});
+
+		// Then
+		assertEquals(List.of(), inside);
+		assertEquals(List.of("The Tombs of Atuan"), titles("tombs"));
+	}
+
+	@Test
+	void rolledBackWrite_ShouldNeverBeSuggested() {
+		// Given
+		assertEquals(List.of("A Wizard of Earthsea"), titles("wiz"));
+
+		// When
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			bookService.createBook(bookRequest("The Farthest Shore", authorId, null, null, null));
+			authorService.updateAuthor(authorId, authorRequest("Ursula Le Guin"));
+			status.setRollbackOnly();
+		});
+
+		// Then
+		assertEquals(List.of(), titles("farthest"));
+		assertEquals(List.of("A Wizard of Earthsea"), titles("ursula k"));
+	}
+
+	private List<String> titles(String text) {
+		return typeaheadService.suggest(text, 10).stream().map(BookSuggestion::getTitle).toList();
+	}
+}
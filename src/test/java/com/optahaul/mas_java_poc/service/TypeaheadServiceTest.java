@@ -0,0 +1,221 @@
+package com.optahaul.mas_java_poc.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.unit.DataSize;
+
+import com.optahaul.mas_java_poc.domain.TableVersion;
+import com.optahaul.mas_java_poc.dto.BookSuggestion;
+import com.optahaul.mas_java_poc.multitenancy.TenantChangedEvent;
+import com.optahaul.mas_java_poc.multitenancy.TenantContext;
+import com.optahaul.mas_java_poc.repository.BookRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.Tuple;
+
+class TypeaheadServiceTest {
+
+	private final BookRepository bookRepository = mock(BookRepository.class);
+	private final CatalogVersionService catalogVersionService = mock(CatalogVersionService.class);
+	private final AtomicLong ticker = new AtomicLong();
+	private final AtomicLong booksPerTenant = new AtomicLong(10);
+
+	@BeforeEach
+	void setUp() {
+		// Each tenant has books 1..n titled after it
+		when(bookRepository.streamAllForExport()).thenAnswer(invocation -> IntStream
+				.rangeClosed(1, (int) booksPerTenant.get())
+				.mapToObj(id -> row(id, TenantContext.getCurrentTenant() + " volume " + id)));
+		versions(1, 1);
+	}
+
+	@Test
+	void suggest_ShouldBuildOneIndexPerTenantOnFirstUse() {
+		// Given
+		TypeaheadService service = service(DataSize.ofMegabytes(10));
+
+		// When
+		List<BookSuggestion> first = suggestAs(service, "company1", "company1 volume 7");
+		suggestAs(service, "company1", "volume");
+		List<BookSuggestion> other = suggestAs(service, "company2", "company1");
+
+		// Then
+		assertEquals(List.of(7L), ids(first));
+		assertEquals(List.of(), ids(other));
+		assertEquals(Set.of("company1", "company2"), service.indexedTenants());
+		verify(bookRepository, times(2)).streamAllForExport();
+	}
+
+	@Test
+	void onCatalogChanged_ShouldUpdateBuiltIndexesOnlyAndWeighThemAgain() {
+		// Given
+		TypeaheadService service = service(DataSize.ofMegabytes(10));
+		suggestAs(service, "company1", "volume");
+		long before = service.indexedKilobytes();
+
+		// When
+		for (long id = 100; id < 3100; id++) {
+			service.onCatalogChanged(new CatalogChangedEvent("company1", CatalogChangedEvent.Change.BOOK_SAVED, id,
+					"Added volume " + id, 2L, "Someone Else"));
+		}
+		service.onCatalogChanged(new CatalogChangedEvent("company1", CatalogChangedEvent.Change.BOOK_DELETED, 3L,
+				null, null, null));
+		service.onCatalogChanged(new CatalogChangedEvent("company2", CatalogChangedEvent.Change.BOOK_SAVED, 1L,
+				"Never built", 2L, "Someone Else"));
+
+		// Then
+		assertEquals(List.of(3099L), ids(suggestAs(service, "company1", "added 3099")));
+		assertEquals(List.of(), ids(suggestAs(service, "company1", "company1 volume 3")));
+		assertTrue(service.indexedKilobytes() > before);
+		assertEquals(Set.of("company1"), service.indexedTenants());
+		verify(bookRepository, times(1)).streamAllForExport();
+	}
+
+	@Test
+	void indexes_BeyondMaxMemory_ShouldEvictTheLeastUsedTenant() {
+		// Given: room for one index of 2000 books but not two
+		booksPerTenant.set(2000);
+		TypeaheadService measured = service(DataSize.ofMegabytes(10));
+		suggestAs(measured, "company1", "volume");
+		long kilobytes = measured.indexedKilobytes();
+		TypeaheadService service = service(DataSize.ofKilobytes(kilobytes * 3 / 2));
+		for (int i = 0; i < 5; i++) {
+			suggestAs(service, "company1", "volume " + i);
+		}
+
+		// When
+		suggestAs(service, "company2", "volume");
+
+		// Then
+		assertEquals(Set.of("company1"), service.indexedTenants());
+		assertTrue(service.indexedKilobytes() <= kilobytes * 3 / 2);
+	}
+
+	@Test
+	void indexes_IdleForTheInactiveTtl_ShouldBeDropped() {
+		// Given
+		TypeaheadService service = service(DataSize.ofMegabytes(10));
+		suggestAs(service, "company1", "volume");
+		ticker.addAndGet(Duration.ofMinutes(20).toNanos());
+		suggestAs(service, "company2", "volume");
+
+		// When
+		ticker.addAndGet(Duration.ofMinutes(20).toNanos());
+
+		// Then
+		assertEquals(Set.of("company2"), service.indexedTenants());
+	}
+
+	@Test
+	void refreshChanged_ShouldRebuildOnlyIndexesWhoseCatalogMoved() {
+		// Given: built at books version 1
+		TypeaheadService service = service(DataSize.ofMegabytes(10));
+		suggestAs(service, "company1", "volume");
+
+		// When: unchanged, then written on another node
+		service.refreshChanged();
+		versions(2, 1);
+		booksPerTenant.set(11);
+		service.refreshChanged();
+
+		// Then
+		verify(bookRepository, times(2)).streamAllForExport();
+		assertEquals(List.of(11L), ids(suggestAs(service, "company1", "volume 11")));
+	}
+
+	@Test
+	void refreshChanged_AfterWritesMadeOnThisNode_ShouldKeepTheIndex() {
+		// Given
+		TypeaheadService service = service(DataSize.ofMegabytes(10));
+		suggestAs(service, "company1", "volume");
+
+		// When: a book saved and an author deleted here, which raise books twice and authors once
+		service.onCatalogChanged(new CatalogChangedEvent("company1", CatalogChangedEvent.Change.BOOK_SAVED, 11L,
+				"Added volume", 1L, "Jane Doe"));
+		service.onCatalogChanged(new CatalogChangedEvent("company1", CatalogChangedEvent.Change.AUTHOR_DELETED, null,
+				null, 2L, null));
+		versions(3, 2);
+		service.refreshChanged();
+
+		// Then
+		verify(bookRepository, times(1)).streamAllForExport();
+		assertEquals(List.of(11L), ids(suggestAs(service, "company1", "added")));
+	}
+
+	@Test
+	void refreshChanged_WhenAnotherNodeWroteToo_ShouldRebuild() {
+		// Given
+		TypeaheadService service = service(DataSize.ofMegabytes(10));
+		suggestAs(service, "company1", "volume");
+
+		// When: one book saved here, another on another node
+		service.onCatalogChanged(new CatalogChangedEvent("company1", CatalogChangedEvent.Change.BOOK_SAVED, 11L,
+				"Added volume", 1L, "Jane Doe"));
+		versions(3, 1);
+		booksPerTenant.set(12);
+		service.refreshChanged();
+
+		// Then
+		verify(bookRepository, times(2)).streamAllForExport();
+		assertEquals(List.of(12L), ids(suggestAs(service, "company1", "volume 12")));
+	}
+
+	@Test
+	void invalidations_ShouldDropTheIndexUntilItsNextUse() {
+		// Given
+		TypeaheadService service = service(DataSize.ofMegabytes(10));
+		suggestAs(service, "company1", "volume");
+		suggestAs(service, "company2", "volume");
+
+		// When
+		service.onCatalogChanged(CatalogChangedEvent.reloaded("company1"));
+		service.onTenantChanged(new TenantChangedEvent("company2", TenantChangedEvent.Change.UPDATED));
+
+		// Then
+		assertEquals(Set.of(), service.indexedTenants());
+	}
+
+	private TypeaheadService service(DataSize maxMemory) {
+		return new TypeaheadService(bookRepository, catalogVersionService, mock(PlatformTransactionManager.class),
+				noMeterRegistry(), maxMemory, Duration.ofMinutes(30), 20, ticker::get);
+	}
+
+	private void versions(long books, long authors) {
+		when(catalogVersionService.tableVersions())
+				.thenReturn(Map.of(TableVersion.BOOKS, books, TableVersion.AUTHORS, authors));
+	}
+
+	private static List<BookSuggestion> suggestAs(TypeaheadService service, String tenantId, String text) {
+		return TenantContext.callAs(tenantId, () -> service.suggest(text, 20));
+	}
+
+	private static Tuple row(long id, String title) {
+		Tuple row = mock(Tuple.class);
+		when(row.get("id", Long.class)).thenReturn(id);
+		when(row.get("title", String.class)).thenReturn(title);
+		when(row.get("authorId", Long.class)).thenReturn(1L);
+		when(row.get("authorName", String.class)).thenReturn("Jane Doe");
+		return row;
+	}
+
+	private static List<Long> ids(List<BookSuggestion> suggestions) {
+		return suggestions.stream().map(BookSuggestion::getBookId).toList();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static ObjectProvider<MeterRegistry> noMeterRegistry() {
+		return mock(ObjectProvider.class);
+	}
+}